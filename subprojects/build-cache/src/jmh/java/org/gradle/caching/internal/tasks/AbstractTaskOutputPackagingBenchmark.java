@@ -55,6 +55,8 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         .put("tar.small", new AntTarPacker(2))
         .put("tar.large", new AntTarPacker(64))
         .put("tar.gz", new GzipPacker(new AntTarPacker(4)))
+        .put("tar.gz.commons", new GzipPacker(new CommonsTarPacker(64)))
+        .put("tar.gz.commons.large", new GzipPacker(new CommonsTarPacker(64), 64 * 1024))
         .put("zip", new ZipPacker(4))
         .build();
 
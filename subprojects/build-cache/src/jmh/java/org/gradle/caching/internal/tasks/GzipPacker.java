@@ -24,10 +24,18 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 public class GzipPacker implements Packer {
+    private static final int DEFAULT_BUFFER_SIZE = 512;
+
     private final Packer delegate;
+    private final int bufferSize;
 
     public GzipPacker(Packer delegate) {
+        this(delegate, DEFAULT_BUFFER_SIZE);
+    }
+
+    public GzipPacker(Packer delegate, int bufferSize) {
         this.delegate = delegate;
+        this.bufferSize = bufferSize;
     }
 
     @Override
@@ -35,7 +43,7 @@ public class GzipPacker implements Packer {
         delegate.pack(inputs, new DelegatingDataTarget(output) {
             @Override
             public OutputStream openOutput() throws IOException {
-                return new GZIPOutputStream(super.openOutput());
+                return new GZIPOutputStream(super.openOutput(), bufferSize);
             }
         });
     }
@@ -45,7 +53,7 @@ public class GzipPacker implements Packer {
         delegate.unpack(new DelegatingDataSource(input) {
             @Override
             public InputStream openInput() throws IOException {
-                return new GZIPInputStream(super.openInput());
+                return new GZIPInputStream(super.openInput(), bufferSize);
             }
         }, targetFactory);
     }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Packs and unpacks about 500 MB of output in a few large files, comparing the default buffers of the gzip streams with larger ones.
+ */
+public class TaskOutputPackagingLargeOutputBenchmark extends AbstractTaskOutputPackagingBenchmark {
+    @Param({"tar.gz.commons", "tar.gz.commons.large"})
+    String packer;
+
+    @Param({"direct", "buffered"})
+    String accessor;
+
+    public TaskOutputPackagingLargeOutputBenchmark() {
+        fileCount = 20;
+        minFileSize = 24 * 1024 * 1024;
+        maxFileSize = 26 * 1024 * 1024;
+    }
+
+    @Override
+    protected String getPackerName() {
+        return packer;
+    }
+
+    @Override
+    protected String getAccessorName() {
+        return accessor;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Splits a stream into chunks whose boundaries are determined by the content of the stream, rather than by their offset.
+ *
+ * <p>A boundary is placed where a rolling hash of the preceding bytes matches a pattern, so inserting or removing bytes only changes the chunks
+ * around the change. Two streams that share a large part of their content therefore share most of their chunks, regardless of where in the
+ * stream that content lives.</p>
+ */
+class ContentDefinedChunker {
+    static final int MIN_CHUNK_SIZE = 16 * 1024;
+    static final int MAX_CHUNK_SIZE = 256 * 1024;
+    // The number of bits of the hash that have to be zero at a boundary, making the average chunk size 64KB
+    private static final long BOUNDARY_MASK = 0xffffL << 48;
+    // The rolling hash only depends on this many of the preceding bytes
+    private static final int WINDOW_SIZE = 64;
+    // Changing the seed changes all boundaries, which does not break existing entries but stops them from sharing chunks with new ones
+    private static final long GEAR_SEED = 0x6772616467656cL;
+    private static final long[] GEAR = createGear();
+
+    interface ChunkVisitor {
+        void visitChunk(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    private final byte[] buffer = new byte[MAX_CHUNK_SIZE];
+
+    /**
+     * Reads the given stream to its end, passing each chunk to the given visitor. The buffer passed to the visitor is reused for the next chunk.
+     */
+    public void chunk(InputStream input, ChunkVisitor visitor) throws IOException {
+        int length = 0;
+        boolean endOfInput = false;
+        while (true) {
+            while (!endOfInput && length < buffer.length) {
+                int read = input.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    length += read;
+                }
+            }
+            if (length == 0) {
+                return;
+            }
+            int boundary = findBoundary(buffer, length);
+            visitor.visitChunk(buffer, 0, boundary);
+            System.arraycopy(buffer, boundary, buffer, 0, length - boundary);
+            length -= boundary;
+        }
+    }
+
+    private static int findBoundary(byte[] buffer, int length) {
+        if (length <= MIN_CHUNK_SIZE) {
+            return length;
+        }
+        long hash = 0;
+        for (int i = MIN_CHUNK_SIZE - WINDOW_SIZE; i < length; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xff];
+            if (i >= MIN_CHUNK_SIZE && (hash & BOUNDARY_MASK) == 0) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    private static long[] createGear() {
+        // The sequence of java.util.Random is specified, so every process places the boundaries at the same positions
+        Random random = new Random(GEAR_SEED);
+        long[] gear = new long[256];
+        for (int i = 0; i < gear.length; i++) {
+            gear[i] = random.nextLong();
+        }
+        return gear;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closer;
+import com.google.common.io.Files;
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.PersistentCache;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.resource.local.LocallyAvailableResource;
+import org.gradle.internal.resource.local.PathKeyFileStore;
+import org.gradle.util.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A {@link DirectoryBuildCacheService} that stores the content of entries only once.
+ *
+ * <p>Each entry is split into chunks by {@link ContentDefinedChunker}. The chunks are stored in the cache directory, named after the hash of their
+ * content, and are shared by all entries that contain them. For each entry, only a small manifest listing its chunks is stored under its key.
+ * Entries of tasks whose outputs differ only slightly, such as the classes compiled from sources with a single change, then take up little more
+ * space than a single entry. This works best when entries are not compressed, as compression spreads a small change over the rest of the entry.</p>
+ *
+ * <p>Chunks are written to a temporary file and moved into place, so they can be shared without further locking. Every time an entry is loaded or
+ * stored, its chunks are marked as recently used along with the manifest. A chunk is therefore never older than the manifests that refer to it,
+ * and is only removed by cache cleanup together with them.</p>
+ */
+public class DeduplicatingDirectoryBuildCacheService extends DirectoryBuildCacheService {
+    static final String MANIFEST_SUFFIX = ".manifest";
+    static final String CHUNK_SUFFIX = ".chunk";
+    private static final String MANIFEST_HEADER = "chunks-1";
+
+    private final PathKeyFileStore fileStore;
+    private final BuildCacheTempFileStore tempFileStore;
+    private final File baseDir;
+
+    public DeduplicatingDirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, String failedFileSuffix) {
+        super(fileStore, persistentCache, tempFileStore, failedFileSuffix);
+        this.fileStore = fileStore;
+        this.tempFileStore = tempFileStore;
+        this.baseDir = persistentCache.getBaseDir();
+    }
+
+    @Override
+    protected void loadInsideLock(BuildCacheKey key, final Action<? super File> reader) {
+        LocallyAvailableResource resource = fileStore.get(key.getHashCode() + MANIFEST_SUFFIX);
+        if (resource == null) {
+            return;
+        }
+
+        final File manifest = resource.getFile();
+        final List<File> chunks;
+        try {
+            chunks = readManifest(manifest);
+        } catch (Exception e) {
+            moveAside(manifest);
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        if (chunks == null) {
+            return;
+        }
+        touch(manifest);
+        for (File chunk : chunks) {
+            touch(chunk);
+        }
+
+        tempFileStore.withTempFile(key, new Action<File>() {
+            @Override
+            public void execute(File file) {
+                try {
+                    assemble(chunks, file);
+                    reader.execute(file);
+                } catch (Exception e) {
+                    moveAside(manifest);
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the chunks listed in the given manifest, or null when some of them are missing.
+     */
+    @Nullable
+    private List<File> readManifest(File manifest) {
+        try {
+            BufferedReader reader = Files.newReader(manifest, Charsets.UTF_8);
+            try {
+                String header = reader.readLine();
+                if (!MANIFEST_HEADER.equals(header)) {
+                    throw new IllegalStateException("Build cache entry manifest " + manifest + " has an unsupported format: " + header);
+                }
+                List<File> chunks = Lists.newArrayList();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    File chunk = chunkFile(line);
+                    if (!chunk.isFile()) {
+                        return null;
+                    }
+                    chunks.add(chunk);
+                }
+                return chunks;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void assemble(List<File> chunks, File file) throws IOException {
+        OutputStream output = new FileOutputStream(file);
+        try {
+            for (File chunk : chunks) {
+                Files.copy(chunk, output);
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    @Override
+    protected void storeInsideLock(final BuildCacheKey key, final File file) {
+        tempFileStore.withTempFile(key, new Action<File>() {
+            @Override
+            public void execute(File manifest) {
+                try {
+                    writeChunksAndManifest(file, manifest);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                fileStore.move(key.getHashCode() + MANIFEST_SUFFIX, manifest);
+            }
+        });
+    }
+
+    private void writeChunksAndManifest(File file, File manifest) throws IOException {
+        Closer closer = Closer.create();
+        try {
+            FileInputStream input = closer.register(new FileInputStream(file));
+            final BufferedWriter writer = closer.register(Files.newWriter(manifest, Charsets.UTF_8));
+            writer.write(MANIFEST_HEADER);
+            writer.newLine();
+            new ContentDefinedChunker().chunk(input, new ContentDefinedChunker.ChunkVisitor() {
+                @Override
+                public void visitChunk(byte[] buffer, int offset, int length) throws IOException {
+                    Hasher hasher = Hashing.sha1().newHasher();
+                    hasher.putBytes(buffer, offset, length);
+                    String hash = hasher.hash().toString();
+                    writeChunk(hash, buffer, offset, length);
+                    writer.write(hash);
+                    writer.newLine();
+                }
+            });
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    private void writeChunk(String hash, byte[] buffer, int offset, int length) throws IOException {
+        File chunk = chunkFile(hash);
+        if (chunk.isFile()) {
+            touch(chunk);
+            return;
+        }
+        File tempFile = File.createTempFile(hash + "-", BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX, baseDir);
+        try {
+            OutputStream output = new FileOutputStream(tempFile);
+            try {
+                output.write(buffer, offset, length);
+            } finally {
+                output.close();
+            }
+            // Another thread or process may have written the same chunk in the meantime, which is fine as its content is the same
+            if (!tempFile.renameTo(chunk) && !chunk.isFile()) {
+                throw new IOException("Could not move " + tempFile + " to " + chunk);
+            }
+        } finally {
+            GFileUtils.deleteQuietly(tempFile);
+        }
+    }
+
+    private File chunkFile(String hash) {
+        return new File(baseDir, hash + CHUNK_SUFFIX);
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.caching.local.internal;
 
 import com.google.common.io.Closer;
+import com.google.common.util.concurrent.Striped;
 import org.gradle.api.Action;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.cache.PersistentCache;
@@ -37,16 +38,25 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.attribute.FileTime;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * A {@link BuildCacheService} that stores entries in a local directory.
+ *
+ * <p>Loads and stores of the same entry are serialized within this process, while loads and stores of unrelated entries can happen concurrently.
+ * The entries are split into a fixed number of shards by their key, each guarded by its own lock.</p>
+ *
+ * <p>Other processes are locked out using the file lock of the cache. The cache is opened without a lock, so the exclusive file lock is acquired on demand
+ * and reference counted across the threads of this process. It is only released when no thread is using the cache and another process asks for it.</p>
+ */
 public class DirectoryBuildCacheService implements LocalBuildCacheService, BuildCacheService {
 
     private final PathKeyFileStore fileStore;
     private final PersistentCache persistentCache;
     private final BuildCacheTempFileStore tempFileStore;
     private final String failedFileSuffix;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Striped<ReadWriteLock> locks = Striped.readWriteLock(Runtime.getRuntime().availableProcessors() * 4);
 
     public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, String failedFileSuffix) {
         this.fileStore = fileStore;
@@ -96,17 +106,18 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
         persistentCache.withFileLock(new Runnable() {
             @Override
             public void run() {
-                lock.readLock().lock();
+                Lock readLock = lockFor(key).readLock();
+                readLock.lock();
                 try {
                     loadInsideLock(key, reader);
                 } finally {
-                    lock.readLock().unlock();
+                    readLock.unlock();
                 }
             }
         });
     }
 
-    private void loadInsideLock(BuildCacheKey key, Action<? super File> reader) {
+    protected void loadInsideLock(BuildCacheKey key, Action<? super File> reader) {
         LocallyAvailableResource resource = fileStore.get(key.getHashCode());
         if (resource == null) {
             return;
@@ -118,17 +129,22 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
         try {
             reader.execute(file);
         } catch (Exception e) {
-            // Try to move the file out of the way in case its permanently corrupt
-            // Don't delete, so that it can be potentially used for debugging
-            File failedFile = new File(file.getAbsolutePath() + failedFileSuffix);
-            GFileUtils.deleteQuietly(failedFile);
-            //noinspection ResultOfMethodCallIgnored
-            file.renameTo(failedFile);
-
+            moveAside(file);
             throw UncheckedException.throwAsUncheckedException(e);
         }
     }
 
+    /**
+     * Tries to move the given file out of the way in case it is permanently corrupt.
+     */
+    protected void moveAside(File file) {
+        // Don't delete, so that it can be potentially used for debugging
+        File failedFile = new File(file.getAbsolutePath() + failedFileSuffix);
+        GFileUtils.deleteQuietly(failedFile);
+        //noinspection ResultOfMethodCallIgnored
+        file.renameTo(failedFile);
+    }
+
     @Override
     public void store(final BuildCacheKey key, final BuildCacheEntryWriter result) throws BuildCacheException {
         tempFileStore.withTempFile(key, new Action<File>() {
@@ -157,20 +173,25 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
         persistentCache.withFileLock(new Runnable() {
             @Override
             public void run() {
-                lock.writeLock().lock();
+                Lock writeLock = lockFor(key).writeLock();
+                writeLock.lock();
                 try {
                     storeInsideLock(key, file);
                 } finally {
-                    lock.writeLock().unlock();
+                    writeLock.unlock();
                 }
             }
         });
     }
 
-    private void storeInsideLock(BuildCacheKey key, File file) {
+    protected void storeInsideLock(BuildCacheKey key, File file) {
         fileStore.move(key.getHashCode(), file);
     }
 
+    private ReadWriteLock lockFor(BuildCacheKey key) {
+        return locks.get(key.getHashCode());
+    }
+
     @Override
     public void withTempFile(final BuildCacheKey key, final Action<? super File> action) {
         persistentCache.withFileLock(new Runnable() {
@@ -187,7 +208,7 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     }
 
     @SuppressWarnings("Since15")
-    private static void touch(File file) {
+    static void touch(File file) {
         try {
             Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
         } catch (IOException e) {
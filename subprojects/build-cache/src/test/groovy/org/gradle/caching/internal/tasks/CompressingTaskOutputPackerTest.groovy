@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks
+
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.zip.GZIPInputStream
+
+class CompressingTaskOutputPackerTest extends Specification {
+    def readOrigin = Stub(TaskOutputOriginReader)
+    def writeOrigin = Stub(TaskOutputOriginWriter)
+    def content = ("output" * 1000).bytes
+    def delegate = Mock(TaskOutputPacker)
+
+    @Unroll
+    def "can unpack entry packed with #packedWith compression when configured to use #configured"() {
+        def output = new ByteArrayOutputStream()
+
+        when:
+        new CompressingTaskOutputPacker(delegate, packedWith).pack(null, null, output, writeOrigin)
+
+        then:
+        1 * delegate.pack(_, _, _, _) >> { specs, files, OutputStream stream, origin ->
+            stream.write(content)
+            stream.close()
+            null
+        }
+
+        when:
+        def unpacked = null
+        new CompressingTaskOutputPacker(delegate, configured).unpack(null, new ByteArrayInputStream(output.toByteArray()), readOrigin)
+
+        then:
+        1 * delegate.unpack(_, _, _) >> { specs, InputStream stream, origin ->
+            unpacked = stream.bytes
+            null
+        }
+        unpacked == content
+
+        where:
+        [packedWith, configured] << [TaskOutputCompression.values(), TaskOutputCompression.values()].combinations()
+    }
+
+    def "writes gzip compressed entries without a header"() {
+        def output = new ByteArrayOutputStream()
+
+        when:
+        new CompressingTaskOutputPacker(delegate, TaskOutputCompression.GZIP).pack(null, null, output, writeOrigin)
+
+        then:
+        1 * delegate.pack(_, _, _, _) >> { specs, files, OutputStream stream, origin ->
+            stream.write(content)
+            stream.close()
+            null
+        }
+        new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())).bytes == content
+    }
+
+    def "fails to unpack entry with unknown compression"() {
+        def input = new ByteArrayInputStream([(byte) 'G', (byte) 'B', (byte) 'C', (byte) 'E', (byte) 42] as byte[])
+
+        when:
+        new CompressingTaskOutputPacker(delegate, TaskOutputCompression.GZIP).unpack(null, input, readOrigin)
+
+        then:
+        def ex = thrown IllegalStateException
+        ex.message == "Cached result format error, unknown compression: 42"
+        0 * delegate._
+    }
+}
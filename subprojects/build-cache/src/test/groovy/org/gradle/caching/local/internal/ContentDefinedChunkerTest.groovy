@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal
+
+import spock.lang.Specification
+
+import static org.gradle.caching.local.internal.ContentDefinedChunker.MAX_CHUNK_SIZE
+import static org.gradle.caching.local.internal.ContentDefinedChunker.MIN_CHUNK_SIZE
+
+class ContentDefinedChunkerTest extends Specification {
+    def chunker = new ContentDefinedChunker()
+
+    def "splits content into chunks within size bounds"() {
+        def content = randomBytes(3 * 1024 * 1024, 1)
+
+        when:
+        def chunks = chunk(content)
+
+        then:
+        chunks.size() > 1
+        chunks.flatten() == content as List
+        chunks[0..-2].every { it.size() >= MIN_CHUNK_SIZE && it.size() <= MAX_CHUNK_SIZE }
+    }
+
+    def "returns content smaller than the minimum chunk size as a single chunk"() {
+        def content = randomBytes(100, 1)
+
+        expect:
+        chunk(content) == [content as List]
+        chunk(new byte[0]) == []
+    }
+
+    def "inserting content only changes the chunks around the insertion"() {
+        def content = randomBytes(3 * 1024 * 1024, 1)
+        def changed = new ByteArrayOutputStream()
+        changed.write(content, 0, 1024 * 1024)
+        changed.write(randomBytes(100, 2))
+        changed.write(content, 1024 * 1024, content.length - 1024 * 1024)
+
+        when:
+        def original = chunk(content)
+        def modified = chunk(changed.toByteArray())
+
+        then:
+        def shared = original.intersect(modified)
+        shared.size() >= original.size() - 2
+    }
+
+    private List<List<Byte>> chunk(byte[] content) {
+        def chunks = []
+        chunker.chunk(new ByteArrayInputStream(content), new ContentDefinedChunker.ChunkVisitor() {
+            @Override
+            void visitChunk(byte[] buffer, int offset, int length) throws IOException {
+                chunks << (Arrays.copyOfRange(buffer, offset, offset + length) as List)
+            }
+        })
+        return chunks
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        def bytes = new byte[length]
+        new Random(seed).nextBytes(bytes)
+        return bytes
+    }
+}
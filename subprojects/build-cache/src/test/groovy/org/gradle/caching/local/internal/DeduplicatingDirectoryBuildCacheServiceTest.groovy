@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal
+
+import org.gradle.api.UncheckedIOException
+import org.gradle.cache.PersistentCache
+import org.gradle.caching.BuildCacheEntryReader
+import org.gradle.caching.BuildCacheEntryWriter
+import org.gradle.caching.BuildCacheKey
+import org.gradle.internal.resource.local.DefaultPathKeyFileStore
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+@UsesNativeServices
+@CleanupTestDirectory
+class DeduplicatingDirectoryBuildCacheServiceTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def cacheDir = temporaryFolder.createDir("cache")
+    def persistentCache = Mock(PersistentCache) {
+        getBaseDir() >> cacheDir
+        withFileLock(_ as Runnable) >> { Runnable action -> action.run() }
+    }
+    def service = new DeduplicatingDirectoryBuildCacheService(new DefaultPathKeyFileStore(cacheDir), persistentCache, new DefaultBuildCacheTempFileStore(cacheDir), ".failed")
+
+    def "can load stored entry"() {
+        def content = randomBytes(1024 * 1024, 1)
+
+        when:
+        store("1234abcd", content)
+
+        then:
+        load("1234abcd") == content
+        load("5678abcd") == null
+        cacheDir.file("1234abcd" + DeduplicatingDirectoryBuildCacheService.MANIFEST_SUFFIX).isFile()
+    }
+
+    def "stores content shared between entries only once"() {
+        def content = randomBytes(2 * 1024 * 1024, 1)
+        def changed = content.clone()
+        changed[1024 * 1024] = (byte) (changed[1024 * 1024] + 1)
+
+        when:
+        store("1234abcd", content)
+        def sizeOfFirstEntry = sizeOfChunks()
+        store("5678abcd", changed)
+
+        then:
+        load("1234abcd") == content
+        load("5678abcd") == changed
+        sizeOfChunks() < sizeOfFirstEntry * 1.25
+    }
+
+    def "treats entry with missing chunks as a miss"() {
+        when:
+        store("1234abcd", randomBytes(1024 * 1024, 1))
+        chunks()[0].delete()
+
+        then:
+        load("1234abcd") == null
+    }
+
+    def "moves manifest aside when entry cannot be read"() {
+        store("1234abcd", randomBytes(1024, 1))
+
+        when:
+        service.load(key("1234abcd"), new BuildCacheEntryReader() {
+            @Override
+            void readFrom(InputStream input) throws IOException {
+                throw new IOException("Simulated read error")
+            }
+        })
+
+        then:
+        thrown UncheckedIOException
+        cacheDir.file("1234abcd" + DeduplicatingDirectoryBuildCacheService.MANIFEST_SUFFIX + ".failed").isFile()
+        load("1234abcd") == null
+    }
+
+    private void store(String hashCode, byte[] content) {
+        service.store(key(hashCode), new BuildCacheEntryWriter() {
+            @Override
+            void writeTo(OutputStream output) throws IOException {
+                output.write(content)
+            }
+
+            @Override
+            long getSize() {
+                return content.length
+            }
+        })
+    }
+
+    private byte[] load(String hashCode) {
+        byte[] loaded = null
+        service.load(key(hashCode), new BuildCacheEntryReader() {
+            @Override
+            void readFrom(InputStream input) throws IOException {
+                loaded = input.bytes
+            }
+        })
+        return loaded
+    }
+
+    private BuildCacheKey key(String hashCode) {
+        return Stub(BuildCacheKey) {
+            getHashCode() >> hashCode
+        }
+    }
+
+    private List<File> chunks() {
+        return cacheDir.listFiles().findAll { it.name.endsWith(DeduplicatingDirectoryBuildCacheService.CHUNK_SUFFIX) }
+    }
+
+    private long sizeOfChunks() {
+        return chunks().sum { it.length() } as long
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        def bytes = new byte[length]
+        new Random(seed).nextBytes(bytes)
+        return bytes
+    }
+}
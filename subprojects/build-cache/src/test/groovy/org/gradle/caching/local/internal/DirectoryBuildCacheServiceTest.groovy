@@ -20,15 +20,17 @@ import org.gradle.cache.PersistentCache
 import org.gradle.caching.BuildCacheEntryWriter
 import org.gradle.caching.BuildCacheKey
 import org.gradle.internal.resource.local.PathKeyFileStore
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.CleanupTestDirectory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
 import org.junit.Rule
-import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
 
 @UsesNativeServices
 @CleanupTestDirectory
-class DirectoryBuildCacheServiceTest extends Specification {
+class DirectoryBuildCacheServiceTest extends ConcurrentSpec {
     @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
     def cacheDir = temporaryFolder.createDir("cache")
     def fileStore = Mock(PathKeyFileStore)
@@ -68,4 +70,111 @@ class DirectoryBuildCacheServiceTest extends Specification {
         cacheDir.listFiles() as List == []
         1 * key.getHashCode() >> hashCode
     }
+
+    def "load waits for a store of the same entry to complete"() {
+        def fileStore = Stub(PathKeyFileStore) {
+            move(_, _) >> {
+                instant.storing
+                thread.block()
+                instant.stored
+                null
+            }
+            get(_) >> {
+                instant.loaded
+                null
+            }
+        }
+        def service = concurrentService(fileStore)
+        def entryKey = cacheKey("1234abcd")
+
+        when:
+        async {
+            start {
+                service.storeLocally(entryKey, temporaryFolder.file("entry"))
+            }
+            start {
+                thread.blockUntil.storing
+                service.loadLocally(entryKey, {})
+            }
+        }
+
+        then:
+        instant.loaded > instant.stored
+    }
+
+    def "load of an unrelated entry does not wait for a store to complete"() {
+        def fileStore = Stub(PathKeyFileStore) {
+            move(_, _) >> {
+                instant.storing
+                thread.blockUntil.loaded
+                instant.stored
+                null
+            }
+            get(_) >> {
+                instant.loaded
+                null
+            }
+        }
+        def service = concurrentService(fileStore)
+        def storedKey = cacheKey("1234abcd")
+        def loadedKey = keyWithDifferentLock(service, storedKey)
+
+        when:
+        async {
+            start {
+                service.storeLocally(storedKey, temporaryFolder.file("entry"))
+            }
+            start {
+                thread.blockUntil.storing
+                service.loadLocally(loadedKey, {})
+            }
+        }
+
+        then:
+        instant.loaded < instant.stored
+    }
+
+    def "loads of the same entry do not wait for each other"() {
+        def loads = new AtomicInteger()
+        def fileStore = Stub(PathKeyFileStore) {
+            get(_) >> {
+                def load = loads.incrementAndGet()
+                instant."load$load"
+                thread.blockUntil."load${3 - load}"
+                null
+            }
+        }
+        def service = concurrentService(fileStore)
+        def entryKey = cacheKey("1234abcd")
+
+        expect:
+        async {
+            start {
+                service.loadLocally(entryKey, {})
+            }
+            start {
+                service.loadLocally(entryKey, {})
+            }
+        }
+    }
+
+    private DirectoryBuildCacheService concurrentService(PathKeyFileStore fileStore) {
+        def persistentCache = Stub(PersistentCache) {
+            getBaseDir() >> cacheDir
+            withFileLock(_ as Runnable) >> { Runnable action -> action.run() }
+        }
+        return new DirectoryBuildCacheService(fileStore, persistentCache, tempFileStore, ".failed")
+    }
+
+    private BuildCacheKey cacheKey(String hashCode) {
+        return Stub(BuildCacheKey) {
+            getHashCode() >> hashCode
+        }
+    }
+
+    private BuildCacheKey keyWithDifferentLock(DirectoryBuildCacheService service, BuildCacheKey other) {
+        def lock = service.locks.get(other.hashCode)
+        def hashCode = (1..100).collect { "${it}abcd".toString() }.find { !service.locks.get(it).is(lock) }
+        return cacheKey(hashCode)
+    }
 }
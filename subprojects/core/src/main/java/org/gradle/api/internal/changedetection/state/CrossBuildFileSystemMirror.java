@@ -0,0 +1,438 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.gradle.api.Action;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.internal.tasks.execution.TaskOutputChangesListener;
+import org.gradle.initialization.RootBuildLifecycleListener;
+import org.gradle.internal.classpath.CachedJarFileStore;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.file.FileMetadataSnapshot;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.file.DefaultFileHierarchySet;
+import org.gradle.internal.file.FileHierarchySet;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link FileSystemMirror} that retains the state of files between builds, rather than throwing it all away at the end of each build as
+ * {@link DefaultFileSystemMirror} does.
+ *
+ * <p>The root directory of each build is registered with a {@link FileWatcher} once. Any other file or tree is registered when its state is missing,
+ * before the caller calculates it. The changes the watcher reports are applied at the start and at the end of each build, by discarding the state of
+ * the changed files, of the directory trees that contain them and of anything below them. Changes made during a build are treated the same as by
+ * {@link DefaultFileSystemMirror}, that is, only task output changes are noticed. If the watcher reports that it lost events, all state is discarded.
+ * If the watcher fails, this mirror falls back to throwing away all state at the end of each build.</p>
+ *
+ * <p>The watcher reports changes asynchronously, so a change made just before a build starts may not have been reported yet. For this reason, the
+ * state retained from an earlier build is checked against the modification times of the files and directories it describes the first time it is
+ * used in a build, and is discarded if any of them differ or were modified too close to the start of the build that calculated the state.</p>
+ *
+ * <p>The retained state is bounded by the number of files it describes, evicting the least recently used files and trees first. Content snapshots
+ * are cheap to calculate from the retained files and trees, and are thrown away at the end of each build.</p>
+ *
+ * <p>State for files that live in an append-only cache is never watched, and is thrown away at the end of each build.</p>
+ */
+public class CrossBuildFileSystemMirror implements FileSystemMirror, TaskOutputChangesListener, RootBuildLifecycleListener, Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CrossBuildFileSystemMirror.class);
+    // Beyond this number of changes between two builds, it is cheaper to throw everything away
+    private static final int MAX_TRACKED_CHANGES = 10000;
+    // Modification times are only as precise as this on some file systems, so a file modified within this interval of its state being calculated
+    // may have changed again without its modification time changing
+    private static final long FILE_TIMESTAMP_GRANULARITY = 2000;
+
+    private final FileWatcherFactory fileWatcherFactory;
+    private final FileSystem fileSystem;
+    private final FileHierarchySet cachedDirectories;
+    // Maps from interned absolute path for a file to known details for the file.
+    private final Cache<String, Retained<FileSnapshot>> files;
+    private final Map<String, FileSnapshot> cacheFiles = new ConcurrentHashMap<String, FileSnapshot>();
+    // Maps from interned absolute path for a directory to known details for the directory.
+    private final Cache<String, Retained<FileTreeSnapshot>> trees;
+    private final Map<String, FileTreeSnapshot> cacheTrees = new ConcurrentHashMap<String, FileTreeSnapshot>();
+    // Maps from interned absolute path to a snapshot
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
+    private final Map<String, Snapshot> cacheSnapshots = new ConcurrentHashMap<String, Snapshot>();
+
+    // Guards registration with the watcher, which can be slow, separately from the changes reported by the watcher
+    private final Object registrationLock = new Object();
+    private volatile FileWatcher watcher;
+    private volatile FileHierarchySet watchedRoots = DefaultFileHierarchySet.of();
+    private volatile boolean watchingFailed;
+
+    private final Object lock = new Object();
+    private List<String> changes = Lists.newArrayList();
+    private boolean lostChanges;
+
+    private volatile int buildCount;
+    private volatile long buildStartTime = System.currentTimeMillis();
+
+    public CrossBuildFileSystemMirror(List<CachedJarFileStore> fileStores, FileWatcherFactory fileWatcherFactory, FileSystem fileSystem, long maxRetainedFiles) {
+        this.fileWatcherFactory = fileWatcherFactory;
+        this.fileSystem = fileSystem;
+        FileHierarchySet cachedDirectories = DefaultFileHierarchySet.of();
+        for (CachedJarFileStore fileStore : fileStores) {
+            for (File file : fileStore.getFileStoreRoots()) {
+                cachedDirectories = cachedDirectories.plus(file);
+            }
+        }
+        this.cachedDirectories = cachedDirectories;
+        this.files = CacheBuilder.newBuilder().maximumSize(maxRetainedFiles).build();
+        this.trees = CacheBuilder.newBuilder().maximumWeight(maxRetainedFiles).weigher(new Weigher<String, Retained<FileTreeSnapshot>>() {
+            @Override
+            public int weigh(String path, Retained<FileTreeSnapshot> tree) {
+                return tree.value.getDescendants().size() + 1;
+            }
+        }).build();
+    }
+
+    /**
+     * Starts watching the given root directory of a build, so that the files of the build do not need to be registered one at a time.
+     */
+    public void watchRoot(File rootDirectory) {
+        if (!cachedDirectories.contains(rootDirectory.getPath())) {
+            watch(rootDirectory.getPath());
+        }
+    }
+
+    @Nullable
+    @Override
+    public FileSnapshot getFile(String path) {
+        if (cachedDirectories.contains(path)) {
+            return cacheFiles.get(path);
+        }
+        Retained<FileSnapshot> file = files.getIfPresent(path);
+        if (file != null && !verify(file)) {
+            files.invalidate(path);
+            file = null;
+        }
+        if (file == null) {
+            watch(path);
+            return null;
+        }
+        return file.value;
+    }
+
+    @Override
+    public void putFile(FileSnapshot file) {
+        if (cachedDirectories.contains(file.getPath())) {
+            cacheFiles.put(file.getPath(), file);
+        } else {
+            files.put(file.getPath(), retain(file));
+        }
+    }
+
+    @Nullable
+    @Override
+    public Snapshot getContent(String path) {
+        if (cachedDirectories.contains(path)) {
+            return cacheSnapshots.get(path);
+        }
+        return snapshots.get(path);
+    }
+
+    @Override
+    public void putContent(String path, Snapshot snapshot) {
+        if (cachedDirectories.contains(path)) {
+            cacheSnapshots.put(path, snapshot);
+        } else {
+            snapshots.put(path, snapshot);
+        }
+    }
+
+    @Nullable
+    @Override
+    public FileTreeSnapshot getDirectoryTree(String path) {
+        if (cachedDirectories.contains(path)) {
+            return cacheTrees.get(path);
+        }
+        Retained<FileTreeSnapshot> tree = trees.getIfPresent(path);
+        if (tree != null && !verify(tree)) {
+            trees.invalidate(path);
+            tree = null;
+        }
+        if (tree == null) {
+            watch(path);
+            return null;
+        }
+        return tree.value;
+    }
+
+    @Override
+    public void putDirectory(FileTreeSnapshot directory) {
+        if (cachedDirectories.contains(directory.getPath())) {
+            cacheTrees.put(directory.getPath(), directory);
+        } else {
+            trees.put(directory.getPath(), retain(directory));
+        }
+    }
+
+    private <T> Retained<T> retain(T value) {
+        return new Retained<T>(value, buildStartTime, buildCount);
+    }
+
+    /**
+     * Checks state retained from an earlier build against the file system, the first time it is used in this build.
+     */
+    private boolean verify(Retained<?> retained) {
+        int currentBuild = buildCount;
+        if (retained.verifiedInBuild == currentBuild) {
+            return true;
+        }
+        boolean unchanged;
+        try {
+            if (retained.value instanceof FileTreeSnapshot) {
+                unchanged = isUnchanged((FileTreeSnapshot) retained.value, retained.calculatedAfter);
+            } else {
+                unchanged = isUnchanged((FileSnapshot) retained.value, retained.calculatedAfter, false);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not check whether retained state is up-to-date, discarding it.", e);
+            unchanged = false;
+        }
+        if (unchanged) {
+            retained.verifiedInBuild = currentBuild;
+        }
+        return unchanged;
+    }
+
+    private boolean isUnchanged(FileTreeSnapshot tree, long calculatedAfter) {
+        File root = new File(tree.getPath());
+        if (!root.isDirectory() || !isStable(root.lastModified(), calculatedAfter)) {
+            return false;
+        }
+        for (FileSnapshot descendant : tree.getDescendants()) {
+            if (!isUnchanged(descendant, calculatedAfter, true)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isUnchanged(FileSnapshot file, long calculatedAfter, boolean checkDirectoryContents) {
+        File target = new File(file.getPath());
+        switch (file.getType()) {
+            case RegularFile:
+                FileContentSnapshot content = file.getContent();
+                if (!(content instanceof FileHashSnapshot)) {
+                    return false;
+                }
+                FileMetadataSnapshot metadata = fileSystem.stat(target);
+                return metadata.getType() == FileType.RegularFile
+                    && metadata.getLastModified() == ((FileHashSnapshot) content).getLastModified()
+                    && isStable(metadata.getLastModified(), calculatedAfter);
+            case Directory:
+                // Adding or removing an entry changes the modification time of the directory
+                return target.isDirectory() && (!checkDirectoryContents || isStable(target.lastModified(), calculatedAfter));
+            case Missing:
+                return fileSystem.stat(target).getType() == FileType.Missing;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isStable(long lastModified, long calculatedAfter) {
+        return lastModified < calculatedAfter - FILE_TIMESTAMP_GRANULARITY;
+    }
+
+    /**
+     * Starts watching the given path, if not already watched. This happens when the state of the path is missing, before the caller calculates it,
+     * so that any change made while the state is being calculated is reported.
+     */
+    private void watch(String path) {
+        if (watchingFailed || watchedRoots.contains(path)) {
+            return;
+        }
+        synchronized (registrationLock) {
+            if (watchingFailed || watchedRoots.contains(path)) {
+                return;
+            }
+            File file = new File(path);
+            try {
+                if (watcher == null) {
+                    watcher = fileWatcherFactory.watch(new Action<Throwable>() {
+                        @Override
+                        public void execute(Throwable throwable) {
+                            LOGGER.debug("Watching the file system failed, state of files will not be retained between builds.", throwable);
+                            watchingFailed = true;
+                        }
+                    }, new FileWatcherListener() {
+                        @Override
+                        public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                            CrossBuildFileSystemMirror.this.onChange(event);
+                        }
+                    });
+                }
+                watcher.watch(FileSystemSubset.builder().add(file).build());
+                watchedRoots = watchedRoots.plus(file);
+            } catch (IOException e) {
+                LOGGER.debug("Could not watch {}, its state will not be retained between builds.", path, e);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Watching the file system failed, state of files will not be retained between builds.", e);
+                watchingFailed = true;
+            }
+        }
+    }
+
+    private void onChange(FileWatcherEvent event) {
+        File file = event.getFile();
+        if (event.getType() == FileWatcherEvent.Type.UNDEFINED || file == null) {
+            onLostChanges();
+            return;
+        }
+        synchronized (lock) {
+            if (changes.size() < MAX_TRACKED_CHANGES) {
+                changes.add(file.getAbsolutePath());
+            } else {
+                lostChanges = true;
+            }
+        }
+    }
+
+    private void onLostChanges() {
+        synchronized (lock) {
+            lostChanges = true;
+        }
+    }
+
+    private void applyChanges() {
+        FileWatcher currentWatcher = watcher;
+        if (currentWatcher != null && !currentWatcher.isRunning()) {
+            watchingFailed = true;
+        }
+        List<String> changedPaths;
+        boolean discardAll;
+        synchronized (lock) {
+            changedPaths = changes;
+            changes = Lists.newArrayList();
+            discardAll = lostChanges || watchingFailed;
+            lostChanges = false;
+        }
+        if (discardAll) {
+            files.invalidateAll();
+            trees.invalidateAll();
+            return;
+        }
+        if (changedPaths.isEmpty()) {
+            return;
+        }
+
+        // Discard the changed files and anything below them
+        FileHierarchySet changed = DefaultFileHierarchySet.of();
+        for (String path : changedPaths) {
+            changed = changed.plus(new File(path));
+        }
+        discardContainedIn(changed);
+
+        // Discard the directory trees containing the changed files
+        for (String path : changedPaths) {
+            for (File ancestor = new File(path).getParentFile(); ancestor != null; ancestor = ancestor.getParentFile()) {
+                String ancestorPath = ancestor.getPath();
+                files.invalidate(ancestorPath);
+                trees.invalidate(ancestorPath);
+            }
+        }
+    }
+
+    private void discardContainedIn(FileHierarchySet paths) {
+        for (Cache<String, ?> cache : ImmutableList.of(files, trees)) {
+            for (String path : ImmutableList.copyOf(cache.asMap().keySet())) {
+                if (paths.contains(path)) {
+                    cache.invalidate(path);
+                }
+            }
+        }
+    }
+
+    private void discardNotContainedIn(FileHierarchySet paths) {
+        for (Cache<String, ?> cache : ImmutableList.of(files, trees)) {
+            for (String path : ImmutableList.copyOf(cache.asMap().keySet())) {
+                if (!paths.contains(path)) {
+                    cache.invalidate(path);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void beforeTaskOutputChanged() {
+        // When the task outputs are generated, throw away all state for files that do not live in an append-only cache.
+        // This is intentionally very simple, to be improved later
+        files.invalidateAll();
+        trees.invalidateAll();
+        snapshots.clear();
+    }
+
+    @Override
+    public void afterStart() {
+        buildStartTime = System.currentTimeMillis();
+        buildCount++;
+        applyChanges();
+    }
+
+    @Override
+    public void beforeComplete() {
+        applyChanges();
+        // Only keep the state of files that are watched
+        discardNotContainedIn(watchedRoots);
+        snapshots.clear();
+        cacheFiles.clear();
+        cacheTrees.clear();
+        cacheSnapshots.clear();
+    }
+
+    @Override
+    public void stop() {
+        synchronized (registrationLock) {
+            if (watcher != null) {
+                watcher.stop();
+                watcher = null;
+            }
+        }
+    }
+
+    private static class Retained<T> {
+        private final T value;
+        // The start time of the build that calculated the value
+        private final long calculatedAfter;
+        private volatile int verifiedInBuild;
+
+        Retained(T value, long calculatedAfter, int calculatedInBuild) {
+            this.value = value;
+            this.calculatedAfter = calculatedAfter;
+            this.verifiedInBuild = calculatedInBuild;
+        }
+    }
+}
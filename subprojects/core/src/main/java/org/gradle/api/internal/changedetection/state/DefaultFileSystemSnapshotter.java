@@ -20,6 +20,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
@@ -35,16 +36,24 @@ import org.gradle.cache.internal.ProducerGuard;
 import org.gradle.caching.internal.BuildCacheHasher;
 import org.gradle.caching.internal.DefaultBuildCacheHasher;
 import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.file.FileMetadataSnapshot;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.nativeintegration.filesystem.DefaultFileMetadata;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.normalization.internal.InputNormalizationStrategy;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Responsible for snapshotting various aspects of the file system.
@@ -56,8 +65,13 @@ import java.util.List;
  * the same as before (e.g. don't scan the output directory of a task a bunch of times).
  *
  * The implementations are currently intentionally very, very simple, and so there are a number of ways in which they can be made much more efficient. This can happen over time.
+ *
+ * When given an executor, the files of a directory tree are hashed in parallel, in batches handed over by the thread that walks the tree.
  */
-public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
+public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter, Stoppable {
+    private static final int MAX_FILES_PER_BATCH = 100;
+    private static final long MAX_BYTES_PER_BATCH = 4 * 1024 * 1024;
+
     private final FileHasher hasher;
     private final StringInterner stringInterner;
     private final FileSystem fileSystem;
@@ -67,13 +81,23 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
     private final ProducerGuard<String> producingTrees = ProducerGuard.striped();
     private final ProducerGuard<String> producingAllSnapshots = ProducerGuard.striped();
     private final DefaultGenericFileCollectionSnapshotter snapshotter;
+    @Nullable
+    private final ManagedExecutor hashingExecutor;
 
     public DefaultFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror) {
+        this(hasher, stringInterner, fileSystem, directoryFileTreeFactory, fileSystemMirror, null);
+    }
+
+    /**
+     * @param hashingExecutor used to hash the files of directory trees in parallel, or null to hash them on the calling thread.
+     */
+    public DefaultFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror, @Nullable ManagedExecutor hashingExecutor) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.fileSystem = fileSystem;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.fileSystemMirror = fileSystemMirror;
+        this.hashingExecutor = hashingExecutor;
         snapshotter = new DefaultGenericFileCollectionSnapshotter(stringInterner, directoryFileTreeFactory, this);
     }
 
@@ -188,8 +212,7 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
 
     private FileTreeSnapshot snapshotAndCache(DirectoryFileTree directoryTree) {
         String path = internPath(directoryTree.getDir());
-        List<FileSnapshot> elements = Lists.newArrayList();
-        directoryTree.visit(new FileVisitorImpl(elements));
+        List<FileSnapshot> elements = visitDirectoryTree(directoryTree);
         ImmutableList<FileSnapshot> descendants = ImmutableList.copyOf(elements);
         DirectoryTreeDetails snapshot = new DirectoryTreeDetails(path, descendants);
         fileSystemMirror.putDirectory(snapshot);
@@ -202,11 +225,21 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
      */
     private FileTreeSnapshot snapshotWithoutCaching(DirectoryFileTree directoryTree) {
         String path = directoryTree.getDir().getAbsolutePath();
-        List<FileSnapshot> elements = Lists.newArrayList();
-        directoryTree.visit(new FileVisitorImpl(elements));
+        List<FileSnapshot> elements = visitDirectoryTree(directoryTree);
         return new DirectoryTreeDetails(path, elements);
     }
 
+    private List<FileSnapshot> visitDirectoryTree(DirectoryFileTree directoryTree) {
+        if (hashingExecutor == null) {
+            List<FileSnapshot> elements = Lists.newArrayList();
+            directoryTree.visit(new FileVisitorImpl(elements));
+            return elements;
+        }
+        ParallelHashingFileVisitor visitor = new ParallelHashingFileVisitor(hashingExecutor);
+        directoryTree.visit(visitor);
+        return visitor.getElements();
+    }
+
     private FileTreeSnapshot filterSnapshot(FileTreeSnapshot snapshot, PatternSet patterns) {
         if (patterns.isEmpty()) {
             return snapshot;
@@ -248,6 +281,13 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
         return new FileHashSnapshot(hasher.hash(file, fileDetails), fileDetails.getLastModified());
     }
 
+    @Override
+    public void stop() {
+        if (hashingExecutor != null) {
+            hashingExecutor.stop();
+        }
+    }
+
     private static class HashBackedSnapshot implements Snapshot {
         private final HashCode hashCode;
 
@@ -297,4 +337,98 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
             fileTreeElements.add(new RegularFileSnapshot(internPath(fileDetails.getFile()), fileDetails.getRelativePath(), false, fileSnapshot(fileDetails)));
         }
     }
+
+    /**
+     * Walks the tree on the calling thread, and hands the files over to the executor to be hashed in batches. The snapshots keep the order of the walk.
+     * The last batch is hashed on the calling thread, so that small trees do not have to wait for the executor.
+     */
+    private class ParallelHashingFileVisitor implements FileVisitor {
+        private final ManagedExecutor executor;
+        private final List<FileSnapshot> elements = Lists.newArrayList();
+        private final List<HashingBatch> submittedBatches = Lists.newArrayList();
+        private final List<Future<Void>> submittedHashing = Lists.newArrayList();
+        private HashingBatch batch = new HashingBatch();
+
+        ParallelHashingFileVisitor(ManagedExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void visitDir(FileVisitDetails dirDetails) {
+            elements.add(new DirectoryFileSnapshot(internPath(dirDetails.getFile()), dirDetails.getRelativePath(), false));
+        }
+
+        @Override
+        public void visitFile(FileVisitDetails fileDetails) {
+            File file = fileDetails.getFile();
+            FileMetadataSnapshot metadata = DefaultFileMetadata.file(fileDetails.getLastModified(), fileDetails.getSize());
+            batch.add(new PendingFile(elements.size(), internPath(file), fileDetails.getRelativePath(), file, metadata));
+            // Reserve the position of the file, to be filled in once it has been hashed
+            elements.add(null);
+            if (batch.isFull()) {
+                submittedHashing.add(executor.submit(batch));
+                submittedBatches.add(batch);
+                batch = new HashingBatch();
+            }
+        }
+
+        List<FileSnapshot> getElements() {
+            batch.call();
+            batch.addTo(elements);
+            for (int i = 0; i < submittedBatches.size(); i++) {
+                try {
+                    Uninterruptibles.getUninterruptibly(submittedHashing.get(i));
+                } catch (ExecutionException e) {
+                    throw UncheckedException.throwAsUncheckedException(e.getCause());
+                }
+                submittedBatches.get(i).addTo(elements);
+            }
+            return elements;
+        }
+    }
+
+    private class HashingBatch implements Callable<Void> {
+        private final List<PendingFile> files = Lists.newArrayListWithCapacity(MAX_FILES_PER_BATCH);
+        private long length;
+
+        void add(PendingFile file) {
+            files.add(file);
+            length += file.metadata.getLength();
+        }
+
+        boolean isFull() {
+            return files.size() >= MAX_FILES_PER_BATCH || length >= MAX_BYTES_PER_BATCH;
+        }
+
+        @Override
+        public Void call() {
+            for (PendingFile file : files) {
+                file.snapshot = new RegularFileSnapshot(file.path, file.relativePath, false, fileSnapshot(file.file, file.metadata));
+            }
+            return null;
+        }
+
+        void addTo(List<FileSnapshot> elements) {
+            for (PendingFile file : files) {
+                elements.set(file.index, file.snapshot);
+            }
+        }
+    }
+
+    private static class PendingFile {
+        private final int index;
+        private final String path;
+        private final RelativePath relativePath;
+        private final File file;
+        private final FileMetadataSnapshot metadata;
+        private FileSnapshot snapshot;
+
+        PendingFile(int index, String path, RelativePath relativePath, File file, FileMetadataSnapshot metadata) {
+            this.index = index;
+            this.path = path;
+            this.relativePath = relativePath;
+            this.file = file;
+            this.metadata = metadata;
+        }
+    }
 }
@@ -33,6 +33,10 @@ public class FileHashSnapshot implements FileContentSnapshot {
         this.lastModified = lastModified;
     }
 
+    public long getLastModified() {
+        return lastModified;
+    }
+
     public boolean isContentUpToDate(FileContentSnapshot snapshot) {
         if (!(snapshot instanceof FileHashSnapshot)) {
             return false;
@@ -25,6 +25,12 @@ import javax.annotation.Nullable;
 public interface TaskHistoryRepository {
     History getHistory(TaskInternal task, TaskProperties taskProperties);
 
+    /**
+     * Returns the last recorded execution of the given task, or null when the task has not been executed before.
+     */
+    @Nullable
+    HistoricalTaskExecution getPreviousExecution(TaskInternal task);
+
     interface History {
         @Nullable
         HistoricalTaskExecution getPreviousExecution();
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file;
+
+import org.gradle.internal.concurrent.Stoppable;
+
+/**
+ * A file collection whose files are expensive to produce, for example because they need to be downloaded, and that can start producing them in the background.
+ */
+public interface PrefetchableFileCollection extends FileCollectionInternal {
+    /**
+     * Starts producing the files of this collection in the background, so that they are ready when the files are queried. Does not wait for the files to be produced.
+     *
+     * <p>Failures to produce the files are not reported by this method, but when the files are queried.</p>
+     *
+     * @return the prefetch. Stopping it discards the work that has not started yet and waits for the work that is in progress.
+     */
+    Stoppable prefetchFiles();
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.file.FileCollectionInternal;
+import org.gradle.api.internal.file.FileCollectionVisitor;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.PrefetchableFileCollection;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskInputFilePropertySpec;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lets the input files of a task that are expensive to produce, such as resolved dependencies, start being produced in the background
+ * before the inputs are snapshotted. This way the files of all inputs are produced concurrently, instead of one input after the other.
+ * Runs once the task is known to have source files, so that nothing is fetched for a task that is skipped. The prefetches are stopped
+ * once the task has executed, so that no work started for the task outlives its execution.
+ */
+public class PrefetchInputFilesTaskExecuter implements TaskExecuter {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.tasks.prefetchInputFiles";
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchInputFilesTaskExecuter.class);
+
+    private final TaskExecuter delegate;
+
+    public PrefetchInputFilesTaskExecuter(TaskExecuter delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        PrefetchingVisitor visitor = new PrefetchingVisitor();
+        for (TaskInputFilePropertySpec property : context.getTaskProperties().getInputFileProperties()) {
+            FileCollection files = property.getPropertyFiles();
+            if (files instanceof FileCollectionInternal) {
+                try {
+                    ((FileCollectionInternal) files).visitRootElements(visitor);
+                } catch (Exception e) {
+                    // Reported when the inputs are snapshotted
+                    LOGGER.debug("Could not prefetch input files of property '{}' of {}.", property.getPropertyName(), task, e);
+                }
+            }
+        }
+        try {
+            delegate.execute(task, state, context);
+        } finally {
+            visitor.prefetches.stop();
+        }
+    }
+
+    private static class PrefetchingVisitor implements FileCollectionVisitor {
+        private final CompositeStoppable prefetches = new CompositeStoppable();
+
+        @Override
+        public void visitCollection(FileCollectionInternal fileCollection) {
+            if (fileCollection instanceof PrefetchableFileCollection) {
+                prefetches.add(((PrefetchableFileCollection) fileCollection).prefetchFiles());
+            }
+        }
+
+        @Override
+        public void visitTree(FileTreeInternal fileTree) {
+        }
+
+        @Override
+        public void visitDirectoryTree(DirectoryFileTree directoryTree) {
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.caching.internal.tasks;
 
+import com.google.common.base.Joiner;
 import org.gradle.StartParameter;
 import org.gradle.api.NonNullApi;
 import org.gradle.api.internal.GradleInternal;
@@ -44,6 +45,7 @@ import org.gradle.util.GradleVersion;
 import org.gradle.util.Path;
 
 import java.io.File;
+import java.util.Locale;
 
 import static org.gradle.caching.internal.controller.BuildCacheControllerFactory.BuildCacheMode.DISABLED;
 import static org.gradle.caching.internal.controller.BuildCacheControllerFactory.BuildCacheMode.ENABLED;
@@ -53,10 +55,24 @@ import static org.gradle.caching.internal.controller.BuildCacheControllerFactory
 @NonNullApi
 public class BuildCacheTaskServices {
 
+    public static final String COMPRESSION_PROPERTY = "org.gradle.internal.caching.compression";
+
     private static final Path ROOT_BUILD_SRC_PATH = Path.path(":" + BuildSourceBuilder.BUILD_SRC);
 
-    TaskOutputPacker createTaskResultPacker(FileSystem fileSystem, StreamHasher fileHasher, StringInterner stringInterner) {
-        return new GZipTaskOutputPacker(new TarTaskOutputPacker(fileSystem, fileHasher, stringInterner));
+    TaskOutputPacker createTaskResultPacker(FileSystem fileSystem, StreamHasher fileHasher, StringInterner stringInterner, TaskOutputCompression compression) {
+        return new CompressingTaskOutputPacker(new TarTaskOutputPacker(fileSystem, fileHasher, stringInterner), compression);
+    }
+
+    TaskOutputCompression createTaskOutputCompression() {
+        String compression = System.getProperty(COMPRESSION_PROPERTY);
+        if (compression == null) {
+            return TaskOutputCompression.GZIP;
+        }
+        try {
+            return TaskOutputCompression.valueOf(compression.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Unknown build cache compression '%s' set by %s. Supported values are: %s.", compression, COMPRESSION_PROPERTY, Joiner.on(", ").join(TaskOutputCompression.values()).toLowerCase(Locale.ROOT)), e);
+        }
     }
 
     TaskOutputOriginFactory createTaskOutputOriginFactory(
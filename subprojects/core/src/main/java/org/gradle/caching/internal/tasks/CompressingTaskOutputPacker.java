@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.internal.changedetection.state.FileContentSnapshot;
+import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedSet;
+
+/**
+ * Adds compression to the packed task output.
+ *
+ * <p>Entries compressed with gzip are written as a plain gzip stream, as they always have been. Entries using any other compression start with
+ * a header that identifies the compression, followed by the compressed stream. Both kinds of entries can be unpacked regardless of the compression
+ * this packer is configured to use, so that a cache can contain a mix of them.</p>
+ */
+public class CompressingTaskOutputPacker implements TaskOutputPacker {
+    // Cannot be confused with the start of a gzip stream, which is 0x1f 0x8b
+    private static final byte[] HEADER_MAGIC = {'G', 'B', 'C', 'E'};
+    private static final int HEADER_LENGTH = HEADER_MAGIC.length + 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TaskOutputPacker delegate;
+    private final TaskOutputCompression compression;
+
+    public CompressingTaskOutputPacker(TaskOutputPacker delegate, TaskOutputCompression compression) {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    @Override
+    public PackResult pack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputFiles, OutputStream output, TaskOutputOriginWriter writeOrigin) throws IOException {
+        if (compression != TaskOutputCompression.GZIP) {
+            output.write(HEADER_MAGIC);
+            output.write(compression.getId());
+        }
+        OutputStream compressedOutput = compression.compress(output);
+        try {
+            return delegate.pack(propertySpecs, outputFiles, compressedOutput, writeOrigin);
+        } finally {
+            IOUtils.closeQuietly(compressedOutput);
+        }
+    }
+
+    @Override
+    public UnpackResult unpack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) throws IOException {
+        BufferedInputStream bufferedInput = new BufferedInputStream(input, BUFFER_SIZE);
+        InputStream decompressedInput = readHeader(bufferedInput).decompress(bufferedInput);
+        try {
+            return delegate.unpack(propertySpecs, decompressedInput, readOrigin);
+        } finally {
+            IOUtils.closeQuietly(decompressedInput);
+        }
+    }
+
+    private static TaskOutputCompression readHeader(BufferedInputStream input) throws IOException {
+        input.mark(HEADER_LENGTH);
+        byte[] header = new byte[HEADER_LENGTH];
+        int read = IOUtils.read(input, header);
+        if (read == HEADER_LENGTH && Arrays.equals(Arrays.copyOf(header, HEADER_MAGIC.length), HEADER_MAGIC)) {
+            return TaskOutputCompression.forId(header[HEADER_MAGIC.length]);
+        }
+        // No header, this is a gzip stream
+        input.reset();
+        return TaskOutputCompression.GZIP;
+    }
+}
@@ -71,6 +71,12 @@ public class DebuggingTaskOutputCachingBuildCacheKeyBuilder implements TaskOutpu
         delegate.appendOutputPropertyName(propertyName);
     }
 
+    @Override
+    public void appendCompression(TaskOutputCompression compression) {
+        log("compression", compression);
+        delegate.appendCompression(compression);
+    }
+
     @Override
     public TaskOutputCachingBuildCacheKey build() {
         return delegate.build();
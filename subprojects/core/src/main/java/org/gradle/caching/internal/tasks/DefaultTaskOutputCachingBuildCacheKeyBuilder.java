@@ -108,6 +108,12 @@ public class DefaultTaskOutputCachingBuildCacheKeyBuilder implements TaskOutputC
         hasher.putString(propertyName);
     }
 
+    @Override
+    public void appendCompression(TaskOutputCompression compression) {
+        hasher.putString("compression");
+        hasher.putInt(compression.getId());
+    }
+
     @Override
     public TaskOutputCachingBuildCacheKey build() {
         BuildCacheKeyInputs inputs = new BuildCacheKeyInputs(taskClass, classLoaderHash, actionClassLoaderHashes, actionTypes, inputHashes.build(), inputPropertiesLoadedByUnknownClassLoader.build(), outputPropertyNames.build());
@@ -30,9 +30,15 @@ import java.util.SortedSet;
 public class TaskCacheKeyCalculator {
 
     private final boolean buildCacheDebugLogging;
+    private final TaskOutputCompression compression;
 
     public TaskCacheKeyCalculator(boolean buildCacheDebugLogging) {
+        this(buildCacheDebugLogging, TaskOutputCompression.GZIP);
+    }
+
+    public TaskCacheKeyCalculator(boolean buildCacheDebugLogging, TaskOutputCompression compression) {
         this.buildCacheDebugLogging = buildCacheDebugLogging;
+        this.compression = compression;
     }
 
     public TaskOutputCachingBuildCacheKey calculate(TaskInternal task, TaskExecution execution) {
@@ -66,6 +72,12 @@ public class TaskCacheKeyCalculator {
             builder.appendOutputPropertyName(cacheableOutputPropertyName);
         }
 
+        // Entries compressed with anything but gzip cannot be read by older versions, so they must not share a key with gzip entries.
+        // Gzip is left out of the key, so that gzip entries keep the same key as before compression was configurable.
+        if (compression != TaskOutputCompression.GZIP) {
+            builder.appendCompression(compression);
+        }
+
         return builder.build();
     }
 }
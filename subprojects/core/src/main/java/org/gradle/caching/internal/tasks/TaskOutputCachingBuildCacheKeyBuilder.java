@@ -30,6 +30,8 @@ public interface TaskOutputCachingBuildCacheKeyBuilder {
 
     void appendOutputPropertyName(String propertyName);
 
+    void appendCompression(TaskOutputCompression compression);
+
     TaskOutputCachingBuildCacheKey build();
 
     void inputPropertyLoadedByUnknownClassLoader(String propertyName);
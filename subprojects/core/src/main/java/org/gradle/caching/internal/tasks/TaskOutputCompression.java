@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.snappy.FramedSnappyCompressorInputStream;
+import org.apache.commons.compress.compressors.snappy.FramedSnappyCompressorOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compression applied to packed task output. Each compression has a stable identifier, which is recorded in the header of the cache entries
+ * that use it.
+ */
+public enum TaskOutputCompression {
+    /**
+     * Slow, but compresses well. Entries compressed this way are written without a header, so that they can be read by older Gradle versions.
+     */
+    GZIP(0) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+    },
+    /**
+     * No compression, for outputs which are already compressed, such as jars.
+     */
+    STORE(1) {
+        @Override
+        public OutputStream compress(OutputStream output) {
+            return output;
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) {
+            return input;
+        }
+    },
+    /**
+     * Fast, with a lower compression ratio than gzip. Uses the LZ4 frame format.
+     */
+    LZ4(2) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new FramedLZ4CompressorOutputStream(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new FramedLZ4CompressorInputStream(input);
+        }
+    },
+    /**
+     * Fast, with a lower compression ratio than gzip. Uses the Snappy framing format.
+     */
+    SNAPPY(3) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new FramedSnappyCompressorOutputStream(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new FramedSnappyCompressorInputStream(input);
+        }
+    };
+
+    // The JDK default of 512 bytes turns reading or writing a large entry into a very large number of small I/O calls
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int id;
+
+    TaskOutputCompression(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public abstract OutputStream compress(OutputStream output) throws IOException;
+
+    public abstract InputStream decompress(InputStream input) throws IOException;
+
+    public static TaskOutputCompression forId(int id) {
+        for (TaskOutputCompression compression : values()) {
+            if (compression.id == id) {
+                return compression;
+            }
+        }
+        throw new IllegalStateException("Cached result format error, unknown compression: " + id);
+    }
+}
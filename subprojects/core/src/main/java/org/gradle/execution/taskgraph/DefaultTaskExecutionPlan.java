@@ -77,7 +77,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -96,13 +95,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Set<TaskInfo> tasksInUnknownState = new LinkedHashSet<TaskInfo>();
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
-    private final List<TaskInfo> executionQueue = new LinkedList<TaskInfo>();
+    private final ReadyTaskQueue readyTasks = new ReadyTaskQueue();
     private final Map<Project, ResourceLock> projectLocks = Maps.newHashMap();
     private final TaskFailureCollector failureCollector = new TaskFailureCollector();
     private final TaskInfoFactory nodeFactory = new TaskInfoFactory(failureCollector);
     private Spec<? super Task> filter = Specs.satisfyAll();
 
     private TaskFailureHandler failureHandler = new RethrowingFailureHandler();
+    @Nullable
+    private TaskDurationEstimator taskDurationEstimator;
 
     private final BuildCancellationToken cancellationToken;
     private final Set<TaskInfo> runningTasks = Sets.newIdentityHashSet();
@@ -110,7 +111,6 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Map<TaskInfo, TaskMutationInfo> taskMutations = Maps.newIdentityHashMap();
     private final Map<File, String> canonicalizedFileCache = Maps.newIdentityHashMap();
     private final Map<Pair<TaskInfo, TaskInfo>, Boolean> reachableCache = Maps.newHashMap();
-    private final Set<TaskInfo> dependenciesCompleteCache = Sets.newHashSet();
     private final ResourceLockCoordinationService coordinationService;
     private final WorkerLeaseService workerLeaseService;
     private final GradleInternal gradle;
@@ -357,9 +357,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 }
             }
         }
-        executionQueue.clear();
-        executionQueue.addAll(executionPlan.values());
-
+        readyTasks.reset(executionPlan.values(), taskDurationEstimator);
     }
 
     @Override
@@ -525,13 +523,12 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 nodeFactory.clear();
                 entryTasks.clear();
                 executionPlan.clear();
-                executionQueue.clear();
+                readyTasks.clear();
                 projectLocks.clear();
                 failureCollector.clearFailures();
                 taskMutations.clear();
                 canonicalizedFileCache.clear();
                 reachableCache.clear();
-                dependenciesCompleteCache.clear();
                 runningTasks.clear();
                 return FINISHED;
             }
@@ -555,6 +552,14 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         this.failureHandler = handler;
     }
 
+    /**
+     * Starts the ready tasks with the longest estimated chain of dependent tasks first, rather than in execution plan order.
+     * This may delay tasks that should run after other tasks or finalizers that would otherwise run as soon as possible.
+     */
+    public void useTaskDurationEstimator(TaskDurationEstimator taskDurationEstimator) {
+        this.taskDurationEstimator = taskDurationEstimator;
+    }
+
     @Override
     public boolean executeWithTask(final WorkerLease workerLease, final Action<TaskInternal> taskExecution) {
         final AtomicReference<TaskInfo> selected = new AtomicReference<TaskInfo>();
@@ -599,39 +604,40 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     private TaskInfo selectNextTask(final WorkerLease workerLease) {
         final AtomicReference<TaskInfo> selected = new AtomicReference<TaskInfo>();
-        final Iterator<TaskInfo> iterator = executionQueue.iterator();
-        while (iterator.hasNext()) {
-            final TaskInfo taskInfo = iterator.next();
-            if (taskInfo.isReady() && allDependenciesComplete(taskInfo)) {
-                coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
-                    @Override
-                    public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
-                        ResourceLock projectLock = getProjectLock(taskInfo);
-                        TaskMutationInfo taskMutationInfo = getResolvedTaskMutationInfo(taskInfo);
-
-                        // TODO: convert output file checks to a resource lock
-                        if (!projectLock.tryLock() || !workerLease.tryLock() || !canRunWithCurrentlyExecutedTasks(taskInfo, taskMutationInfo)) {
-                            return FAILED;
-                        }
+        for (final TaskInfo taskInfo : readyTasks.getReadyTasks()) {
+            coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+                @Override
+                public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                    ResourceLock projectLock = getProjectLock(taskInfo);
+                    TaskMutationInfo taskMutationInfo = getResolvedTaskMutationInfo(taskInfo);
 
-                        selected.set(taskInfo);
-                        if (taskInfo.allDependenciesSuccessful()) {
-                            recordTaskStarted(taskInfo);
-                            taskInfo.startExecution();
-                        } else {
-                            taskInfo.skipExecution();
-                        }
-                        iterator.remove();
-                        return FINISHED;
+                    // TODO: convert output file checks to a resource lock
+                    if (!projectLock.tryLock() || !workerLease.tryLock() || !canRunWithCurrentlyExecutedTasks(taskInfo, taskMutationInfo)) {
+                        return FAILED;
                     }
-                });
 
-                if (selected.get() != null) {
-                    break;
+                    selected.set(taskInfo);
+                    return FINISHED;
                 }
+            });
+
+            if (selected.get() != null) {
+                break;
             }
         }
-        return selected.get();
+
+        TaskInfo taskInfo = selected.get();
+        if (taskInfo != null) {
+            readyTasks.selected(taskInfo);
+            if (taskInfo.allDependenciesSuccessful()) {
+                recordTaskStarted(taskInfo);
+                taskInfo.startExecution();
+            } else {
+                taskInfo.skipExecution();
+                readyTasks.completed(taskInfo);
+            }
+        }
+        return taskInfo;
     }
 
     private TaskMutationInfo getResolvedTaskMutationInfo(TaskInfo taskInfo) {
@@ -678,19 +684,6 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
-    private boolean allDependenciesComplete(TaskInfo taskInfo) {
-        if (dependenciesCompleteCache.contains(taskInfo)) {
-            return true;
-        }
-
-        boolean dependenciesComplete = taskInfo.allDependenciesComplete();
-        if (dependenciesComplete) {
-            dependenciesCompleteCache.add(taskInfo);
-        }
-
-        return dependenciesComplete;
-    }
-
     private boolean allProjectsLocked() {
         for (ResourceLock lock : projectLocks.values()) {
             if (!lock.isLocked()) {
@@ -908,10 +901,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
 
         taskInfo.finishExecution();
+        readyTasks.completed(taskInfo);
         recordTaskCompleted(taskInfo);
     }
 
-    private static void enforceFinalizerTasks(TaskInfo taskInfo) {
+    private void enforceFinalizerTasks(TaskInfo taskInfo) {
         for (TaskInfo finalizerNode : taskInfo.getFinalizers()) {
             if (finalizerNode.isRequired() || finalizerNode.isMustNotRun()) {
                 enforceWithDependencies(finalizerNode, Sets.<TaskInfo>newHashSet());
@@ -919,7 +913,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
-    private static void enforceWithDependencies(TaskInfo nodeInfo, Set<TaskInfo> enforcedTasks) {
+    private void enforceWithDependencies(TaskInfo nodeInfo, Set<TaskInfo> enforcedTasks) {
         Deque<TaskInfo> candidateNodes = new ArrayDeque<TaskInfo>();
         candidateNodes.add(nodeInfo);
 
@@ -930,7 +924,10 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
                 candidateNodes.addAll(node.getDependencySuccessors());
 
-                if (node.isMustNotRun() || node.isRequired()) {
+                if (node.isMustNotRun()) {
+                    node.enforceRun();
+                    readyTasks.enforced(node);
+                } else if (node.isRequired()) {
                     node.enforceRun();
                 }
             }
@@ -972,12 +969,14 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             // Allow currently executing and enforced tasks to complete, but skip everything else.
             if (taskInfo.isRequired()) {
                 taskInfo.skipExecution();
+                readyTasks.aborted(taskInfo);
                 aborted = true;
             }
 
             // If abortAll is set, also stop enforced tasks.
             if (abortAll && taskInfo.isReady()) {
                 taskInfo.abortExecution();
+                readyTasks.aborted(taskInfo);
                 aborted = true;
             }
         }
@@ -1023,12 +1022,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     private boolean workRemaining() {
-        for (TaskInfo taskInfo : executionQueue) {
-            if (!taskInfo.isComplete()) {
-                return true;
-            }
-        }
-        return false;
+        return readyTasks.hasPendingTasks();
     }
 
     private static class GraphEdge {
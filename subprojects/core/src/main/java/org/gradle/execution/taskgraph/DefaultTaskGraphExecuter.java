@@ -93,6 +93,10 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         taskExecutionPlan.useFailureHandler(handler);
     }
 
+    public void useTaskDurationEstimator(TaskDurationEstimator taskDurationEstimator) {
+        taskExecutionPlan.useTaskDurationEstimator(taskDurationEstimator);
+    }
+
     public void useFilter(Spec<? super Task> filter) {
         this.filter = (Spec<? super Task>) (filter != null ? filter : Specs.SATISFIES_ALL);
         taskExecutionPlan.useFilter(this.filter);
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tracks the number of incomplete dependencies of each task in an execution plan, and keeps the tasks that are ready to execute and whose
+ * dependencies are all complete in a set ordered by their position in the plan. This allows the next task to execute to be selected without
+ * rescanning the whole plan.
+ *
+ * <p>When task durations are available, ready tasks are instead ordered by the estimated duration of the longest chain of tasks that
+ * depend on them, so that tasks on the critical path of the plan are started first.</p>
+ *
+ * <p>Dependencies which are not part of the plan, such as tasks from an included build, complete without any notification. Tasks waiting only
+ * on such dependencies are polled each time the ready tasks are queried.</p>
+ *
+ * <p>This class is not thread-safe. Callers must hold the coordination service state lock.</p>
+ */
+class ReadyTaskQueue {
+    private static final Function<Entry, TaskInfo> TO_TASK_INFO = new Function<Entry, TaskInfo>() {
+        @Override
+        public TaskInfo apply(Entry entry) {
+            return entry.taskInfo;
+        }
+    };
+
+    private final Map<TaskInfo, Entry> entries = Maps.newIdentityHashMap();
+    private final TreeSet<Entry> ready = new TreeSet<Entry>();
+    private final Set<Entry> waitingForExternalDependencies = Sets.newLinkedHashSet();
+    private int pending;
+
+    /**
+     * Starts tracking the given tasks, which must be provided in execution plan order.
+     *
+     * @param durations used to prioritize the tasks on the critical path, or null to keep execution plan order.
+     */
+    public void reset(Collection<TaskInfo> plan, @Nullable TaskDurationEstimator durations) {
+        clear();
+        List<Entry> planEntries = Lists.newArrayListWithCapacity(plan.size());
+        for (TaskInfo taskInfo : plan) {
+            Entry entry = new Entry(taskInfo, planEntries.size());
+            entries.put(taskInfo, entry);
+            planEntries.add(entry);
+        }
+        for (Entry entry : planEntries) {
+            addDependencies(entry, entry.taskInfo.getDependencySuccessors());
+            addDependencies(entry, entry.taskInfo.getMustSuccessors());
+            if (entry.taskInfo.isReady()) {
+                pending++;
+            }
+        }
+        if (durations != null) {
+            calculateRemainingDurations(planEntries, durations);
+        }
+        for (Entry entry : planEntries) {
+            maybeReady(entry);
+        }
+    }
+
+    /**
+     * Dependents always come after their dependencies in the plan, so walking the plan backwards visits each task after all of its dependents.
+     */
+    private static void calculateRemainingDurations(List<Entry> planEntries, TaskDurationEstimator durations) {
+        ListIterator<Entry> iterator = planEntries.listIterator(planEntries.size());
+        while (iterator.hasPrevious()) {
+            Entry entry = iterator.previous();
+            long longestDependentChain = 0;
+            for (Entry dependent : entry.dependents) {
+                longestDependentChain = Math.max(longestDependentChain, dependent.remainingDuration);
+            }
+            // Count each task as taking at least 1ms, so that longer chains win when nothing is known about their tasks
+            entry.remainingDuration = Math.max(1, durations.estimateDuration(entry.taskInfo.getTask())) + longestDependentChain;
+        }
+    }
+
+    private void addDependencies(Entry entry, Iterable<TaskInfo> dependencies) {
+        for (TaskInfo dependency : dependencies) {
+            Entry dependencyEntry = entries.get(dependency);
+            if (dependencyEntry == null) {
+                if (!dependency.isComplete()) {
+                    entry.externalDependencies.add(dependency);
+                }
+                continue;
+            }
+            if (dependencyEntry.dependents.add(entry) && !dependency.isComplete()) {
+                entry.incompleteDependencies++;
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks that are ready to execute and whose dependencies are all complete. When durations were provided, the tasks are ordered
+     * by the estimated duration of the longest chain of tasks that depend on them, longest first, and otherwise in execution plan order.
+     */
+    public Iterable<TaskInfo> getReadyTasks() {
+        Iterator<Entry> iterator = waitingForExternalDependencies.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            Iterator<TaskInfo> dependencies = entry.externalDependencies.iterator();
+            while (dependencies.hasNext()) {
+                if (dependencies.next().isComplete()) {
+                    dependencies.remove();
+                }
+            }
+            if (entry.externalDependencies.isEmpty()) {
+                iterator.remove();
+                ready.add(entry);
+            }
+        }
+        return Iterables.transform(ready, TO_TASK_INFO);
+    }
+
+    /**
+     * Returns true when some task in the plan has not yet been selected for execution and has not been skipped.
+     */
+    public boolean hasPendingTasks() {
+        return pending > 0;
+    }
+
+    /**
+     * Called when the given task has been selected for execution, or to be skipped because a dependency failed.
+     */
+    public void selected(TaskInfo taskInfo) {
+        Entry entry = entries.get(taskInfo);
+        ready.remove(entry);
+        pending--;
+    }
+
+    /**
+     * Called when the given task, previously selected, has completed.
+     */
+    public void completed(TaskInfo taskInfo) {
+        Entry entry = entries.get(taskInfo);
+        for (Entry dependent : entry.dependents) {
+            dependent.incompleteDependencies--;
+            maybeReady(dependent);
+        }
+    }
+
+    /**
+     * Called when the given task, not yet selected, has been skipped because execution was aborted.
+     */
+    public void aborted(TaskInfo taskInfo) {
+        Entry entry = entries.get(taskInfo);
+        ready.remove(entry);
+        waitingForExternalDependencies.remove(entry);
+        pending--;
+        completed(taskInfo);
+    }
+
+    /**
+     * Called when the given task, which was not going to run, has been enforced to run as a finalizer or a dependency of a finalizer.
+     */
+    public void enforced(TaskInfo taskInfo) {
+        Entry entry = entries.get(taskInfo);
+        pending++;
+        for (Entry dependent : entry.dependents) {
+            dependent.incompleteDependencies++;
+            ready.remove(dependent);
+            waitingForExternalDependencies.remove(dependent);
+        }
+        maybeReady(entry);
+    }
+
+    private void maybeReady(Entry entry) {
+        if (entry.incompleteDependencies == 0 && entry.taskInfo.isReady()) {
+            if (entry.externalDependencies.isEmpty()) {
+                ready.add(entry);
+            } else {
+                waitingForExternalDependencies.add(entry);
+            }
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        ready.clear();
+        waitingForExternalDependencies.clear();
+        pending = 0;
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final TaskInfo taskInfo;
+        private final int index;
+        private final Set<Entry> dependents = Sets.newLinkedHashSet();
+        private final List<TaskInfo> externalDependencies = Lists.newArrayList();
+        private int incompleteDependencies;
+        private long remainingDuration;
+
+        Entry(TaskInfo taskInfo, int index) {
+            this.taskInfo = taskInfo;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(@Nonnull Entry other) {
+            if (remainingDuration != other.remainingDuration) {
+                return remainingDuration > other.remainingDuration ? -1 : 1;
+            }
+            return index < other.index ? -1 : (index == other.index ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.HistoricalTaskExecution;
+import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
+import org.gradle.internal.Factory;
+
+/**
+ * Uses the execution time recorded in the task history for the previous execution of a task as the estimate for its next execution.
+ */
+public class TaskHistoryDurationEstimator implements TaskDurationEstimator {
+    // This needs to be lazy, as the task history is not available when the task graph is created
+    private final Factory<? extends TaskHistoryRepository> taskHistoryRepository;
+
+    public TaskHistoryDurationEstimator(Factory<? extends TaskHistoryRepository> taskHistoryRepository) {
+        this.taskHistoryRepository = taskHistoryRepository;
+    }
+
+    @Override
+    public long estimateDuration(TaskInternal task) {
+        HistoricalTaskExecution previousExecution = taskHistoryRepository.create().getPreviousExecution(task);
+        if (previousExecution == null) {
+            return 0;
+        }
+        return previousExecution.getOriginExecutionMetadata().getExecutionTime();
+    }
+}
@@ -21,6 +21,7 @@ import org.gradle.api.internal.InstantiatorFactory;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.changedetection.state.FileSystemSnapshotter;
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory;
+import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.plugins.DefaultPluginManager;
 import org.gradle.api.internal.plugins.ImperativeOnlyPluginTarget;
@@ -51,6 +52,7 @@ import org.gradle.execution.TaskSelector;
 import org.gradle.execution.commandline.CommandLineTaskConfigurer;
 import org.gradle.execution.commandline.CommandLineTaskParser;
 import org.gradle.execution.taskgraph.DefaultTaskGraphExecuter;
+import org.gradle.execution.taskgraph.TaskHistoryDurationEstimator;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.Factory;
@@ -86,6 +88,10 @@ import static java.util.Arrays.asList;
  * Contains the services for a given {@link GradleInternal} instance.
  */
 public class GradleScopeServices extends DefaultServiceRegistry {
+    /**
+     * When set, ready tasks are started in order of the longest chain of dependent tasks, using the execution times recorded in the task history.
+     */
+    private static final String PRIORITIZE_CRITICAL_PATH_PROPERTY = "org.gradle.internal.tasks.prioritizeCriticalPath";
 
     private final CompositeStoppable registries = new CompositeStoppable();
 
@@ -158,7 +164,16 @@ public class GradleScopeServices extends DefaultServiceRegistry {
                 return get(TaskExecuter.class);
             }
         };
-        return new DefaultTaskGraphExecuter(listenerManager, taskPlanExecutor, taskExecuterFactory, cancellationToken, buildOperationExecutor, workerLeaseService, coordinationService, gradleInternal);
+        DefaultTaskGraphExecuter taskGraphExecuter = new DefaultTaskGraphExecuter(listenerManager, taskPlanExecutor, taskExecuterFactory, cancellationToken, buildOperationExecutor, workerLeaseService, coordinationService, gradleInternal);
+        if (Boolean.getBoolean(PRIORITIZE_CRITICAL_PATH_PROPERTY)) {
+            taskGraphExecuter.useTaskDurationEstimator(new TaskHistoryDurationEstimator(new Factory<TaskHistoryRepository>() {
+                @Override
+                public TaskHistoryRepository create() {
+                    return get(TaskHistoryRepository.class);
+                }
+            }));
+        }
+        return taskGraphExecuter;
     }
 
     ServiceRegistryFactory createServiceRegistryFactory(final ServiceRegistry services) {
@@ -23,6 +23,7 @@ import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.CachingFileHasher;
 import org.gradle.api.internal.changedetection.state.ClasspathSnapshotter;
 import org.gradle.api.internal.changedetection.state.CrossBuildFileHashCache;
+import org.gradle.api.internal.changedetection.state.CrossBuildFileSystemMirror;
 import org.gradle.api.internal.changedetection.state.DefaultClasspathSnapshotter;
 import org.gradle.api.internal.changedetection.state.DefaultFileSystemMirror;
 import org.gradle.api.internal.changedetection.state.DefaultFileSystemSnapshotter;
@@ -61,8 +62,10 @@ import org.gradle.internal.classloader.HashingClassLoaderFactory;
 import org.gradle.internal.classpath.CachedClasspathTransformer;
 import org.gradle.internal.classpath.CachedJarFileStore;
 import org.gradle.internal.classpath.DefaultCachedClasspathTransformer;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.file.JarCache;
+import org.gradle.internal.filewatch.FileWatcherFactory;
 import org.gradle.internal.hash.ContentHasherFactory;
 import org.gradle.internal.hash.DefaultFileHasher;
 import org.gradle.internal.hash.FileHasher;
@@ -77,6 +80,7 @@ import org.gradle.internal.remote.MessagingServer;
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.process.internal.ClassDataSharing;
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory;
@@ -89,6 +93,10 @@ import java.util.List;
  * Defines the shared services scoped to a particular Gradle user home directory. These services are reused across multiple builds and operations.
  */
 public class GradleUserHomeScopeServices {
+    public static final String RETAIN_FILE_SYSTEM_STATE_PROPERTY = "org.gradle.internal.filesystem.mirror.retain";
+    public static final String MAX_RETAINED_FILES_PROPERTY = "org.gradle.internal.filesystem.mirror.maxEntries";
+    private static final long DEFAULT_MAX_RETAINED_FILES = 1000000;
+
     private final ServiceRegistry globalServices;
 
     public GradleUserHomeScopeServices(ServiceRegistry globalServices) {
@@ -138,7 +146,12 @@ public class GradleUserHomeScopeServices {
         return new RegistryAwareClassLoaderHierarchyHasher(registry, classLoaderHasher);
     }
 
-    FileSystemMirror createFileSystemMirror(ListenerManager listenerManager, List<CachedJarFileStore> fileStores) {
+    FileSystemMirror createFileSystemMirror(ListenerManager listenerManager, List<CachedJarFileStore> fileStores, FileWatcherFactory fileWatcherFactory, FileSystem fileSystem) {
+        if (Boolean.getBoolean(RETAIN_FILE_SYSTEM_STATE_PROPERTY)) {
+            CrossBuildFileSystemMirror fileSystemMirror = new CrossBuildFileSystemMirror(fileStores, fileWatcherFactory, fileSystem, Long.getLong(MAX_RETAINED_FILES_PROPERTY, DEFAULT_MAX_RETAINED_FILES));
+            listenerManager.addListener(fileSystemMirror);
+            return fileSystemMirror;
+        }
         DefaultFileSystemMirror fileSystemMirror = new DefaultFileSystemMirror(fileStores);
         listenerManager.addListener(fileSystemMirror);
         return fileSystemMirror;
@@ -172,7 +185,8 @@ public class GradleUserHomeScopeServices {
 
     WorkerProcessFactory createWorkerProcessFactory(LoggingManagerInternal loggingManagerInternal, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
                                                     TemporaryFileProvider temporaryFileProvider, JavaExecHandleFactory execHandleFactory, JvmVersionDetector jvmVersionDetector,
-                                                    MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener) {
+                                                    MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener,
+                                                    ClassDataSharing classDataSharing) {
         return new DefaultWorkerProcessFactory(
             loggingManagerInternal,
             messagingServer,
@@ -183,10 +197,15 @@ public class GradleUserHomeScopeServices {
             execHandleFactory,
             jvmVersionDetector,
             outputEventListener,
-            memoryManager
+            memoryManager,
+            classDataSharing
         );
     }
 
+    ClassDataSharing createClassDataSharing(GradleUserHomeDirProvider gradleUserHomeDirProvider, CacheRepository cacheRepository, ExecutorFactory executorFactory) {
+        return new ClassDataSharing(gradleUserHomeDirProvider.getGradleUserHomeDirectory(), cacheRepository, executorFactory);
+    }
+
     ClassPathRegistry createClassPathRegistry(ModuleRegistry moduleRegistry, WorkerProcessClassPathProvider workerProcessClassPathProvider) {
         return new DefaultClassPathRegistry(
             new DefaultClassPathProvider(moduleRegistry),
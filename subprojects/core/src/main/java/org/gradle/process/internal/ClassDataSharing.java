@@ -0,0 +1,283 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.internal.file.IdentityFileResolver;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.FixedAgeOldestCacheCleanup;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.process.ExecResult;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Creates and reuses application class data sharing (AppCDS) archives for the JVMs started by Gradle, so that a new JVM
+ * maps the metadata of the classes it loads at startup from a shared archive instead of loading and verifying each class again.
+ *
+ * <p>An archive is specific to the Java executable and the classpath of the JVM. The first JVMs started for them each record the
+ * classes that they load into a list of their own. Once such a JVM has loaded its classes, the complete lines of its list are copied into
+ * place and the archive is dumped from the copy, either by the recording JVM as it stops or in the background once it has exited. JVMs
+ * started in the meantime neither record nor use an archive, and no JVM waits for a dump to start. When the archive cannot be dumped,
+ * no further attempt is made. The JVM validates the archive itself and ignores it when it does not match, so a stale archive only costs
+ * the sharing.</p>
+ *
+ * <p>Only classpaths made up entirely of jars are shared, as the JVM cannot archive classes loaded from directories. The archives live in
+ * a cache in the Gradle user home, from which archives that have not been used for a while are removed.</p>
+ *
+ * <p>Only Java 10 and later support class data sharing for the application classpath. Java 10 and 11 only archive the classes loaded by
+ * the boot, platform and system class loaders. The classpath of a daemon from a distribution is only the launcher jar, and that of a worker
+ * only the worker bootstrap classes, while most Gradle classes are loaded by Gradle's own class loaders. So the archive mostly covers the
+ * JDK classes that the JVM loads at startup, which Java 12 and later already share by default. The gain is therefore mostly for Java 10
+ * and 11, and limited to the startup of the JVM.</p>
+ */
+public class ClassDataSharing implements Closeable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.classDataSharing";
+    private static final Logger LOGGER = Logging.getLogger(ClassDataSharing.class);
+    private static final String RECORD_CLASS_LIST_ARG = "-XX:DumpLoadedClassList=";
+    private static final String CLASS_LIST = "classes.lst";
+    private static final String RECORDING_CLASS_LIST_SUFFIX = ".lst.part";
+    private static final long MAX_UNUSED_DAYS = 7;
+
+    private final File baseDir;
+    @Nullable
+    private final PersistentCache cache;
+    @Nullable
+    private final ManagedExecutor executor;
+
+    /**
+     * Uses the archives in the given Gradle user home, without managing them. Archives are dumped on the calling thread.
+     */
+    public ClassDataSharing(File gradleUserHomeDir) {
+        this.baseDir = getBaseDir(gradleUserHomeDir);
+        this.cache = null;
+        this.executor = null;
+    }
+
+    /**
+     * Uses the archives in the given Gradle user home, and removes those that have not been used for a while. Archives are dumped in the background.
+     */
+    public ClassDataSharing(File gradleUserHomeDir, CacheRepository cacheRepository, ExecutorFactory executorFactory) {
+        this.baseDir = getBaseDir(gradleUserHomeDir);
+        this.cache = isEnabled() ? cacheRepository
+            .cache(baseDir)
+            .withDisplayName("class data sharing archives")
+            .withLockOptions(mode(FileLockManager.LockMode.None))
+            .withCleanup(new FixedAgeOldestCacheCleanup(MAX_UNUSED_DAYS))
+            .open() : null;
+        this.executor = isEnabled() ? executorFactory.create("Class data sharing archive dump", 1) : null;
+    }
+
+    private static File getBaseDir(File gradleUserHomeDir) {
+        return new File(gradleUserHomeDir, "caches/" + GradleVersion.current().getVersion() + "/class-data-sharing");
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns the JVM arguments that a JVM running the given Java executable with the given classpath should use. Does not dump the archive.
+     * The JVM may append entries to the given classpath, which are not shared.
+     */
+    public List<String> jvmArgsFor(String javaExecutable, JavaVersion javaVersion, Collection<File> classpath) {
+        if (javaVersion == null || !javaVersion.isJava10Compatible() || classpath.isEmpty() || !isJarsOnly(classpath)) {
+            return Collections.emptyList();
+        }
+        File dir = new File(baseDir, HashUtil.createCompactMD5(javaExecutable + File.pathSeparator + Joiner.on(File.pathSeparator).join(classpath)));
+        File classList = new File(dir, CLASS_LIST);
+        File archive = new File(dir, "classes.jsa");
+        File failedMarker = new File(dir, "dump-failed");
+
+        ImmutableList.Builder<String> args = ImmutableList.builder();
+        if (javaVersion.isJava10()) {
+            args.add("-XX:+UseAppCDS");
+        }
+        if (archive.isFile()) {
+            return useArchive(args, dir, archive);
+        }
+        if (failedMarker.exists()) {
+            return Collections.emptyList();
+        }
+        if (classList.isFile()) {
+            // The archive is being dumped by the JVM that completed the list
+            return Collections.emptyList();
+        }
+        GFileUtils.mkdirs(dir);
+        // Each JVM records into a list of its own, as several JVMs may be recording at the same time
+        File recordingClassList = new File(dir, "classes-" + UUID.randomUUID() + RECORDING_CLASS_LIST_SUFFIX);
+        return args.add(RECORD_CLASS_LIST_ARG + recordingClassList.getAbsolutePath()).build();
+    }
+
+    private static List<String> useArchive(ImmutableList.Builder<String> args, File dir, File archive) {
+        // Archives are removed from the cache once they have not been used for a while
+        dir.setLastModified(System.currentTimeMillis());
+        return args.add("-Xshare:auto", "-XX:SharedArchiveFile=" + archive.getAbsolutePath()).build();
+    }
+
+    /**
+     * Dumps the archive from the list of classes recorded by a JVM that was started with the given JVM arguments, on the calling thread.
+     * Can be called by the recording JVM itself once it has loaded its classes, for example as it stops. Does nothing when the JVM did not
+     * record its classes.
+     *
+     * @param javaExecutable the Java executable of the recording JVM.
+     * @param classpath the classpath of the recording JVM.
+     */
+    public static void classListRecorded(List<String> jvmArgs, String javaExecutable, JavaVersion javaVersion, Collection<File> classpath) {
+        for (String arg : jvmArgs) {
+            if (arg.startsWith(RECORD_CLASS_LIST_ARG) && arg.endsWith(RECORDING_CLASS_LIST_SUFFIX)) {
+                File recordingClassList = new File(arg.substring(RECORD_CLASS_LIST_ARG.length()));
+                File dir = recordingClassList.getParentFile();
+                File classList = new File(dir, CLASS_LIST);
+                if (completeClassList(recordingClassList, classList)) {
+                    dump(javaExecutable, javaVersion, classpath, classList, new File(dir, "classes.jsa"), new File(dir, "dump-failed"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Dumps the archive from the list of classes recorded by a JVM that was started with the given JVM arguments and has exited. Does not block.
+     */
+    public void classListRecordedInBackground(final List<String> jvmArgs, final String javaExecutable, final JavaVersion javaVersion, final Collection<File> classpath) {
+        if (executor == null) {
+            classListRecorded(jvmArgs, javaExecutable, javaVersion, classpath);
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                classListRecorded(jvmArgs, javaExecutable, javaVersion, classpath);
+            }
+        });
+    }
+
+    /**
+     * Copies the complete lines of a recorded list into place. The recording JVM may still have the list open and may still be appending to it,
+     * so the list is copied rather than moved and the last line is dropped when it is incomplete.
+     *
+     * @return true when the list was copied into place by this call.
+     */
+    private static boolean completeClassList(File recordingClassList, File classList) {
+        try {
+            if (!recordingClassList.isFile() || classList.exists()) {
+                return false;
+            }
+            byte[] recorded = Files.toByteArray(recordingClassList);
+            int length = recorded.length;
+            while (length > 0 && recorded[length - 1] != '\n') {
+                length--;
+            }
+            if (length == 0) {
+                return false;
+            }
+            File tmpClassList = new File(classList.getParentFile(), CLASS_LIST + "-" + UUID.randomUUID() + ".tmp");
+            try {
+                Files.write(Arrays.copyOf(recorded, length), tmpClassList);
+                return tmpClassList.renameTo(classList);
+            } finally {
+                GFileUtils.deleteQuietly(tmpClassList);
+            }
+        } catch (IOException e) {
+            LOGGER.info("Could not use the list of classes recorded in " + recordingClassList + ".", e);
+            return false;
+        } finally {
+            // Fails while the recording JVM still has the list open on some platforms, in which case the list is removed along with the archive
+            GFileUtils.deleteQuietly(recordingClassList);
+        }
+    }
+
+    private static boolean isJarsOnly(Collection<File> classpath) {
+        for (File file : classpath) {
+            if (!file.isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void dump(String javaExecutable, JavaVersion javaVersion, Collection<File> classpath, File classList, File archive, File failedMarker) {
+        // Dump to a file of our own, as another process may be dumping the same archive
+        File tmpArchive = new File(archive.getParentFile(), archive.getName() + "-" + System.nanoTime() + ".tmp");
+        List<String> args = new ArrayList<String>();
+        if (javaVersion.isJava10()) {
+            args.add("-XX:+UseAppCDS");
+        }
+        args.add("-Xshare:dump");
+        args.add("-XX:SharedClassListFile=" + classList.getAbsolutePath());
+        args.add("-XX:SharedArchiveFile=" + tmpArchive.getAbsolutePath());
+        args.add("-cp");
+        args.add(Joiner.on(File.pathSeparator).join(classpath));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // Not injected, as the dump may run in a JVM whose services have already been stopped
+        DefaultExecActionFactory execActionFactory = new DefaultExecActionFactory(new IdentityFileResolver());
+        try {
+            ExecAction execAction = execActionFactory.newExecAction();
+            execAction.setExecutable(javaExecutable);
+            execAction.args(args);
+            execAction.setStandardOutput(output);
+            execAction.setErrorOutput(output);
+            execAction.setIgnoreExitValue(true);
+            ExecResult result = execAction.execute();
+            if (result.getExitValue() == 0 && tmpArchive.isFile() && (tmpArchive.renameTo(archive) || archive.isFile())) {
+                LOGGER.info("Created class data sharing archive {}.", archive);
+                return;
+            }
+            LOGGER.info("Could not create class data sharing archive {}:\n{}", archive, output);
+        } catch (ExecException e) {
+            LOGGER.info("Could not create class data sharing archive " + archive + ".", e);
+        } finally {
+            execActionFactory.stop();
+            GFileUtils.deleteQuietly(tmpArchive);
+        }
+        GFileUtils.touch(failedMarker);
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.stop();
+        }
+        if (cache != null) {
+            cache.close();
+        }
+    }
+}
@@ -30,6 +30,10 @@ import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
 import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
 import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ClassDataSharing;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.streams.EncodedStream;
 import org.gradle.process.internal.worker.DefaultWorkerProcessBuilder;
@@ -72,12 +76,14 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
     private final TemporaryFileProvider temporaryFileProvider;
     private final JvmVersionDetector jvmVersionDetector;
     private final File gradleUserHomeDir;
+    private final ClassDataSharing classDataSharing;
 
-    public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider, JvmVersionDetector jvmVersionDetector, File gradleUserHomeDir) {
+    public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider, JvmVersionDetector jvmVersionDetector, File gradleUserHomeDir, ClassDataSharing classDataSharing) {
         this.classPathRegistry = classPathRegistry;
         this.temporaryFileProvider = temporaryFileProvider;
         this.jvmVersionDetector = jvmVersionDetector;
         this.gradleUserHomeDir = gradleUserHomeDir;
+        this.classDataSharing = classDataSharing;
     }
 
     @Override
@@ -90,12 +96,37 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
 
         execSpec.setMain("worker." + GradleWorkerMain.class.getName());
 
-        boolean useOptionsFile = shouldUseOptionsFile(execSpec);
+        JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
+        boolean useOptionsFile = shouldUseOptionsFile(executableVersion);
         if (useOptionsFile) {
             // Use an options file to pass across application classpath
+            List<File> classpath = new ArrayList<File>(workerMainClassPath.getAsFiles().size() + applicationClasspath.size());
+            classpath.addAll(workerMainClassPath.getAsFiles());
+            classpath.addAll(applicationClasspath);
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
-            List<String> jvmArgs = writeOptionsFile(workerMainClassPath.getAsFiles(), applicationClasspath, optionsFile);
+            List<String> jvmArgs = writeOptionsFile(classpath, optionsFile);
             execSpec.jvmArgs(jvmArgs);
+            if (ClassDataSharing.isEnabled()) {
+                // Only share the classes that Gradle itself puts on the classpath, as the application classpath differs between workers
+                final String executable = execSpec.getExecutable();
+                final JavaVersion javaVersion = executableVersion;
+                final List<File> sharedClasspath = workerMainClassPath.getAsFiles();
+                final List<String> classDataSharingArgs = classDataSharing.jvmArgsFor(executable, javaVersion, sharedClasspath);
+                execSpec.jvmArgs(classDataSharingArgs);
+                execSpec.listener(new ExecHandleListener() {
+                    @Override
+                    public void executionStarted(ExecHandle execHandle) {
+                    }
+
+                    @Override
+                    public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+                        if (execResult.getExitValue() == 0) {
+                            // The worker has exited, so its list of classes is complete
+                            classDataSharing.classListRecordedInBackground(classDataSharingArgs, executable, javaVersion, sharedClasspath);
+                        }
+                    }
+                });
+            }
         } else {
             // Use a dummy security manager, which hacks the application classpath into the system ClassLoader
             execSpec.classpath(workerMainClassPath.getAsFiles());
@@ -148,15 +179,11 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
         execSpec.setStandardInput(buffer.getInputStream());
     }
 
-    private boolean shouldUseOptionsFile(JavaExecHandleBuilder execSpec) {
-        JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
+    private boolean shouldUseOptionsFile(JavaVersion executableVersion) {
         return executableVersion != null && executableVersion.isJava9Compatible();
     }
 
-    private List<String> writeOptionsFile(Collection<File> workerMainClassPath, Collection<File> applicationClasspath, File optionsFile) {
-        List<File> classpath = new ArrayList<File>(workerMainClassPath.size() + applicationClasspath.size());
-        classpath.addAll(workerMainClassPath);
-        classpath.addAll(applicationClasspath);
+    private List<String> writeOptionsFile(List<File> classpath, File optionsFile) {
         List<String> argumentList = Arrays.asList("-cp", Joiner.on(File.pathSeparator).join(classpath));
         return ArgWriter.argsFileGenerator(optionsFile, ArgWriter.unixStyleFactory()).transform(argumentList);
     }
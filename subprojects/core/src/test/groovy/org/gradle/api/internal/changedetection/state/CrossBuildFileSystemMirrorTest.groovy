@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.internal.classpath.CachedJarFileStore
+import org.gradle.internal.file.FileType
+import org.gradle.internal.filewatch.FileWatcher
+import org.gradle.internal.filewatch.FileWatcherEvent
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.filewatch.FileWatcherListener
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.nativeintegration.filesystem.DefaultFileMetadata
+import org.gradle.internal.nativeintegration.filesystem.FileSystem
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class CrossBuildFileSystemMirrorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def watcher = Mock(FileWatcher)
+    def watcherFactory = Mock(FileWatcherFactory)
+    def fileSystem = Stub(FileSystem)
+    FileWatcherListener listener
+    CrossBuildFileSystemMirror mirror
+    TestFile cacheDir
+
+    def setup() {
+        cacheDir = tmpDir.createDir("cache")
+        def fileStore = Stub(CachedJarFileStore)
+        fileStore.fileStoreRoots >> [cacheDir]
+        _ * watcherFactory.watch(_, _) >> { onError, l ->
+            listener = l
+            return watcher
+        }
+        _ * watcher.running >> true
+        mirror = new CrossBuildFileSystemMirror([fileStore], watcherFactory, fileSystem, 1000)
+    }
+
+    def "keeps state about a watched file between builds"() {
+        def file = tmpDir.file("a")
+        def dir = tmpDir.createDir("dir")
+        def fileSnapshot = Stub(FileSnapshot)
+        def fileTreeSnapshot = Stub(FileTreeSnapshot)
+        def snapshot = Stub(Snapshot)
+
+        given:
+        _ * fileSnapshot.path >> file.path
+        _ * fileSnapshot.type >> FileType.Missing
+        _ * fileTreeSnapshot.path >> dir.path
+        _ * fileTreeSnapshot.descendants >> []
+        fileSystem.stat(file) >> DefaultFileMetadata.missing()
+        dir.lastModified = System.currentTimeMillis() - 10000
+
+        expect:
+        mirror.getFile(file.path) == null
+        mirror.getDirectoryTree(dir.path) == null
+        mirror.getContent(file.path) == null
+
+        mirror.putFile(fileSnapshot)
+        mirror.putDirectory(fileTreeSnapshot)
+        mirror.putContent(file.path, snapshot)
+
+        mirror.beforeComplete()
+        mirror.afterStart()
+
+        mirror.getFile(file.path) == fileSnapshot
+        mirror.getDirectoryTree(dir.path) == fileTreeSnapshot
+        mirror.getContent(file.path) == null
+    }
+
+    def "discards retained state about a file whose modification time has changed"() {
+        def file = tmpDir.file("a")
+        def lastModified = System.currentTimeMillis() - 10000
+        def fileSnapshot = regularFile(file, lastModified)
+
+        given:
+        fileSystem.stat(file) >>> [DefaultFileMetadata.file(lastModified, 1), DefaultFileMetadata.file(lastModified + 1000, 1)]
+
+        when:
+        retainAcrossBuild(fileSnapshot)
+
+        then:
+        mirror.getFile(file.path) == fileSnapshot
+
+        when:
+        retainAcrossBuild(fileSnapshot)
+
+        then:
+        mirror.getFile(file.path) == null
+    }
+
+    def "checks retained state about a file only once per build"() {
+        def file = tmpDir.file("a")
+        def lastModified = System.currentTimeMillis() - 10000
+        def fileSnapshot = regularFile(file, lastModified)
+
+        given:
+        fileSystem.stat(file) >>> [DefaultFileMetadata.file(lastModified, 1), DefaultFileMetadata.file(lastModified + 1000, 1)]
+
+        when:
+        retainAcrossBuild(fileSnapshot)
+
+        then:
+        mirror.getFile(file.path) == fileSnapshot
+        mirror.getFile(file.path) == fileSnapshot
+    }
+
+    def "discards retained state about a file modified just before its state was calculated"() {
+        def file = tmpDir.file("a")
+        def lastModified = System.currentTimeMillis()
+        def fileSnapshot = regularFile(file, lastModified)
+
+        given:
+        fileSystem.stat(file) >> DefaultFileMetadata.file(lastModified, 1)
+
+        when:
+        retainAcrossBuild(fileSnapshot)
+
+        then:
+        mirror.getFile(file.path) == null
+    }
+
+    def "discards retained state about a tree when an entry has been added or removed"() {
+        def dir = tmpDir.createDir("dir")
+        def child = dir.createDir("child")
+        def treeSnapshot = Stub(FileTreeSnapshot)
+        def childSnapshot = Stub(FileSnapshot)
+
+        given:
+        _ * treeSnapshot.path >> dir.path
+        _ * treeSnapshot.descendants >> [childSnapshot]
+        _ * childSnapshot.path >> child.path
+        _ * childSnapshot.type >> FileType.Directory
+        child.lastModified = System.currentTimeMillis() - 10000
+        dir.lastModified = System.currentTimeMillis()
+
+        when:
+        mirror.getDirectoryTree(dir.path)
+        mirror.putDirectory(treeSnapshot)
+        mirror.beforeComplete()
+        mirror.afterStart()
+
+        then:
+        mirror.getDirectoryTree(dir.path) == null
+    }
+
+    def "watches the root directory of a build once"() {
+        def root = tmpDir.createDir("root")
+
+        when:
+        mirror.watchRoot(root)
+        mirror.getFile(root.file("a").path)
+        mirror.getDirectoryTree(root.file("b").path)
+
+        then:
+        1 * watcher.watch(_)
+    }
+
+    def "discards state about a changed file and the trees that contain it"() {
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+        def other = tmpDir.file("b")
+        def dirSnapshot = Stub(FileTreeSnapshot)
+        def fileSnapshot = Stub(FileSnapshot)
+        def otherSnapshot = Stub(FileSnapshot)
+
+        given:
+        _ * dirSnapshot.path >> dir.path
+        _ * fileSnapshot.path >> file.path
+        _ * otherSnapshot.path >> other.path
+        _ * otherSnapshot.type >> FileType.Missing
+        fileSystem.stat(other) >> DefaultFileMetadata.missing()
+
+        when:
+        mirror.getDirectoryTree(dir.path)
+        mirror.getFile(file.path)
+        mirror.getFile(other.path)
+        mirror.putDirectory(dirSnapshot)
+        mirror.putFile(fileSnapshot)
+        mirror.putFile(otherSnapshot)
+        mirror.beforeComplete()
+        listener.onChange(watcher, FileWatcherEvent.modify(file))
+        mirror.afterStart()
+
+        then:
+        mirror.getDirectoryTree(dir.path) == null
+        mirror.getFile(file.path) == null
+        mirror.getFile(other.path) == otherSnapshot
+    }
+
+    def "discards all state when changes are lost"() {
+        def file = tmpDir.file("a")
+        def fileSnapshot = Stub(FileSnapshot)
+
+        given:
+        _ * fileSnapshot.path >> file.path
+
+        when:
+        mirror.getFile(file.path)
+        mirror.putFile(fileSnapshot)
+        mirror.beforeComplete()
+        listener.onChange(watcher, FileWatcherEvent.undefined())
+        mirror.afterStart()
+
+        then:
+        mirror.getFile(file.path) == null
+    }
+
+    def "discards all state at end of build when file system cannot be watched"() {
+        def file = tmpDir.file("a")
+        def fileSnapshot = Stub(FileSnapshot)
+
+        given:
+        _ * fileSnapshot.path >> file.path
+
+        when:
+        mirror.getFile(file.path)
+        mirror.putFile(fileSnapshot)
+        mirror.beforeComplete()
+
+        then:
+        1 * watcher.watch(_) >> { throw new UnsupportedOperationException() }
+        mirror.getFile(file.path) == null
+    }
+
+    def "discards state about a file that lives in the caches at end of build"() {
+        def file = cacheDir.file("some/dir/a")
+        def fileSnapshot = Stub(FileSnapshot)
+
+        given:
+        _ * fileSnapshot.path >> file.path
+
+        when:
+        mirror.getFile(file.path)
+        mirror.putFile(fileSnapshot)
+        mirror.beforeTaskOutputChanged()
+
+        then:
+        mirror.getFile(file.path) == fileSnapshot
+        0 * watcherFactory.watch(_, _)
+
+        when:
+        mirror.beforeComplete()
+
+        then:
+        mirror.getFile(file.path) == null
+    }
+
+    def "stops watching when stopped"() {
+        when:
+        mirror.getFile(tmpDir.file("a").path)
+        mirror.stop()
+
+        then:
+        1 * watcher.stop()
+    }
+
+    private FileSnapshot regularFile(File file, long lastModified) {
+        def fileSnapshot = Stub(FileSnapshot)
+        _ * fileSnapshot.path >> file.path
+        _ * fileSnapshot.type >> FileType.RegularFile
+        _ * fileSnapshot.content >> new FileHashSnapshot(HashCode.fromInt(123), lastModified)
+        return fileSnapshot
+    }
+
+    private void retainAcrossBuild(FileSnapshot fileSnapshot) {
+        mirror.getFile(fileSnapshot.path)
+        mirror.putFile(fileSnapshot)
+        mirror.beforeComplete()
+        mirror.afterStart()
+    }
+}
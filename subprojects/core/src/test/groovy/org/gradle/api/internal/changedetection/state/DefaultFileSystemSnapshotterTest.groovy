@@ -20,6 +20,7 @@ import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.collections.DirectoryFileTree
 import org.gradle.caching.internal.DefaultBuildCacheHasher
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.file.FileType
 import org.gradle.internal.hash.TestFileHasher
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -95,6 +96,27 @@ class DefaultFileSystemSnapshotterTest extends Specification {
         snapshot2.is(snapshot)
     }
 
+    def "hashes files of a directory hierarchy in parallel in the order of the walk"() {
+        def d = tmpDir.createDir("d")
+        250.times { i ->
+            d.createFile("d${i % 7}/f${i}") << "content ${i}"
+        }
+        def executor = new DefaultExecutorFactory().create("File hashing", 4)
+        def parallelSnapshotter = new DefaultFileSystemSnapshotter(fileHasher, new StringInterner(), TestFiles.fileSystem(), TestFiles.directoryFileTreeFactory(), new DefaultFileSystemMirror([]), executor)
+
+        when:
+        def expected = snapshotter.snapshotDirectoryTree(d)
+        def snapshot = parallelSnapshotter.snapshotDirectoryTree(d)
+
+        then:
+        snapshot.descendants.size() == 257
+        snapshot.descendants*.path == expected.descendants*.path
+        snapshot.descendants*.content == expected.descendants*.content
+
+        cleanup:
+        parallelSnapshotter.stop()
+    }
+
     def "fetches details of an empty directory and caches the result"() {
         def d = tmpDir.createDir("d")
 
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution
+
+import com.google.common.collect.ImmutableSortedSet
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.file.FileCollectionInternal
+import org.gradle.api.internal.file.FileCollectionVisitor
+import org.gradle.api.internal.file.PrefetchableFileCollection
+import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionContext
+import org.gradle.api.internal.tasks.TaskInputFilePropertySpec
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.internal.concurrent.Stoppable
+import spock.lang.Specification
+
+class PrefetchInputFilesTaskExecuterTest extends Specification {
+
+    def task = Stub(TaskInternal)
+    def taskState = Mock(TaskStateInternal)
+    def taskContext = Mock(TaskExecutionContext)
+    def taskProperties = Mock(TaskProperties)
+    def property = Mock(TaskInputFilePropertySpec)
+    def inputFiles = Mock(FileCollectionInternal)
+    def delegate = Mock(TaskExecuter)
+    def executer = new PrefetchInputFilesTaskExecuter(delegate)
+
+    def "prefetches the prefetchable elements of the input files before executing the task and stops the prefetch afterwards"() {
+        def prefetchable = Mock(PrefetchableFileCollection)
+        def prefetch = Mock(Stoppable)
+        def other = Mock(FileCollectionInternal)
+
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getTaskProperties() >> taskProperties
+        1 * taskProperties.getInputFileProperties() >> ImmutableSortedSet.of(property)
+        1 * property.getPropertyFiles() >> inputFiles
+        1 * inputFiles.visitRootElements(_) >> { FileCollectionVisitor visitor ->
+            visitor.visitCollection(other)
+            visitor.visitCollection(prefetchable)
+        }
+        1 * prefetchable.prefetchFiles() >> prefetch
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+
+        then:
+        1 * prefetch.stop()
+        0 * _
+    }
+
+    def "stops the prefetch when the task fails"() {
+        def prefetchable = Mock(PrefetchableFileCollection)
+        def prefetch = Mock(Stoppable)
+        def failure = new RuntimeException("broken")
+
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getTaskProperties() >> taskProperties
+        1 * taskProperties.getInputFileProperties() >> ImmutableSortedSet.of(property)
+        1 * property.getPropertyFiles() >> inputFiles
+        1 * inputFiles.visitRootElements(_) >> { FileCollectionVisitor visitor ->
+            visitor.visitCollection(prefetchable)
+        }
+        1 * prefetchable.prefetchFiles() >> prefetch
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext) >> { throw failure }
+
+        then:
+        1 * prefetch.stop()
+        0 * _
+
+        and:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def "executes the task when the input files cannot be visited"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getTaskProperties() >> taskProperties
+        1 * taskProperties.getInputFileProperties() >> ImmutableSortedSet.of(property)
+        1 * property.getPropertyFiles() >> inputFiles
+        1 * inputFiles.visitRootElements(_) >> { throw new RuntimeException("broken") }
+        _ * property.getPropertyName() >> "classpath"
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * _
+    }
+}
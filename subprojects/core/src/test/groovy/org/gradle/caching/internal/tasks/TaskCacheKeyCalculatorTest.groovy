@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks
+
+import com.google.common.collect.ImmutableList
+import com.google.common.collect.ImmutableSortedMap
+import com.google.common.collect.ImmutableSortedSet
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot
+import org.gradle.api.internal.changedetection.state.ImplementationSnapshot
+import org.gradle.api.internal.changedetection.state.TaskExecution
+import org.gradle.internal.hash.HashCode
+import org.gradle.util.Path
+import spock.lang.Specification
+
+class TaskCacheKeyCalculatorTest extends Specification {
+    def task = Stub(TaskInternal) {
+        getIdentityPath() >> Path.path(":task")
+    }
+    def inputFiles = Stub(FileCollectionSnapshot) {
+        getHash() >> HashCode.fromInt(456)
+    }
+    def execution = Stub(TaskExecution) {
+        getTaskImplementation() >> new ImplementationSnapshot("org.gradle.SomeTask", HashCode.fromInt(123))
+        getTaskActionImplementations() >> ImmutableList.of()
+        getInputProperties() >> ImmutableSortedMap.of()
+        getInputFilesSnapshot() >> ImmutableSortedMap.of("input", inputFiles)
+        getOutputPropertyNamesForCacheKey() >> ImmutableSortedSet.of("output")
+    }
+
+    def "gzip compression does not change the key"() {
+        expect:
+        key(TaskOutputCompression.GZIP) == new TaskCacheKeyCalculator(false).calculate(task, execution).hashCode
+    }
+
+    def "entries compressed differently have different keys"() {
+        expect:
+        key(TaskOutputCompression.GZIP) != key(TaskOutputCompression.LZ4)
+        key(TaskOutputCompression.GZIP) != key(TaskOutputCompression.STORE)
+        key(TaskOutputCompression.LZ4) != key(TaskOutputCompression.SNAPPY)
+        key(TaskOutputCompression.LZ4) == key(TaskOutputCompression.LZ4)
+    }
+
+    private String key(TaskOutputCompression compression) {
+        new TaskCacheKeyCalculator(false, compression).calculate(task, execution).hashCode
+    }
+}
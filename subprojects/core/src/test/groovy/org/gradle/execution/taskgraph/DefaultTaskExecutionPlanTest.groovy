@@ -872,6 +872,26 @@ class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
         filtered(b)
     }
 
+    def "starts tasks with the longest estimated chain of dependent tasks first when task durations are used"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d", dependsOn: [a, c])
+        def durations = Stub(TaskDurationEstimator) {
+            estimateDuration(a) >> 10
+            estimateDuration(b) >> 100
+        }
+
+        when:
+        executionPlan.useTaskDurationEstimator(durations)
+        addToGraphAndPopulate([d])
+
+        then:
+        executes(a, b, c, d)
+        executedTasks == [b, a, c, d]
+    }
+
     private void addToGraphAndPopulate(List tasks) {
         executionPlan.addToTaskGraph(tasks)
         executionPlan.determineExecutionPlan()
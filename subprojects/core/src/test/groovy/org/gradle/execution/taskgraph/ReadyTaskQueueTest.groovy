@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.internal.TaskInternal
+import spock.lang.Specification
+
+class ReadyTaskQueueTest extends Specification {
+    def queue = new ReadyTaskQueue()
+    def durations = [:]
+    def estimator = { TaskInternal task -> durations[task.name] ?: 0L } as TaskDurationEstimator
+
+    def "tasks become ready once all of their dependencies are complete"() {
+        def a = task("a")
+        def b = task("b", a)
+        def c = task("c", a, b)
+
+        when:
+        queue.reset([a, b, c], null)
+
+        then:
+        readyTasks() == [a]
+        queue.hasPendingTasks()
+
+        when:
+        execute(a)
+
+        then:
+        readyTasks() == [b]
+
+        when:
+        execute(b)
+
+        then:
+        readyTasks() == [c]
+
+        when:
+        queue.selected(c)
+
+        then:
+        readyTasks() == []
+        !queue.hasPendingTasks()
+    }
+
+    def "tasks wait for the tasks they must run after"() {
+        def a = task("a")
+        def b = task("b")
+        b.addMustSuccessor(a)
+
+        when:
+        queue.reset([a, b], null)
+
+        then:
+        readyTasks() == [a]
+
+        when:
+        execute(a)
+
+        then:
+        readyTasks() == [b]
+    }
+
+    def "tasks that are not required are neither ready nor waited for"() {
+        def a = task("a")
+        a.doNotRequire()
+        def b = task("b", a)
+
+        when:
+        queue.reset([a, b], null)
+
+        then:
+        readyTasks() == [b]
+
+        when:
+        queue.selected(b)
+
+        then:
+        !queue.hasPendingTasks()
+    }
+
+    def "dependents of aborted tasks become ready so that they can be skipped"() {
+        def a = task("a")
+        def b = task("b", a)
+
+        given:
+        queue.reset([a, b], null)
+
+        when:
+        a.abortExecution()
+        queue.aborted(a)
+
+        then:
+        readyTasks() == [b]
+        queue.hasPendingTasks()
+
+        when:
+        b.abortExecution()
+        queue.aborted(b)
+
+        then:
+        readyTasks() == []
+        !queue.hasPendingTasks()
+    }
+
+    def "task enforced to run as a finalizer becomes ready and holds back the tasks that depend on it"() {
+        def finalizer = task("finalizer")
+        finalizer.mustNotRun()
+        def b = task("b", finalizer)
+
+        given:
+        queue.reset([finalizer, b], null)
+
+        expect:
+        readyTasks() == [b]
+
+        when:
+        finalizer.enforceRun()
+        queue.enforced(finalizer)
+
+        then:
+        readyTasks() == [finalizer]
+        queue.hasPendingTasks()
+
+        when:
+        execute(finalizer)
+
+        then:
+        readyTasks() == [b]
+    }
+
+    def "task waiting only on a dependency outside of the plan becomes ready once that dependency has completed"() {
+        def external = task("external")
+        def a = task("a", external)
+
+        given:
+        queue.reset([a], null)
+
+        expect:
+        readyTasks() == []
+        queue.hasPendingTasks()
+
+        when:
+        external.startExecution()
+        external.finishExecution()
+
+        then:
+        readyTasks() == [a]
+    }
+
+    def "ready tasks are in execution plan order when no durations are known"() {
+        def a = task("a")
+        def b = task("b")
+        def c = task("c", b)
+
+        when:
+        queue.reset([a, b, c], null)
+
+        then:
+        readyTasks() == [a, b]
+    }
+
+    def "ready tasks on the critical path come first"() {
+        def a = task("a")
+        def b = task("b")
+        def c = task("c", b)
+        def d = task("d")
+        durations.a = 10L
+        durations.b = 5L
+        durations.c = 20L
+        durations.d = 10L
+
+        when:
+        queue.reset([a, b, c, d], estimator)
+
+        then:
+        // b is followed by c, so its chain is longest. a and d tie, and are kept in plan order
+        readyTasks() == [b, a, d]
+    }
+
+    def "ready tasks with longer chains of tasks of unknown duration come first"() {
+        def a = task("a")
+        def b = task("b")
+        def c = task("c", b)
+
+        when:
+        queue.reset([a, b, c], estimator)
+
+        then:
+        readyTasks() == [b, a]
+    }
+
+    private void execute(TaskInfo taskInfo) {
+        queue.selected(taskInfo)
+        taskInfo.startExecution()
+        taskInfo.finishExecution()
+        queue.completed(taskInfo)
+    }
+
+    private List<TaskInfo> readyTasks() {
+        queue.readyTasks as List
+    }
+
+    private TaskInfo task(String name, TaskInfo... dependencies) {
+        def task = Stub(TaskInternal) {
+            getName() >> name
+            getPath() >> ":" + name
+            compareTo(_) >> { args -> name.compareTo(args[0].name) }
+        }
+        def taskInfo = new TaskInfo(task)
+        taskInfo.require()
+        dependencies.each { taskInfo.addDependencySuccessor(it) }
+        taskInfo
+    }
+}
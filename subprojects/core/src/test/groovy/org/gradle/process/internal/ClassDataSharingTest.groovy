@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.api.JavaVersion
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ClassDataSharingTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    List<File> classpath
+    def classDataSharing = new ClassDataSharing(tmpDir.file("user-home"))
+
+    def setup() {
+        classpath = [tmpDir.createFile("lib/a.jar"), tmpDir.createFile("lib/b.jar")]
+    }
+
+    @Unroll
+    def "does not share class data with Java #javaVersion"() {
+        expect:
+        classDataSharing.jvmArgsFor("java", javaVersion, classpath).empty
+
+        where:
+        javaVersion << [null, JavaVersion.VERSION_1_7, JavaVersion.VERSION_1_8, JavaVersion.VERSION_1_9]
+    }
+
+    def "records the loaded classes the first time a JVM is started"() {
+        when:
+        def args = classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath)
+
+        then:
+        args.size() == 1
+        args[0].startsWith("-XX:DumpLoadedClassList=")
+        classList(args).parentFile.directory
+    }
+
+    def "each JVM records its classes into a list of its own"() {
+        expect:
+        classList(classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath)) != classList(classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath))
+    }
+
+    def "does not share class data when the classpath contains a directory"() {
+        expect:
+        classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath + [tmpDir.createDir("classes")]).empty
+    }
+
+    def "dumps the archive from the complete lines of a recorded list"() {
+        def args = classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath)
+        def recording = classList(args)
+        recording.text = "java/lang/Object\njava/lang/Str"
+        def completed = new File(recording.parentFile, "classes.lst")
+
+        expect:
+        !completed.exists()
+        classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath)[0].startsWith("-XX:DumpLoadedClassList=")
+
+        when:
+        ClassDataSharing.classListRecorded(["-Xmx64m"] + args, tmpDir.file("no-java").absolutePath, JavaVersion.VERSION_11, classpath)
+
+        then:
+        completed.text == "java/lang/Object\n"
+        !recording.exists()
+        // The executable does not exist
+        new File(recording.parentFile, "dump-failed").exists()
+    }
+
+    def "does not use a recorded list without a complete line"() {
+        def args = classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath)
+        def recording = classList(args)
+        recording.text = "java/lang/Obj"
+
+        when:
+        ClassDataSharing.classListRecorded(args, tmpDir.file("no-java").absolutePath, JavaVersion.VERSION_11, classpath)
+
+        then:
+        !new File(recording.parentFile, "classes.lst").exists()
+        !new File(recording.parentFile, "dump-failed").exists()
+    }
+
+    def "neither records nor shares class data while the archive is being dumped"() {
+        def classList = classList(classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath))
+        new File(classList.parentFile, "classes.lst").text = "java/lang/Object\n"
+
+        expect:
+        classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath).empty
+    }
+
+    def "enables application class data sharing with Java 10"() {
+        when:
+        def args = classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_1_10, classpath)
+
+        then:
+        args[0] == "-XX:+UseAppCDS"
+        args[1].startsWith("-XX:DumpLoadedClassList=")
+    }
+
+    def "uses the archive once it has been created"() {
+        def classList = classList(classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath))
+        def archive = new File(classList.parentFile, "classes.jsa")
+        archive.text = "archive"
+
+        expect:
+        classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath) == ["-Xshare:auto", "-XX:SharedArchiveFile=" + archive.absolutePath]
+    }
+
+    def "does not try again when the archive could not be created"() {
+        def classList = classList(classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath))
+        new File(classList.parentFile, "classes.lst").text = "java/lang/Object"
+        new File(classList.parentFile, "dump-failed").createNewFile()
+
+        expect:
+        classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath).empty
+    }
+
+    def "uses a different archive for each Java executable and classpath"() {
+        def dir = classList(classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath)).parentFile
+
+        expect:
+        classList(classDataSharing.jvmArgsFor("other-java", JavaVersion.VERSION_11, classpath)).parentFile != dir
+        classList(classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath.take(1))).parentFile != dir
+        classList(classDataSharing.jvmArgsFor("java", JavaVersion.VERSION_11, classpath)).parentFile == dir
+    }
+
+    private static File classList(List<String> args) {
+        return new File(args.last() - "-XX:DumpLoadedClassList=")
+    }
+}
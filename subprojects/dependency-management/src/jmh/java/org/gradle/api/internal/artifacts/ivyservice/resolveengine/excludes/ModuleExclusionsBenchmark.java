@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.model.DefaultIvyArtifactName;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Combines the exclusions found on the edges of a graph with heavy exclude usage, the way the graph builder does when it visits the graph:
+ * the exclusions of each path are intersected, the exclusions of the incoming edges of a node are unioned, and the result is compared with the
+ * result of the previous visit of the node.
+ *
+ * <p>The excludes follow the patterns found in Spring and Hadoop builds: logging frameworks excluded by group and by module id, servlet and
+ * JSP APIs excluded by module name, and the occasional artifact exclude.</p>
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ModuleExclusionsBenchmark {
+    private static final String[][] MODULE_EXCLUDES = {
+        {"commons-logging", "commons-logging"},
+        {"log4j", "log4j"},
+        {"org.slf4j", "slf4j-log4j12"},
+        {"org.slf4j", "*"},
+        {"*", "servlet-api"},
+        {"*", "jsp-api"},
+        {"javax.servlet", "*"},
+        {"org.mortbay.jetty", "*"},
+        {"com.sun.jersey", "jersey-core"},
+        {"com.sun.jersey", "jersey-server"},
+        {"tomcat", "jasper-compiler"},
+        {"tomcat", "jasper-runtime"},
+        {"org.apache.hadoop", "hadoop-yarn-server-common"},
+        {"io.netty", "netty"},
+        {"asm", "asm"},
+        {"xml-apis", "xml-apis"},
+    };
+    private static final int EDGE_EXCLUSIONS = 64;
+    private static final int INCOMING_EDGES = 8;
+
+    private ModuleExclusions moduleExclusions;
+    private final List<ModuleExclusion> edgeExclusions = new ArrayList<ModuleExclusion>();
+
+    @Setup(Level.Iteration)
+    public void createExclusions() {
+        moduleExclusions = new ModuleExclusions(new DefaultImmutableModuleIdentifierFactory());
+        edgeExclusions.clear();
+        for (int i = 0; i < EDGE_EXCLUSIONS; i++) {
+            List<ExcludeMetadata> excludes = new ArrayList<ExcludeMetadata>();
+            for (int j = 0; j < 1 + i % 5; j++) {
+                String[] exclude = MODULE_EXCLUDES[(i * 7 + j * 3) % MODULE_EXCLUDES.length];
+                excludes.add(moduleExclude(exclude[0], exclude[1]));
+            }
+            if (i % 9 == 0) {
+                excludes.add(artifactExclude("org.apache.hadoop", "hadoop-common", "hadoop-common", "test-jar"));
+            }
+            if (i % 13 == 0) {
+                excludes.add(new DefaultExclude(DefaultModuleIdentifier.newId("org.apache.hadoop", "hadoop-.*"), null, new String[0], "regexp"));
+            }
+            edgeExclusions.add(moduleExclusions.excludeAny(excludes.toArray(new ExcludeMetadata[0])));
+        }
+    }
+
+    @Benchmark
+    public void visitGraph(Blackhole blackhole) {
+        ModuleExclusion previous = ModuleExclusions.excludeNone();
+        for (int node = 0; node < EDGE_EXCLUSIONS; node++) {
+            ModuleExclusion nodeExclusion = null;
+            for (int edge = 0; edge < INCOMING_EDGES; edge++) {
+                ModuleExclusion pathExclusion = moduleExclusions.intersect(edgeExclusions.get((node + edge) % EDGE_EXCLUSIONS), edgeExclusions.get((node * 3 + edge) % EDGE_EXCLUSIONS));
+                nodeExclusion = nodeExclusion == null ? pathExclusion : moduleExclusions.union(nodeExclusion, pathExclusion);
+            }
+            blackhole.consume(nodeExclusion.excludesSameModulesAs(previous));
+            blackhole.consume(nodeExclusion.excludeModule(moduleId(node)));
+            previous = nodeExclusion;
+        }
+    }
+
+    private static ModuleIdentifier moduleId(int node) {
+        String[] exclude = MODULE_EXCLUDES[node % MODULE_EXCLUDES.length];
+        return DefaultModuleIdentifier.newId(exclude[0].equals("*") ? "org.example" : exclude[0], exclude[1].equals("*") ? "example" : exclude[1]);
+    }
+
+    private static ExcludeMetadata moduleExclude(String group, String module) {
+        return new DefaultExclude(DefaultModuleIdentifier.newId(group, module), null, new String[0], PatternMatchers.EXACT);
+    }
+
+    private static ExcludeMetadata artifactExclude(String group, String module, String name, String type) {
+        return new DefaultExclude(DefaultModuleIdentifier.newId(group, module), new DefaultIvyArtifactName(name, type, "jar"), new String[0], PatternMatchers.EXACT);
+    }
+}
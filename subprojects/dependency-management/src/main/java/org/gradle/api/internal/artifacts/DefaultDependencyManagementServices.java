@@ -55,6 +55,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionS
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.LocalComponentMetadataBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.LocalConfigurationMetadataBuilder;
 import org.gradle.internal.locking.DefaultDependencyLockingHandler;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactPrefetcher;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.LocalMavenRepositoryLocator;
@@ -81,6 +82,7 @@ import org.gradle.api.internal.filestore.ivy.ArtifactIdentifierFileStore;
 import org.gradle.api.internal.model.NamedObjectInstantiator;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.TaskResolver;
+import org.gradle.api.internal.tasks.execution.PrefetchInputFilesTaskExecuter;
 import org.gradle.initialization.BuildIdentity;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.authentication.AuthenticationSchemeRegistry;
@@ -274,7 +276,8 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                                        ComponentSelectorConverter componentSelectorConverter,
                                                        AttributeContainerSerializer attributeContainerSerializer,
                                                        BuildIdentity buildIdentity,
-                                                       DependencyLockingProvider dependencyLockingProvider) {
+                                                       DependencyLockingProvider dependencyLockingProvider,
+                                                       ArtifactPrefetcher artifactPrefetcher) {
             return new ErrorHandlingConfigurationResolver(
                     new ShortCircuitEmptyConfigurationResolver(
                         new DefaultConfigurationResolver(
@@ -288,7 +291,8 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                 new ConsumerProvidedVariantFinder(
                                     variantTransforms,
                                     attributesSchema,
-                                    attributesFactory),
+                                    attributesFactory,
+                                    buildOperationExecutor),
                                 attributesSchema,
                                 attributesFactory),
                             moduleIdentifierFactory,
@@ -297,7 +301,8 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                             componentSelectorConverter,
                             attributeContainerSerializer,
                             buildIdentity,
-                            dependencyLockingProvider),
+                            dependencyLockingProvider,
+                            Boolean.getBoolean(PrefetchInputFilesTaskExecuter.ENABLED_PROPERTY) ? artifactPrefetcher : null),
                         componentIdentifierFactory,
                         moduleIdentifierFactory,
                         buildIdentity));
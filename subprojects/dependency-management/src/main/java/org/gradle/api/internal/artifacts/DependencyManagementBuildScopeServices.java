@@ -33,6 +33,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolverProviderF
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.StartParameterResolutionOverride;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.CrossBuildModuleMetadataCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleMetadataCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryModuleMetadataCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleRepositoryCacheProvider;
@@ -41,6 +42,7 @@ import org.gradle.api.internal.artifacts.ivyservice.modulecache.artifacts.Defaul
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.artifacts.DefaultModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.artifacts.InMemoryModuleArtifactCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.artifacts.InMemoryModuleArtifactsCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions.CrossBuildModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions.DefaultModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions.InMemoryModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.LocalComponentMetadataBuilder;
@@ -54,7 +56,10 @@ import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDepende
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectLocalComponentProvider;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublicationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultArtifactDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactPrefetcher;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder.MetadataPrefetcher;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultLocalMavenRepositoryLocator;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultMavenFileLocations;
@@ -88,7 +93,10 @@ import org.gradle.cache.internal.ProducerGuard;
 import org.gradle.execution.ProjectStateAccess;
 import org.gradle.initialization.BuildIdentity;
 import org.gradle.initialization.ProjectAccessListener;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ParallelismConfigurationManager;
 import org.gradle.internal.installation.CurrentGradleInstallation;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -174,12 +182,14 @@ class DependencyManagementBuildScopeServices {
     }
 
     ModuleRepositoryCacheProvider createModuleRepositoryCacheProvider(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ImmutableModuleIdentifierFactory moduleIdentifierFactory,
-                                                                      ArtifactCacheMetadata artifactCacheMetadata, AttributeContainerSerializer attributeContainerSerializer, MavenMutableModuleMetadataFactory mavenMetadataFactory, IvyMutableModuleMetadataFactory ivyMetadataFactory) {
+                                                                      ArtifactCacheMetadata artifactCacheMetadata, AttributeContainerSerializer attributeContainerSerializer, MavenMutableModuleMetadataFactory mavenMetadataFactory, IvyMutableModuleMetadataFactory ivyMetadataFactory,
+                                                                      CrossBuildModuleMetadataCache crossBuildModuleMetadataCache, CrossBuildModuleVersionsCache crossBuildModuleVersionsCache) {
         ModuleRepositoryCaches caches = new ModuleRepositoryCaches(
             new DefaultModuleVersionsCache(
                 timeProvider,
                 cacheLockingManager,
-                moduleIdentifierFactory),
+                moduleIdentifierFactory,
+                Boolean.getBoolean(CrossBuildModuleVersionsCache.ENABLED_PROPERTY) ? crossBuildModuleVersionsCache : null),
             new DefaultModuleMetadataCache(
                 timeProvider,
                 cacheLockingManager,
@@ -187,7 +197,8 @@ class DependencyManagementBuildScopeServices {
                 moduleIdentifierFactory,
                 attributeContainerSerializer,
                 mavenMetadataFactory,
-                ivyMetadataFactory),
+                ivyMetadataFactory,
+                Boolean.getBoolean(CrossBuildModuleMetadataCache.ENABLED_PROPERTY) ? crossBuildModuleMetadataCache : null),
             new DefaultModuleArtifactsCache(
                 timeProvider,
                 cacheLockingManager
@@ -290,6 +301,14 @@ class DependencyManagementBuildScopeServices {
             repositoryBlacklister);
     }
 
+    MetadataPrefetcher createMetadataPrefetcher(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager, BuildOperationExecutor buildOperationExecutor, VersionSelectorScheme versionSelectorScheme) {
+        return new MetadataPrefetcher(executorFactory, parallelismConfigurationManager.getParallelismConfiguration().getMaxWorkerCount(), buildOperationExecutor, versionSelectorScheme);
+    }
+
+    ArtifactPrefetcher createArtifactPrefetcher(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager, BuildOperationExecutor buildOperationExecutor) {
+        return new ArtifactPrefetcher(executorFactory, parallelismConfigurationManager.getParallelismConfiguration().getMaxWorkerCount(), buildOperationExecutor);
+    }
+
     ArtifactDependencyResolver createArtifactDependencyResolver(ResolveIvyFactory resolveIvyFactory,
                                                                 DependencyDescriptorFactory dependencyDescriptorFactory,
                                                                 VersionComparator versionComparator,
@@ -297,7 +316,20 @@ class DependencyManagementBuildScopeServices {
                                                                 ModuleExclusions moduleExclusions,
                                                                 BuildOperationExecutor buildOperationExecutor,
                                                                 ComponentSelectorConverter componentSelectorConverter,
-                                                                ImmutableAttributesFactory attributesFactory) {
+                                                                ImmutableAttributesFactory attributesFactory,
+                                                                CacheLockingManager cacheLockingManager,
+                                                                ModuleRepositoryCacheProvider moduleRepositoryCacheProvider,
+                                                                BuildCommencedTimeProvider buildCommencedTimeProvider,
+                                                                VersionSelectorScheme versionSelectorScheme,
+                                                                ImmutableModuleIdentifierFactory moduleIdentifierFactory,
+                                                                AttributeContainerSerializer attributeContainerSerializer,
+                                                                MetadataPrefetcher metadataPrefetcher,
+                                                                ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        ResolvedGraphCache resolvedGraphCache = null;
+        if (Boolean.getBoolean(ResolvedGraphCache.ENABLED_PROPERTY)) {
+            resolvedGraphCache = new ResolvedGraphCache(cacheLockingManager, moduleRepositoryCacheProvider, buildCommencedTimeProvider, versionSelectorScheme, moduleIdentifierFactory, attributeContainerSerializer,
+                classLoaderHierarchyHasher);
+        }
         return new DefaultArtifactDependencyResolver(
             buildOperationExecutor,
             resolverFactories,
@@ -306,7 +338,9 @@ class DependencyManagementBuildScopeServices {
             versionComparator,
             moduleExclusions,
             componentSelectorConverter,
-            attributesFactory);
+            attributesFactory,
+            resolvedGraphCache,
+            Boolean.getBoolean(MetadataPrefetcher.ENABLED_PROPERTY) ? metadataPrefetcher : null);
     }
 
     ProjectPublicationRegistry createProjectPublicationRegistry() {
@@ -22,6 +22,8 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultV
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.CrossBuildModuleMetadataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions.CrossBuildModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.LocalComponentMetadataBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.DefaultLocalComponentMetadataBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.DefaultLocalConfigurationMetadataBuilder;
@@ -49,6 +51,14 @@ class DependencyManagementGlobalScopeServices {
         return new DefaultImmutableModuleIdentifierFactory();
     }
 
+    CrossBuildModuleMetadataCache createCrossBuildModuleMetadataCache() {
+        return new CrossBuildModuleMetadataCache();
+    }
+
+    CrossBuildModuleVersionsCache createCrossBuildModuleVersionsCache() {
+        return new CrossBuildModuleVersionsCache();
+    }
+
     IvyContextManager createIvyContextManager() {
         return new DefaultIvyContextManager();
     }
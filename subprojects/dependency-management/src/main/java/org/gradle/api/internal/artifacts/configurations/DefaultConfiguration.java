@@ -78,6 +78,7 @@ import org.gradle.api.internal.file.AbstractFileCollection;
 import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.file.FileCollectionInternal;
 import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.internal.file.PrefetchableFileCollection;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.AbstractTaskDependency;
 import org.gradle.api.internal.tasks.TaskDependencyResolveContext;
@@ -93,6 +94,7 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.ImmutableActionSet;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.operations.BuildOperationContext;
@@ -120,7 +122,7 @@ import static org.gradle.api.internal.artifacts.configurations.ConfigurationInte
 import static org.gradle.api.internal.artifacts.configurations.ConfigurationInternal.InternalState.UNRESOLVED;
 import static org.gradle.util.ConfigureUtil.configure;
 
-public class DefaultConfiguration extends AbstractFileCollection implements ConfigurationInternal, MutationValidator {
+public class DefaultConfiguration extends AbstractFileCollection implements ConfigurationInternal, MutationValidator, PrefetchableFileCollection {
 
     private final ConfigurationResolver resolver;
     private final ListenerManager listenerManager;
@@ -189,7 +191,7 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
     private AttributeContainerInternal configurationAttributes;
     private final DomainObjectContext domainObjectContext;
     private final ImmutableAttributesFactory attributesFactory;
-    private final FileCollection intrinsicFiles;
+    private final ConfigurationFileCollection intrinsicFiles;
 
     private final DisplayName displayName;
 
@@ -441,6 +443,11 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         return intrinsicFiles.contains(file);
     }
 
+    @Override
+    public Stoppable prefetchFiles() {
+        return intrinsicFiles.prefetchFiles();
+    }
+
     @Override
     public boolean isEmpty() {
         return intrinsicFiles.isEmpty();
@@ -927,7 +934,7 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         }
     }
 
-    private class ConfigurationFileCollection extends AbstractFileCollection {
+    private class ConfigurationFileCollection extends AbstractFileCollection implements PrefetchableFileCollection {
         private final Spec<? super Dependency> dependencySpec;
         private final AttributeContainerInternal viewAttributes;
         private final Spec<? super ComponentIdentifier> componentSpec;
@@ -990,6 +997,11 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
             return visitor.getFiles();
         }
 
+        @Override
+        public Stoppable prefetchFiles() {
+            return getSelectedArtifacts().prefetchArtifacts();
+        }
+
         private SelectedArtifactSet getSelectedArtifacts() {
             if (selectedArtifacts == null) {
                 assertResolvingAllowed();
@@ -38,6 +38,8 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.Selec
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedArtifactSet;
 import org.gradle.api.internal.attributes.AttributeContainerInternal;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
 
 import java.io.File;
 import java.util.Set;
@@ -364,5 +366,10 @@ public class ErrorHandlingConfigurationResolver implements ConfigurationResolver
             visitor.visitFailure(e);
         }
 
+        @Override
+        public Stoppable prefetchArtifacts() {
+            return CompositeStoppable.NO_OP_STOPPABLE;
+        }
+
     }
 }
@@ -41,6 +41,8 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.Default
 import org.gradle.api.internal.attributes.AttributeContainerInternal;
 import org.gradle.api.specs.Spec;
 import org.gradle.initialization.BuildIdentity;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
 
 import java.io.File;
 import java.util.Collections;
@@ -108,6 +110,11 @@ public class ShortCircuitEmptyConfigurationResolver implements ConfigurationReso
         @Override
         public void visitArtifacts(ArtifactVisitor visitor, boolean continueOnSelectionFailure) {
         }
+
+        @Override
+        public Stoppable prefetchArtifacts() {
+            return CompositeStoppable.NO_OP_STOPPABLE;
+        }
     }
 
     private static class EmptyResolvedConfiguration implements ResolvedConfiguration {
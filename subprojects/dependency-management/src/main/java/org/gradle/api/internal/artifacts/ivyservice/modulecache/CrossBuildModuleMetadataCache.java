@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.gradle.cache.internal.HeapProportionalCacheSizer;
+import org.gradle.internal.resource.local.LocallyAvailableResource;
+
+import javax.annotation.Nullable;
+import java.io.File;
+
+/**
+ * Keeps the content of the descriptor files of the module metadata store in memory for the lifetime of the daemon, so that a build
+ * that resolves the same modules as an earlier build does not read their descriptors from disk again.
+ *
+ * <p>An entry is only used while the descriptor file has the same length and modification time as when it was read or written.
+ * The cache holds a heap proportional amount of descriptor bytes, and evicts the least recently used entries first.</p>
+ *
+ * <p>The descriptors are kept in their serialized form and are decoded by each build. The decoded metadata references services of the build
+ * session, such as its attributes factory, so it is not shared across builds.</p>
+ */
+public class CrossBuildModuleMetadataCache {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.resolution.crossBuildMetadataCache";
+    private static final int MAX_DESCRIPTOR_BYTES = 16 * 1024 * 1024;
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final Cache<File, CachedDescriptor> descriptors;
+
+    public CrossBuildModuleMetadataCache() {
+        this(new HeapProportionalCacheSizer().scaleCacheSize(MAX_DESCRIPTOR_BYTES));
+    }
+
+    CrossBuildModuleMetadataCache(long maxDescriptorBytes) {
+        descriptors = CacheBuilder.newBuilder()
+            .maximumWeight(maxDescriptorBytes)
+            .weigher(new Weigher<File, CachedDescriptor>() {
+                @Override
+                public int weigh(File key, CachedDescriptor value) {
+                    return value.content.length + ENTRY_OVERHEAD;
+                }
+            })
+            .build();
+    }
+
+    /**
+     * Returns the content previously read from or written to the given descriptor, or null when the descriptor has changed since.
+     */
+    @Nullable
+    public byte[] get(LocallyAvailableResource descriptor) {
+        File file = descriptor.getFile();
+        CachedDescriptor cached = descriptors.getIfPresent(file);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.lastModified != descriptor.getLastModified() || cached.content.length != descriptor.getContentLength()) {
+            descriptors.invalidate(file);
+            return null;
+        }
+        return cached.content;
+    }
+
+    /**
+     * Records the content of the given descriptor. The content must not be modified afterwards.
+     */
+    public void put(LocallyAvailableResource descriptor, byte[] content) {
+        descriptors.put(descriptor.getFile(), new CachedDescriptor(descriptor.getLastModified(), content));
+    }
+
+    private static class CachedDescriptor {
+        private final long lastModified;
+        private final byte[] content;
+
+        CachedDescriptor(long lastModified, byte[] content) {
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+    }
+}
@@ -34,6 +34,8 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.util.BuildCommencedTimeProvider;
 
+import javax.annotation.Nullable;
+
 public class DefaultModuleMetadataCache extends InMemoryModuleMetadataCache {
 
     private PersistentIndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> cache;
@@ -47,8 +49,19 @@ public class DefaultModuleMetadataCache extends InMemoryModuleMetadataCache {
                                       AttributeContainerSerializer attributeContainerSerializer,
                                       MavenMutableModuleMetadataFactory mavenMetadataFactory,
                                       IvyMutableModuleMetadataFactory ivyMetadataFactory) {
+        this(timeProvider, cacheLockingManager, artifactCacheMetadata, moduleIdentifierFactory, attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory, null);
+    }
+
+    public DefaultModuleMetadataCache(BuildCommencedTimeProvider timeProvider,
+                                      CacheLockingManager cacheLockingManager,
+                                      ArtifactCacheMetadata artifactCacheMetadata,
+                                      ImmutableModuleIdentifierFactory moduleIdentifierFactory,
+                                      AttributeContainerSerializer attributeContainerSerializer,
+                                      MavenMutableModuleMetadataFactory mavenMetadataFactory,
+                                      IvyMutableModuleMetadataFactory ivyMetadataFactory,
+                                      @Nullable CrossBuildModuleMetadataCache crossBuildCache) {
         super(timeProvider);
-        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory), moduleIdentifierFactory);
+        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory), moduleIdentifierFactory, crossBuildCache);
         this.cacheLockingManager = cacheLockingManager;
     }
 
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
+import com.google.common.io.Files;
 import org.gradle.api.Action;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
@@ -23,23 +24,34 @@ import org.gradle.internal.component.external.model.ModuleComponentResolveMetada
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
-import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
-import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 public class ModuleMetadataStore {
 
     private final PathKeyFileStore metaDataStore;
     private final ModuleMetadataSerializer moduleMetadataSerializer;
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+    private final CrossBuildModuleMetadataCache crossBuildCache;
 
     public ModuleMetadataStore(PathKeyFileStore metaDataStore, ModuleMetadataSerializer moduleMetadataSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        this(metaDataStore, moduleMetadataSerializer, moduleIdentifierFactory, null);
+    }
+
+    public ModuleMetadataStore(PathKeyFileStore metaDataStore, ModuleMetadataSerializer moduleMetadataSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory,
+                               @Nullable CrossBuildModuleMetadataCache crossBuildCache) {
         this.metaDataStore = metaDataStore;
         this.moduleMetadataSerializer = moduleMetadataSerializer;
         this.moduleIdentifierFactory = moduleIdentifierFactory;
+        this.crossBuildCache = crossBuildCache;
     }
 
     public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentAtRepositoryKey component) {
@@ -47,7 +59,7 @@ public class ModuleMetadataStore {
         final LocallyAvailableResource resource = metaDataStore.get(filePath);
         if (resource != null) {
             try {
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(resource.getFile()));
+                StringDeduplicatingKryoBackedDecoder decoder = new StringDeduplicatingKryoBackedDecoder(openDescriptor(resource));
                 try {
                     return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory);
                 } finally {
@@ -60,22 +72,40 @@ public class ModuleMetadataStore {
         return null;
     }
 
+    private InputStream openDescriptor(LocallyAvailableResource resource) throws IOException {
+        if (crossBuildCache == null) {
+            return new FileInputStream(resource.getFile());
+        }
+        byte[] content = crossBuildCache.get(resource);
+        if (content == null) {
+            content = Files.toByteArray(resource.getFile());
+            crossBuildCache.put(resource, content);
+        }
+        return new ByteArrayInputStream(content);
+    }
+
     public LocallyAvailableResource putModuleDescriptor(ModuleComponentAtRepositoryKey component, final ModuleComponentResolveMetadata metadata) {
         String filePath = getFilePath(component);
-        return metaDataStore.add(filePath, new Action<File>() {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        LocallyAvailableResource resource = metaDataStore.add(filePath, new Action<File>() {
             public void execute(File moduleDescriptorFile) {
                 try {
-                    KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(moduleDescriptorFile));
+                    StringDeduplicatingKryoBackedEncoder encoder = new StringDeduplicatingKryoBackedEncoder(content);
                     try {
                         moduleMetadataSerializer.write(encoder, metadata);
                     } finally {
                         encoder.close();
                     }
+                    Files.write(content.toByteArray(), moduleDescriptorFile);
                 } catch (Exception e) {
                     throw UncheckedException.throwAsUncheckedException(e);
                 }
             }
         });
+        if (crossBuildCache != null) {
+            crossBuildCache.put(resource, content.toByteArray());
+        }
+        return resource;
     }
 
     private String getFilePath(ModuleComponentAtRepositoryKey componentId) {
@@ -15,10 +15,13 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions.InFlightVersionListings;
+
 public class ModuleRepositoryCacheProvider {
     private final ModuleRepositoryCaches caches;
     private final ModuleRepositoryCaches inMemoryCaches;
     private final ResolvedArtifactCaches resolvedArtifactCaches = new ResolvedArtifactCaches();
+    private final InFlightVersionListings inFlightVersionListings = new InFlightVersionListings();
 
     public ModuleRepositoryCacheProvider(ModuleRepositoryCaches caches, ModuleRepositoryCaches inMemoryCaches) {
         this.caches = caches;
@@ -36,4 +39,8 @@ public class ModuleRepositoryCacheProvider {
     public ResolvedArtifactCaches getResolvedArtifactCaches() {
         return resolvedArtifactCaches;
     }
+
+    public InFlightVersionListings getInFlightVersionListings() {
+        return inFlightVersionListings;
+    }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.cache.internal.HeapProportionalCacheSizer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the version listings of the module versions cache in memory for the lifetime of the daemon, so that a build does not read them
+ * from the persistent cache again.
+ *
+ * <p>Entries keep the time at which the versions were listed, so a listing is still checked against {@code cacheDynamicVersionsFor} based on
+ * its real age. Listings of modules that do not exist in a repository are empty, and are kept like any other listing. Failed listings are never cached.
+ * Another process may have listed the versions again since, so an entry can be older than the one in the persistent cache. This only means that
+ * the versions are listed again a little earlier.</p>
+ */
+public class CrossBuildModuleVersionsCache {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.resolution.crossBuildVersionsCache";
+    private static final int MAX_ENTRIES = 10000;
+
+    private final Cache<ModuleAtRepositoryKey, ModuleVersionsCacheEntry> entries;
+
+    public CrossBuildModuleVersionsCache() {
+        this(new HeapProportionalCacheSizer().scaleCacheSize(MAX_ENTRIES));
+    }
+
+    CrossBuildModuleVersionsCache(int maxEntries) {
+        entries = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    @Nullable
+    ModuleVersionsCacheEntry get(ModuleAtRepositoryKey key) {
+        return entries.getIfPresent(key);
+    }
+
+    void put(ModuleAtRepositoryKey key, ModuleVersionsCacheEntry entry) {
+        entries.put(key, entry);
+    }
+}
@@ -23,6 +23,7 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.util.BuildCommencedTimeProvider;
 
+import javax.annotation.Nullable;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -30,13 +31,15 @@ public class DefaultModuleVersionsCache extends InMemoryModuleVersionsCache {
 
     private final CacheLockingManager cacheLockingManager;
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+    private final CrossBuildModuleVersionsCache crossBuildCache;
 
     private PersistentIndexedCache<ModuleAtRepositoryKey, ModuleVersionsCacheEntry> cache;
 
-    public DefaultModuleVersionsCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+    public DefaultModuleVersionsCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ImmutableModuleIdentifierFactory moduleIdentifierFactory, @Nullable CrossBuildModuleVersionsCache crossBuildCache) {
         super(timeProvider);
         this.cacheLockingManager = cacheLockingManager;
         this.moduleIdentifierFactory = moduleIdentifierFactory;
+        this.crossBuildCache = crossBuildCache;
     }
 
     private PersistentIndexedCache<ModuleAtRepositoryKey, ModuleVersionsCacheEntry> getCache() {
@@ -53,16 +56,28 @@ public class DefaultModuleVersionsCache extends InMemoryModuleVersionsCache {
     @Override
     protected void store(ModuleAtRepositoryKey key, ModuleVersionsCacheEntry entry) {
         super.store(key, entry);
+        if (crossBuildCache != null) {
+            crossBuildCache.put(key, entry);
+        }
         getCache().put(key, entry);
     }
 
     @Override
     protected ModuleVersionsCacheEntry get(ModuleAtRepositoryKey key) {
         ModuleVersionsCacheEntry entry = super.get(key);
+        if (entry == null && crossBuildCache != null) {
+            entry = crossBuildCache.get(key);
+            if (entry != null) {
+                super.store(key, entry);
+            }
+        }
         if (entry == null) {
             entry = getCache().get(key);
             if (entry != null) {
                 super.store(key, entry);
+                if (crossBuildCache != null) {
+                    crossBuildCache.put(key, entry);
+                }
             }
         }
         return entry;
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions;
+
+import com.google.common.collect.MapMaker;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.BaseModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.BaseModuleComponentRepositoryAccess;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepositoryAccess;
+import org.gradle.cache.internal.ProducerGuard;
+import org.gradle.internal.Factory;
+import org.gradle.internal.component.external.model.ModuleDependencyMetadata;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coalesces the requests to list the versions of a module in a repository that are made concurrently, for example by configurations
+ * resolved in parallel, across all resolutions of a build.
+ *
+ * <p>Only one request per module and repository lists the versions remotely at a time. A request that had to wait then looks for the versions
+ * in the cache first, where the request it waited for has stored them.</p>
+ */
+public class InFlightVersionListings {
+    private final ConcurrentMap<String, ProducerGuard<ModuleIdentifier>> guardsPerRepo = new MapMaker().makeMap();
+
+    /**
+     * Wraps the given caching repository, so that its remote version listings are coalesced.
+     */
+    public ModuleComponentRepository coalesceVersionListings(ModuleComponentRepository input) {
+        ModuleComponentRepositoryAccess remoteAccess = new CoalescingRemoteAccess(input.getLocalAccess(), input.getRemoteAccess(), getGuard(input.getId()));
+        return new BaseModuleComponentRepository(input, input.getLocalAccess(), remoteAccess);
+    }
+
+    private ProducerGuard<ModuleIdentifier> getGuard(String repositoryId) {
+        ProducerGuard<ModuleIdentifier> guard = guardsPerRepo.get(repositoryId);
+        if (guard == null) {
+            guard = ProducerGuard.adaptive();
+            ProducerGuard<ModuleIdentifier> existing = guardsPerRepo.putIfAbsent(repositoryId, guard);
+            if (existing != null) {
+                guard = existing;
+            }
+        }
+        return guard;
+    }
+
+    private static class CoalescingRemoteAccess extends BaseModuleComponentRepositoryAccess {
+        private final ModuleComponentRepositoryAccess localAccess;
+        private final ProducerGuard<ModuleIdentifier> guard;
+
+        CoalescingRemoteAccess(ModuleComponentRepositoryAccess localAccess, ModuleComponentRepositoryAccess remoteAccess, ProducerGuard<ModuleIdentifier> guard) {
+            super(remoteAccess);
+            this.localAccess = localAccess;
+            this.guard = guard;
+        }
+
+        @Override
+        public void listModuleVersions(final ModuleDependencyMetadata dependency, final BuildableModuleVersionListingResolveResult result) {
+            ModuleComponentSelector selector = dependency.getSelector();
+            guard.guardByKey(DefaultModuleIdentifier.newId(selector.getGroup(), selector.getModule()), new Factory<Void>() {
+                @Override
+                public Void create() {
+                    localAccess.listModuleVersions(dependency, result);
+                    if (!result.hasResult()) {
+                        getDelegate().listModuleVersions(dependency, result);
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+}
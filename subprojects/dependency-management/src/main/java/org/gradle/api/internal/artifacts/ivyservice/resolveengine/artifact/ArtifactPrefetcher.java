@@ -0,0 +1,238 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Downloads and transforms the artifacts of resolved configurations on a pool of threads, ahead of the artifacts being visited.
+ *
+ * <p>Without the prefetcher, the files of a configuration are only prepared when the configuration is visited, so the configurations
+ * used by a task are downloaded and transformed one after the other. The prefetcher lets the work for several configurations overlap.
+ * Each transform is started as soon as the file it applies to is available, rather than once all files of the configuration have been downloaded.</p>
+ *
+ * <p>The prefetcher does not keep any results itself. Artifacts are shared by all configurations that resolve them and remember their file, and
+ * transform results are cached, so identical artifacts requested by several configurations or projects are only fetched and transformed once,
+ * and the later visit of a configuration picks up the work done by the prefetcher. Failures are ignored here and reported by that visit.</p>
+ *
+ * <p>The work runs as a child of the operation that requested the prefetch, usually the execution of a task, and the requester has to stop the
+ * prefetch before that operation completes. The work does not take worker leases, as these are held by the running tasks that wait for the files,
+ * so it would only start once those tasks had finished. Instead, it runs on a pool that is bounded by the maximum number of workers.</p>
+ */
+public class ArtifactPrefetcher implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactPrefetcher.class);
+
+    private final ExecutorFactory executorFactory;
+    private final int threads;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private ManagedExecutor executor;
+
+    public ArtifactPrefetcher(ExecutorFactory executorFactory, int threads, BuildOperationExecutor buildOperationExecutor) {
+        this.executorFactory = executorFactory;
+        this.threads = threads;
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    /**
+     * Starts preparing the files of the given artifacts in the background. Does not block.
+     *
+     * @return the prefetch. Stopping it discards the work that has not started yet and waits for the work that is in progress.
+     */
+    public Stoppable prefetch(final ResolvedArtifactSet artifacts) {
+        if (artifacts == ResolvedArtifactSet.EMPTY) {
+            return CompositeStoppable.NO_OP_STOPPABLE;
+        }
+        final PrefetchQueue queue = new PrefetchQueue(getExecutor(), buildOperationExecutor, buildOperationExecutor.getCurrentOperation());
+        queue.execute(new Runnable() {
+            @Override
+            public void run() {
+                artifacts.startVisit(queue, PrefetchListener.INSTANCE);
+            }
+        });
+        return queue;
+    }
+
+    private synchronized ManagedExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Dependency artifact prefetch", threads);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+
+    /**
+     * Requests the files of all artifacts, so that downloads and transforms are started, and discards the notifications.
+     */
+    private static class PrefetchListener implements ResolvedArtifactSet.AsyncArtifactListener {
+        private static final PrefetchListener INSTANCE = new PrefetchListener();
+
+        @Override
+        public void artifactAvailable(ResolvableArtifact artifact) {
+        }
+
+        @Override
+        public boolean requireArtifactFiles() {
+            return true;
+        }
+
+        @Override
+        public boolean includeFileDependencies() {
+            return false;
+        }
+
+        @Override
+        public void fileAvailable(File file) {
+        }
+    }
+
+    /**
+     * Runs each operation as soon as a thread is available, as a child of the operation that requested the prefetch.
+     * Failures are ignored, so waiting for completion never fails.
+     */
+    private static class PrefetchQueue implements BuildOperationQueue<RunnableBuildOperation>, Executor, Stoppable {
+        private final Executor executor;
+        private final BuildOperationExecutor buildOperationExecutor;
+        private final BuildOperationRef parentOperation;
+        private final Object lock = new Object();
+        private int pending;
+        private boolean cancelled;
+
+        PrefetchQueue(Executor executor, BuildOperationExecutor buildOperationExecutor, BuildOperationRef parentOperation) {
+            this.executor = executor;
+            this.buildOperationExecutor = buildOperationExecutor;
+            this.parentOperation = parentOperation;
+        }
+
+        @Override
+        public void add(final RunnableBuildOperation operation) {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    buildOperationExecutor.run(new RunnableBuildOperation() {
+                        @Override
+                        public void run(BuildOperationContext context) {
+                            operation.run(context);
+                        }
+
+                        @Override
+                        public BuildOperationDescriptor.Builder description() {
+                            return operation.description().parent(parentOperation);
+                        }
+                    });
+                }
+            });
+        }
+
+        @Override
+        public void execute(final Runnable action) {
+            synchronized (lock) {
+                if (cancelled) {
+                    return;
+                }
+                pending++;
+            }
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            if (!isCancelled()) {
+                                action.run();
+                            }
+                        } catch (Throwable t) {
+                            LOGGER.debug("Could not prefetch artifact.", t);
+                        } finally {
+                            operationFinished();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The build is finishing, so the files will not be needed
+                operationFinished();
+            }
+        }
+
+        private boolean isCancelled() {
+            synchronized (lock) {
+                return cancelled;
+            }
+        }
+
+        private void operationFinished() {
+            synchronized (lock) {
+                pending--;
+                if (pending == 0) {
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (lock) {
+                cancelled = true;
+            }
+        }
+
+        @Override
+        public void waitForCompletion() throws MultipleBuildOperationFailures {
+            synchronized (lock) {
+                while (pending > 0) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void setLogLocation(String logLocation) {
+        }
+
+        @Override
+        public void stop() {
+            cancel();
+            waitForCompletion();
+        }
+    }
+}
@@ -23,6 +23,8 @@ import org.gradle.api.internal.artifacts.transform.ArtifactTransforms;
 import org.gradle.api.internal.artifacts.transform.VariantSelector;
 import org.gradle.api.internal.attributes.AttributeContainerInternal;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
 
 import java.util.Set;
 
@@ -65,5 +67,10 @@ public class BuildDependenciesOnlyVisitedArtifactSet implements VisitedArtifactS
         public void visitArtifacts(ArtifactVisitor visitor, boolean continueOnSelectionFailure) {
             throw new UnsupportedOperationException("Artifacts have not been resolved.");
         }
+
+        @Override
+        public Stoppable prefetchArtifacts() {
+            return CompositeStoppable.NO_OP_STOPPABLE;
+        }
     }
 }
@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact;
 
+import org.gradle.internal.concurrent.Stoppable;
+
 /**
  * A container of artifacts that match some criteria. Not every query method is available, depending on which details are available.
  */
@@ -30,4 +32,11 @@ public interface SelectedArtifactSet {
      */
     void visitArtifacts(ArtifactVisitor visitor, boolean continueOnSelectionFailure);
 
+    /**
+     * Starts preparing the files of this set in the background, so that a later call to {@link #visitArtifacts(ArtifactVisitor, boolean)} finds them ready. Does not block and does not report failures.
+     *
+     * @return the prefetch, which must be stopped once the files are no longer needed.
+     */
+    Stoppable prefetchArtifacts();
+
 }
@@ -26,9 +26,9 @@ import org.gradle.internal.component.model.IvyArtifactName;
  * A ModuleResolutionFilter that excludes any module/artifact that matches the exclude rule, using an Ivy pattern matcher.
  */
 class IvyPatternMatcherExcludeRuleSpec extends AbstractModuleExclusion {
-    private final ModuleIdentifier moduleId;
-    private final IvyArtifactName ivyArtifactName;
-    private final PatternMatcher matcher;
+    final ModuleIdentifier moduleId;
+    final IvyArtifactName ivyArtifactName;
+    final PatternMatcher matcher;
     private final boolean isArtifactExclude;
 
     IvyPatternMatcherExcludeRuleSpec(ExcludeMetadata rule) {
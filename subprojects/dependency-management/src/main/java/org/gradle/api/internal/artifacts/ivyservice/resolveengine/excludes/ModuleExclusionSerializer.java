@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.model.DefaultIvyArtifactName;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Serializes the exclusions calculated for the edges of a dependency graph, so that they can be restored without walking the graph again.
+ */
+public class ModuleExclusionSerializer extends AbstractSerializer<ModuleExclusion> {
+    private static final byte EXCLUDE_NONE = 0;
+    private static final byte EXCLUDE_ALL_MODULES = 1;
+    private static final byte MODULE_ID = 2;
+    private static final byte MODULE_NAME = 3;
+    private static final byte GROUP_NAME = 4;
+    private static final byte ARTIFACT = 5;
+    private static final byte IVY_PATTERN_MATCHER = 6;
+    private static final byte INTERSECTION = 7;
+    private static final byte UNION = 8;
+
+    private static final String[] NO_CONFIGURATIONS = new String[0];
+
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+
+    public ModuleExclusionSerializer(ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
+    }
+
+    @Override
+    public ModuleExclusion read(Decoder decoder) throws IOException {
+        return readExclusion(decoder);
+    }
+
+    private AbstractModuleExclusion readExclusion(Decoder decoder) throws IOException {
+        byte type = decoder.readByte();
+        switch (type) {
+            case EXCLUDE_NONE:
+                return (AbstractModuleExclusion) ModuleExclusions.excludeNone();
+            case EXCLUDE_ALL_MODULES:
+                return new ExcludeAllModulesSpec();
+            case MODULE_ID:
+                return new ModuleIdExcludeSpec(readModuleId(decoder));
+            case MODULE_NAME:
+                return new ModuleNameExcludeSpec(decoder.readString());
+            case GROUP_NAME:
+                return new GroupNameExcludeSpec(decoder.readString());
+            case ARTIFACT:
+                return new ArtifactExcludeSpec(readModuleId(decoder), readArtifact(decoder));
+            case IVY_PATTERN_MATCHER:
+                ModuleIdentifier moduleId = readModuleId(decoder);
+                IvyArtifactName artifact = decoder.readBoolean() ? readArtifact(decoder) : null;
+                String matcher = decoder.readString();
+                return new IvyPatternMatcherExcludeRuleSpec(artifact == null
+                    ? new DefaultExclude(moduleId, NO_CONFIGURATIONS, matcher)
+                    : new DefaultExclude(moduleId, artifact, NO_CONFIGURATIONS, matcher));
+            case INTERSECTION:
+                return new IntersectionExclusion(new ImmutableModuleExclusionSet(ImmutableSet.copyOf(readFilters(decoder))));
+            case UNION:
+                return new UnionExclusion(readFilters(decoder));
+            default:
+                throw new IllegalArgumentException("Unknown exclusion type: " + type);
+        }
+    }
+
+    private List<AbstractModuleExclusion> readFilters(Decoder decoder) throws IOException {
+        int size = decoder.readSmallInt();
+        List<AbstractModuleExclusion> filters = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            filters.add(readExclusion(decoder));
+        }
+        return filters;
+    }
+
+    private ModuleIdentifier readModuleId(Decoder decoder) throws IOException {
+        return moduleIdentifierFactory.module(decoder.readString(), decoder.readString());
+    }
+
+    private static IvyArtifactName readArtifact(Decoder decoder) throws IOException {
+        return new DefaultIvyArtifactName(decoder.readString(), decoder.readString(), decoder.readNullableString(), decoder.readNullableString());
+    }
+
+    @Override
+    public void write(Encoder encoder, ModuleExclusion value) throws IOException {
+        if (value instanceof ExcludeNone) {
+            encoder.writeByte(EXCLUDE_NONE);
+        } else if (value instanceof ExcludeAllModulesSpec) {
+            encoder.writeByte(EXCLUDE_ALL_MODULES);
+        } else if (value instanceof ModuleIdExcludeSpec) {
+            encoder.writeByte(MODULE_ID);
+            writeModuleId(encoder, ((ModuleIdExcludeSpec) value).moduleId);
+        } else if (value instanceof ModuleNameExcludeSpec) {
+            encoder.writeByte(MODULE_NAME);
+            encoder.writeString(((ModuleNameExcludeSpec) value).module);
+        } else if (value instanceof GroupNameExcludeSpec) {
+            encoder.writeByte(GROUP_NAME);
+            encoder.writeString(((GroupNameExcludeSpec) value).group);
+        } else if (value instanceof ArtifactExcludeSpec) {
+            ArtifactExcludeSpec spec = (ArtifactExcludeSpec) value;
+            encoder.writeByte(ARTIFACT);
+            writeModuleId(encoder, spec.moduleId);
+            writeArtifact(encoder, spec.ivyArtifactName);
+        } else if (value instanceof IvyPatternMatcherExcludeRuleSpec) {
+            IvyPatternMatcherExcludeRuleSpec spec = (IvyPatternMatcherExcludeRuleSpec) value;
+            encoder.writeByte(IVY_PATTERN_MATCHER);
+            writeModuleId(encoder, spec.moduleId);
+            encoder.writeBoolean(spec.ivyArtifactName != null);
+            if (spec.ivyArtifactName != null) {
+                writeArtifact(encoder, spec.ivyArtifactName);
+            }
+            encoder.writeString(spec.matcher.getName());
+        } else if (value instanceof IntersectionExclusion) {
+            encoder.writeByte(INTERSECTION);
+            writeFilters(encoder, ((IntersectionExclusion) value).getFilters());
+        } else if (value instanceof UnionExclusion) {
+            encoder.writeByte(UNION);
+            writeFilters(encoder, ((UnionExclusion) value).getFilters());
+        } else {
+            throw new IllegalArgumentException("Unknown exclusion: " + value);
+        }
+    }
+
+    private void writeFilters(Encoder encoder, Collection<AbstractModuleExclusion> filters) throws IOException {
+        encoder.writeSmallInt(filters.size());
+        for (AbstractModuleExclusion filter : filters) {
+            write(encoder, filter);
+        }
+    }
+
+    private static void writeModuleId(Encoder encoder, ModuleIdentifier moduleId) throws IOException {
+        encoder.writeString(moduleId.getGroup());
+        encoder.writeString(moduleId.getName());
+    }
+
+    private static void writeArtifact(Encoder encoder, IvyArtifactName artifact) throws IOException {
+        encoder.writeString(artifact.getName());
+        encoder.writeString(artifact.getType());
+        encoder.writeNullableString(artifact.getExtension());
+        encoder.writeNullableString(artifact.getClassifier());
+    }
+}
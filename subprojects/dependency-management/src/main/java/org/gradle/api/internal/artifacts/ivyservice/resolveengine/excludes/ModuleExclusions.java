@@ -50,6 +50,9 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.exclude
  * <ul> <li>When a module dependency has multiple exclusions, then the resulting exclusion is the _intersection_ of those exclusions (module is excluded if excluded by _any_).</li> <li>When a module
  * is depended on via a transitive path, then the resulting exclusion is the _intersection_ of the exclusions on each leg of the path (module is excluded if excluded by _any_).</li> <li>When a module
  * is depended on via multiple paths in the graph, then the resulting exclusion is the _union_ of the exclusions on each of those paths (module is excluded if excluded by _all_).</li> </ul>
+ *
+ * <p>Exclusions created by this class are canonical: two exclusions that are equal are the same instance. This allows the results of union and intersection
+ * to be cached by the identity of their operands, so that combining the same exclusions again, which happens for every edge of the graph, is a single lookup.</p>
  */
 public class ModuleExclusions {
     private static final ExcludeNone EXCLUDE_NONE = new ExcludeNone();
@@ -60,6 +63,10 @@ public class ModuleExclusions {
     private final Map<MergeOperation, AbstractModuleExclusion> mergeCache = Maps.newConcurrentMap();
     private final Map<ImmutableList<ExcludeMetadata>, AbstractModuleExclusion> excludeAnyCache = Maps.newConcurrentMap();
     private final Map<ImmutableSet<AbstractModuleExclusion>, IntersectionExclusion> intersectionCache = Maps.newConcurrentMap();
+    private final Map<ImmutableList<AbstractModuleExclusion>, UnionExclusion> unionCache = Maps.newConcurrentMap();
+    private final Map<AbstractModuleExclusion, AbstractModuleExclusion> canonicalSpecs = Maps.newConcurrentMap();
+    private final Map<ExclusionPair, ModuleExclusion> intersectResults = Maps.newConcurrentMap();
+    private final Map<ExclusionPair, ModuleExclusion> unionResults = Maps.newConcurrentMap();
     private final Map<AbstractModuleExclusion[], Map<AbstractModuleExclusion[], MergeOperation>> mergeOperationCache = Maps.newIdentityHashMap();
     private final Map<ModuleIdentifier, ModuleIdExcludeSpec> moduleIdSpecs = Maps.newConcurrentMap();
     private final Map<String, ModuleNameExcludeSpec> moduleNameSpecs = Maps.newConcurrentMap();
@@ -111,7 +118,7 @@ public class ModuleExclusions {
     private AbstractModuleExclusion forExclude(ExcludeMetadata rule) {
         // For custom ivy pattern matchers, don't inspect the rule any more deeply: this prevents us from doing smart merging later
         if (!PatternMatchers.isExactMatcher(rule.getMatcher())) {
-            return new IvyPatternMatcherExcludeRuleSpec(rule);
+            return canonical(new IvyPatternMatcherExcludeRuleSpec(rule));
         }
 
         ModuleIdentifier moduleId = rule.getModuleId();
@@ -131,10 +138,15 @@ public class ModuleExclusions {
                 return EXCLUDE_ALL_MODULES_SPEC;
             }
         } else {
-            return new ArtifactExcludeSpec(moduleId, artifact);
+            return canonical(new ArtifactExcludeSpec(moduleId, artifact));
         }
     }
 
+    private AbstractModuleExclusion canonical(AbstractModuleExclusion spec) {
+        AbstractModuleExclusion existing = canonicalSpecs.putIfAbsent(spec, spec);
+        return existing != null ? existing : spec;
+    }
+
     private ModuleIdExcludeSpec moduleIdExcludeSpec(ModuleIdentifier id) {
         ModuleIdExcludeSpec spec = moduleIdSpecs.get(id);
         if (spec == null) {
@@ -175,6 +187,17 @@ public class ModuleExclusions {
         if (two == EXCLUDE_NONE) {
             return one;
         }
+
+        ExclusionPair pair = new ExclusionPair(one, two);
+        ModuleExclusion result = intersectResults.get(pair);
+        if (result == null) {
+            result = doIntersect(one, two);
+            intersectResults.put(pair, result);
+        }
+        return result;
+    }
+
+    private ModuleExclusion doIntersect(ModuleExclusion one, ModuleExclusion two) {
         if (one.equals(two)) {
             return one;
         }
@@ -213,6 +236,17 @@ public class ModuleExclusions {
         if (one == EXCLUDE_NONE || two == EXCLUDE_NONE) {
             return EXCLUDE_NONE;
         }
+
+        ExclusionPair pair = new ExclusionPair(one, two);
+        ModuleExclusion result = unionResults.get(pair);
+        if (result == null) {
+            result = doUnion(one, two);
+            unionResults.put(pair, result);
+        }
+        return result;
+    }
+
+    private ModuleExclusion doUnion(ModuleExclusion one, ModuleExclusion two) {
         if (one.equals(two)) {
             return one;
         }
@@ -241,7 +275,19 @@ public class ModuleExclusions {
         if (specs.size() == 1) {
             return specs.get(0);
         }
-        return new UnionExclusion(specs);
+        return asUnion(ImmutableList.copyOf(specs));
+    }
+
+    private UnionExclusion asUnion(ImmutableList<AbstractModuleExclusion> specs) {
+        UnionExclusion cached = unionCache.get(specs);
+        if (cached == null) {
+            cached = new UnionExclusion(specs);
+            UnionExclusion existing = unionCache.putIfAbsent(specs, cached);
+            if (existing != null) {
+                cached = existing;
+            }
+        }
+        return cached;
     }
 
     /**
@@ -444,6 +490,39 @@ public class ModuleExclusions {
         }
     }
 
+    /**
+     * The operands of a union or intersection. Operands are compared by identity, as equal exclusions created by this class are the same instance.
+     */
+    private static final class ExclusionPair {
+        private final ModuleExclusion one;
+        private final ModuleExclusion two;
+        private final int hashCode;
+
+        private ExclusionPair(ModuleExclusion one, ModuleExclusion two) {
+            this.one = one;
+            this.two = two;
+            this.hashCode = 31 * System.identityHashCode(one) + System.identityHashCode(two);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            ExclusionPair that = (ExclusionPair) o;
+            return one == that.one && two == that.two;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     private static final class MergeSet extends HashSet<AbstractModuleExclusion> {
         private final BitSet remaining;
         private int idx;
@@ -21,6 +21,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.Modul
 import org.gradle.api.internal.attributes.ImmutableAttributes;
 import org.gradle.internal.component.model.ComponentArtifactMetadata;
 import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
 
 import javax.annotation.Nullable;
 import java.util.List;
@@ -33,6 +34,11 @@ public interface DependencyGraphEdge extends DependencyResult {
 
     DependencyGraphSelector getSelector();
 
+    /**
+     * The dependency declared by the source node that this edge was created for, after any substitution.
+     */
+    DependencyMetadata getDependencyMetadata();
+
     ModuleExclusion getExclusions();
 
     boolean contributesArtifacts();
@@ -40,6 +40,7 @@ import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Set;
 
@@ -51,7 +52,7 @@ public class ComponentState implements ComponentResolutionState, DependencyGraph
     private final ModuleVersionIdentifier id;
     private final ComponentMetaDataResolver resolver;
     private final VariantNameBuilder variantNameBuilder;
-    private final List<NodeState> nodes = Lists.newLinkedList();
+    private final List<NodeState> nodes = Lists.newArrayListWithCapacity(1);
     private final Long resultId;
     private final ModuleResolveState module;
     private final List<ComponentSelectionDescriptorInternal> selectionCauses = Lists.newArrayList();
@@ -183,6 +184,16 @@ public class ComponentState implements ComponentResolutionState, DependencyGraph
         this.metadataResolveFailure = null;
     }
 
+    @Nullable
+    NodeState getNode(String configurationName) {
+        for (NodeState node : nodes) {
+            if (node.getResolvedConfigurationId().getConfiguration().equals(configurationName)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
     public void addConfiguration(NodeState node) {
         nodes.add(node);
     }
@@ -39,6 +39,7 @@ import org.gradle.api.internal.attributes.AttributesSchemaInternal;
 import org.gradle.api.internal.attributes.ImmutableAttributesFactory;
 import org.gradle.api.specs.Spec;
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
 import org.gradle.internal.component.model.DependencyMetadata;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.id.LongIdGenerator;
@@ -53,6 +54,7 @@ import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -74,6 +76,7 @@ public class DependencyGraphBuilder {
     private final DependencySubstitutionApplicator dependencySubstitutionApplicator;
     private final ImmutableAttributesFactory attributesFactory;
     private final CapabilitiesConflictHandler capabilitiesConflictHandler;
+    private final MetadataPrefetcher metadataPrefetcher;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver,
@@ -85,6 +88,20 @@ public class DependencyGraphBuilder {
                                   BuildOperationExecutor buildOperationExecutor, ModuleReplacementsData moduleReplacementsData,
                                   DependencySubstitutionApplicator dependencySubstitutionApplicator, ComponentSelectorConverter componentSelectorConverter,
                                   ImmutableAttributesFactory attributesFactory) {
+        this(componentIdResolver, componentMetaDataResolver, resolveContextToComponentResolver, moduleConflictHandler, capabilitiesConflictHandler, edgeFilter, attributesSchema,
+            moduleExclusions, buildOperationExecutor, moduleReplacementsData, dependencySubstitutionApplicator, componentSelectorConverter, attributesFactory, null);
+    }
+
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  ResolveContextToComponentResolver resolveContextToComponentResolver,
+                                  ModuleConflictHandler moduleConflictHandler,
+                                  CapabilitiesConflictHandler capabilitiesConflictHandler,
+                                  Spec<? super DependencyMetadata> edgeFilter,
+                                  AttributesSchemaInternal attributesSchema,
+                                  ModuleExclusions moduleExclusions,
+                                  BuildOperationExecutor buildOperationExecutor, ModuleReplacementsData moduleReplacementsData,
+                                  DependencySubstitutionApplicator dependencySubstitutionApplicator, ComponentSelectorConverter componentSelectorConverter,
+                                  ImmutableAttributesFactory attributesFactory, @Nullable MetadataPrefetcher metadataPrefetcher) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
@@ -98,6 +115,7 @@ public class DependencyGraphBuilder {
         this.componentSelectorConverter = componentSelectorConverter;
         this.attributesFactory = attributesFactory;
         this.capabilitiesConflictHandler = capabilitiesConflictHandler;
+        this.metadataPrefetcher = metadataPrefetcher;
     }
 
     public void resolve(final ResolveContext resolveContext, final DependencyGraphVisitor modelVisitor) {
@@ -106,9 +124,17 @@ public class DependencyGraphBuilder {
         DefaultBuildableComponentResolveResult rootModule = new DefaultBuildableComponentResolveResult();
         moduleResolver.resolve(resolveContext, rootModule);
 
-        final ResolveState resolveState = new ResolveState(idGenerator, rootModule, resolveContext.getName(), idResolver, metaDataResolver, edgeFilter, attributesSchema, moduleExclusions, moduleReplacementsData, componentSelectorConverter, attributesFactory, dependencySubstitutionApplicator);
+        PrefetchingComponentMetaDataResolver prefetchingResolver = metadataPrefetcher == null ? null : metadataPrefetcher.startTraversal(metaDataResolver, dependencySubstitutionApplicator, edgeFilter, moduleExclusions, componentSelectorConverter);
+        ComponentMetaDataResolver componentMetaDataResolver = prefetchingResolver == null ? metaDataResolver : prefetchingResolver;
+        final ResolveState resolveState = new ResolveState(idGenerator, rootModule, resolveContext.getName(), idResolver, componentMetaDataResolver, edgeFilter, attributesSchema, moduleExclusions, moduleReplacementsData, componentSelectorConverter, attributesFactory, dependencySubstitutionApplicator);
 
-        traverseGraph(resolveState);
+        try {
+            traverseGraph(resolveState, prefetchingResolver);
+        } finally {
+            if (prefetchingResolver != null) {
+                prefetchingResolver.stop();
+            }
+        }
 
         validateGraph(resolveState);
 
@@ -119,7 +145,7 @@ public class DependencyGraphBuilder {
     /**
      * Traverses the dependency graph, resolving conflicts and building the paths from the root configuration.
      */
-    private void traverseGraph(final ResolveState resolveState) {
+    private void traverseGraph(final ResolveState resolveState, @Nullable PrefetchingComponentMetaDataResolver prefetchingResolver) {
         resolveState.onMoreSelected(resolveState.getRoot());
         final List<EdgeState> dependencies = Lists.newArrayList();
         final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache = Maps.newHashMap();
@@ -137,7 +163,7 @@ public class DependencyGraphBuilder {
                 // Initialize and collect any new outgoing edges of this node
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies, pendingDependenciesHandler);
-                resolveEdges(node, dependencies, resolveState, componentIdentifierCache);
+                resolveEdges(node, dependencies, resolveState, componentIdentifierCache, prefetchingResolver);
             } else {
                 // We have some batched up conflicts. Resolve the first, and continue traversing the graph
                 if (moduleConflictHandler.hasConflicts()) {
@@ -178,12 +204,17 @@ public class DependencyGraphBuilder {
     private void resolveEdges(final NodeState node,
                               final List<EdgeState> dependencies,
                               final ResolveState resolveState,
-                              final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
+                              final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache,
+                              @Nullable final PrefetchingComponentMetaDataResolver prefetchingResolver) {
         if (dependencies.isEmpty()) {
             return;
         }
         performSelectionSerially(dependencies, resolveState);
-        maybeDownloadMetadataInParallel(node, componentIdentifierCache, dependencies);
+        if (prefetchingResolver != null) {
+            prefetchMetadata(dependencies, prefetchingResolver);
+        } else {
+            maybeDownloadMetadataInParallel(node, componentIdentifierCache, dependencies);
+        }
         attachToTargetRevisionsSerially(dependencies);
 
     }
@@ -283,6 +314,20 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Starts fetching the metadata of all newly selected components in the background, rather than waiting for it in parallel.
+     * The metadata is then waited for in order when attaching the edges.
+     */
+    private void prefetchMetadata(List<EdgeState> dependencies, PrefetchingComponentMetaDataResolver prefetchingResolver) {
+        for (EdgeState dependency : dependencies) {
+            ComponentState targetComponent = dependency.getTargetComponent();
+            if (targetComponent != null && targetComponent.isSelected() && !targetComponent.alreadyResolved()) {
+                prefetchingResolver.prefetch(targetComponent.getComponentId(), DefaultComponentOverrideMetadata.forDependency(dependency.getDependencyMetadata()),
+                    dependency.isTransitive() ? dependency.getExclusions() : null);
+            }
+        }
+    }
+
     private ComponentIdentifier toComponentId(ModuleVersionIdentifier id, Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
         ComponentIdentifier identifier = componentIdentifierCache.get(id);
         if (identifier == null) {
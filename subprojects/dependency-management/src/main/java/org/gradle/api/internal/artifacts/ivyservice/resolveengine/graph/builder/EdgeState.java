@@ -17,7 +17,6 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.component.ComponentSelector;
@@ -41,6 +40,7 @@ import org.gradle.internal.text.TreeFormatter;
 import org.gradle.util.CollectionUtils;
 
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -57,9 +57,10 @@ class EdgeState implements DependencyGraphEdge {
     private final SelectorState selector;
     private final ResolveState resolveState;
     private final ModuleExclusion transitiveExclusions;
-    private final List<NodeState> targetNodes = Lists.newLinkedList();
+    private List<NodeState> targetNodes = Collections.emptyList();
 
     private ModuleVersionResolveException targetNodeSelectionFailure;
+    private ModuleExclusion edgeExclusions;
 
     EdgeState(NodeState from, DependencyState dependencyState, ModuleExclusion transitiveExclusions, ResolveState resolveState) {
         this.from = from;
@@ -81,7 +82,8 @@ class EdgeState implements DependencyGraphEdge {
         return from;
     }
 
-    DependencyMetadata getDependencyMetadata() {
+    @Override
+    public DependencyMetadata getDependencyMetadata() {
         return dependencyMetadata;
     }
 
@@ -125,7 +127,7 @@ class EdgeState implements DependencyGraphEdge {
         for (NodeState targetConfiguration : targetNodes) {
             targetConfiguration.removeIncomingEdge(this);
         }
-        targetNodes.clear();
+        targetNodes = Collections.emptyList();
         targetNodeSelectionFailure = null;
     }
 
@@ -143,7 +145,7 @@ class EdgeState implements DependencyGraphEdge {
     }
 
     private void calculateTargetConfigurations(ComponentState targetComponent) {
-        targetNodes.clear();
+        targetNodes = Collections.emptyList();
         targetNodeSelectionFailure = null;
         ComponentResolveMetadata targetModuleVersion = targetComponent.getMetadata();
         if (targetModuleVersion == null) {
@@ -161,20 +163,30 @@ class EdgeState implements DependencyGraphEdge {
             targetNodeSelectionFailure = new ModuleVersionResolveException(dependencyState.getRequested(), t);
             return;
         }
-        for (ConfigurationMetadata targetConfiguration : targetConfigurations) {
-            NodeState targetNodeState = resolveState.getNode(targetComponent, targetConfiguration);
-            this.targetNodes.add(targetNodeState);
+        // Most edges target a single node, so avoid allocating a growable list for each edge
+        if (targetConfigurations.size() == 1) {
+            targetNodes = Collections.singletonList(resolveState.getNode(targetComponent, targetConfigurations.get(0)));
+        } else if (!targetConfigurations.isEmpty()) {
+            ImmutableList.Builder<NodeState> builder = ImmutableList.builder();
+            for (ConfigurationMetadata targetConfiguration : targetConfigurations) {
+                builder.add(resolveState.getNode(targetComponent, targetConfiguration));
+            }
+            targetNodes = builder.build();
         }
     }
 
     @Override
     public ModuleExclusion getExclusions() {
-        List<ExcludeMetadata> excludes = dependencyMetadata.getExcludes();
-        if (excludes.isEmpty()) {
-            return transitiveExclusions;
+        if (edgeExclusions == null) {
+            List<ExcludeMetadata> excludes = dependencyMetadata.getExcludes();
+            if (excludes.isEmpty()) {
+                edgeExclusions = transitiveExclusions;
+            } else {
+                ModuleExclusion dependencyExclusions = resolveState.getModuleExclusions().excludeAny(ImmutableList.copyOf(excludes));
+                edgeExclusions = resolveState.getModuleExclusions().intersect(dependencyExclusions, transitiveExclusions);
+            }
         }
-        ModuleExclusion edgeExclusions = resolveState.getModuleExclusions().excludeAny(ImmutableList.copyOf(excludes));
-        return resolveState.getModuleExclusions().intersect(edgeExclusions, transitiveExclusions);
+        return edgeExclusions;
     }
 
     @Override
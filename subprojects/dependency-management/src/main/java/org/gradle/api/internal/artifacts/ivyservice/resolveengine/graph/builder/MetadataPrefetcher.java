@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import org.gradle.api.internal.artifacts.ComponentSelectorConverter;
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionApplicator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+
+/**
+ * Fetches the metadata of components on a pool of threads ahead of the traversal of the dependency graph.
+ *
+ * <p>Without the prefetcher, the graph builder only fetches the metadata of the targets of the node it is visiting in parallel. The prefetcher
+ * also fetches the metadata of the dependencies of each component as soon as the metadata of the component is available. This way deep graphs
+ * are not resolved level by level.</p>
+ *
+ * <p>A dependency is only fetched speculatively when it is not excluded, and when it resolves to a fixed version once substitution rules and
+ * forced versions have been applied. The number of pending speculative fetches is bounded. Metadata fetched for components that are never
+ * visited, for example because they lose a conflict, is discarded at the end of the traversal.</p>
+ */
+public class MetadataPrefetcher implements Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.resolution.prefetchMetadata";
+    private static final int MAX_PENDING_SPECULATIONS_PER_THREAD = 4;
+
+    private final ExecutorFactory executorFactory;
+    private final int threads;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private ManagedExecutor executor;
+
+    public MetadataPrefetcher(ExecutorFactory executorFactory, int threads, BuildOperationExecutor buildOperationExecutor, VersionSelectorScheme versionSelectorScheme) {
+        this.executorFactory = executorFactory;
+        this.threads = threads;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.versionSelectorScheme = versionSelectorScheme;
+    }
+
+    /**
+     * Starts prefetching for the traversal of a graph. The returned resolver must be stopped once the traversal is complete.
+     */
+    PrefetchingComponentMetaDataResolver startTraversal(ComponentMetaDataResolver delegate, DependencySubstitutionApplicator dependencySubstitutionApplicator, Spec<? super DependencyMetadata> edgeFilter,
+                                                        ModuleExclusions moduleExclusions, ComponentSelectorConverter componentSelectorConverter) {
+        return new PrefetchingComponentMetaDataResolver(delegate, getExecutor(), threads * MAX_PENDING_SPECULATIONS_PER_THREAD, buildOperationExecutor, versionSelectorScheme,
+            dependencySubstitutionApplicator, edgeFilter, moduleExclusions, componentSelectorConverter);
+    }
+
+    private synchronized ManagedExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Dependency metadata prefetch", threads);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+}
@@ -55,13 +55,14 @@ class NodeState implements DependencyGraphNode {
 
     private final Long resultId;
     private final ComponentState component;
-    private final List<EdgeState> incomingEdges = Lists.newLinkedList();
-    private final List<EdgeState> outgoingEdges = Lists.newLinkedList();
+    private final List<EdgeState> incomingEdges = Lists.newArrayListWithCapacity(1);
+    private final List<EdgeState> outgoingEdges = Lists.newArrayList();
     private final ResolvedConfigurationIdentifier id;
 
     private final ConfigurationMetadata metaData;
     private final ResolveState resolveState;
     private ModuleExclusion previousTraversalExclusions;
+    private ModuleExclusion nodeExclusions;
 
     NodeState(Long resultId, ResolvedConfigurationIdentifier id, ComponentState component, ResolveState resolveState, ConfigurationMetadata md) {
         this.resultId = resultId;
@@ -288,7 +289,9 @@ class NodeState implements DependencyGraphNode {
 
     private ModuleExclusion getModuleResolutionFilter(List<EdgeState> incomingEdges) {
         ModuleExclusions moduleExclusions = resolveState.getModuleExclusions();
-        ModuleExclusion nodeExclusions = moduleExclusions.excludeAny(metaData.getExcludes());
+        if (nodeExclusions == null) {
+            nodeExclusions = moduleExclusions.excludeAny(metaData.getExcludes());
+        }
         if (incomingEdges.isEmpty()) {
             return nodeExclusions;
         }
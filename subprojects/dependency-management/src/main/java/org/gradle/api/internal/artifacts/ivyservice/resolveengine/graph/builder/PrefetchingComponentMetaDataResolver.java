@@ -0,0 +1,375 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ComponentSelectorConverter;
+import org.gradle.api.internal.artifacts.DependencySubstitutionInternal;
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionApplicator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusion;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ComponentMetaDataResolver} that serves metadata fetched ahead of time by a {@link MetadataPrefetcher}, for the traversal of a single graph.
+ *
+ * <p>Prefetched metadata is only used when it was fetched with the same overrides as requested. Failures are not kept, so that the failure
+ * is reported by the resolver when the component is actually visited.</p>
+ *
+ * <p>The dependencies of fetched components are speculated on by the traversal thread, when it next calls this resolver, as dependency
+ * substitution rules are not thread safe. A dependency is only speculated on once the edge filter, the excludes that would apply to it
+ * in the graph and the substitution rules, which also apply forced versions, have been applied to it.</p>
+ */
+class PrefetchingComponentMetaDataResolver implements ComponentMetaDataResolver {
+    private final ComponentMetaDataResolver delegate;
+    private final Executor executor;
+    private final int maxPendingSpeculations;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final DependencySubstitutionApplicator dependencySubstitutionApplicator;
+    private final Spec<? super DependencyMetadata> edgeFilter;
+    private final ModuleExclusions moduleExclusions;
+    private final ComponentSelectorConverter componentSelectorConverter;
+    private final BuildOperationRef parentOperation;
+    private final ConcurrentMap<ComponentIdentifier, Prefetch> prefetches = new ConcurrentHashMap<ComponentIdentifier, Prefetch>();
+    private final Queue<Prefetch> fetched = new ConcurrentLinkedQueue<Prefetch>();
+    // Only used by the traversal thread
+    private final Map<ComponentIdentifier, ModuleExclusion> exclusions = new HashMap<ComponentIdentifier, ModuleExclusion>();
+    private final AtomicInteger pendingSpeculations = new AtomicInteger();
+    private final Object inFlightLock = new Object();
+    private int inFlight;
+    private volatile boolean stopped;
+
+    PrefetchingComponentMetaDataResolver(ComponentMetaDataResolver delegate, Executor executor, int maxPendingSpeculations, BuildOperationExecutor buildOperationExecutor, VersionSelectorScheme versionSelectorScheme,
+                                         DependencySubstitutionApplicator dependencySubstitutionApplicator, Spec<? super DependencyMetadata> edgeFilter, ModuleExclusions moduleExclusions,
+                                         ComponentSelectorConverter componentSelectorConverter) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.maxPendingSpeculations = maxPendingSpeculations;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.dependencySubstitutionApplicator = dependencySubstitutionApplicator;
+        this.edgeFilter = edgeFilter;
+        this.moduleExclusions = moduleExclusions;
+        this.componentSelectorConverter = componentSelectorConverter;
+        this.parentOperation = buildOperationExecutor.getCurrentOperation();
+    }
+
+    @Override
+    public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+        speculateOnFetched();
+        Prefetch prefetch = prefetches.get(identifier);
+        if (prefetch != null && prefetch.canBeUsedFor(componentOverrideMetadata)) {
+            ComponentResolveMetadata metadata = prefetch.await();
+            if (metadata != null) {
+                result.resolved(metadata);
+                return;
+            }
+        }
+        delegate.resolve(identifier, componentOverrideMetadata, result);
+        if (result.getFailure() == null) {
+            speculate(identifier, result.getMetadata());
+        }
+    }
+
+    @Override
+    public boolean isFetchingMetadataCheap(ComponentIdentifier identifier) {
+        return delegate.isFetchingMetadataCheap(identifier);
+    }
+
+    /**
+     * Starts fetching the metadata of a component that has been selected in the graph.
+     *
+     * @param exclusions the exclusions that apply to the dependencies of the component, or null when its dependencies are not traversed.
+     */
+    void prefetch(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, @Nullable ModuleExclusion exclusions) {
+        recordExclusions(identifier, exclusions);
+        speculateOnFetched();
+        if (componentOverrideMetadata.getClientModule() != null || !(identifier instanceof ModuleComponentIdentifier) || delegate.isFetchingMetadataCheap(identifier)) {
+            return;
+        }
+        submit(identifier, componentOverrideMetadata, false);
+    }
+
+    /**
+     * Discards all metadata that has not been used yet and cancels the fetches that have not started. Waits for the fetches that are in progress,
+     * as these run as children of the operation that started the traversal. They are not interrupted, as they may be using the shared caches.
+     */
+    void stop() {
+        synchronized (inFlightLock) {
+            stopped = true;
+        }
+        for (Prefetch prefetch : prefetches.values()) {
+            prefetch.cancel(false);
+        }
+        prefetches.clear();
+        fetched.clear();
+        exclusions.clear();
+        synchronized (inFlightLock) {
+            while (inFlight > 0) {
+                try {
+                    inFlightLock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the exclusions for the dependencies of a component. When a component is reached through several edges, a dependency is
+     * only excluded when it is excluded by all of them, as in the graph.
+     */
+    private void recordExclusions(ComponentIdentifier identifier, @Nullable ModuleExclusion componentExclusions) {
+        if (componentExclusions == null) {
+            return;
+        }
+        ModuleExclusion previous = exclusions.get(identifier);
+        exclusions.put(identifier, previous == null ? componentExclusions : moduleExclusions.union(previous, componentExclusions));
+    }
+
+    private void speculateOnFetched() {
+        Prefetch prefetch;
+        while ((prefetch = fetched.poll()) != null) {
+            ComponentResolveMetadata metadata = prefetch.await();
+            if (metadata != null) {
+                speculate(prefetch.identifier, metadata);
+            }
+        }
+    }
+
+    private void speculate(ComponentIdentifier owner, ComponentResolveMetadata metadata) {
+        ModuleExclusion ownerExclusions = exclusions.get(owner);
+        if (stopped || ownerExclusions == null) {
+            // The dependencies of the component are not traversed, or not known to be
+            return;
+        }
+        List<? extends ConfigurationMetadata> configurations = metadata.getVariantsForGraphTraversal();
+        if (configurations.isEmpty()) {
+            ConfigurationMetadata defaultConfiguration = metadata.getConfiguration(Dependency.DEFAULT_CONFIGURATION);
+            configurations = defaultConfiguration == null ? Collections.<ConfigurationMetadata>emptyList() : Collections.singletonList(defaultConfiguration);
+        }
+        for (ConfigurationMetadata configuration : configurations) {
+            ModuleExclusion configurationExclusions = moduleExclusions.intersect(ownerExclusions, moduleExclusions.excludeAny(configuration.getExcludes()));
+            for (DependencyMetadata dependency : configuration.getDependencies()) {
+                if (pendingSpeculations.get() >= maxPendingSpeculations) {
+                    return;
+                }
+                if (isExcluded(configurationExclusions, dependency)) {
+                    continue;
+                }
+                ComponentIdentifier identifier = toFixedComponentId(substitute(dependency));
+                if (identifier == null) {
+                    continue;
+                }
+                if (configuration.isTransitive() && dependency.isTransitive()) {
+                    List<ExcludeMetadata> dependencyExcludes = dependency.getExcludes();
+                    recordExclusions(identifier, dependencyExcludes.isEmpty() ? configurationExclusions : moduleExclusions.intersect(configurationExclusions, moduleExclusions.excludeAny(ImmutableList.copyOf(dependencyExcludes))));
+                }
+                if (prefetches.containsKey(identifier)) {
+                    continue;
+                }
+                ComponentOverrideMetadata componentOverrideMetadata = DefaultComponentOverrideMetadata.forDependency(dependency);
+                if (componentOverrideMetadata.getClientModule() == null && !delegate.isFetchingMetadataCheap(identifier)) {
+                    submit(identifier, componentOverrideMetadata, true);
+                }
+            }
+        }
+    }
+
+    private boolean isExcluded(ModuleExclusion configurationExclusions, DependencyMetadata dependency) {
+        if (!edgeFilter.isSatisfiedBy(dependency)) {
+            return true;
+        }
+        return configurationExclusions != ModuleExclusions.excludeNone() && configurationExclusions.excludeModule(componentSelectorConverter.getModule(dependency.getSelector()));
+    }
+
+    /**
+     * Returns the selector that the graph will use for a dependency, once substitution rules and forced versions have been applied to it.
+     */
+    @Nullable
+    private ComponentSelector substitute(DependencyMetadata dependency) {
+        DependencySubstitutionApplicator.SubstitutionResult substitutionResult = dependencySubstitutionApplicator.apply(dependency);
+        if (substitutionResult.hasFailure()) {
+            return null;
+        }
+        DependencySubstitutionInternal details = substitutionResult.getResult();
+        if (details != null && details.isUpdated()) {
+            return details.getTarget();
+        }
+        return dependency.getSelector();
+    }
+
+    /**
+     * Returns the component a selector refers to, when that can be known without listing the versions of the module.
+     */
+    @Nullable
+    private ComponentIdentifier toFixedComponentId(@Nullable ComponentSelector selector) {
+        if (!(selector instanceof ModuleComponentSelector)) {
+            return null;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        String version = moduleSelector.getVersionConstraint().getPreferredVersion();
+        if (version == null || version.isEmpty() || versionSelectorScheme.parseSelector(version).isDynamic()) {
+            return null;
+        }
+        return DefaultModuleComponentIdentifier.newId(moduleSelector.getGroup(), moduleSelector.getModule(), version);
+    }
+
+    private void submit(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, boolean speculative) {
+        if (stopped || prefetches.containsKey(identifier)) {
+            return;
+        }
+        Prefetch prefetch = new Prefetch(identifier, componentOverrideMetadata, speculative);
+        if (prefetches.putIfAbsent(identifier, prefetch) != null) {
+            return;
+        }
+        if (speculative) {
+            pendingSpeculations.incrementAndGet();
+        }
+        try {
+            executor.execute(prefetch);
+        } catch (RejectedExecutionException e) {
+            // The build is shutting down, the metadata will be fetched when it is needed
+            prefetch.cancel(false);
+        }
+    }
+
+    private class Prefetch extends FutureTask<ComponentResolveMetadata> {
+        private final ComponentIdentifier identifier;
+        private final ComponentOverrideMetadata componentOverrideMetadata;
+        private final boolean speculative;
+
+        Prefetch(final ComponentIdentifier identifier, final ComponentOverrideMetadata componentOverrideMetadata, boolean speculative) {
+            super(new Callable<ComponentResolveMetadata>() {
+                @Override
+                public ComponentResolveMetadata call() {
+                    return fetch(identifier, componentOverrideMetadata);
+                }
+            });
+            this.identifier = identifier;
+            this.componentOverrideMetadata = componentOverrideMetadata;
+            this.speculative = speculative;
+        }
+
+        boolean canBeUsedFor(ComponentOverrideMetadata requested) {
+            return requested.getClientModule() == null
+                && requested.isChanging() == componentOverrideMetadata.isChanging()
+                && requested.getArtifacts().equals(componentOverrideMetadata.getArtifacts());
+        }
+
+        /**
+         * Waits for the metadata, fetching it on the calling thread when no worker has started to fetch it yet.
+         *
+         * @return null when the metadata could not be fetched.
+         */
+        ComponentResolveMetadata await() {
+            run();
+            try {
+                return get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                return null;
+            } catch (CancellationException e) {
+                return null;
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (speculative) {
+                pendingSpeculations.decrementAndGet();
+            }
+            if (!isCancelled() && !stopped) {
+                fetched.add(this);
+            }
+        }
+    }
+
+    private ComponentResolveMetadata fetch(final ComponentIdentifier identifier, final ComponentOverrideMetadata componentOverrideMetadata) {
+        synchronized (inFlightLock) {
+            if (stopped) {
+                // Skip work that was queued before the traversal finished
+                return null;
+            }
+            inFlight++;
+        }
+        final DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+        try {
+            buildOperationExecutor.run(new RunnableBuildOperation() {
+                @Override
+                public void run(BuildOperationContext context) {
+                    delegate.resolve(identifier, componentOverrideMetadata, result);
+                }
+
+                @Override
+                public BuildOperationDescriptor.Builder description() {
+                    return BuildOperationDescriptor.displayName("Resolve " + identifier).parent(parentOperation);
+                }
+            });
+        } finally {
+            synchronized (inFlightLock) {
+                inFlight--;
+                inFlightLock.notifyAll();
+            }
+        }
+        if (result.getFailure() != null) {
+            return null;
+        }
+        return result.getMetadata();
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
@@ -42,6 +43,7 @@ import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -51,7 +53,7 @@ import java.util.Set;
 class ResolveState implements ComponentStateFactory<ComponentState> {
     private final Spec<? super DependencyMetadata> edgeFilter;
     private final Map<ModuleIdentifier, ModuleResolveState> modules = new LinkedHashMap<ModuleIdentifier, ModuleResolveState>();
-    private final Map<ResolvedConfigurationIdentifier, NodeState> nodes = new LinkedHashMap<ResolvedConfigurationIdentifier, NodeState>();
+    private final List<NodeState> nodes = Lists.newArrayList();
     private final Map<ComponentSelector, SelectorState> selectors = new LinkedHashMap<ComponentSelector, SelectorState>();
     private final RootNode root;
     private final IdGenerator<Long> idGenerator;
@@ -88,7 +90,7 @@ class ResolveState implements ComponentStateFactory<ComponentState> {
         final ResolvedConfigurationIdentifier id = new ResolvedConfigurationIdentifier(rootVersion.getId(), rootConfigurationName);
         ConfigurationMetadata configurationMetadata = rootVersion.getMetadata().getConfiguration(id.getConfiguration());
         root = new RootNode(idGenerator.generateId(), rootVersion, id, this, configurationMetadata);
-        nodes.put(root.getResolvedConfigurationId(), root);
+        nodes.add(root);
         root.getComponent().getModule().select(root.getComponent());
         this.replaceSelectionWithConflictResultAction = new ReplaceSelectionWithConflictResultAction(this);
     }
@@ -125,15 +127,16 @@ class ResolveState implements ComponentStateFactory<ComponentState> {
     }
 
     public Collection<NodeState> getNodes() {
-        return nodes.values();
+        return nodes;
     }
 
     public NodeState getNode(ComponentState module, ConfigurationMetadata configurationMetadata) {
-        ResolvedConfigurationIdentifier id = new ResolvedConfigurationIdentifier(module.getId(), configurationMetadata.getName());
-        NodeState configuration = nodes.get(id);
+        // A component only has a few nodes, so look them up on the component rather than keying a map by identifier
+        NodeState configuration = module.getNode(configurationMetadata.getName());
         if (configuration == null) {
+            ResolvedConfigurationIdentifier id = new ResolvedConfigurationIdentifier(module.getId(), configurationMetadata.getName());
             configuration = new NodeState(idGenerator.generateId(), id, module, this, configurationMetadata);
-            nodes.put(id, configuration);
+            nodes.add(configuration);
         }
         return configuration;
     }
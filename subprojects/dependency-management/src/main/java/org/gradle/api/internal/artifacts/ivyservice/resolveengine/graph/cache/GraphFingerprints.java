@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.attributes.AttributeMatchingStrategy;
+import org.gradle.api.internal.attributes.AttributesSchemaInternal;
+import org.gradle.api.internal.attributes.DefaultCompatibilityRuleChain;
+import org.gradle.api.internal.attributes.DefaultDisambiguationRuleChain;
+import org.gradle.internal.Pair;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.component.external.model.ConfigurationBoundExternalDependencyMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.LocalOriginDependencyMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Calculates fingerprints of the metadata that determines the shape of a dependency graph around a node: the configuration of the node and the
+ * dependencies declared by it, along with the variants it was chosen from.
+ */
+final class GraphFingerprints {
+    private static final Comparator<Attribute<?>> BY_NAME = new Comparator<Attribute<?>>() {
+        @Override
+        public int compare(Attribute<?> o1, Attribute<?> o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private GraphFingerprints() {
+    }
+
+    /**
+     * Fingerprints the given configuration of the given component.
+     *
+     * @param variant true when the configuration was selected from the variants of the component, in which case the other variants are taken into account as well.
+     */
+    static HashCode fingerprint(ComponentResolveMetadata component, ConfigurationMetadata configuration, boolean variant) {
+        Hasher hasher = Hashing.md5().newHasher();
+        putConfiguration(hasher, configuration);
+        hasher.putBoolean(variant);
+        if (variant) {
+            List<? extends ConfigurationMetadata> variants = component.getVariantsForGraphTraversal();
+            hasher.putInt(variants.size());
+            for (ConfigurationMetadata candidate : variants) {
+                hasher.putString(candidate.getName());
+                putAttributes(hasher, candidate.getAttributes());
+            }
+        }
+        return hasher.hash();
+    }
+
+    static void putConfiguration(Hasher hasher, ConfigurationMetadata configuration) {
+        hasher.putString(configuration.getName());
+        putAttributes(hasher, configuration.getAttributes());
+        hasher.putBoolean(configuration.isTransitive());
+        putExcludes(hasher, configuration.getExcludes());
+        List<? extends DependencyMetadata> dependencies = configuration.getDependencies();
+        hasher.putInt(dependencies.size());
+        for (DependencyMetadata dependency : dependencies) {
+            putDependency(hasher, dependency);
+        }
+    }
+
+    private static void putDependency(Hasher hasher, DependencyMetadata dependency) {
+        hasher.putString(dependency.getSelector().getDisplayName());
+        if (dependency.getSelector() instanceof ModuleComponentSelector) {
+            ModuleComponentSelector selector = (ModuleComponentSelector) dependency.getSelector();
+            VersionConstraint versionConstraint = selector.getVersionConstraint();
+            putNullableString(hasher, versionConstraint.getBranch());
+            putNullableString(hasher, versionConstraint.getPreferredVersion());
+            hasher.putInt(versionConstraint.getRejectedVersions().size());
+            for (String rejected : versionConstraint.getRejectedVersions()) {
+                hasher.putString(rejected);
+            }
+            putAttributes(hasher, selector.getAttributes());
+        }
+        if (dependency instanceof LocalOriginDependencyMetadata) {
+            LocalOriginDependencyMetadata localDependency = (LocalOriginDependencyMetadata) dependency;
+            putNullableString(hasher, localDependency.getModuleConfiguration());
+            putNullableString(hasher, localDependency.getDependencyConfiguration());
+            hasher.putBoolean(localDependency.isForce());
+        } else if (dependency instanceof ConfigurationBoundExternalDependencyMetadata) {
+            // Describes the scope or configuration mapping of the dependency
+            hasher.putString(dependency.toString());
+        }
+        hasher.putBoolean(dependency.isTransitive());
+        hasher.putBoolean(dependency.isPending());
+        hasher.putBoolean(dependency.isChanging());
+        putExcludes(hasher, dependency.getExcludes());
+        List<IvyArtifactName> artifacts = dependency.getArtifacts();
+        hasher.putInt(artifacts.size());
+        for (IvyArtifactName artifact : artifacts) {
+            putArtifact(hasher, artifact);
+        }
+    }
+
+    private static void putExcludes(Hasher hasher, List<? extends ExcludeMetadata> excludes) {
+        hasher.putInt(excludes.size());
+        for (ExcludeMetadata exclude : excludes) {
+            hasher.putString(exclude.getModuleId().getGroup());
+            hasher.putString(exclude.getModuleId().getName());
+            IvyArtifactName artifact = exclude.getArtifact();
+            hasher.putBoolean(artifact != null);
+            if (artifact != null) {
+                putArtifact(hasher, artifact);
+            }
+            putNullableString(hasher, exclude.getMatcher());
+        }
+    }
+
+    private static void putArtifact(Hasher hasher, IvyArtifactName artifact) {
+        hasher.putString(artifact.getName());
+        hasher.putString(artifact.getType());
+        putNullableString(hasher, artifact.getExtension());
+        putNullableString(hasher, artifact.getClassifier());
+    }
+
+    /**
+     * Adds the attributes of the given schema, along with the compatibility and disambiguation rules of each attribute, to the given hasher.
+     *
+     * @return false when the rules cannot be fingerprinted, as for rules that order values using a comparator or rule types loaded by a class loader that cannot be hashed.
+     */
+    static boolean putSchema(Hasher hasher, AttributesSchemaInternal schema, ClassLoaderHierarchyHasher classLoaderHasher) {
+        List<Attribute<?>> attributes = Lists.newArrayList(schema.getAttributes());
+        Collections.sort(attributes, BY_NAME);
+        hasher.putInt(attributes.size());
+        for (Attribute<?> attribute : attributes) {
+            hasher.putString(attribute.getName());
+            hasher.putString(attribute.getType().getName());
+            AttributeMatchingStrategy<?> strategy = schema.getMatchingStrategy(attribute);
+            if (!(strategy.getCompatibilityRules() instanceof DefaultCompatibilityRuleChain)
+                || !(strategy.getDisambiguationRules() instanceof DefaultDisambiguationRuleChain)) {
+                return false;
+            }
+            DefaultCompatibilityRuleChain<?> compatibilityRules = (DefaultCompatibilityRuleChain<?>) strategy.getCompatibilityRules();
+            DefaultDisambiguationRuleChain<?> disambiguationRules = (DefaultDisambiguationRuleChain<?>) strategy.getDisambiguationRules();
+            if (!putRules(hasher, compatibilityRules.getRuleTypesAndParams(), classLoaderHasher)
+                || !putRules(hasher, disambiguationRules.getRuleTypesAndParams(), classLoaderHasher)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean putRules(Hasher hasher, @Nullable List<Pair<Class<?>, Object[]>> rules, ClassLoaderHierarchyHasher classLoaderHasher) {
+        if (rules == null) {
+            return false;
+        }
+        hasher.putInt(rules.size());
+        for (Pair<Class<?>, Object[]> rule : rules) {
+            if (!putType(hasher, rule.getLeft(), classLoaderHasher)) {
+                return false;
+            }
+            Object[] params = rule.getRight();
+            hasher.putInt(params.length);
+            for (Object param : params) {
+                hasher.putBoolean(param != null);
+                if (param != null) {
+                    if (!putType(hasher, param.getClass(), classLoaderHasher)) {
+                        return false;
+                    }
+                    hasher.putString(param.toString());
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean putType(Hasher hasher, Class<?> type, ClassLoaderHierarchyHasher classLoaderHasher) {
+        hasher.putString(type.getName());
+        if (type.getClassLoader() == null) {
+            // Loaded by the bootstrap class loader
+            return true;
+        }
+        HashCode classLoaderHash = classLoaderHasher.getClassLoaderHash(type.getClassLoader());
+        if (classLoaderHash == null) {
+            return false;
+        }
+        hasher.putHash(classLoaderHash);
+        return true;
+    }
+
+    static void putAttributes(Hasher hasher, AttributeContainer attributes) {
+        List<Attribute<?>> keys = Lists.newArrayList(attributes.keySet());
+        Collections.sort(keys, BY_NAME);
+        hasher.putInt(keys.size());
+        for (Attribute<?> key : keys) {
+            hasher.putString(key.getName());
+            hasher.putString(key.getType().getName());
+            hasher.putString(String.valueOf(attributes.getAttribute(key)));
+        }
+    }
+
+    static void putNullableString(Hasher hasher, @Nullable String value) {
+        hasher.putBoolean(value != null);
+        if (value != null) {
+            hasher.putString(value);
+        }
+    }
+}
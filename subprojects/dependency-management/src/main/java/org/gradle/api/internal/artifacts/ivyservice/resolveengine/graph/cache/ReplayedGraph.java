@@ -0,0 +1,480 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import org.gradle.api.Transformer;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusion;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
+import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.local.model.LocalConfigurationMetadata;
+import org.gradle.internal.component.local.model.LocalFileDependencyMetadata;
+import org.gradle.internal.component.local.model.RootConfigurationMetadata;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.gradle.util.CollectionUtils;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * A dependency graph reassembled from a {@link ResolvedGraph} and the current metadata of its components, which can be visited in the same way as
+ * a graph built by {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder.DependencyGraphBuilder}.
+ */
+class ReplayedGraph {
+    private final ResolvedGraph graph;
+    private final Map<Long, Node> nodesById;
+    private final Map<Long, Selector> selectorsById;
+
+    private ReplayedGraph(ResolvedGraph graph, Map<Long, Node> nodesById, Map<Long, Selector> selectorsById) {
+        this.graph = graph;
+        this.nodesById = nodesById;
+        this.selectorsById = selectorsById;
+    }
+
+    /**
+     * Reassembles the given graph, resolving the metadata of its components. Returns null when the metadata of some component can no longer be resolved
+     * or no longer matches the metadata the graph was resolved from.
+     */
+    @Nullable
+    static ReplayedGraph reassemble(ResolvedGraph graph, ComponentResolveMetadata rootComponent, ComponentMetaDataResolver metaDataResolver) {
+        Map<Long, Selector> selectors = Maps.newLinkedHashMap();
+        for (Map.Entry<Long, ComponentSelector> entry : graph.getSelectors().entrySet()) {
+            selectors.put(entry.getKey(), new Selector(entry.getKey(), entry.getValue()));
+        }
+
+        Map<Long, Component> components = Maps.newHashMap();
+        for (ComponentResult result : graph.getComponents()) {
+            components.put(result.getResultId(), new Component(result));
+        }
+
+        Map<Long, Node> nodes = Maps.newLinkedHashMap();
+        Multimap<Long, Node> nodesByComponent = ArrayListMultimap.create();
+        for (ResolvedGraph.Node entry : graph.getNodes()) {
+            Component owner = components.get(entry.getComponentId());
+            if (owner == null) {
+                return null;
+            }
+            Node node = nodes.isEmpty() ? new RootNode(entry, owner) : new Node(entry, owner);
+            nodes.put(entry.getNodeId(), node);
+            nodesByComponent.put(entry.getComponentId(), node);
+            owner.nodes.add(node);
+        }
+        if (nodes.isEmpty()) {
+            return null;
+        }
+
+        // Resolve the components in the order they are reached from the root, so that their metadata is requested using the dependency that refers to them
+        Queue<Node> queue = new ArrayDeque<Node>();
+        Node root = nodes.values().iterator().next();
+        if (!root.getOwner().getComponentId().equals(rootComponent.getId()) || !attach(root.getOwner(), rootComponent, nodesByComponent, queue)) {
+            return null;
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+            List<? extends DependencyMetadata> dependencies = node.metadata.getDependencies();
+            for (ResolvedGraph.Edge entry : node.entry.getOutgoingEdges()) {
+                Selector selector = selectors.get(entry.getSelectorId());
+                Component target = components.get(entry.getSelectedComponentId());
+                if (entry.getDependencyIndex() >= dependencies.size() || selector == null || target == null || entry.getExclusionsIndex() >= graph.getExclusions().size()) {
+                    return null;
+                }
+                DependencyMetadata dependency = dependencies.get(entry.getDependencyIndex());
+                if (target.metadata == null) {
+                    ComponentResolveMetadata metadata = resolve(target.getComponentId(), dependency, metaDataResolver);
+                    if (metadata == null || !attach(target, metadata, nodesByComponent, queue)) {
+                        return null;
+                    }
+                }
+                node.outgoingEdges.add(new Edge(node, dependency, selector, target.getResultId(), graph.getExclusions().get(entry.getExclusionsIndex())));
+            }
+        }
+        if (!(root.metadata instanceof RootConfigurationMetadata)) {
+            return null;
+        }
+
+        for (Node node : nodes.values()) {
+            if (node.metadata == null) {
+                return null;
+            }
+            for (ResolvedGraph.IncomingEdge entry : node.entry.getIncomingEdges()) {
+                Node from = nodes.get(entry.getFromNodeId());
+                if (from == null || entry.getEdgeIndex() >= from.outgoingEdges.size()) {
+                    return null;
+                }
+                node.incomingEdges.add(from.outgoingEdges.get(entry.getEdgeIndex()));
+            }
+        }
+        for (Long nodeId : graph.getEdgeVisitOrder()) {
+            if (!nodes.containsKey(nodeId)) {
+                return null;
+            }
+        }
+        return new ReplayedGraph(graph, nodes, selectors);
+    }
+
+    @Nullable
+    private static ComponentResolveMetadata resolve(ComponentIdentifier id, DependencyMetadata dependency, ComponentMetaDataResolver metaDataResolver) {
+        DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+        metaDataResolver.resolve(id, DefaultComponentOverrideMetadata.forDependency(dependency), result);
+        if (result.getFailure() != null || !result.hasResult()) {
+            return null;
+        }
+        ComponentResolveMetadata metadata = result.getMetadata();
+        return metadata.getId().equals(id) ? metadata : null;
+    }
+
+    /**
+     * Attaches the given metadata to the given component and looks up the configuration of each of its nodes, verifying that it still matches.
+     */
+    private static boolean attach(Component component, ComponentResolveMetadata metadata, Multimap<Long, Node> nodesByComponent, Queue<Node> queue) {
+        component.metadata = metadata;
+        for (Node node : nodesByComponent.get(component.getResultId())) {
+            ConfigurationMetadata configuration = findConfiguration(metadata, node.entry);
+            if (configuration == null || !GraphFingerprints.fingerprint(metadata, configuration, node.entry.getVariantIndex() >= 0).equals(node.entry.getFingerprint())) {
+                return false;
+            }
+            node.metadata = configuration;
+            queue.add(node);
+        }
+        return true;
+    }
+
+    @Nullable
+    private static ConfigurationMetadata findConfiguration(ComponentResolveMetadata metadata, ResolvedGraph.Node entry) {
+        if (entry.getVariantIndex() < 0) {
+            return metadata.getConfiguration(entry.getConfigurationName());
+        }
+        List<? extends ConfigurationMetadata> variants = metadata.getVariantsForGraphTraversal();
+        if (entry.getVariantIndex() >= variants.size()) {
+            return null;
+        }
+        ConfigurationMetadata variant = variants.get(entry.getVariantIndex());
+        return variant.getName().equals(entry.getConfigurationName()) ? variant : null;
+    }
+
+    /**
+     * Visits the graph, producing the same sequence of events as the resolution it was recorded from.
+     */
+    void visit(DependencyGraphVisitor visitor) {
+        RootNode root = (RootNode) nodesById.values().iterator().next();
+        visitor.start(root);
+        for (Selector selector : selectorsById.values()) {
+            visitor.visitSelector(selector);
+        }
+        for (Node node : nodesById.values()) {
+            visitor.visitNode(node);
+        }
+        for (Long nodeId : graph.getEdgeVisitOrder()) {
+            visitor.visitEdges(nodesById.get(nodeId));
+        }
+        visitor.finish(root);
+    }
+
+    private static class Selector implements DependencyGraphSelector {
+        private final Long resultId;
+        private final ComponentSelector requested;
+
+        Selector(Long resultId, ComponentSelector requested) {
+            this.resultId = resultId;
+            this.requested = requested;
+        }
+
+        @Override
+        public Long getResultId() {
+            return resultId;
+        }
+
+        @Override
+        public ComponentSelector getRequested() {
+            return requested;
+        }
+    }
+
+    private static class Component implements DependencyGraphComponent {
+        private final ComponentResult result;
+        private final List<Node> nodes = Lists.newArrayList();
+        private ComponentResolveMetadata metadata;
+
+        Component(ComponentResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public Long getResultId() {
+            return result.getResultId();
+        }
+
+        @Override
+        public ComponentIdentifier getComponentId() {
+            return result.getComponentId();
+        }
+
+        @Override
+        public ModuleVersionIdentifier getModuleVersion() {
+            return result.getModuleVersion();
+        }
+
+        @Override
+        public ComponentSelectionReason getSelectionReason() {
+            return result.getSelectionReason();
+        }
+
+        @Override
+        public String getVariantName() {
+            return result.getVariantName();
+        }
+
+        @Override
+        public AttributeContainer getVariantAttributes() {
+            return result.getVariantAttributes();
+        }
+
+        @Override
+        public ComponentResolveMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public Collection<? extends DependencyGraphComponent> getDependents() {
+            List<DependencyGraphComponent> dependents = Lists.newArrayList();
+            for (Node node : nodes) {
+                for (Edge edge : node.incomingEdges) {
+                    dependents.add(edge.getFrom().getOwner());
+                }
+            }
+            return dependents;
+        }
+
+        @Override
+        public String toString() {
+            return result.getComponentId().getDisplayName();
+        }
+    }
+
+    private static class Node implements DependencyGraphNode {
+        final ResolvedGraph.Node entry;
+        private final Component owner;
+        private final ResolvedConfigurationIdentifier id;
+        final List<Edge> outgoingEdges = Lists.newArrayList();
+        final List<Edge> incomingEdges = Lists.newArrayList();
+        ConfigurationMetadata metadata;
+
+        Node(ResolvedGraph.Node entry, Component owner) {
+            this.entry = entry;
+            this.owner = owner;
+            this.id = new ResolvedConfigurationIdentifier(owner.getModuleVersion(), entry.getConfigurationName());
+        }
+
+        @Override
+        public Long getNodeId() {
+            return entry.getNodeId();
+        }
+
+        @Override
+        public boolean isRoot() {
+            return false;
+        }
+
+        @Override
+        public ResolvedConfigurationIdentifier getResolvedConfigurationId() {
+            return id;
+        }
+
+        @Override
+        public Component getOwner() {
+            return owner;
+        }
+
+        @Override
+        public List<Edge> getIncomingEdges() {
+            return incomingEdges;
+        }
+
+        @Override
+        public List<Edge> getOutgoingEdges() {
+            return outgoingEdges;
+        }
+
+        @Override
+        public Set<? extends LocalFileDependencyMetadata> getOutgoingFileEdges() {
+            if (metadata instanceof LocalConfigurationMetadata) {
+                // Only when this node has a transitive incoming edge
+                for (Edge incomingEdge : incomingEdges) {
+                    if (incomingEdge.isTransitive()) {
+                        return ((LocalConfigurationMetadata) metadata).getFiles();
+                    }
+                }
+            }
+            return Collections.emptySet();
+        }
+
+        @Override
+        public ConfigurationMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%s)", owner, entry.getConfigurationName());
+        }
+    }
+
+    private static class RootNode extends Node implements RootGraphNode {
+        RootNode(ResolvedGraph.Node entry, Component owner) {
+            super(entry, owner);
+        }
+
+        @Override
+        public boolean isRoot() {
+            return true;
+        }
+
+        @Override
+        public Set<? extends LocalFileDependencyMetadata> getOutgoingFileEdges() {
+            return getMetadata().getFiles();
+        }
+
+        @Override
+        public RootConfigurationMetadata getMetadata() {
+            return (RootConfigurationMetadata) super.getMetadata();
+        }
+    }
+
+    private static class Edge implements DependencyGraphEdge {
+        private final Node from;
+        private final DependencyMetadata dependencyMetadata;
+        private final Selector selector;
+        private final Long selected;
+        private final ModuleExclusion exclusions;
+
+        Edge(Node from, DependencyMetadata dependencyMetadata, Selector selector, Long selected, ModuleExclusion exclusions) {
+            this.from = from;
+            this.dependencyMetadata = dependencyMetadata;
+            this.selector = selector;
+            this.selected = selected;
+            this.exclusions = exclusions;
+        }
+
+        boolean isTransitive() {
+            return from.getMetadata().isTransitive() && dependencyMetadata.isTransitive();
+        }
+
+        @Override
+        public Node getFrom() {
+            return from;
+        }
+
+        @Override
+        public Selector getSelector() {
+            return selector;
+        }
+
+        @Override
+        public DependencyMetadata getDependencyMetadata() {
+            return dependencyMetadata;
+        }
+
+        @Override
+        public ModuleExclusion getExclusions() {
+            return exclusions;
+        }
+
+        @Override
+        public boolean contributesArtifacts() {
+            return !dependencyMetadata.isPending();
+        }
+
+        @Override
+        public List<ComponentArtifactMetadata> getArtifacts(final ConfigurationMetadata targetConfiguration) {
+            return CollectionUtils.collect(dependencyMetadata.getArtifacts(), new Transformer<ComponentArtifactMetadata, IvyArtifactName>() {
+                @Override
+                public ComponentArtifactMetadata transform(IvyArtifactName ivyArtifactName) {
+                    return targetConfiguration.artifact(ivyArtifactName);
+                }
+            });
+        }
+
+        @Override
+        public ImmutableAttributes getAttributes() {
+            return ImmutableAttributes.EMPTY;
+        }
+
+        @Override
+        public Dependency getOriginalDependency() {
+            if (dependencyMetadata instanceof DslOriginDependencyMetadata) {
+                return ((DslOriginDependencyMetadata) dependencyMetadata).getSource();
+            }
+            return null;
+        }
+
+        @Override
+        public ComponentSelector getRequested() {
+            return dependencyMetadata.getSelector();
+        }
+
+        @Override
+        public ModuleVersionResolveException getFailure() {
+            return null;
+        }
+
+        @Override
+        public Long getSelected() {
+            return selected;
+        }
+
+        @Override
+        public ComponentSelectionReason getReason() {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s -> %s", from, dependencyMetadata);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusion;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.internal.hash.HashCode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The persistent form of a resolved dependency graph. Refers to the dependencies and configurations of the components in the graph by position,
+ * so that the graph can be reassembled from the metadata of the components, and records what is needed to decide whether the graph is still up-to-date.
+ */
+class ResolvedGraph {
+    private final long timestamp;
+    private final Map<Long, ComponentSelector> selectors;
+    private final List<ComponentResult> components;
+    private final List<Node> nodes;
+    private final List<Long> edgeVisitOrder;
+    private final List<ModuleExclusion> exclusions;
+    private final Set<ModuleIdentifier> dynamicModules;
+    private final Set<ModuleComponentIdentifier> changingComponents;
+
+    ResolvedGraph(long timestamp, Map<Long, ComponentSelector> selectors, List<ComponentResult> components, List<Node> nodes, List<Long> edgeVisitOrder,
+                  List<ModuleExclusion> exclusions, Set<ModuleIdentifier> dynamicModules, Set<ModuleComponentIdentifier> changingComponents) {
+        this.timestamp = timestamp;
+        this.selectors = selectors;
+        this.components = components;
+        this.nodes = nodes;
+        this.edgeVisitOrder = edgeVisitOrder;
+        this.exclusions = exclusions;
+        this.dynamicModules = dynamicModules;
+        this.changingComponents = changingComponents;
+    }
+
+    /**
+     * The time at which the graph was resolved, as used for the entries of the module caches.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * The selectors of the graph by their id, in the order they were visited.
+     */
+    public Map<Long, ComponentSelector> getSelectors() {
+        return selectors;
+    }
+
+    public List<ComponentResult> getComponents() {
+        return components;
+    }
+
+    /**
+     * The nodes of the graph, in the order they were visited. The first node is the root.
+     */
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * The ids of the nodes, in the order their edges were visited.
+     */
+    public List<Long> getEdgeVisitOrder() {
+        return edgeVisitOrder;
+    }
+
+    /**
+     * The distinct exclusions of the edges of the graph, referred to by {@link Edge#getExclusionsIndex()}.
+     */
+    public List<ModuleExclusion> getExclusions() {
+        return exclusions;
+    }
+
+    /**
+     * The modules that were requested using a dynamic version, and for which the graph depends on the listed versions.
+     */
+    public Set<ModuleIdentifier> getDynamicModules() {
+        return dynamicModules;
+    }
+
+    /**
+     * The components with changing metadata.
+     */
+    public Set<ModuleComponentIdentifier> getChangingComponents() {
+        return changingComponents;
+    }
+
+    static class Node {
+        private final long nodeId;
+        private final long componentId;
+        private final String configurationName;
+        private final int variantIndex;
+        private final HashCode fingerprint;
+        private final List<Edge> outgoingEdges;
+        private final List<IncomingEdge> incomingEdges;
+
+        Node(long nodeId, long componentId, String configurationName, int variantIndex, HashCode fingerprint, List<Edge> outgoingEdges, List<IncomingEdge> incomingEdges) {
+            this.nodeId = nodeId;
+            this.componentId = componentId;
+            this.configurationName = configurationName;
+            this.variantIndex = variantIndex;
+            this.fingerprint = fingerprint;
+            this.outgoingEdges = outgoingEdges;
+            this.incomingEdges = incomingEdges;
+        }
+
+        public long getNodeId() {
+            return nodeId;
+        }
+
+        public long getComponentId() {
+            return componentId;
+        }
+
+        public String getConfigurationName() {
+            return configurationName;
+        }
+
+        /**
+         * The position of the configuration of this node in the variants of its component, or -1 when it is a legacy configuration looked up by name.
+         */
+        public int getVariantIndex() {
+            return variantIndex;
+        }
+
+        public HashCode getFingerprint() {
+            return fingerprint;
+        }
+
+        public List<Edge> getOutgoingEdges() {
+            return outgoingEdges;
+        }
+
+        public List<IncomingEdge> getIncomingEdges() {
+            return incomingEdges;
+        }
+    }
+
+    static class Edge {
+        private final int dependencyIndex;
+        private final long selectorId;
+        private final long selectedComponentId;
+        private final int exclusionsIndex;
+
+        Edge(int dependencyIndex, long selectorId, long selectedComponentId, int exclusionsIndex) {
+            this.dependencyIndex = dependencyIndex;
+            this.selectorId = selectorId;
+            this.selectedComponentId = selectedComponentId;
+            this.exclusionsIndex = exclusionsIndex;
+        }
+
+        /**
+         * The position of the dependency of this edge in the dependencies of the configuration of the source node.
+         */
+        public int getDependencyIndex() {
+            return dependencyIndex;
+        }
+
+        public long getSelectorId() {
+            return selectorId;
+        }
+
+        public long getSelectedComponentId() {
+            return selectedComponentId;
+        }
+
+        public int getExclusionsIndex() {
+            return exclusionsIndex;
+        }
+    }
+
+    static class IncomingEdge {
+        private final long fromNodeId;
+        private final int edgeIndex;
+
+        IncomingEdge(long fromNodeId, int edgeIndex) {
+            this.fromNodeId = fromNodeId;
+            this.edgeIndex = edgeIndex;
+        }
+
+        public long getFromNodeId() {
+            return fromNodeId;
+        }
+
+        /**
+         * The position of the edge in the outgoing edges of the source node.
+         */
+        public int getEdgeIndex() {
+            return edgeIndex;
+        }
+    }
+}
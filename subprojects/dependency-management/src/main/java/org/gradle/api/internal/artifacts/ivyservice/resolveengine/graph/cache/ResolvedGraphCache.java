@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleRepositoryCacheProvider;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleRepositoryCaches;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions.ModuleVersionsCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.api.internal.attributes.AttributesSchemaInternal;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.util.BuildCommencedTimeProvider;
+import org.gradle.util.GradleVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A persistent cache of resolved dependency graphs, keyed by a hash of the inputs of the resolution: the declared dependencies of the root configuration,
+ * the repositories and the resolution strategy.
+ *
+ * <p>A cached graph is used instead of resolving the graph again only while it is still up-to-date. This is the case when none of the version listings
+ * for its dynamic versions and none of the metadata of its changing modules have been refreshed since the graph was resolved, and the cache policy does not
+ * require them to be refreshed yet. The metadata of every component is then resolved again, and the graph is only used if the configurations and dependencies
+ * it was resolved from are unchanged. Otherwise the graph is resolved as usual and replaces the cached one.</p>
+ *
+ * <p>Resolutions that depend on inputs that cannot be tracked this way, such as dependency substitution rules, component metadata rules or dependency locking,
+ * are never cached. The attribute matching rules of the consumer schema are part of the key, identified by their types, the class loaders of these types and
+ * their parameters.</p>
+ */
+public class ResolvedGraphCache {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.resolution.graphCache";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphCache.class);
+
+    private final CacheLockingManager cacheLockingManager;
+    private final ModuleRepositoryCacheProvider cacheProvider;
+    private final BuildCommencedTimeProvider timeProvider;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+    private final ClassLoaderHierarchyHasher classLoaderHasher;
+    private final ResolvedGraphSerializer serializer;
+
+    private PersistentIndexedCache<HashCode, ResolvedGraph> cache;
+
+    public ResolvedGraphCache(CacheLockingManager cacheLockingManager, ModuleRepositoryCacheProvider cacheProvider, BuildCommencedTimeProvider timeProvider,
+                              VersionSelectorScheme versionSelectorScheme, ImmutableModuleIdentifierFactory moduleIdentifierFactory, AttributeContainerSerializer attributeContainerSerializer,
+                              ClassLoaderHierarchyHasher classLoaderHasher) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.cacheProvider = cacheProvider;
+        this.timeProvider = timeProvider;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
+        this.classLoaderHasher = classLoaderHasher;
+        this.serializer = new ResolvedGraphSerializer(moduleIdentifierFactory, attributeContainerSerializer);
+    }
+
+    private synchronized PersistentIndexedCache<HashCode, ResolvedGraph> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache("resolved-graphs", new HashCodeSerializer(), serializer);
+        }
+        return cache;
+    }
+
+    /**
+     * Prepares the given resolution for the cache. Should be called once the cache policy of the resolution strategy is complete.
+     *
+     * @return null when the result of the resolution depends on inputs that are not tracked by the cache.
+     */
+    @Nullable
+    public CachedResolution forResolution(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules globalRules,
+                                          Spec<? super DependencyMetadata> edgeFilter, AttributesSchemaInternal consumerSchema) {
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        if (edgeFilter != Specs.SATISFIES_ALL
+            || resolutionStrategy.resolveGraphToDetermineTaskDependencies()
+            || resolutionStrategy.isDependencyLockingEnabled()
+            || !resolutionStrategy.getForcedModules().isEmpty()
+            || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            || resolutionStrategy.getDependencySubstitution().hasRules()
+            || globalRules.getDependencySubstitutionRules().hasRules()
+            || globalRules.getComponentMetadataProcessor().hasRules()) {
+            return null;
+        }
+
+        ComponentResolveMetadata rootComponent = resolveContext.toRootComponentMetaData();
+        ConfigurationMetadata rootConfiguration = rootComponent.getConfiguration(resolveContext.getName());
+        if (rootConfiguration == null) {
+            return null;
+        }
+
+        List<ConfiguredModuleComponentRepository> moduleRepositories = Lists.newArrayListWithCapacity(repositories.size());
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putString(resolveContext.getName());
+        hasher.putString(rootComponent.getId().getDisplayName());
+        GraphFingerprints.putConfiguration(hasher, rootConfiguration);
+        hasher.putString(resolutionStrategy.getConflictResolution().name());
+        hasher.putInt(repositories.size());
+        for (ResolutionAwareRepository repository : repositories) {
+            ConfiguredModuleComponentRepository moduleRepository = repository.createResolver();
+            moduleRepositories.add(moduleRepository);
+            hasher.putString(moduleRepository.getId());
+        }
+        if (!GraphFingerprints.putSchema(hasher, consumerSchema, classLoaderHasher)) {
+            return null;
+        }
+
+        return new CachedResolution(hasher.hash(), resolveContext, rootComponent, moduleRepositories, resolutionStrategy.getCachePolicy(),
+            globalRules.getModuleMetadataProcessor().getModuleReplacements());
+    }
+
+    public class CachedResolution {
+        private final HashCode key;
+        private final ResolveContext resolveContext;
+        private final ComponentResolveMetadata rootComponent;
+        private final List<ConfiguredModuleComponentRepository> repositories;
+        private final CachePolicy cachePolicy;
+        private final ModuleReplacementsData moduleReplacements;
+
+        private CachedResolution(HashCode key, ResolveContext resolveContext, ComponentResolveMetadata rootComponent, List<ConfiguredModuleComponentRepository> repositories,
+                                 CachePolicy cachePolicy, ModuleReplacementsData moduleReplacements) {
+            this.key = key;
+            this.resolveContext = resolveContext;
+            this.rootComponent = rootComponent;
+            this.repositories = repositories;
+            this.cachePolicy = cachePolicy;
+            this.moduleReplacements = moduleReplacements;
+        }
+
+        /**
+         * Visits the cached graph for this resolution, if it is still up-to-date.
+         *
+         * @return true when the graph was visited, false when it needs to be resolved.
+         */
+        public boolean replay(ComponentMetaDataResolver metaDataResolver, DependencyGraphVisitor visitor) {
+            ResolvedGraph graph = getCache().get(key);
+            if (graph == null) {
+                return false;
+            }
+            if (!isUpToDate(graph)) {
+                LOGGER.debug("Cached dependency graph of {} is out of date", resolveContext);
+                return false;
+            }
+            ReplayedGraph replayedGraph = ReplayedGraph.reassemble(graph, rootComponent, metaDataResolver);
+            if (replayedGraph == null) {
+                LOGGER.debug("Metadata of cached dependency graph of {} has changed", resolveContext);
+                return false;
+            }
+            LOGGER.debug("Using cached dependency graph of {}", resolveContext);
+            replayedGraph.visit(visitor);
+            return true;
+        }
+
+        /**
+         * Creates a visitor that stores the graph it visits as the cached graph for this resolution.
+         */
+        public DependencyGraphVisitor createRecorder() {
+            return new ResolvedGraphRecorder(key, getCache(), timeProvider.getCurrentTime(), versionSelectorScheme, moduleIdentifierFactory);
+        }
+
+        private boolean isUpToDate(ResolvedGraph graph) {
+            for (ComponentResult component : graph.getComponents()) {
+                if (moduleReplacements.participatesInReplacements(component.getModuleVersion().getModule())) {
+                    return false;
+                }
+            }
+            long graphAge = timeProvider.getCurrentTime() - graph.getTimestamp();
+            for (ModuleIdentifier module : graph.getDynamicModules()) {
+                if (!isVersionListUpToDate(module, graphAge)) {
+                    return false;
+                }
+            }
+            for (ModuleComponentIdentifier component : graph.getChangingComponents()) {
+                if (!isChangingModuleUpToDate(component, graphAge)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isVersionListUpToDate(ModuleIdentifier module, long graphAge) {
+            for (ConfiguredModuleComponentRepository repository : repositories) {
+                ModuleVersionsCache.CachedModuleVersionList versionList = cachesFor(repository).moduleVersionsCache.getCachedModuleResolution(repository, module);
+                // The graph was resolved using a version list that has since been refreshed or discarded
+                if (versionList == null || versionList.getAgeMillis() < graphAge) {
+                    return false;
+                }
+                Set<ModuleVersionIdentifier> versions = Sets.newLinkedHashSet();
+                for (String version : versionList.getModuleVersions()) {
+                    versions.add(new DefaultModuleVersionIdentifier(module, version));
+                }
+                if (cachePolicy.mustRefreshVersionList(module, versions, versionList.getAgeMillis())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isChangingModuleUpToDate(ModuleComponentIdentifier component, long graphAge) {
+            boolean found = false;
+            for (ConfiguredModuleComponentRepository repository : repositories) {
+                ModuleMetadataCache.CachedMetadata metadata = cachesFor(repository).moduleMetadataCache.getCachedModuleDescriptor(repository, component);
+                if (metadata == null || metadata.isMissing()) {
+                    continue;
+                }
+                found = true;
+                if (metadata.getAgeMillis() < graphAge || cachePolicy.mustRefreshChangingModule(component, metadata.getModuleVersion(), metadata.getAgeMillis())) {
+                    return false;
+                }
+            }
+            return found;
+        }
+
+        private ModuleRepositoryCaches cachesFor(ConfiguredModuleComponentRepository repository) {
+            return repository.isLocal() ? cacheProvider.getInMemoryCaches() : cacheProvider.getCaches();
+        }
+    }
+}
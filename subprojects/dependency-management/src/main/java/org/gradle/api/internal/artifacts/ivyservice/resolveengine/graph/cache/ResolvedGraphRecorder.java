@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusion;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DetachedComponentResult;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the result of a dependency graph resolution and stores it in the resolved graph cache once the graph is complete. Graphs that cannot be
+ * reassembled from the metadata of their components, such as graphs with failures, are not stored.
+ */
+class ResolvedGraphRecorder implements DependencyGraphVisitor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphRecorder.class);
+
+    private final HashCode key;
+    private final PersistentIndexedCache<HashCode, ResolvedGraph> cache;
+    private final long timestamp;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+    private final List<DependencyGraphSelector> selectors = Lists.newArrayList();
+    private final List<DependencyGraphNode> nodes = Lists.newArrayList();
+    private final List<Long> edgeVisitOrder = Lists.newArrayList();
+
+    ResolvedGraphRecorder(HashCode key, PersistentIndexedCache<HashCode, ResolvedGraph> cache, long timestamp, VersionSelectorScheme versionSelectorScheme, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        this.key = key;
+        this.cache = cache;
+        this.timestamp = timestamp;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
+    }
+
+    @Override
+    public void start(RootGraphNode root) {
+    }
+
+    @Override
+    public void visitNode(DependencyGraphNode node) {
+        nodes.add(node);
+    }
+
+    @Override
+    public void visitSelector(DependencyGraphSelector selector) {
+        selectors.add(selector);
+    }
+
+    @Override
+    public void visitEdges(DependencyGraphNode node) {
+        edgeVisitOrder.add(node.getNodeId());
+    }
+
+    @Override
+    public void finish(DependencyGraphNode root) {
+        ResolvedGraph graph;
+        try {
+            graph = toResolvedGraph();
+        } catch (NotCacheableException e) {
+            LOGGER.debug("Not caching dependency graph of {}: {}", root, e.getMessage());
+            return;
+        }
+        cache.put(key, graph);
+    }
+
+    private ResolvedGraph toResolvedGraph() throws NotCacheableException {
+        if (nodes.isEmpty() || !nodes.get(0).isRoot()) {
+            throw new NotCacheableException("the root node was not visited first");
+        }
+
+        Map<Long, ComponentSelector> selectorsById = Maps.newLinkedHashMap();
+        Set<ModuleIdentifier> dynamicModules = Sets.newLinkedHashSet();
+        for (DependencyGraphSelector selector : selectors) {
+            ComponentSelector requested = selector.getRequested();
+            selectorsById.put(selector.getResultId(), requested);
+            if (requested instanceof ModuleComponentSelector) {
+                ModuleComponentSelector moduleSelector = (ModuleComponentSelector) requested;
+                String version = moduleSelector.getVersionConstraint().getPreferredVersion();
+                if (version != null && versionSelectorScheme.parseSelector(version).isDynamic()) {
+                    dynamicModules.add(moduleIdentifierFactory.module(moduleSelector.getGroup(), moduleSelector.getModule()));
+                }
+            }
+        }
+
+        // Index the outgoing edges of all nodes first, as incoming edges refer to them
+        Map<Long, DependencyGraphNode> nodesById = Maps.newHashMap();
+        Map<Long, ComponentIdentifier> componentIds = Maps.newHashMap();
+        IdentityHashMap<DependencyGraphEdge, Integer> edgeIndices = new IdentityHashMap<DependencyGraphEdge, Integer>();
+        for (DependencyGraphNode node : nodes) {
+            nodesById.put(node.getNodeId(), node);
+            componentIds.put(node.getOwner().getResultId(), node.getOwner().getComponentId());
+            int index = 0;
+            for (DependencyGraphEdge edge : node.getOutgoingEdges()) {
+                edgeIndices.put(edge, index++);
+            }
+        }
+
+        Map<Long, ComponentResult> components = Maps.newLinkedHashMap();
+        Map<Long, DependencyMetadata> componentOverrides = Maps.newHashMap();
+        Set<ModuleComponentIdentifier> changingComponents = Sets.newLinkedHashSet();
+        Map<ModuleExclusion, Integer> exclusionIndices = Maps.newHashMap();
+        List<ModuleExclusion> exclusions = Lists.newArrayList();
+        List<ResolvedGraph.Node> graphNodes = Lists.newArrayListWithCapacity(nodes.size());
+        for (DependencyGraphNode node : nodes) {
+            DependencyGraphComponent owner = node.getOwner();
+            ComponentResolveMetadata metadata = owner.getMetadata();
+            if (metadata == null) {
+                throw new NotCacheableException("no metadata for " + owner);
+            }
+            if (!components.containsKey(owner.getResultId())) {
+                components.put(owner.getResultId(), new DetachedComponentResult(owner.getResultId(), owner.getModuleVersion(), owner.getSelectionReason(), owner.getComponentId(), owner.getVariantName(), owner.getVariantAttributes()));
+                if (metadata.isChanging() && owner.getComponentId() instanceof ModuleComponentIdentifier) {
+                    changingComponents.add((ModuleComponentIdentifier) owner.getComponentId());
+                }
+            }
+
+            ConfigurationMetadata configuration = node.getMetadata();
+            int variantIndex = indexOf(metadata.getVariantsForGraphTraversal(), configuration);
+            if (variantIndex < 0 && metadata.getConfiguration(configuration.getName()) != configuration) {
+                throw new NotCacheableException("cannot locate configuration of " + node);
+            }
+
+            List<? extends DependencyMetadata> dependencies = configuration.getDependencies();
+            List<ResolvedGraph.Edge> outgoingEdges = Lists.newArrayList();
+            for (DependencyGraphEdge edge : node.getOutgoingEdges()) {
+                if (edge.getFailure() != null) {
+                    throw new NotCacheableException("failed to resolve " + edge.getRequested());
+                }
+                if (!edge.getAttributes().isEmpty()) {
+                    throw new NotCacheableException("attributes requested for " + edge.getRequested());
+                }
+                DependencyMetadata dependency = edge.getDependencyMetadata();
+                int dependencyIndex = indexOf(dependencies, dependency);
+                if (dependencyIndex < 0) {
+                    throw new NotCacheableException("cannot locate dependency " + edge.getRequested() + " of " + node);
+                }
+                checkOverride(edge, componentOverrides);
+                if (dependency.isChanging()) {
+                    ComponentIdentifier selectedId = componentIds.get(edge.getSelected());
+                    if (selectedId instanceof ModuleComponentIdentifier) {
+                        changingComponents.add((ModuleComponentIdentifier) selectedId);
+                    }
+                }
+                ModuleExclusion edgeExclusions = edge.getExclusions();
+                Integer exclusionIndex = exclusionIndices.get(edgeExclusions);
+                if (exclusionIndex == null) {
+                    exclusionIndex = exclusions.size();
+                    exclusionIndices.put(edgeExclusions, exclusionIndex);
+                    exclusions.add(edgeExclusions);
+                }
+                outgoingEdges.add(new ResolvedGraph.Edge(dependencyIndex, edge.getSelector().getResultId(), edge.getSelected(), exclusionIndex));
+            }
+
+            List<ResolvedGraph.IncomingEdge> incomingEdges = Lists.newArrayList();
+            for (DependencyGraphEdge edge : node.getIncomingEdges()) {
+                Integer edgeIndex = edgeIndices.get(edge);
+                if (edgeIndex == null || nodesById.get(edge.getFrom().getNodeId()) != edge.getFrom()) {
+                    throw new NotCacheableException("an incoming edge of " + node + " was not visited");
+                }
+                incomingEdges.add(new ResolvedGraph.IncomingEdge(edge.getFrom().getNodeId(), edgeIndex));
+            }
+
+            HashCode fingerprint = GraphFingerprints.fingerprint(metadata, configuration, variantIndex >= 0);
+            graphNodes.add(new ResolvedGraph.Node(node.getNodeId(), owner.getResultId(), configuration.getName(), variantIndex, fingerprint, outgoingEdges, incomingEdges));
+        }
+
+        return new ResolvedGraph(timestamp, selectorsById, Lists.newArrayList(components.values()), graphNodes, Lists.newArrayList(edgeVisitOrder),
+            exclusions, dynamicModules, changingComponents);
+    }
+
+    /**
+     * The metadata of a component is resolved using overrides taken from a dependency that refers to it. Only graphs where all dependencies referring
+     * to a component agree on these can be reassembled without knowing which of the dependencies was used.
+     */
+    private static void checkOverride(DependencyGraphEdge edge, Map<Long, DependencyMetadata> componentOverrides) throws NotCacheableException {
+        DependencyMetadata dependency = edge.getDependencyMetadata();
+        if (DefaultComponentOverrideMetadata.forDependency(dependency).getClientModule() != null) {
+            throw new NotCacheableException("client module " + edge.getRequested());
+        }
+        DependencyMetadata previous = componentOverrides.get(edge.getSelected());
+        if (previous == null) {
+            componentOverrides.put(edge.getSelected(), dependency);
+        } else if (previous.isChanging() != dependency.isChanging() || !previous.getArtifacts().equals(dependency.getArtifacts())) {
+            throw new NotCacheableException("conflicting overrides for " + edge.getRequested());
+        }
+    }
+
+    private static int indexOf(List<?> list, Object element) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static class NotCacheableException extends Exception {
+        NotCacheableException(String message) {
+            super(message);
+        }
+    }
+}
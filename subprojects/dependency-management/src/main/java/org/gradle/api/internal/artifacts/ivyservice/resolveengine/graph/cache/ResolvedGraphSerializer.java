@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusion;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusionSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentResultSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectorSerializer;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class ResolvedGraphSerializer extends AbstractSerializer<ResolvedGraph> {
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+    private final AttributeContainerSerializer attributeContainerSerializer;
+    private final ComponentSelectorSerializer componentSelectorSerializer = new ComponentSelectorSerializer();
+    private final ModuleExclusionSerializer moduleExclusionSerializer;
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+
+    ResolvedGraphSerializer(ImmutableModuleIdentifierFactory moduleIdentifierFactory, AttributeContainerSerializer attributeContainerSerializer) {
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
+        this.attributeContainerSerializer = attributeContainerSerializer;
+        this.moduleExclusionSerializer = new ModuleExclusionSerializer(moduleIdentifierFactory);
+    }
+
+    @Override
+    public ResolvedGraph read(Decoder decoder) throws IOException {
+        long timestamp = decoder.readLong();
+
+        int selectorCount = decoder.readSmallInt();
+        Map<Long, ComponentSelector> selectors = Maps.newLinkedHashMap();
+        for (int i = 0; i < selectorCount; i++) {
+            long id = decoder.readSmallLong();
+            selectors.put(id, componentSelectorSerializer.read(decoder));
+        }
+
+        // The serializer keeps track of the selection reasons it has seen, so use a new one for each graph
+        ComponentResultSerializer componentResultSerializer = new ComponentResultSerializer(moduleIdentifierFactory, attributeContainerSerializer);
+        int componentCount = decoder.readSmallInt();
+        List<ComponentResult> components = Lists.newArrayListWithCapacity(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            components.add(componentResultSerializer.read(decoder));
+        }
+
+        int nodeCount = decoder.readSmallInt();
+        List<ResolvedGraph.Node> nodes = Lists.newArrayListWithCapacity(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(readNode(decoder));
+        }
+
+        int visitCount = decoder.readSmallInt();
+        List<Long> edgeVisitOrder = Lists.newArrayListWithCapacity(visitCount);
+        for (int i = 0; i < visitCount; i++) {
+            edgeVisitOrder.add(decoder.readSmallLong());
+        }
+
+        int exclusionCount = decoder.readSmallInt();
+        List<ModuleExclusion> exclusions = Lists.newArrayListWithCapacity(exclusionCount);
+        for (int i = 0; i < exclusionCount; i++) {
+            exclusions.add(moduleExclusionSerializer.read(decoder));
+        }
+
+        int dynamicCount = decoder.readSmallInt();
+        Set<ModuleIdentifier> dynamicModules = Sets.newLinkedHashSet();
+        for (int i = 0; i < dynamicCount; i++) {
+            dynamicModules.add(moduleIdentifierFactory.module(decoder.readString(), decoder.readString()));
+        }
+
+        int changingCount = decoder.readSmallInt();
+        Set<ModuleComponentIdentifier> changingComponents = Sets.newLinkedHashSet();
+        for (int i = 0; i < changingCount; i++) {
+            changingComponents.add(DefaultModuleComponentIdentifier.newId(decoder.readString(), decoder.readString(), decoder.readString()));
+        }
+
+        return new ResolvedGraph(timestamp, selectors, components, nodes, edgeVisitOrder, exclusions, dynamicModules, changingComponents);
+    }
+
+    private ResolvedGraph.Node readNode(Decoder decoder) throws IOException {
+        long nodeId = decoder.readSmallLong();
+        long componentId = decoder.readSmallLong();
+        String configurationName = decoder.readString();
+        int variantIndex = decoder.readInt();
+        HashCode fingerprint = hashCodeSerializer.read(decoder);
+
+        int outgoingCount = decoder.readSmallInt();
+        List<ResolvedGraph.Edge> outgoingEdges = Lists.newArrayListWithCapacity(outgoingCount);
+        for (int i = 0; i < outgoingCount; i++) {
+            outgoingEdges.add(new ResolvedGraph.Edge(decoder.readSmallInt(), decoder.readSmallLong(), decoder.readSmallLong(), decoder.readSmallInt()));
+        }
+
+        int incomingCount = decoder.readSmallInt();
+        List<ResolvedGraph.IncomingEdge> incomingEdges = Lists.newArrayListWithCapacity(incomingCount);
+        for (int i = 0; i < incomingCount; i++) {
+            incomingEdges.add(new ResolvedGraph.IncomingEdge(decoder.readSmallLong(), decoder.readSmallInt()));
+        }
+        return new ResolvedGraph.Node(nodeId, componentId, configurationName, variantIndex, fingerprint, outgoingEdges, incomingEdges);
+    }
+
+    @Override
+    public void write(Encoder encoder, ResolvedGraph value) throws IOException {
+        encoder.writeLong(value.getTimestamp());
+
+        encoder.writeSmallInt(value.getSelectors().size());
+        for (Map.Entry<Long, ComponentSelector> entry : value.getSelectors().entrySet()) {
+            encoder.writeSmallLong(entry.getKey());
+            componentSelectorSerializer.write(encoder, entry.getValue());
+        }
+
+        ComponentResultSerializer componentResultSerializer = new ComponentResultSerializer(moduleIdentifierFactory, attributeContainerSerializer);
+        encoder.writeSmallInt(value.getComponents().size());
+        for (ComponentResult component : value.getComponents()) {
+            componentResultSerializer.write(encoder, component);
+        }
+
+        encoder.writeSmallInt(value.getNodes().size());
+        for (ResolvedGraph.Node node : value.getNodes()) {
+            writeNode(encoder, node);
+        }
+
+        encoder.writeSmallInt(value.getEdgeVisitOrder().size());
+        for (Long nodeId : value.getEdgeVisitOrder()) {
+            encoder.writeSmallLong(nodeId);
+        }
+
+        encoder.writeSmallInt(value.getExclusions().size());
+        for (ModuleExclusion exclusion : value.getExclusions()) {
+            moduleExclusionSerializer.write(encoder, exclusion);
+        }
+
+        encoder.writeSmallInt(value.getDynamicModules().size());
+        for (ModuleIdentifier module : value.getDynamicModules()) {
+            encoder.writeString(module.getGroup());
+            encoder.writeString(module.getName());
+        }
+
+        encoder.writeSmallInt(value.getChangingComponents().size());
+        for (ModuleComponentIdentifier component : value.getChangingComponents()) {
+            encoder.writeString(component.getGroup());
+            encoder.writeString(component.getModule());
+            encoder.writeString(component.getVersion());
+        }
+    }
+
+    private void writeNode(Encoder encoder, ResolvedGraph.Node node) throws IOException {
+        encoder.writeSmallLong(node.getNodeId());
+        encoder.writeSmallLong(node.getComponentId());
+        encoder.writeString(node.getConfigurationName());
+        encoder.writeInt(node.getVariantIndex());
+        hashCodeSerializer.write(encoder, node.getFingerprint());
+
+        encoder.writeSmallInt(node.getOutgoingEdges().size());
+        for (ResolvedGraph.Edge edge : node.getOutgoingEdges()) {
+            encoder.writeSmallInt(edge.getDependencyIndex());
+            encoder.writeSmallLong(edge.getSelectorId());
+            encoder.writeSmallLong(edge.getSelectedComponentId());
+            encoder.writeSmallInt(edge.getExclusionsIndex());
+        }
+
+        encoder.writeSmallInt(node.getIncomingEdges().size());
+        for (ResolvedGraph.IncomingEdge edge : node.getIncomingEdges()) {
+            encoder.writeSmallLong(edge.getFromNodeId());
+            encoder.writeSmallInt(edge.getEdgeIndex());
+        }
+    }
+}
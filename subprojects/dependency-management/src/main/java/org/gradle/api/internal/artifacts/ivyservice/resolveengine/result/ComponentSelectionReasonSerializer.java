@@ -57,7 +57,10 @@ public class ComponentSelectionReasonSerializer implements Serializer<ComponentS
             return descriptions.inverse().get(decoder.readSmallInt());
         } else {
             String description = decoder.readString();
-            descriptions.put(description, descriptions.size());
+            // May already be known when reading the same data again without a reset
+            if (!descriptions.containsKey(description)) {
+                descriptions.put(description, descriptions.size());
+            }
             return description;
         }
     }
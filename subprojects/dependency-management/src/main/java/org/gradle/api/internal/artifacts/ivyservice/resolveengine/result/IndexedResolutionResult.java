@@ -0,0 +1,377 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import groovy.lang.Closure;
+import org.gradle.api.Action;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.artifacts.result.ResolvedVariantResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyResult;
+import org.gradle.api.internal.artifacts.result.AbstractDependencyResult;
+import org.gradle.api.internal.artifacts.result.DefaultResolvedVariantResult;
+import org.gradle.api.internal.artifacts.result.DefaultUnresolvedDependencyResult;
+import org.gradle.cache.internal.BinaryStore;
+import org.gradle.internal.Actions;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.util.ConfigureUtil;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link ResolutionResult} that reads the components and dependencies of the graph from the binary store when they are navigated to,
+ * rather than loading the whole graph into memory up front.
+ *
+ * <p>The position of each component and dependency record is kept in an {@link Index} that is built while the results are written.
+ * Components are held weakly once read, and equal to any other instance read for the same component, so that a visitor walking the graph
+ * only keeps the components it still refers to in memory.</p>
+ */
+class IndexedResolutionResult implements ResolutionResult {
+    private final BinaryStore.BinaryData data;
+    private final Index index;
+    private final Map<ComponentSelector, ModuleVersionResolveException> failures;
+    private final ComponentResultSerializer componentResultSerializer;
+    private final DependencyResultSerializer dependencyResultSerializer;
+    private final Cache<Long, IndexedComponentResult> components = CacheBuilder.newBuilder().weakValues().build();
+    private final Object lock = new Object();
+
+    IndexedResolutionResult(BinaryStore.BinaryData data, Index index, Map<ComponentSelector, ModuleVersionResolveException> failures, ComponentResultSerializer componentResultSerializer, DependencyResultSerializer dependencyResultSerializer) {
+        this.data = data;
+        this.index = index;
+        this.failures = failures;
+        this.componentResultSerializer = componentResultSerializer;
+        this.dependencyResultSerializer = dependencyResultSerializer;
+    }
+
+    @Override
+    public ResolvedComponentResult getRoot() {
+        return getComponent(index.rootId);
+    }
+
+    @Override
+    public Set<? extends org.gradle.api.artifacts.result.DependencyResult> getAllDependencies() {
+        final Set<org.gradle.api.artifacts.result.DependencyResult> out = new LinkedHashSet<org.gradle.api.artifacts.result.DependencyResult>();
+        allDependencies(new Action<org.gradle.api.artifacts.result.DependencyResult>() {
+            public void execute(org.gradle.api.artifacts.result.DependencyResult dep) {
+                out.add(dep);
+            }
+        });
+        return out;
+    }
+
+    @Override
+    public void allDependencies(Action<? super org.gradle.api.artifacts.result.DependencyResult> action) {
+        eachElement(getComponent(index.rootId), Actions.doNothing(), action, new HashSet<Long>());
+    }
+
+    @Override
+    public void allDependencies(Closure closure) {
+        allDependencies(ConfigureUtil.configureUsing(closure));
+    }
+
+    @Override
+    public Set<ResolvedComponentResult> getAllComponents() {
+        final Set<ResolvedComponentResult> out = new LinkedHashSet<ResolvedComponentResult>();
+        allComponents(new Action<ResolvedComponentResult>() {
+            public void execute(ResolvedComponentResult component) {
+                out.add(component);
+            }
+        });
+        return out;
+    }
+
+    @Override
+    public void allComponents(Action<? super ResolvedComponentResult> action) {
+        eachElement(getComponent(index.rootId), action, Actions.doNothing(), new HashSet<Long>());
+    }
+
+    @Override
+    public void allComponents(Closure closure) {
+        allComponents(ConfigureUtil.configureUsing(closure));
+    }
+
+    private void eachElement(IndexedComponentResult node,
+                             Action<? super ResolvedComponentResult> componentAction, Action<? super org.gradle.api.artifacts.result.DependencyResult> dependencyAction,
+                             Set<Long> visited) {
+        // Remember the ids of the visited components rather than the components, so that the components can be discarded once visited
+        if (!visited.add(node.resultId)) {
+            return;
+        }
+        componentAction.execute(node);
+        for (org.gradle.api.artifacts.result.DependencyResult d : node.getDependencies()) {
+            dependencyAction.execute(d);
+            if (d instanceof IndexedResolvedDependencyResult) {
+                eachElement(((IndexedResolvedDependencyResult) d).getSelected(), componentAction, dependencyAction, visited);
+            }
+        }
+    }
+
+    private IndexedComponentResult getComponent(Long resultId) {
+        synchronized (lock) {
+            IndexedComponentResult component = components.getIfPresent(resultId);
+            if (component == null) {
+                component = readComponent(resultId);
+                components.put(resultId, component);
+            }
+            return component;
+        }
+    }
+
+    private IndexedComponentResult readComponent(Long resultId) {
+        ComponentEntry entry = index.getEntry(resultId);
+        ComponentResult component = data.read(entry.position, new BinaryStore.ReadAction<ComponentResult>() {
+            @Override
+            public ComponentResult read(Decoder decoder) throws IOException {
+                expect(decoder, StreamingResolutionResultBuilder.COMPONENT);
+                return componentResultSerializer.read(decoder);
+            }
+        });
+        return new IndexedComponentResult(this, resultId, component.getModuleVersion(), component.getSelectionReason(), component.getComponentId(),
+            new DefaultResolvedVariantResult(component.getVariantName(), component.getVariantAttributes()));
+    }
+
+    private Set<org.gradle.api.artifacts.result.DependencyResult> readDependencies(IndexedComponentResult from) {
+        // The outgoing edges of each configuration of the component are written as a separate record
+        Map<List<Object>, org.gradle.api.artifacts.result.DependencyResult> dependencies = new LinkedHashMap<List<Object>, org.gradle.api.artifacts.result.DependencyResult>();
+        for (Long position : index.getEntry(from.resultId).edges) {
+            List<DependencyResult> edges = data.read(position, new BinaryStore.ReadAction<List<DependencyResult>>() {
+                @Override
+                public List<DependencyResult> read(Decoder decoder) throws IOException {
+                    expect(decoder, StreamingResolutionResultBuilder.DEPENDENCY);
+                    decoder.readSmallLong();
+                    int size = decoder.readSmallInt();
+                    List<DependencyResult> result = new ArrayList<DependencyResult>(size);
+                    for (int i = 0; i < size; i++) {
+                        result.add(dependencyResultSerializer.read(decoder, index.selectors, failures));
+                    }
+                    return result;
+                }
+            });
+            for (DependencyResult edge : edges) {
+                if (edge.getFailure() != null) {
+                    List<Object> key = Arrays.<Object>asList(edge.getRequested());
+                    if (!dependencies.containsKey(key)) {
+                        dependencies.put(key, new DefaultUnresolvedDependencyResult(edge.getRequested(), edge.getReason(), from, edge.getFailure()));
+                    }
+                } else {
+                    List<Object> key = Arrays.<Object>asList(edge.getRequested(), edge.getSelected());
+                    if (!dependencies.containsKey(key)) {
+                        dependencies.put(key, new IndexedResolvedDependencyResult(edge.getRequested(), from, edge.getSelected()));
+                    }
+                }
+            }
+        }
+        return ImmutableSet.copyOf(dependencies.values());
+    }
+
+    private Set<ResolvedDependencyResult> readDependents(IndexedComponentResult selected) {
+        Set<ResolvedDependencyResult> dependents = new LinkedHashSet<ResolvedDependencyResult>();
+        for (Long fromId : new LinkedHashSet<Long>(index.getEntry(selected.resultId).dependents)) {
+            for (org.gradle.api.artifacts.result.DependencyResult dependency : getComponent(fromId).getDependencies()) {
+                if (dependency instanceof IndexedResolvedDependencyResult && ((IndexedResolvedDependencyResult) dependency).selectedId.equals(selected.resultId)) {
+                    dependents.add((ResolvedDependencyResult) dependency);
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private static void expect(Decoder decoder, byte expectedType) throws IOException {
+        byte type = decoder.readByte();
+        if (type != expectedType) {
+            throw new IOException("Unexpected value type read from stream: " + type + ", expected: " + expectedType);
+        }
+    }
+
+    /**
+     * The positions of the records of a resolution result in the binary store, and the data needed to navigate between them.
+     */
+    static class Index {
+        private final Map<Long, ComponentEntry> components = new HashMap<Long, ComponentEntry>();
+        private final Map<Long, ComponentSelector> selectors = new HashMap<Long, ComponentSelector>();
+        private Long rootId;
+
+        void component(Long resultId, long position) {
+            components.put(resultId, new ComponentEntry(position));
+        }
+
+        void selector(Long resultId, ComponentSelector selector) {
+            selectors.put(resultId, selector);
+        }
+
+        void edges(Long fromComponent, long position) {
+            getEntry(fromComponent).edges.add(position);
+        }
+
+        void dependent(Long selectedComponent, Long fromComponent) {
+            List<Long> dependents = getEntry(selectedComponent).dependents;
+            // Most repeated edges come from the same component, the remaining duplicates are ignored when reading
+            if (dependents.isEmpty() || !dependents.get(dependents.size() - 1).equals(fromComponent)) {
+                dependents.add(fromComponent);
+            }
+        }
+
+        void root(Long resultId) {
+            rootId = resultId;
+        }
+
+        private ComponentEntry getEntry(Long resultId) {
+            ComponentEntry entry = components.get(resultId);
+            if (entry == null) {
+                throw new IllegalStateException("No resolution result recorded for component " + resultId);
+            }
+            return entry;
+        }
+    }
+
+    private static class ComponentEntry {
+        private final long position;
+        private final List<Long> edges = new ArrayList<Long>(1);
+        private final List<Long> dependents = new ArrayList<Long>(1);
+
+        ComponentEntry(long position) {
+            this.position = position;
+        }
+    }
+
+    private static class IndexedComponentResult implements ResolvedComponentResult {
+        private final IndexedResolutionResult result;
+        private final Long resultId;
+        private final ModuleVersionIdentifier moduleVersion;
+        private final ComponentSelectionReason selectionReason;
+        private final ComponentIdentifier componentId;
+        private final ResolvedVariantResult variant;
+        private Set<org.gradle.api.artifacts.result.DependencyResult> dependencies;
+
+        IndexedComponentResult(IndexedResolutionResult result, Long resultId, ModuleVersionIdentifier moduleVersion, ComponentSelectionReason selectionReason, ComponentIdentifier componentId, ResolvedVariantResult variant) {
+            this.result = result;
+            this.resultId = resultId;
+            this.moduleVersion = moduleVersion;
+            this.selectionReason = selectionReason;
+            this.componentId = componentId;
+            this.variant = variant;
+        }
+
+        @Override
+        public ComponentIdentifier getId() {
+            return componentId;
+        }
+
+        @Override
+        public Set<org.gradle.api.artifacts.result.DependencyResult> getDependencies() {
+            synchronized (result.lock) {
+                if (dependencies == null) {
+                    dependencies = result.readDependencies(this);
+                }
+                return dependencies;
+            }
+        }
+
+        @Override
+        public Set<ResolvedDependencyResult> getDependents() {
+            synchronized (result.lock) {
+                return result.readDependents(this);
+            }
+        }
+
+        @Override
+        public ComponentSelectionReason getSelectionReason() {
+            return selectionReason;
+        }
+
+        @Nullable
+        @Override
+        public ModuleVersionIdentifier getModuleVersion() {
+            return moduleVersion;
+        }
+
+        @Override
+        public ResolvedVariantResult getVariant() {
+            return variant;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            IndexedComponentResult that = (IndexedComponentResult) o;
+            return result == that.result && resultId.equals(that.resultId);
+        }
+
+        @Override
+        public int hashCode() {
+            return resultId.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return getId().getDisplayName();
+        }
+    }
+
+    /**
+     * Refers to the selected component by id, so that the dependencies of a component do not keep the rest of the graph in memory.
+     */
+    private static class IndexedResolvedDependencyResult extends AbstractDependencyResult implements ResolvedDependencyResult {
+        private final IndexedResolutionResult result;
+        private final Long selectedId;
+
+        IndexedResolvedDependencyResult(ComponentSelector requested, IndexedComponentResult from, Long selectedId) {
+            super(requested, from);
+            this.result = from.result;
+            this.selectedId = selectedId;
+        }
+
+        @Override
+        public IndexedComponentResult getSelected() {
+            return result.getComponent(selectedId);
+        }
+
+        @Override
+        public String toString() {
+            if (getRequested().matchesStrictly(getSelected().getId())) {
+                return getRequested().toString();
+            } else {
+                return getRequested() + " -> " + getSelected().getId();
+            }
+        }
+    }
+}
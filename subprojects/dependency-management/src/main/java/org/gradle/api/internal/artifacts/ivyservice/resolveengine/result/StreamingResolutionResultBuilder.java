@@ -40,6 +40,7 @@ import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.time.Time;
 import org.gradle.internal.time.Timer;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -52,10 +53,15 @@ import java.util.Set;
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
 public class StreamingResolutionResultBuilder implements DependencyGraphVisitor {
+    /**
+     * When set, the results are read from the binary store by position as they are navigated, rather than loading the whole graph when it is first queried.
+     */
+    public static final String INDEXED_RESULTS_PROPERTY = "org.gradle.internal.resolution.indexedResults";
+
     private final static byte ROOT = 1;
-    private final static byte COMPONENT = 2;
+    final static byte COMPONENT = 2;
     private final static byte SELECTOR = 4;
-    private final static byte DEPENDENCY = 5;
+    final static byte DEPENDENCY = 5;
 
     private final Map<ComponentSelector, ModuleVersionResolveException> failures = new HashMap<ComponentSelector, ModuleVersionResolveException>();
     private final BinaryStore store;
@@ -64,16 +70,30 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
     private final ComponentSelectorSerializer componentSelectorSerializer;
     private final DependencyResultSerializer dependencyResultSerializer = new DependencyResultSerializer();
     private final Set<Long> visitedComponents = new HashSet<Long>();
+    @Nullable
+    private final IndexedResolutionResult.Index index;
 
     public StreamingResolutionResultBuilder(BinaryStore store, Store<ResolvedComponentResult> cache, ImmutableModuleIdentifierFactory moduleIdentifierFactory, AttributeContainerSerializer attributeContainerSerializer) {
+        this(store, cache, moduleIdentifierFactory, attributeContainerSerializer, false);
+    }
+
+    /**
+     * @param indexed whether to record the position of each record, so that the result can be read without loading the whole graph. The cache is not used in this case.
+     */
+    public StreamingResolutionResultBuilder(BinaryStore store, Store<ResolvedComponentResult> cache, ImmutableModuleIdentifierFactory moduleIdentifierFactory, AttributeContainerSerializer attributeContainerSerializer, boolean indexed) {
         this.componentResultSerializer = new ComponentResultSerializer(moduleIdentifierFactory, attributeContainerSerializer);
         this.store = store;
         this.cache = cache;
         this.componentSelectorSerializer = new ComponentSelectorSerializer();
+        this.index = indexed ? new IndexedResolutionResult.Index() : null;
     }
 
     public ResolutionResult complete() {
         BinaryStore.BinaryData data = store.done();
+        if (index != null) {
+            // The serializers are shared with the result, as the records refer back to the selection reasons that were written before them
+            return new IndexedResolutionResult(data, index, failures, componentResultSerializer, dependencyResultSerializer);
+        }
         RootFactory rootSource = new RootFactory(data, failures, cache, componentSelectorSerializer, dependencyResultSerializer, componentResultSerializer);
         return new DefaultResolutionResult(rootSource);
     }
@@ -86,6 +106,10 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
 
     @Override
     public void finish(final DependencyGraphNode root) {
+        if (index != null) {
+            index.root(root.getOwner().getResultId());
+            return;
+        }
         store.write(new BinaryStore.WriteAction() {
             public void write(Encoder encoder) throws IOException {
                 encoder.writeByte(ROOT);
@@ -98,6 +122,9 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
     public void visitNode(DependencyGraphNode node) {
         final DependencyGraphComponent component = node.getOwner();
         if (visitedComponents.add(component.getResultId())) {
+            if (index != null) {
+                index.component(component.getResultId(), store.getWritePosition());
+            }
             store.write(new BinaryStore.WriteAction() {
                 public void write(Encoder encoder) throws IOException {
                     encoder.writeByte(COMPONENT);
@@ -109,6 +136,10 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
 
     @Override
     public void visitSelector(final DependencyGraphSelector selector) {
+        if (index != null) {
+            index.selector(selector.getResultId(), selector.getRequested());
+            return;
+        }
         store.write(new BinaryStore.WriteAction() {
             @Override
             public void write(Encoder encoder) throws IOException {
@@ -124,6 +155,14 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
         final Long fromComponent = node.getOwner().getResultId();
         final Collection<? extends DependencyGraphEdge> dependencies = node.getOutgoingEdges();
         if (!dependencies.isEmpty()) {
+            if (index != null) {
+                index.edges(fromComponent, store.getWritePosition());
+                for (DependencyGraphEdge dependency : dependencies) {
+                    if (dependency.getFailure() == null) {
+                        index.dependent(dependency.getSelected(), fromComponent);
+                    }
+                }
+            }
             store.write(new BinaryStore.WriteAction() {
                 public void write(Encoder encoder) throws IOException {
                     encoder.writeByte(DEPENDENCY);
@@ -27,6 +27,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
@@ -34,6 +36,7 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
     private File file;
     private KryoBackedEncoder encoder;
     private int offset = -1;
+    private final List<SimpleBinaryData> data = new ArrayList<SimpleBinaryData>();
 
     public DefaultBinaryStore(File file) {
         this.file = file;
@@ -61,6 +64,13 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
         }
     }
 
+    public long getWritePosition() {
+        if (encoder == null || offset == -1) {
+            return 0;
+        }
+        return encoder.getWritePosition() - offset;
+    }
+
     private String diagnose() {
         return toString() + " (exist: " + file.exists() + ")";
     }
@@ -74,7 +84,9 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
             if (encoder != null) {
                 encoder.flush();
             }
-            return new SimpleBinaryData(file, offset, diagnose());
+            SimpleBinaryData binaryData = new SimpleBinaryData(file, offset, diagnose());
+            data.add(binaryData);
+            return binaryData;
         } finally {
             offset = -1;
         }
@@ -82,10 +94,9 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
 
     public void close() {
         try {
-            if (encoder != null) {
-                encoder.close();
-            }
+            CompositeStoppable.stoppable(data).add(encoder).stop();
         } finally {
+            data.clear();
             if (file != null) {
                 file.delete();
             }
@@ -103,12 +114,14 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
     }
 
     private static class SimpleBinaryData implements BinaryStore.BinaryData {
+        private static final int POSITIONED_READ_BUFFER_SIZE = 512;
         private final int offset;
         private final File inputFile;
         private final String sourceDescription;
 
         private Decoder decoder;
         private CompositeStoppable resources;
+        private RandomAccessFile positionedAccess;
 
         public SimpleBinaryData(File inputFile, int offset, String sourceDescription) {
             this.inputFile = inputFile;
@@ -130,16 +143,28 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
             }
         }
 
-        public void close() {
+        public <T> T read(long position, BinaryStore.ReadAction<T> readAction) {
             try {
-                if (resources != null) {
-                    resources.stop();
+                if (positionedAccess == null) {
+                    positionedAccess = new RandomAccessFile(inputFile, "r");
                 }
+                positionedAccess.seek(offset + position);
+                // Records read by position are usually small, so do not read far ahead of them
+                return readAction.read(new KryoBackedDecoder(new RandomAccessFileInputStream(positionedAccess), POSITIONED_READ_BUFFER_SIZE));
+            } catch (Exception e) {
+                throw new RuntimeException("Problems reading data from " + sourceDescription + " at position " + position, e);
+            }
+        }
+
+        public void close() {
+            try {
+                new CompositeStoppable().add(resources, positionedAccess).stop();
             } catch (Exception e) {
                 throw new RuntimeException("Problems cleaning resources of " + sourceDescription, e);
             } finally {
                 decoder = null;
                 resources = null;
+                positionedAccess = null;
             }
         }
 
@@ -16,25 +16,70 @@
 
 package org.gradle.api.internal.artifacts.transform;
 
+import org.gradle.api.Action;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Applies a transform to the results of another transform. When the first transform produces several files that the second transform
+ * has not been applied to yet, the second transform is applied to these files in parallel.
+ */
 class ChainedTransformer implements ArtifactTransformer {
 
     private final ArtifactTransformer first;
     private final ArtifactTransformer second;
+    private final BuildOperationExecutor buildOperationExecutor;
 
-    public ChainedTransformer(ArtifactTransformer first, ArtifactTransformer second) {
+    public ChainedTransformer(ArtifactTransformer first, ArtifactTransformer second, BuildOperationExecutor buildOperationExecutor) {
         this.first = first;
         this.second = second;
+        this.buildOperationExecutor = buildOperationExecutor;
     }
 
     @Override
     public List<File> transform(File file) {
+        List<File> intermediates = first.transform(file);
+        if (intermediates.size() < 2) {
+            List<File> result = new ArrayList<File>();
+            for (File intermediate : intermediates) {
+                result.addAll(second.transform(intermediate));
+            }
+            return result;
+        }
+
+        final List<TransformFileOperation> operations = new ArrayList<TransformFileOperation>(intermediates.size());
+        final List<TransformFileOperation> pending = new ArrayList<TransformFileOperation>(intermediates.size());
+        for (File intermediate : intermediates) {
+            TransformFileOperation operation = new TransformFileOperation(intermediate, second);
+            operations.add(operation);
+            if (second.hasCachedResult(intermediate)) {
+                operation.run(null);
+            } else {
+                pending.add(operation);
+            }
+        }
+        if (!pending.isEmpty()) {
+            buildOperationExecutor.runAll(new Action<BuildOperationQueue<TransformFileOperation>>() {
+                @Override
+                public void execute(BuildOperationQueue<TransformFileOperation> queue) {
+                    for (TransformFileOperation operation : pending) {
+                        queue.add(operation);
+                    }
+                }
+            });
+        }
+
         List<File> result = new ArrayList<File>();
-        for (File intermediate : first.transform(file)) {
-            result.addAll(second.transform(intermediate));
+        for (TransformFileOperation operation : operations) {
+            if (operation.getFailure() != null) {
+                throw UncheckedException.throwAsUncheckedException(operation.getFailure());
+            }
+            result.addAll(operation.getResult());
         }
         return result;
     }
@@ -22,6 +22,8 @@ import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetadata;
 import org.gradle.api.internal.changedetection.state.FileSystemSnapshotter;
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory;
 import org.gradle.api.internal.changedetection.state.Snapshot;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.cache.CacheBuilder;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.FileLockManager;
@@ -47,18 +49,23 @@ import java.io.File;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.gradle.api.internal.artifacts.ivyservice.CacheLayout.TRANSFORMS_META_DATA;
 import static org.gradle.api.internal.artifacts.ivyservice.CacheLayout.TRANSFORMS_STORE;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DefaultTransformedFileCache implements TransformedFileCache, Stoppable, RootBuildLifecycleListener {
+    private static final Logger LOGGER = Logging.getLogger(DefaultTransformedFileCache.class);
+    private static final String STATISTICS_PROPERTY = "org.gradle.internal.transforms.stats";
+
     private final PersistentCache cache;
     private final PersistentIndexedCache<HashCode, List<File>> indexedCache;
     private final FileStore<String> fileStore;
     private final ProducerGuard<CacheKey> producing = ProducerGuard.adaptive();
     private final Map<CacheKey, List<File>> resultHashToResult = new ConcurrentHashMap<CacheKey, List<File>>();
     private final FileSystemSnapshotter fileSystemSnapshotter;
+    private final Statistics statistics = new Statistics();
 
     public DefaultTransformedFileCache(ArtifactCacheMetadata artifactCacheMetadata, CacheRepository cacheRepository, InMemoryCacheDecoratorFactory cacheDecoratorFactory, FileSystemSnapshotter fileSystemSnapshotter) {
         this.fileSystemSnapshotter = fileSystemSnapshotter;
@@ -90,6 +97,21 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
     public void beforeComplete() {
         // Discard cached results between builds
         resultHashToResult.clear();
+        if (statistics.getRequests() > 0) {
+            if (Boolean.getBoolean(STATISTICS_PROPERTY)) {
+                LOGGER.lifecycle("Artifact transforms cache: {}", statistics);
+            } else {
+                LOGGER.info("Artifact transforms cache: {}", statistics);
+            }
+        }
+        statistics.reset();
+    }
+
+    /**
+     * Returns the hits and misses of this cache since the start of the current build.
+     */
+    public Statistics getStatistics() {
+        return statistics;
     }
 
     @Override
@@ -102,6 +124,7 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
         final CacheKey resultHash = getCacheKey(inputFile, inputsHash);
         List<File> files = resultHashToResult.get(resultHash);
         if (files != null) {
+            statistics.inMemoryHits.incrementAndGet();
             return files;
         }
         return loadIntoCache(inputFile, resultHash, transformer);
@@ -117,6 +140,7 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
             public List<File> create() {
                 List<File> files = resultHashToResult.get(cacheKey);
                 if (files != null) {
+                    statistics.inMemoryHits.incrementAndGet();
                     return files;
                 }
                 files = cache.withFileLock(new Factory<List<File>>() {
@@ -133,10 +157,12 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
                                 }
                             }
                             if (allExist) {
+                                statistics.persistentHits.incrementAndGet();
                                 return files;
                             }
                         }
 
+                        statistics.misses.incrementAndGet();
                         String key = inputFile.getName() + "/" + persistentCacheKey;
                         TransformAction action = new TransformAction(transformer, inputFile);
                         try {
@@ -208,6 +234,48 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
         }
     }
 
+    public static class Statistics {
+        private final AtomicInteger inMemoryHits = new AtomicInteger();
+        private final AtomicInteger persistentHits = new AtomicInteger();
+        private final AtomicInteger misses = new AtomicInteger();
+
+        /**
+         * The number of results that were already in memory.
+         */
+        public int getInMemoryHits() {
+            return inMemoryHits.get();
+        }
+
+        /**
+         * The number of results loaded from the persistent cache, which is shared by all builds and projects using the same Gradle user home.
+         */
+        public int getPersistentHits() {
+            return persistentHits.get();
+        }
+
+        /**
+         * The number of results that had to be calculated by running the transform.
+         */
+        public int getMisses() {
+            return misses.get();
+        }
+
+        int getRequests() {
+            return inMemoryHits.get() + persistentHits.get() + misses.get();
+        }
+
+        private void reset() {
+            inMemoryHits.set(0);
+            persistentHits.set(0);
+            misses.set(0);
+        }
+
+        @Override
+        public String toString() {
+            return inMemoryHits.get() + " in-memory hits, " + persistentHits.get() + " persistent hits, " + misses.get() + " misses";
+        }
+    }
+
     private static class TransformAction implements Action<File> {
         private final BiFunction<List<File>, File, File> transformer;
         private final File inputFile;
@@ -22,9 +22,12 @@ import org.gradle.api.attributes.AttributeCompatibilityRule;
 import org.gradle.api.attributes.CompatibilityCheckDetails;
 import org.gradle.api.attributes.CompatibilityRuleChain;
 import org.gradle.api.internal.DefaultActionConfiguration;
+import org.gradle.internal.Cast;
+import org.gradle.internal.Pair;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.model.internal.type.ModelType;
 
+import javax.annotation.Nullable;
 import java.util.Comparator;
 import java.util.List;
 
@@ -76,6 +79,22 @@ public class DefaultCompatibilityRuleChain<T> implements CompatibilityRuleChain<
         return !rules.isEmpty();
     }
 
+    /**
+     * Returns the type and parameters of each rule in this chain, or {@code null} when the chain contains an ordering rule, which has no such description.
+     */
+    @Nullable
+    public List<Pair<Class<?>, Object[]>> getRuleTypesAndParams() {
+        List<Pair<Class<?>, Object[]>> result = Lists.newArrayListWithCapacity(rules.size());
+        for (Action<? super CompatibilityCheckDetails<T>> rule : rules) {
+            if (!(rule instanceof InstantiatingAction)) {
+                return null;
+            }
+            InstantiatingAction<T> action = Cast.uncheckedCast(rule);
+            result.add(Pair.<Class<?>, Object[]>of(action.rule, action.params));
+        }
+        return result;
+    }
+
     private static class InstantiatingAction<T> implements Action<CompatibilityCheckDetails<T>> {
         private final Class<? extends AttributeCompatibilityRule<T>> rule;
         private final Object[] params;
@@ -25,9 +25,12 @@ import org.gradle.api.attributes.AttributeDisambiguationRule;
 import org.gradle.api.attributes.DisambiguationRuleChain;
 import org.gradle.api.attributes.MultipleCandidatesDetails;
 import org.gradle.api.internal.DefaultActionConfiguration;
+import org.gradle.internal.Cast;
+import org.gradle.internal.Pair;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.model.internal.type.ModelType;
 
+import javax.annotation.Nullable;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
@@ -80,6 +83,22 @@ public class DefaultDisambiguationRuleChain<T> implements DisambiguationRuleChai
         return !rules.isEmpty();
     }
 
+    /**
+     * Returns the type and parameters of each rule in this chain, or {@code null} when the chain contains an ordering rule, which has no such description.
+     */
+    @Nullable
+    public List<Pair<Class<?>, Object[]>> getRuleTypesAndParams() {
+        List<Pair<Class<?>, Object[]>> result = Lists.newArrayListWithCapacity(rules.size());
+        for (Action<? super MultipleCandidatesDetails<T>> rule : rules) {
+            if (!(rule instanceof InstantiatingAction)) {
+                return null;
+            }
+            InstantiatingAction<T> action = Cast.uncheckedCast(rule);
+            result.add(Pair.<Class<?>, Object[]>of(action.rule, action.params));
+        }
+        return result;
+    }
+
     private static class InstantiatingAction<T> implements Action<MultipleCandidatesDetails<T>> {
         private final Class<? extends AttributeDisambiguationRule<T>> rule;
         private final Object[] params;
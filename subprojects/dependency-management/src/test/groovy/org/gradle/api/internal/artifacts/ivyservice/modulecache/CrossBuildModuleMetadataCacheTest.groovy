@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
+import org.gradle.api.internal.artifacts.repositories.metadata.MavenMutableModuleMetadataFactory
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata
+import org.gradle.internal.resource.local.DefaultLocallyAvailableResource
+import org.gradle.internal.resource.local.PathKeyFileStore
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.TestUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+class CrossBuildModuleMetadataCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir
+    def moduleIdentifierFactory = Mock(ImmutableModuleIdentifierFactory) {
+        module(_, _) >> { args -> DefaultModuleIdentifier.newId(*args) }
+    }
+    def otherModuleIdentifierFactory = Mock(ImmutableModuleIdentifierFactory)
+    def mavenMetadataFactory = new MavenMutableModuleMetadataFactory(moduleIdentifierFactory, TestUtil.attributesFactory(), TestUtil.objectInstantiator(), TestUtil.featurePreviews())
+    def componentId = DefaultModuleComponentIdentifier.newId("org.test", "testArtifact", "1.0")
+    def cache = new CrossBuildModuleMetadataCache(10000)
+
+    def "returns the content while the descriptor is unchanged"() {
+        def file = tmpDir.file("descriptor.bin").setText("content")
+        def content = file.bytes
+
+        when:
+        cache.put(new DefaultLocallyAvailableResource(file), content)
+
+        then:
+        cache.get(new DefaultLocallyAvailableResource(file)).is(content)
+        cache.get(new DefaultLocallyAvailableResource(tmpDir.file("other.bin").createFile())) == null
+    }
+
+    def "discards the content when the descriptor has changed"() {
+        def file = tmpDir.file("descriptor.bin").setText("content")
+        cache.put(new DefaultLocallyAvailableResource(file), file.bytes)
+
+        when:
+        file << "changed"
+
+        then:
+        cache.get(new DefaultLocallyAvailableResource(file)) == null
+
+        when:
+        cache.put(new DefaultLocallyAvailableResource(file), file.bytes)
+        file.lastModified = file.lastModified() - 10000
+
+        then:
+        cache.get(new DefaultLocallyAvailableResource(file)) == null
+    }
+
+    def "evicts content when the descriptors exceed the maximum size"() {
+        def files = (1..10).collect { tmpDir.file("descriptor${it}.bin").setText("x" * 2000) }
+
+        when:
+        files.each { cache.put(new DefaultLocallyAvailableResource(it), it.bytes) }
+
+        then:
+        files.count { cache.get(new DefaultLocallyAvailableResource(it)) != null } < files.size()
+    }
+
+    def "store decodes descriptors it has already read or written from memory with the current factories"() {
+        def pathKeyFileStore = Mock(PathKeyFileStore)
+        def serializer = Mock(ModuleMetadataSerializer)
+        def store = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, cache)
+        def otherBuildStore = new ModuleMetadataStore(pathKeyFileStore, serializer, otherModuleIdentifierFactory, cache)
+        def key = new ModuleComponentAtRepositoryKey("repo", componentId)
+        def file = tmpDir.file("org.test/testArtifact/1.0/repo/descriptor.bin")
+        def metadata = metadata()
+        pathKeyFileStore.get(_) >> { new DefaultLocallyAvailableResource(file) }
+
+        when:
+        store.putModuleDescriptor(key, metadata)
+
+        then:
+        1 * pathKeyFileStore.add(_, _) >> { path, action ->
+            file.parentFile.mkdirs()
+            action.execute(file)
+            new DefaultLocallyAvailableResource(file)
+        }
+        1 * serializer.write(_ as Encoder, metadata) >> { Encoder encoder, m -> encoder.writeString("written") }
+
+        when:
+        // Same length and modification time, so only the content in memory is decoded
+        def lastModified = file.lastModified()
+        file.bytes = new byte[(int) file.length()]
+        file.lastModified = lastModified
+        def result = otherBuildStore.getModuleDescriptor(key)
+
+        then:
+        result.id == componentId
+        1 * serializer.read(_ as Decoder, otherModuleIdentifierFactory) >> { Decoder decoder, f ->
+            assert decoder.readString() == "written"
+            mavenMetadataFactory.create(componentId)
+        }
+
+        when:
+        file << "changed"
+        store.getModuleDescriptor(key)
+
+        then:
+        1 * serializer.read(_ as Decoder, moduleIdentifierFactory) >> mavenMetadataFactory.create(componentId)
+    }
+
+    private ModuleComponentResolveMetadata metadata() {
+        mavenMetadataFactory.create(componentId).asImmutable()
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache.dynamicversions
+
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepositoryAccess
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.external.model.ModuleDependencyMetadata
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableModuleVersionListingResolveResult
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import static org.gradle.api.internal.artifacts.dependencies.DefaultImmutableVersionConstraint.of
+
+class InFlightVersionListingsTest extends ConcurrentSpec {
+    def localAccess = Mock(ModuleComponentRepositoryAccess)
+    def remoteAccess = Mock(ModuleComponentRepositoryAccess)
+    def delegate = Stub(ModuleComponentRepository) {
+        getId() >> "repo"
+        getLocalAccess() >> localAccess
+        getRemoteAccess() >> remoteAccess
+    }
+    def repository = new InFlightVersionListings().coalesceVersionListings(delegate)
+    def dependency = Stub(ModuleDependencyMetadata) {
+        getSelector() >> DefaultModuleComponentSelector.newSelector("org", "a", of("1.+"))
+    }
+
+    def "lists versions remotely when they have not been cached"() {
+        def result = new DefaultBuildableModuleVersionListingResolveResult()
+
+        when:
+        repository.remoteAccess.listModuleVersions(dependency, result)
+
+        then:
+        1 * localAccess.listModuleVersions(dependency, result)
+        1 * remoteAccess.listModuleVersions(dependency, result) >> { args -> args[1].listed(["1.0"]) }
+        result.versions == ["1.0"] as Set
+    }
+
+    def "uses versions cached by the request it waited for"() {
+        def cached = null
+        localAccess.listModuleVersions(dependency, _) >> { ModuleDependencyMetadata dependency, BuildableModuleVersionListingResolveResult result ->
+            if (cached != null) {
+                result.listed(cached)
+            }
+        }
+        def result1 = new DefaultBuildableModuleVersionListingResolveResult()
+        def result2 = new DefaultBuildableModuleVersionListingResolveResult()
+
+        when:
+        async {
+            start {
+                repository.remoteAccess.listModuleVersions(dependency, result1)
+            }
+            start {
+                thread.blockUntil.listing
+                repository.remoteAccess.listModuleVersions(dependency, result2)
+            }
+        }
+
+        then:
+        1 * remoteAccess.listModuleVersions(dependency, result1) >> { ModuleDependencyMetadata dependency, BuildableModuleVersionListingResolveResult result ->
+            instant.listing
+            thread.block()
+            cached = ["1.0", "1.1"]
+            result.listed(cached)
+        }
+        0 * remoteAccess._
+        result1.versions == ["1.0", "1.1"] as Set
+        result2.versions == ["1.0", "1.1"] as Set
+    }
+
+    def "does not coalesce listings of different modules"() {
+        def other = Stub(ModuleDependencyMetadata) {
+            getSelector() >> DefaultModuleComponentSelector.newSelector("org", "b", of("1.+"))
+        }
+
+        when:
+        repository.remoteAccess.listModuleVersions(dependency, new DefaultBuildableModuleVersionListingResolveResult())
+        repository.remoteAccess.listModuleVersions(other, new DefaultBuildableModuleVersionListingResolveResult())
+
+        then:
+        1 * remoteAccess.listModuleVersions(dependency, _)
+        1 * remoteAccess.listModuleVersions(other, _)
+    }
+
+    def "other operations are delegated"() {
+        expect:
+        repository.localAccess.is(localAccess)
+        repository.id == "repo"
+    }
+}
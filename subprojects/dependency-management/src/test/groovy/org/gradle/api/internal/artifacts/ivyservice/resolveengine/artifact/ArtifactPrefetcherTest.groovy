@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact
+
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class ArtifactPrefetcherTest extends ConcurrentSpec {
+    def tasks = []
+    def executor = Mock(ManagedExecutor) {
+        execute(_) >> { Runnable runnable -> tasks << runnable }
+    }
+    def prefetchExecutorFactory = Mock(ExecutorFactory)
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    def prefetcher = new ArtifactPrefetcher(prefetchExecutorFactory, 2, buildOperationExecutor)
+
+    def "starts visiting the artifacts in the background and runs the queued operations"() {
+        def artifacts = Mock(ResolvedArtifactSet)
+        def operation = Mock(RunnableBuildOperation)
+
+        when:
+        prefetcher.prefetch(artifacts)
+
+        then:
+        1 * prefetchExecutorFactory.create(_, 2) >> executor
+        tasks.size() == 1
+        0 * artifacts._
+
+        when:
+        runTasks()
+
+        then:
+        1 * artifacts.startVisit(_, _) >> { BuildOperationQueue<RunnableBuildOperation> queue, ResolvedArtifactSet.AsyncArtifactListener listener ->
+            assert listener.requireArtifactFiles()
+            assert !listener.includeFileDependencies()
+            queue.add(operation)
+            ResolvedArtifactSet.EMPTY_RESULT
+        }
+
+        then:
+        1 * operation.description() >> BuildOperationDescriptor.displayName("download")
+        1 * operation.run(_)
+    }
+
+    def "fetches artifacts in the background before they are visited"() {
+        def backgroundPrefetcher = new ArtifactPrefetcher(executorFactory, 1, buildOperationExecutor)
+        def artifacts = Stub(ResolvedArtifactSet) {
+            startVisit(_, _) >> { BuildOperationQueue<RunnableBuildOperation> queue, ResolvedArtifactSet.AsyncArtifactListener listener ->
+                queue.add(new TestOperation({
+                    instant.fetched
+                }))
+                ResolvedArtifactSet.EMPTY_RESULT
+            }
+        }
+
+        when:
+        async {
+            def prefetch = backgroundPrefetcher.prefetch(artifacts)
+            thread.blockUntil.fetched
+            instant.visited
+            prefetch.stop()
+        }
+
+        then:
+        instant.fetched < instant.visited
+
+        cleanup:
+        backgroundPrefetcher.stop()
+    }
+
+    def "stopping waits for the operations in progress"() {
+        def backgroundPrefetcher = new ArtifactPrefetcher(executorFactory, 1, buildOperationExecutor)
+        def artifacts = Stub(ResolvedArtifactSet) {
+            startVisit(_, _) >> { BuildOperationQueue<RunnableBuildOperation> queue, ResolvedArtifactSet.AsyncArtifactListener listener ->
+                queue.add(new TestOperation({
+                    instant.fetching
+                    thread.block()
+                    instant.fetched
+                }))
+                ResolvedArtifactSet.EMPTY_RESULT
+            }
+        }
+
+        when:
+        async {
+            def prefetch = backgroundPrefetcher.prefetch(artifacts)
+            thread.blockUntil.fetching
+            prefetch.stop()
+            instant.stopped
+        }
+
+        then:
+        instant.fetched < instant.stopped
+
+        cleanup:
+        backgroundPrefetcher.stop()
+    }
+
+    def "does not run operations once cancelled"() {
+        def artifacts = Mock(ResolvedArtifactSet)
+        def operation = Mock(RunnableBuildOperation)
+        prefetchExecutorFactory.create(_, _) >> executor
+
+        when:
+        prefetcher.prefetch(artifacts)
+        runTasks()
+
+        then:
+        1 * artifacts.startVisit(_, _) >> { BuildOperationQueue<RunnableBuildOperation> queue, ResolvedArtifactSet.AsyncArtifactListener listener ->
+            queue.add(operation)
+            queue.cancel()
+            queue.add(operation)
+            ResolvedArtifactSet.EMPTY_RESULT
+        }
+        0 * operation.run(_)
+    }
+
+    def "ignores failures"() {
+        def artifacts = Mock(ResolvedArtifactSet)
+        prefetchExecutorFactory.create(_, _) >> executor
+
+        when:
+        def prefetch = prefetcher.prefetch(artifacts)
+        runTasks()
+        prefetch.stop()
+
+        then:
+        1 * artifacts.startVisit(_, _) >> { throw new RuntimeException("broken") }
+        noExceptionThrown()
+    }
+
+    def "does nothing for empty set"() {
+        when:
+        prefetcher.prefetch(ResolvedArtifactSet.EMPTY).stop()
+
+        then:
+        tasks.empty
+        0 * prefetchExecutorFactory._
+    }
+
+    def "stops executor"() {
+        prefetchExecutorFactory.create(_, _) >> executor
+        prefetcher.prefetch(Stub(ResolvedArtifactSet))
+
+        when:
+        prefetcher.stop()
+
+        then:
+        1 * executor.stop()
+    }
+
+    private void runTasks() {
+        while (!tasks.empty) {
+            tasks.remove(0).run()
+        }
+    }
+
+    private static class TestOperation implements RunnableBuildOperation {
+        private final Runnable action
+
+        TestOperation(Runnable action) {
+            this.action = action
+        }
+
+        @Override
+        void run(BuildOperationContext context) {
+            action.run()
+        }
+
+        @Override
+        BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("download")
+        }
+    }
+}
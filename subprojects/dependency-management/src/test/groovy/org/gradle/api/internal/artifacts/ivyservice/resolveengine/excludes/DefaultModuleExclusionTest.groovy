@@ -758,6 +758,29 @@ class DefaultModuleExclusionTest extends Specification {
         union(intersection, simpleExclude)
     }
 
+    def "equal specs are the same instance"() {
+        def rule1 = excludeRule("org", "module")
+        def rule2 = regexpExcludeRule("org", "module2")
+        def rule3 = excludeRule("org", "module3", "a", "jar", "jar")
+
+        expect:
+        excludeAny(rule1, rule3).is(excludeAny(excludeRule("org", "module"), excludeRule("org", "module3", "a", "jar", "jar")))
+        union(excludeAny(rule1), excludeAny(rule2)).is(union(excludeAny(excludeRule("org", "module")), excludeAny(regexpExcludeRule("org", "module2"))))
+        intersect(excludeAny(rule1), excludeAny(rule2)).is(intersect(excludeAny(rule1), excludeAny(regexpExcludeRule("org", "module2"))))
+    }
+
+    def "reuses the result of combining the same specs"() {
+        def spec1 = excludeAny(excludeRule("org", "module"), excludeRule("org", "module2"))
+        def spec2 = excludeAny(regexpExcludeRule("org", "module3"))
+        def spec3 = excludeAny(excludeGroupRule("org"))
+
+        expect:
+        union(spec1, spec2).is(union(spec1, spec2))
+        union(union(spec1, spec2), spec3).is(union(union(spec1, spec2), spec3))
+        intersect(spec1, spec2).is(intersect(spec1, spec2))
+        intersect(intersect(spec1, spec2), spec3).is(intersect(intersect(spec1, spec2), spec3))
+    }
+
     ModuleExclusion union(ModuleExclusion spec, ModuleExclusion otherRule) {
         moduleExclusions.union(spec, otherRule)
     }
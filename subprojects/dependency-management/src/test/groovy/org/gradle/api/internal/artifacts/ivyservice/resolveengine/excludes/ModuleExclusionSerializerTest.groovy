@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
+import org.gradle.internal.component.external.descriptor.DefaultExclude
+import org.gradle.internal.component.model.DefaultIvyArtifactName
+import org.gradle.internal.serialize.SerializerSpec
+import spock.lang.Unroll
+
+class ModuleExclusionSerializerTest extends SerializerSpec {
+    def moduleIdentifierFactory = Mock(ImmutableModuleIdentifierFactory) {
+        module(_, _) >> { args ->
+            DefaultModuleIdentifier.newId(*args)
+        }
+    }
+    def moduleExclusions = new ModuleExclusions(moduleIdentifierFactory)
+    def serializer = new ModuleExclusionSerializer(moduleIdentifierFactory)
+
+    def "serializes exclude none"() {
+        expect:
+        serialize(ModuleExclusions.excludeNone(), serializer).is(ModuleExclusions.excludeNone())
+    }
+
+    @Unroll
+    def "serializes #description"() {
+        when:
+        def result = serialize(exclusion, serializer)
+
+        then:
+        result == exclusion
+        result.class == exclusion.class
+
+        where:
+        description                  | exclusion
+        "exclude all modules"        | excludeAny(excludeRule("*", "*"))
+        "module id exclusion"        | excludeAny(excludeRule("org", "module"))
+        "module name exclusion"      | excludeAny(excludeRule("*", "module"))
+        "group exclusion"            | excludeAny(excludeRule("org", "*"))
+        "artifact exclusion"         | excludeAny(artifactRule("org", "module", "a", "jar", "jar"))
+        "pattern matcher exclusion"  | excludeAny(new DefaultExclude(DefaultModuleIdentifier.newId("org", "mod.*"), null, new String[0], "regexp"))
+        "pattern matcher artifact"   | excludeAny(new DefaultExclude(DefaultModuleIdentifier.newId("org", "*"), new DefaultIvyArtifactName("a.*", "jar", "jar"), new String[0], "regexp"))
+        "union of exclusions"        | excludeAny(excludeRule("org", "*"), excludeRule("*", "module"), artifactRule("org", "module", "a", "jar", "jar"))
+        "intersection of exclusions" | moduleExclusions.intersect(excludeAny(excludeRule("org", "*"), excludeRule("*", "module")), excludeAny(excludeRule("org2", "*"), excludeRule("*", "module2")))
+    }
+
+    def "serialized exclusions exclude the same modules and artifacts"() {
+        def exclusion = moduleExclusions.union(excludeAny(excludeRule("org", "*")), excludeAny(artifactRule("other", "module", "a", "jar", "jar")))
+
+        when:
+        def result = serialize(exclusion, serializer)
+
+        then:
+        result.excludeModule(DefaultModuleIdentifier.newId("org", "module"))
+        !result.excludeModule(DefaultModuleIdentifier.newId("other", "module"))
+        result.excludeArtifact(DefaultModuleIdentifier.newId("other", "module"), new DefaultIvyArtifactName("a", "jar", "jar"))
+        !result.excludeArtifact(DefaultModuleIdentifier.newId("other", "module"), new DefaultIvyArtifactName("b", "jar", "jar"))
+    }
+
+    private ModuleExclusion excludeAny(DefaultExclude... excludes) {
+        moduleExclusions.excludeAny(excludes)
+    }
+
+    private static DefaultExclude excludeRule(String org, String module) {
+        new DefaultExclude(DefaultModuleIdentifier.newId(org, module), null, new String[0], PatternMatchers.EXACT)
+    }
+
+    private static DefaultExclude artifactRule(String org, String module, String name, String type, String ext) {
+        new DefaultExclude(DefaultModuleIdentifier.newId(org, module), new DefaultIvyArtifactName(name, type, ext), new String[0], PatternMatchers.EXACT)
+    }
+}
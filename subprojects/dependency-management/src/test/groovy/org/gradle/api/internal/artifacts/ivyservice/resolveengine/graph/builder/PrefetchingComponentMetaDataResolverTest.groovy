@@ -0,0 +1,405 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder
+
+import com.google.common.collect.ImmutableList
+import org.gradle.api.artifacts.component.ComponentSelector
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier
+import org.gradle.api.artifacts.component.ModuleComponentSelector
+import org.gradle.api.internal.artifacts.ComponentSelectorConverter
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
+import org.gradle.api.internal.artifacts.dependencies.DefaultImmutableVersionConstraint
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DefaultDependencySubstitution
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionApplicator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions
+import org.gradle.api.specs.Spec
+import org.gradle.internal.component.external.descriptor.DefaultExclude
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.component.model.ConfigurationMetadata
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+class PrefetchingComponentMetaDataResolverTest extends Specification {
+    def delegate = Mock(ComponentMetaDataResolver)
+    def tasks = []
+    def executor = { Runnable runnable -> tasks << runnable } as Executor
+    def rules = [:]
+    def applicator = { DependencyMetadata dependency ->
+        def details = new DefaultDependencySubstitution(dependency.selector, null)
+        def rule = rules[(dependency.selector as ModuleComponentSelector).module]
+        if (rule instanceof Throwable) {
+            return DependencySubstitutionApplicator.SubstitutionResult.failed(rule)
+        }
+        if (rule != null) {
+            details.useTarget(rule)
+        }
+        DependencySubstitutionApplicator.SubstitutionResult.of(details)
+    } as DependencySubstitutionApplicator
+    def edgeFilter = { DependencyMetadata dependency -> !(dependency.selector as ModuleComponentSelector).module.startsWith("filtered") } as Spec<DependencyMetadata>
+    def moduleExclusions = new ModuleExclusions(Stub(ImmutableModuleIdentifierFactory) {
+        module(_, _) >> { args -> DefaultModuleIdentifier.newId(*args) }
+    })
+    def componentSelectorConverter = Stub(ComponentSelectorConverter) {
+        getModule(_) >> { ComponentSelector selector -> DefaultModuleIdentifier.newId((selector as ModuleComponentSelector).group, (selector as ModuleComponentSelector).module) }
+    }
+    def resolver = new PrefetchingComponentMetaDataResolver(delegate, executor, 2, new TestBuildOperationExecutor(), new DefaultVersionSelectorScheme(new DefaultVersionComparator()),
+        applicator, edgeFilter, moduleExclusions, componentSelectorConverter)
+    def overrides = new DefaultComponentOverrideMetadata()
+    def excludeNone = ModuleExclusions.excludeNone()
+
+    def "serves prefetched metadata without resolving it again"() {
+        def id = moduleId("a")
+        def metadata = metadata()
+
+        when:
+        resolver.prefetch(id, overrides, excludeNone)
+
+        then:
+        tasks.size() == 1
+        1 * delegate.isFetchingMetadataCheap(id) >> false
+
+        when:
+        tasks.each { it.run() }
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+
+        when:
+        def result = resolve(id)
+
+        then:
+        result.metadata == metadata
+        0 * delegate.resolve(_, _, _)
+    }
+
+    def "fetches prefetched metadata on the calling thread when it has not been started yet"() {
+        def id = moduleId("a")
+        def metadata = metadata()
+        delegate.isFetchingMetadataCheap(_) >> false
+
+        given:
+        resolver.prefetch(id, overrides, excludeNone)
+
+        when:
+        def result = resolve(id)
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+        result.metadata == metadata
+
+        when:
+        tasks.each { it.run() }
+
+        then:
+        0 * delegate.resolve(_, _, _)
+    }
+
+    def "does not prefetch metadata that is cheap to fetch"() {
+        def id = moduleId("a")
+
+        when:
+        resolver.prefetch(id, overrides, excludeNone)
+
+        then:
+        1 * delegate.isFetchingMetadataCheap(id) >> true
+        tasks.empty
+    }
+
+    def "resolves again when prefetching fails"() {
+        def id = moduleId("a")
+        def failure = new ModuleVersionResolveException(id, "broken")
+        def metadata = metadata()
+        delegate.isFetchingMetadataCheap(_) >> false
+
+        given:
+        resolver.prefetch(id, overrides, excludeNone)
+
+        when:
+        tasks.each { it.run() }
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].failed(failure) }
+
+        when:
+        def result = resolve(id)
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+        result.metadata == metadata
+    }
+
+    def "does not use metadata prefetched with different overrides"() {
+        def id = moduleId("a")
+        def metadata = metadata()
+        delegate.isFetchingMetadataCheap(_) >> false
+        delegate.resolve(id, { !it.changing }, _) >> { args -> args[2].resolved(metadata) }
+
+        given:
+        resolver.prefetch(id, overrides, excludeNone)
+        tasks.each { it.run() }
+
+        when:
+        def result = resolve(id, overrides.withChanging())
+
+        then:
+        1 * delegate.resolve(id, { it.changing }, _) >> { args -> args[2].resolved(metadata) }
+        result.metadata == metadata
+    }
+
+    def "speculatively prefetches the dependencies of prefetched components on a fixed version"() {
+        def id = moduleId("a")
+        def fixed = moduleId("b")
+        def metadata = metadata(dependency("b", "1.0"), dependency("c", "1.+"), dependency("d", "[1.0,2.0)"))
+        delegate.isFetchingMetadataCheap(_) >> false
+
+        given:
+        resolver.prefetch(id, overrides, excludeNone)
+
+        when:
+        tasks[0].run()
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+        tasks.size() == 1
+
+        when:
+        resolve(id)
+
+        then:
+        tasks.size() == 2
+
+        when:
+        tasks[1].run()
+
+        then:
+        1 * delegate.resolve(fixed, _, _) >> { args -> args[2].resolved(metadata()) }
+    }
+
+    def "speculatively prefetches the dependencies of components resolved by the traversal"() {
+        def id = moduleId("a")
+        def metadata = metadata(dependency("b", "1.0"))
+        delegate.isFetchingMetadataCheap(id) >> true
+        delegate.isFetchingMetadataCheap(moduleId("b")) >> false
+        delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+
+        given:
+        resolver.prefetch(id, overrides, excludeNone)
+
+        when:
+        resolve(id)
+
+        then:
+        tasks.size() == 1
+    }
+
+    def "does not speculate on the dependencies of components whose dependencies are not traversed"() {
+        def id = moduleId("a")
+        def metadata = metadata(dependency("b", "1.0"))
+        delegate.isFetchingMetadataCheap(_) >> false
+        delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+
+        given:
+        resolver.prefetch(id, overrides, null)
+        tasks[0].run()
+
+        when:
+        resolve(id)
+
+        then:
+        tasks.size() == 1
+    }
+
+    def "speculates on the target of substituted and forced dependencies"() {
+        def id = moduleId("a")
+        def metadata = metadata(dependency("b", "1.0"), dependency("c", "1.+"), dependency("d", "1.0"), dependency("e", "1.0"))
+        rules.b = "org:b:2.0"
+        rules.c = "org:c:1.5"
+        rules.d = "org:d:2.+"
+        rules.e = new RuntimeException("broken rule")
+        delegate.isFetchingMetadataCheap(_) >> false
+        delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+        def resolver = new PrefetchingComponentMetaDataResolver(delegate, executor, 10, new TestBuildOperationExecutor(), new DefaultVersionSelectorScheme(new DefaultVersionComparator()),
+            applicator, edgeFilter, moduleExclusions, componentSelectorConverter)
+
+        given:
+        resolver.prefetch(id, overrides, excludeNone)
+        tasks[0].run()
+
+        when:
+        resolver.resolve(id, overrides, new DefaultBuildableComponentResolveResult())
+        tasks.drop(1).each { it.run() }
+
+        then:
+        1 * delegate.resolve(DefaultModuleComponentIdentifier.newId("org", "b", "2.0"), _, _)
+        1 * delegate.resolve(DefaultModuleComponentIdentifier.newId("org", "c", "1.5"), _, _)
+        tasks.size() == 3
+    }
+
+    def "does not speculate on filtered or excluded dependencies"() {
+        def id = moduleId("a")
+        def metadata = metadata([new DefaultExclude(DefaultModuleIdentifier.newId("org", "c"))], dependency("b", "1.0"), dependency("c", "1.0"), dependency("filtered", "1.0"), dependency("d", "1.0"))
+        delegate.isFetchingMetadataCheap(_) >> false
+        delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+        def resolver = new PrefetchingComponentMetaDataResolver(delegate, executor, 10, new TestBuildOperationExecutor(), new DefaultVersionSelectorScheme(new DefaultVersionComparator()),
+            applicator, edgeFilter, moduleExclusions, componentSelectorConverter)
+
+        given:
+        resolver.prefetch(id, overrides, moduleExclusions.excludeAny(new DefaultExclude(DefaultModuleIdentifier.newId("org", "b"))))
+        tasks[0].run()
+
+        when:
+        resolver.resolve(id, overrides, new DefaultBuildableComponentResolveResult())
+        tasks.drop(1).each { it.run() }
+
+        then:
+        1 * delegate.resolve(moduleId("d"), _, _)
+        0 * delegate.resolve(_, _, _)
+        tasks.size() == 2
+    }
+
+    def "bounds the number of pending speculative prefetches"() {
+        def id = moduleId("a")
+        def metadata = metadata(dependency("b", "1.0"), dependency("c", "1.0"), dependency("d", "1.0"))
+        delegate.isFetchingMetadataCheap(_) >> false
+        delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+
+        given:
+        resolver.prefetch(id, overrides, excludeNone)
+        tasks[0].run()
+
+        when:
+        resolve(id)
+
+        then:
+        tasks.size() == 3
+    }
+
+    def "discards prefetched metadata when stopped"() {
+        def id = moduleId("a")
+        def metadata = metadata()
+        delegate.isFetchingMetadataCheap(_) >> false
+
+        given:
+        resolver.prefetch(id, overrides, excludeNone)
+        resolver.stop()
+
+        when:
+        tasks.each { it.run() }
+
+        then:
+        0 * delegate.resolve(_, _, _)
+
+        when:
+        def result = resolve(id)
+
+        then:
+        1 * delegate.resolve(id, _, _) >> { args -> args[2].resolved(metadata) }
+        result.metadata == metadata
+    }
+
+    def "waits for fetches that are in progress when stopped without interrupting them"() {
+        def id = moduleId("a")
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def stopped = new CountDownLatch(1)
+        def interrupted = false
+        delegate.isFetchingMetadataCheap(_) >> false
+        delegate.resolve(id, _, _) >> {
+            started.countDown()
+            release.await()
+            interrupted = Thread.currentThread().isInterrupted()
+        }
+
+        given:
+        resolver.prefetch(id, overrides, excludeNone)
+        def worker = new Thread(tasks[0])
+        worker.start()
+        started.await()
+
+        when:
+        def stopper = new Thread({
+            resolver.stop()
+            stopped.countDown()
+        })
+        stopper.start()
+
+        then:
+        !stopped.await(200, TimeUnit.MILLISECONDS)
+
+        when:
+        release.countDown()
+
+        then:
+        stopped.await(10, TimeUnit.SECONDS)
+        !interrupted
+
+        cleanup:
+        release.countDown()
+        worker?.join()
+        stopper?.join()
+    }
+
+    private BuildableComponentResolveResult resolve(def id, def overrideMetadata = overrides) {
+        def result = new DefaultBuildableComponentResolveResult()
+        resolver.resolve(id, overrideMetadata, result)
+        result
+    }
+
+    private static ModuleComponentIdentifier moduleId(String name) {
+        DefaultModuleComponentIdentifier.newId("org", name, "1.0")
+    }
+
+    private ComponentResolveMetadata metadata(DependencyMetadata... dependencies) {
+        metadata([], dependencies)
+    }
+
+    private ComponentResolveMetadata metadata(List excludes, DependencyMetadata... dependencies) {
+        def configuration = Stub(ConfigurationMetadata) {
+            getDependencies() >> (dependencies as List)
+            getExcludes() >> ImmutableList.copyOf(excludes)
+            isTransitive() >> true
+        }
+        Stub(ComponentResolveMetadata) {
+            getVariantsForGraphTraversal() >> ImmutableList.of()
+            getConfiguration("default") >> configuration
+        }
+    }
+
+    private DependencyMetadata dependency(String name, String version) {
+        Stub(DependencyMetadata) {
+            getSelector() >> DefaultModuleComponentSelector.newSelector("org", name, new DefaultImmutableVersionConstraint(version))
+            getArtifacts() >> []
+            getExcludes() >> []
+            isTransitive() >> true
+        }
+    }
+}
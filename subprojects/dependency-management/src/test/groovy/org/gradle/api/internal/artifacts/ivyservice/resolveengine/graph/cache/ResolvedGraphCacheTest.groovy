@@ -0,0 +1,227 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache
+
+import org.gradle.api.artifacts.component.ComponentIdentifier
+import org.gradle.api.attributes.Attribute
+import org.gradle.api.attributes.AttributeCompatibilityRule
+import org.gradle.api.attributes.AttributeDisambiguationRule
+import org.gradle.api.attributes.CompatibilityCheckDetails
+import org.gradle.api.attributes.MultipleCandidatesDetails
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentModuleMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
+import org.gradle.api.internal.artifacts.ResolveContext
+import org.gradle.api.internal.artifacts.configurations.ConflictResolution
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionRules
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionsInternal
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleRepositoryCacheProvider
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer
+import org.gradle.api.internal.attributes.ComponentAttributeMatcher
+import org.gradle.api.internal.attributes.DefaultAttributesSchema
+import org.gradle.api.internal.attributes.ImmutableAttributes
+import org.gradle.api.specs.Specs
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.component.model.ConfigurationMetadata
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import org.gradle.util.BuildCommencedTimeProvider
+import org.gradle.util.TestUtil
+import spock.lang.Specification
+
+class ResolvedGraphCacheTest extends Specification {
+    static final Attribute<String> FLAVOR = Attribute.of("flavor", String)
+
+    HashCode lastKey
+    def persistentCache = Stub(PersistentIndexedCache) {
+        get(_) >> { HashCode key ->
+            lastKey = key
+            null
+        }
+    }
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        createCache(_, _, _) >> persistentCache
+    }
+    def classLoaderHasher = Stub(ClassLoaderHierarchyHasher) {
+        getClassLoaderHash(_) >> HashCode.fromInt(1)
+    }
+    def cache = new ResolvedGraphCache(cacheLockingManager, Stub(ModuleRepositoryCacheProvider), Stub(BuildCommencedTimeProvider), Stub(VersionSelectorScheme),
+        Stub(ImmutableModuleIdentifierFactory), Stub(AttributeContainerSerializer), classLoaderHasher)
+
+    def substitutions = Stub(DependencySubstitutionsInternal)
+    def resolutionStrategy = Stub(ResolutionStrategyInternal) {
+        getForcedModules() >> []
+        getComponentSelection() >> Stub(ComponentSelectionRulesInternal) {
+            getRules() >> []
+        }
+        getDependencySubstitution() >> substitutions
+        getConflictResolution() >> ConflictResolution.latest
+    }
+    def globalSubstitutions = Stub(DependencySubstitutionRules)
+    def globalRules = Stub(GlobalDependencyResolutionRules) {
+        getComponentMetadataProcessor() >> ComponentMetadataProcessor.NO_OP
+        getModuleMetadataProcessor() >> Stub(ComponentModuleMetadataProcessor) {
+            getModuleReplacements() >> ModuleReplacementsData.NO_OP
+        }
+        getDependencySubstitutionRules() >> globalSubstitutions
+    }
+
+    def "uses the same cached graph when the inputs of the resolution are unchanged"() {
+        expect:
+        keyFor(["org:foo:1.0"], schema()) == keyFor(["org:foo:1.0"], schema())
+    }
+
+    def "misses the cached graph when the declared dependencies change"() {
+        expect:
+        keyFor(["org:foo:1.0"], schema()) != keyFor(["org:foo:1.1"], schema())
+        keyFor(["org:foo:1.0"], schema()) != keyFor(["org:foo:1.0", "org:bar:1.0"], schema())
+    }
+
+    def "misses the cached graph when an attribute matching rule is added"() {
+        def withRules = schema()
+        withRules.getMatchingStrategy(FLAVOR).compatibilityRules.add(CompatibilityRule)
+        def withMoreRules = schema()
+        withMoreRules.getMatchingStrategy(FLAVOR).compatibilityRules.add(CompatibilityRule)
+        withMoreRules.getMatchingStrategy(FLAVOR).disambiguationRules.add(DisambiguationRule)
+
+        expect:
+        def keys = [keyFor(["org:foo:1.0"], schema()), keyFor(["org:foo:1.0"], withRules), keyFor(["org:foo:1.0"], withMoreRules)]
+        keys.unique().size() == 3
+    }
+
+    def "misses the cached graph when the parameters of an attribute matching rule change"() {
+        def schema1 = schema()
+        schema1.getMatchingStrategy(FLAVOR).compatibilityRules.add(CompatibilityRule) { it.params("a") }
+        def schema2 = schema()
+        schema2.getMatchingStrategy(FLAVOR).compatibilityRules.add(CompatibilityRule) { it.params("b") }
+
+        expect:
+        keyFor(["org:foo:1.0"], schema1) != keyFor(["org:foo:1.0"], schema2)
+    }
+
+    def "misses the cached graph when the implementation of an attribute matching rule changes"() {
+        def hasher1 = Stub(ClassLoaderHierarchyHasher) {
+            getClassLoaderHash(_) >> HashCode.fromInt(1)
+        }
+        def hasher2 = Stub(ClassLoaderHierarchyHasher) {
+            getClassLoaderHash(_) >> HashCode.fromInt(2)
+        }
+        def schema = schema()
+        schema.getMatchingStrategy(FLAVOR).disambiguationRules.add(DisambiguationRule)
+
+        expect:
+        keyFor(["org:foo:1.0"], schema, newCache(hasher1)) != keyFor(["org:foo:1.0"], schema, newCache(hasher2))
+    }
+
+    def "does not cache resolution when the implementation of an attribute matching rule cannot be fingerprinted"() {
+        def cache = newCache(Stub(ClassLoaderHierarchyHasher) {
+            getClassLoaderHash(_) >> null
+        })
+        def schema = schema()
+        schema.getMatchingStrategy(FLAVOR).compatibilityRules.add(CompatibilityRule)
+
+        expect:
+        cache.forResolution(resolveContext(["org:foo:1.0"]), [], globalRules, Specs.SATISFIES_ALL, schema) == null
+    }
+
+    def "does not cache resolution when an attribute matching rule orders values"() {
+        def schema = schema()
+        schema.getMatchingStrategy(FLAVOR).disambiguationRules.pickFirst(String.CASE_INSENSITIVE_ORDER)
+
+        expect:
+        cache.forResolution(resolveContext(["org:foo:1.0"]), [], globalRules, Specs.SATISFIES_ALL, schema) == null
+    }
+
+    def "does not cache resolution when the resolution strategy has dependency substitution rules"() {
+        substitutions.hasRules() >> true
+
+        expect:
+        cache.forResolution(resolveContext(["org:foo:1.0"]), [], globalRules, Specs.SATISFIES_ALL, schema()) == null
+    }
+
+    def "does not cache resolution when there are global dependency substitution rules"() {
+        globalSubstitutions.hasRules() >> true
+
+        expect:
+        cache.forResolution(resolveContext(["org:foo:1.0"]), [], globalRules, Specs.SATISFIES_ALL, schema()) == null
+    }
+
+    private HashCode keyFor(List<String> dependencies, DefaultAttributesSchema schema, ResolvedGraphCache cache = this.cache) {
+        def resolution = cache.forResolution(resolveContext(dependencies), [], globalRules, Specs.SATISFIES_ALL, schema)
+        assert resolution != null
+        assert !resolution.replay(Stub(ComponentMetaDataResolver), Stub(DependencyGraphVisitor))
+        return lastKey
+    }
+
+    private ResolvedGraphCache newCache(ClassLoaderHierarchyHasher classLoaderHasher) {
+        return new ResolvedGraphCache(cacheLockingManager, Stub(ModuleRepositoryCacheProvider), Stub(BuildCommencedTimeProvider), Stub(VersionSelectorScheme),
+            Stub(ImmutableModuleIdentifierFactory), Stub(AttributeContainerSerializer), classLoaderHasher)
+    }
+
+    private static DefaultAttributesSchema schema() {
+        def schema = new DefaultAttributesSchema(new ComponentAttributeMatcher(), TestUtil.instantiatorFactory())
+        schema.attribute(FLAVOR)
+        return schema
+    }
+
+    private ResolveContext resolveContext(List<String> dependencies) {
+        def configuration = Stub(ConfigurationMetadata) {
+            getName() >> "conf"
+            getAttributes() >> ImmutableAttributes.EMPTY
+            getDependencies() >> dependencies.collect { String notation ->
+                def (group, name, version) = notation.split(":")
+                Stub(DependencyMetadata) {
+                    getSelector() >> DefaultModuleComponentSelector.newSelector(group, name, version)
+                }
+            }
+        }
+        def rootComponent = Stub(ComponentResolveMetadata) {
+            getId() >> Stub(ComponentIdentifier) {
+                getDisplayName() >> "root"
+            }
+            getConfiguration("conf") >> configuration
+        }
+        return Stub(ResolveContext) {
+            getName() >> "conf"
+            getResolutionStrategy() >> resolutionStrategy
+            toRootComponentMetaData() >> rootComponent
+        }
+    }
+
+    static class CompatibilityRule implements AttributeCompatibilityRule<String> {
+        @Override
+        void execute(CompatibilityCheckDetails<String> details) {
+        }
+    }
+
+    static class DisambiguationRule implements AttributeDisambiguationRule<String> {
+        @Override
+        void execute(MultipleCandidatesDetails<String> details) {
+        }
+    }
+}
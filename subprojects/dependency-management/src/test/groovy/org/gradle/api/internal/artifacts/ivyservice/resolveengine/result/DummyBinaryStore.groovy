@@ -30,6 +30,10 @@ public class DummyBinaryStore implements BinaryStore {
         write.write(output)
     }
 
+    long getWritePosition() {
+        bytes.size()
+    }
+
     BinaryStore.BinaryData done() {
         new BinaryStore.BinaryData() {
             Decoder decoder
@@ -40,6 +44,12 @@ public class DummyBinaryStore implements BinaryStore {
                 readAction.read(decoder)
             }
 
+            def <T> T read(long position, BinaryStore.ReadAction<T> readAction) {
+                def input = new ByteArrayInputStream(bytes.toByteArray())
+                input.skip(position)
+                readAction.read(new InputStreamBackedDecoder(input))
+            }
+
             void close() {
                 decoder = null
             }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result
+
+import org.gradle.api.artifacts.result.ResolvedDependencyResult
+import org.gradle.api.artifacts.result.UnresolvedDependencyResult
+import org.gradle.api.internal.model.NamedObjectInstantiator
+import org.gradle.util.TestUtil
+
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons.CONFLICT_RESOLUTION
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons.of
+
+class IndexedStreamingResolutionResultBuilderTest extends StreamingResolutionResultBuilderTest {
+
+    @Override
+    StreamingResolutionResultBuilder createBuilder() {
+        new StreamingResolutionResultBuilder(new DummyBinaryStore(), new DummyStore(), moduleIdentifierFactory, new AttributeContainerSerializer(TestUtil.attributesFactory(), NamedObjectInstantiator.INSTANCE), true)
+    }
+
+    def "reads components and dependencies from the store as the graph is navigated"() {
+        def root = rootNode(1, "org", "root", "1.0")
+        def selector1 = selector(10, "org", "dep1", "1.0")
+        def selector2 = selector(11, "org", "dep2", "1.0")
+        def selector3 = selector(12, "org", "dep3", "1.0")
+        root.outgoingEdges >> [dep(selector1, 2), dep(selector2, 3)]
+        def dep1 = node(2, "org", "dep1", "1.0")
+        dep1.outgoingEdges >> [dep(selector2, 3), dep(selector3, new RuntimeException())]
+        def dep2 = node(3, "org", "dep2", "1.0", of([CONFLICT_RESOLUTION]))
+
+        builder.start(root)
+        [root, dep1, dep2].each { builder.visitNode(it) }
+        [selector1, selector2, selector3].each { builder.visitSelector(it) }
+        [root, dep1, dep2].each { builder.visitEdges(it) }
+        builder.finish(root)
+
+        when:
+        def result = builder.complete()
+
+        then:
+        result.allComponents*.toString() == ["org:root:1.0", "org:dep1:1.0", "org:dep2:1.0"]
+        result.allDependencies*.toString() == ["org:dep1:1.0", "org:dep2:1.0", "org:dep3:1.0 -> org:dep3:1.0 - Could not resolve org:dep3:1.0."]
+
+        and:
+        def first = result.root.dependencies[0] as ResolvedDependencyResult
+        def conflicted = result.root.dependencies[1] as ResolvedDependencyResult
+        first.selected.dependencies[0].selected == conflicted.selected
+        first.selected.dependencies[1] instanceof UnresolvedDependencyResult
+        conflicted.selected.selectionReason.conflictResolution
+        conflicted.selected.dependents*.from*.toString() == ["org:root:1.0", "org:dep1:1.0"]
+        result.allComponents.contains(conflicted.selected)
+    }
+}
@@ -39,7 +39,11 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.
 class StreamingResolutionResultBuilderTest extends Specification {
 
     final ImmutableModuleIdentifierFactory moduleIdentifierFactory = new DefaultImmutableModuleIdentifierFactory()
-    StreamingResolutionResultBuilder builder = new StreamingResolutionResultBuilder(new DummyBinaryStore(), new DummyStore(), moduleIdentifierFactory, new AttributeContainerSerializer(TestUtil.attributesFactory(), NamedObjectInstantiator.INSTANCE))
+    StreamingResolutionResultBuilder builder = createBuilder()
+
+    StreamingResolutionResultBuilder createBuilder() {
+        new StreamingResolutionResultBuilder(new DummyBinaryStore(), new DummyStore(), moduleIdentifierFactory, new AttributeContainerSerializer(TestUtil.attributesFactory(), NamedObjectInstantiator.INSTANCE))
+    }
 
     def "result can be read multiple times"() {
         def rootNode = rootNode(1, "org", "root", "1.0")
@@ -198,7 +202,7 @@ class StreamingResolutionResultBuilderTest extends Specification {
 """
     }
 
-    private DependencyGraphEdge dep(DependencyGraphSelector selector, Long selectedId) {
+    protected DependencyGraphEdge dep(DependencyGraphSelector selector, Long selectedId) {
         def edge = Stub(DependencyGraphEdge)
         _ * edge.selector >> selector
         _ * edge.selected >> selectedId
@@ -206,7 +210,7 @@ class StreamingResolutionResultBuilderTest extends Specification {
         return edge
     }
 
-    private DependencyGraphEdge dep(DependencyGraphSelector selector, Throwable failure) {
+    protected DependencyGraphEdge dep(DependencyGraphSelector selector, Throwable failure) {
         def edge = Stub(DependencyGraphEdge)
         _ * edge.selector >> selector
         _ * edge.requested >> selector.requested
@@ -215,7 +219,7 @@ class StreamingResolutionResultBuilderTest extends Specification {
         return edge
     }
 
-    private DependencyGraphNode node(Long resultId, String org, String name, String ver, ComponentSelectionReason reason = requested()) {
+    protected DependencyGraphNode node(Long resultId, String org, String name, String ver, ComponentSelectionReason reason = requested()) {
         def component = Stub(DependencyGraphComponent)
         _ * component.resultId >> resultId
         _ * component.moduleVersion >> DefaultModuleVersionIdentifier.newId(org, name, ver)
@@ -227,7 +231,7 @@ class StreamingResolutionResultBuilderTest extends Specification {
         return node
     }
 
-    private RootGraphNode rootNode(Long resultId, String org, String name, String ver) {
+    protected RootGraphNode rootNode(Long resultId, String org, String name, String ver) {
         def component = Stub(DependencyGraphComponent)
         _ * component.resultId >> resultId
         _ * component.moduleVersion >> DefaultModuleVersionIdentifier.newId(org, name, ver)
@@ -239,7 +243,7 @@ class StreamingResolutionResultBuilderTest extends Specification {
         return node
     }
 
-    private DependencyGraphSelector selector(Long resultId, String org, String name, String ver) {
+    protected DependencyGraphSelector selector(Long resultId, String org, String name, String ver) {
         def selector = Stub(DependencyGraphSelector)
         selector.resultId >> resultId
         selector.requested >> DefaultModuleComponentSelector.newSelector(org, name, new DefaultMutableVersionConstraint(ver))
@@ -70,6 +70,30 @@ class DefaultBinaryStoreTest extends Specification {
 
     }
 
+    def "data can be read by position"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"))
+
+        when:
+        store.write({ it.writeString("ignored") } as BinaryStore.WriteAction)
+        store.done()
+        def position1 = store.writePosition
+        store.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        def position2 = store.writePosition
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def data = store.done()
+
+        then:
+        position1 == 0
+        data.read(position2, { it.readString() } as BinaryStore.ReadAction) == "x"
+        data.read(position1, { it.readInt() } as BinaryStore.ReadAction) == 10
+        data.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data.read(position2, { it.readString() } as BinaryStore.ReadAction) == "x"
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+
+        cleanup:
+        store.close()
+    }
+
     class SomeException extends RuntimeException {}
 
     def "write action exception is propagated to the client"() {
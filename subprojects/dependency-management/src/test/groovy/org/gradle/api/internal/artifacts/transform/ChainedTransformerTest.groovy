@@ -17,13 +17,15 @@
 package org.gradle.api.internal.artifacts.transform
 
 import com.google.common.collect.Lists
+import org.gradle.internal.operations.TestBuildOperationExecutor
 import spock.lang.Specification
 
 class ChainedTransformerTest extends Specification {
+    def buildOperationExecutor = new TestBuildOperationExecutor()
 
     def "is cached if all parts are cached"() {
         given:
-        def chain = new ChainedTransformer(new CachingTransformer(), new CachingTransformer())
+        def chain = new ChainedTransformer(new CachingTransformer(), new CachingTransformer(), buildOperationExecutor)
 
         expect:
         chain.hasCachedResult(new File("foo"))
@@ -31,7 +33,7 @@ class ChainedTransformerTest extends Specification {
 
     def "is not cached if first part is not cached"() {
         given:
-        def chain = new ChainedTransformer(new NonCachingTransformer(), new CachingTransformer())
+        def chain = new ChainedTransformer(new NonCachingTransformer(), new CachingTransformer(), buildOperationExecutor)
 
         expect:
         !chain.hasCachedResult(new File("foo"))
@@ -39,7 +41,7 @@ class ChainedTransformerTest extends Specification {
 
     def "is not cached if second part is not cached"() {
         given:
-        def chain = new ChainedTransformer(new CachingTransformer(), new NonCachingTransformer())
+        def chain = new ChainedTransformer(new CachingTransformer(), new NonCachingTransformer(), buildOperationExecutor)
 
         expect:
         !chain.hasCachedResult(new File("foo"))
@@ -47,12 +49,52 @@ class ChainedTransformerTest extends Specification {
 
     def "applies second transform on the result of the first"() {
         given:
-        def chain = new ChainedTransformer(new CachingTransformer(), new NonCachingTransformer())
+        def chain = new ChainedTransformer(new CachingTransformer(), new NonCachingTransformer(), buildOperationExecutor)
 
         expect:
         chain.transform(new File("foo")) == [new File("foo/cached/non-cached")]
     }
 
+    def "applies second transform to each result of the first as separate operations"() {
+        given:
+        def first = Stub(ArtifactTransformer) {
+            transform(_) >> { File input -> [new File(input, "a"), new File(input, "b"), new File(input, "c")] }
+        }
+        def second = Stub(ArtifactTransformer) {
+            transform(_) >> { File input -> [new File(input, "1"), new File(input, "2")] }
+            hasCachedResult(new File("foo/b")) >> true
+            getDisplayName() >> "second"
+        }
+        def chain = new ChainedTransformer(first, second, buildOperationExecutor)
+
+        when:
+        def result = chain.transform(new File("foo"))
+
+        then:
+        result == [new File("foo/a/1"), new File("foo/a/2"), new File("foo/b/1"), new File("foo/b/2"), new File("foo/c/1"), new File("foo/c/2")]
+        buildOperationExecutor.operations*.displayName == ["Apply second to ${new File("foo/a")}", "Apply second to ${new File("foo/c")}"]*.toString()
+    }
+
+    def "rethrows failure of second transform"() {
+        given:
+        def failure = new RuntimeException("broken")
+        def first = Stub(ArtifactTransformer) {
+            transform(_) >> { File input -> [new File(input, "a"), new File(input, "b")] }
+        }
+        def second = Stub(ArtifactTransformer) {
+            transform(new File("foo/a")) >> [new File("foo/a/1")]
+            transform(new File("foo/b")) >> { throw failure }
+        }
+        def chain = new ChainedTransformer(first, second, buildOperationExecutor)
+
+        when:
+        chain.transform(new File("foo"))
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
     class CachingTransformer implements ArtifactTransformer {
 
         @Override
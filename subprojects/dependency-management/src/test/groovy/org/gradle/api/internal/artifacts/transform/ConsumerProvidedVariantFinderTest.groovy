@@ -25,6 +25,7 @@ import org.gradle.api.internal.artifacts.VariantTransformRegistry
 import org.gradle.api.internal.attributes.AttributeContainerInternal
 import org.gradle.api.internal.attributes.AttributesSchemaInternal
 import org.gradle.internal.component.model.AttributeMatcher
+import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.util.TestUtil
 import spock.lang.Specification
 
@@ -33,7 +34,7 @@ class ConsumerProvidedVariantFinderTest extends Specification {
     def schema = Mock(AttributesSchemaInternal)
     def immutableAttributesFactory = TestUtil.attributesFactory()
     def transformRegistrations = Mock(VariantTransformRegistry)
-    def matchingCache = new ConsumerProvidedVariantFinder(transformRegistrations, schema, immutableAttributesFactory)
+    def matchingCache = new ConsumerProvidedVariantFinder(transformRegistrations, schema, immutableAttributesFactory, new TestBuildOperationExecutor())
 
     def a1 = Attribute.of("a1", String)
     def a2 = Attribute.of("a2", Integer)
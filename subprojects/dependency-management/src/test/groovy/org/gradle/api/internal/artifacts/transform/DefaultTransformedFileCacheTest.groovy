@@ -345,6 +345,33 @@ class DefaultTransformedFileCacheTest extends ConcurrentSpec {
         0 * transform._
     }
 
+    def "records hits and misses until the end of the build"() {
+        def transform = Mock(BiFunction)
+        def inputFile = tmpDir.file("a")
+        def inputSnapshot = snapshot(HashCode.fromInt(234))
+        _ * snapshotter.snapshotAll(inputFile) >> inputSnapshot
+
+        when:
+        cache.getResult(inputFile, HashCode.fromInt(123), transform)
+        cache.getResult(inputFile, HashCode.fromInt(123), transform)
+
+        then:
+        1 * transform.apply(inputFile, _) >>  { File file, File dir -> def r = new File(dir, "a.1"); r.text = "result"; [r] }
+        cache.statistics.misses == 1
+        cache.statistics.inMemoryHits == 1
+        cache.statistics.persistentHits == 0
+
+        when:
+        cache.beforeComplete()
+        cache.getResult(inputFile, HashCode.fromInt(123), transform)
+
+        then:
+        0 * transform._
+        cache.statistics.misses == 0
+        cache.statistics.inMemoryHits == 0
+        cache.statistics.persistentHits == 1
+    }
+
     def snapshot(HashCode hashCode) {
         FileCollectionSnapshot snapshot = Stub(FileCollectionSnapshot)
         snapshot.appendToHasher(_) >> { BuildCacheHasher hasher -> hasher.putHash(hashCode) }
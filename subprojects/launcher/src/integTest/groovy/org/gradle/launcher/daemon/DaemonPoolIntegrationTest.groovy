@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon
+
+import org.gradle.integtests.fixtures.daemon.DaemonIntegrationSpec
+import org.gradle.launcher.daemon.configuration.DaemonBuildOptions
+import org.gradle.test.fixtures.ConcurrentTestUtil
+
+class DaemonPoolIntegrationTest extends DaemonIntegrationSpec {
+    def "spare daemons are started and do not expire as duplicates of the other idle daemons"() {
+        given:
+        executer.withArguments(
+            "-D${DaemonBuildOptions.PoolSizeOption.GRADLE_PROPERTY}=2",
+            "-D${DaemonBuildOptions.HealthCheckOption.GRADLE_PROPERTY}=1000")
+
+        when:
+        executer.run()
+
+        then:
+        ConcurrentTestUtil.poll(60) {
+            assert daemons.daemons.size() == 3
+        }
+        daemons.daemons*.becomesIdle()
+
+        when:
+        // Longer than the grace period after which compatible idle daemons expire when they are not the most recently used one
+        sleep(15000)
+
+        then:
+        daemons.daemons.size() == 3
+        daemons.daemons*.assertIdle()
+    }
+
+    def "a build uses an idle daemon of the pool without starting another spare"() {
+        given:
+        executer.withArguments("-D${DaemonBuildOptions.PoolSizeOption.GRADLE_PROPERTY}=1")
+        executer.run()
+        ConcurrentTestUtil.poll(60) {
+            assert daemons.daemons.size() == 2
+        }
+        daemons.daemons*.becomesIdle()
+
+        when:
+        executer.withArguments("-D${DaemonBuildOptions.PoolSizeOption.GRADLE_PROPERTY}=1")
+        executer.run()
+
+        then:
+        // One of the idle daemons runs the build, so no spare is missing. Give a spare that would be started in the background time to register
+        daemons.daemons*.becomesIdle()
+        sleep(5000)
+        daemons.daemons.size() == 2
+    }
+
+    def "builds run one after another do not each start spare daemons while the spares are warming up"() {
+        given:
+        executer.withArguments("-D${DaemonBuildOptions.PoolSizeOption.GRADLE_PROPERTY}=2")
+        executer.run()
+
+        when:
+        // The spares started by the first build are still warming up
+        executer.withArguments("-D${DaemonBuildOptions.PoolSizeOption.GRADLE_PROPERTY}=2")
+        executer.run()
+
+        then:
+        ConcurrentTestUtil.poll(60) {
+            assert daemons.daemons.size() == 3
+        }
+        daemons.daemons*.becomesIdle()
+        sleep(5000)
+        daemons.daemons.size() == 3
+    }
+}
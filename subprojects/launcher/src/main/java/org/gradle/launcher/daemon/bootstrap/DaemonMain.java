@@ -16,12 +16,14 @@
 package org.gradle.launcher.daemon.bootstrap;
 
 import com.google.common.io.Files;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.classpath.DefaultClassPath;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.jvm.Jvm;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.services.LoggingServiceRegistry;
 import org.gradle.internal.nativeintegration.ProcessEnvironment;
@@ -37,8 +39,12 @@ import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.logging.DaemonMessages;
 import org.gradle.launcher.daemon.server.Daemon;
 import org.gradle.launcher.daemon.server.DaemonServices;
+import org.gradle.launcher.daemon.server.DaemonWarmup;
 import org.gradle.launcher.daemon.server.MasterExpirationStrategy;
+import org.gradle.launcher.daemon.server.api.DaemonStoppedException;
+import org.gradle.launcher.daemon.server.api.DaemonUnavailableException;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
+import org.gradle.process.internal.ClassDataSharing;
 import org.gradle.process.internal.shutdown.ShutdownHookActionRegister;
 import org.gradle.process.internal.streams.EncodedStream;
 
@@ -47,6 +53,7 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -78,6 +85,8 @@ public class DaemonMain extends EntryPoint {
         int idleTimeoutMs;
         int periodicCheckIntervalMs;
         boolean singleUse;
+        int poolSize;
+        boolean spare;
         String daemonUid;
         List<File> additionalClassPath;
 
@@ -88,6 +97,8 @@ public class DaemonMain extends EntryPoint {
             idleTimeoutMs = decoder.readSmallInt();
             periodicCheckIntervalMs = decoder.readSmallInt();
             singleUse = decoder.readBoolean();
+            poolSize = decoder.readSmallInt();
+            spare = decoder.readBoolean();
             daemonUid = decoder.readString();
             int argCount = decoder.readSmallInt();
             startupOpts = new ArrayList<String>(argCount);
@@ -104,7 +115,7 @@ public class DaemonMain extends EntryPoint {
         }
 
         NativeServices.initialize(gradleHomeDir);
-        DaemonServerConfiguration parameters = new DefaultDaemonServerConfiguration(daemonUid, daemonBaseDir, idleTimeoutMs, periodicCheckIntervalMs, singleUse, startupOpts);
+        DaemonServerConfiguration parameters = new DefaultDaemonServerConfiguration(daemonUid, daemonBaseDir, idleTimeoutMs, periodicCheckIntervalMs, singleUse, poolSize, spare, startupOpts);
         LoggingServiceRegistry loggingRegistry = LoggingServiceRegistry.newCommandLineProcessLogging();
         LoggingManagerInternal loggingManager = loggingRegistry.newInstance(LoggingManagerInternal.class);
 
@@ -121,18 +132,42 @@ public class DaemonMain extends EntryPoint {
         LOGGER.debug("Assuming the daemon was started with following jvm opts: {}", startupOpts);
 
         Daemon daemon = daemonServices.get(Daemon.class);
-        daemon.start();
+        daemon.start(parameters.isSpare());
 
         try {
             DaemonContext daemonContext = daemonServices.get(DaemonContext.class);
             Long pid = daemonContext.getPid();
             daemonStarted(pid, daemon.getUid(), daemon.getAddress(), daemonLog);
+            if (parameters.isSpare()) {
+                warmUp(daemon, daemonServices);
+            }
             DaemonExpirationStrategy expirationStrategy = daemonServices.get(MasterExpirationStrategy.class);
             daemon.stopOnExpiration(expirationStrategy, parameters.getPeriodicCheckIntervalMs());
         } finally {
             daemon.stop();
             // TODO: Stop all daemon services
             CompositeStoppable.stoppable(daemonServices.get(GradleUserHomeScopeServiceRegistry.class)).stop();
+            // The daemon has loaded its classes, so dump the class data sharing archive from the classes it recorded, if any
+            ClassDataSharing.classListRecorded(ManagementFactory.getRuntimeMXBean().getInputArguments(), Jvm.current().getJavaExecutable().getAbsolutePath(), JavaVersion.current(), currentClasspath());
+        }
+    }
+
+    private static List<File> currentClasspath() {
+        List<File> classpath = new ArrayList<File>();
+        for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            classpath.add(new File(path));
+        }
+        return classpath;
+    }
+
+    private static void warmUp(Daemon daemon, DaemonServices daemonServices) {
+        // The daemon is registered as warming up when it starts, and becomes available to builds once the warm up has completed
+        try {
+            daemon.getStateCoordinator().runCommand(new DaemonWarmup(daemonServices), "warm up");
+        } catch (DaemonUnavailableException e) {
+            LOGGER.info("Daemon did not warm up as it is unavailable: {}", e.getMessage());
+        } catch (DaemonStoppedException e) {
+            LOGGER.info("Daemon stopped while warming up.");
         }
     }
 
@@ -38,6 +38,7 @@ import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.context.DaemonContextBuilder;
 import org.gradle.launcher.daemon.protocol.DaemonMessageSerializer;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
+import org.gradle.process.internal.health.memory.DefaultOsMemoryInfo;
 
 import java.io.InputStream;
 import java.util.UUID;
@@ -85,6 +86,11 @@ public abstract class DaemonClientServicesSupport extends DefaultServiceRegistry
         return builder.create();
     }
 
+    // subclass hook, returns the number of spare daemons to keep
+    protected int getDaemonPoolSize() {
+        return 0;
+    }
+
     // subclass hook, allowing us to fake the context for testing
     protected void configureDaemonContextBuilder(DaemonContextBuilder builder) {
 
@@ -106,7 +112,13 @@ public abstract class DaemonClientServicesSupport extends DefaultServiceRegistry
         return new DefaultProgressLoggerFactory(new ProgressLoggingBridge(get(OutputEventListener.class)), clock);
     }
 
-    DaemonConnector createDaemonConnector(DaemonRegistry daemonRegistry, OutgoingConnector outgoingConnector, DaemonStarter daemonStarter, ListenerManager listenerManager, ProgressLoggerFactory progressLoggerFactory, Serializer<BuildAction> buildActionSerializer) {
-        return new DefaultDaemonConnector(daemonRegistry, outgoingConnector, daemonStarter, listenerManager.getBroadcaster(DaemonStartListener.class), progressLoggerFactory, DaemonMessageSerializer.create(buildActionSerializer));
+    DaemonConnector createDaemonConnector(DaemonRegistry daemonRegistry, OutgoingConnector outgoingConnector, DaemonStarter daemonStarter, ListenerManager listenerManager, ProgressLoggerFactory progressLoggerFactory, Serializer<BuildAction> buildActionSerializer, ExecutorFactory executorFactory) {
+        DaemonStartListener startListener = listenerManager.getBroadcaster(DaemonStartListener.class);
+        DefaultDaemonConnector connector = new DefaultDaemonConnector(daemonRegistry, outgoingConnector, daemonStarter, startListener, progressLoggerFactory, DaemonMessageSerializer.create(buildActionSerializer));
+        int poolSize = getDaemonPoolSize();
+        if (poolSize > 0) {
+            return new PooledDaemonConnector(connector, daemonRegistry, daemonStarter, startListener, new DefaultOsMemoryInfo(), executorFactory, poolSize);
+        }
+        return connector;
     }
 }
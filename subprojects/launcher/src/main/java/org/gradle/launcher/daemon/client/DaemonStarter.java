@@ -19,4 +19,9 @@ import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 
 public interface DaemonStarter {
     DaemonStartupInfo startDaemon(boolean singleRun);
+
+    /**
+     * Starts a daemon that warms up before it becomes available to builds. The daemon is not used by the caller.
+     */
+    DaemonStartupInfo startSpareDaemon();
 }
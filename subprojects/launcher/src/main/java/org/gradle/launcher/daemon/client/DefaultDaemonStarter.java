@@ -37,6 +37,7 @@ import org.gradle.launcher.daemon.bootstrap.GradleDaemon;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.process.internal.ClassDataSharing;
 import org.gradle.process.internal.DefaultExecActionFactory;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.streams.EncodedStream;
@@ -68,6 +69,14 @@ public class DefaultDaemonStarter implements DaemonStarter {
     }
 
     public DaemonStartupInfo startDaemon(boolean singleUse) {
+        return startDaemon(singleUse, false);
+    }
+
+    public DaemonStartupInfo startSpareDaemon() {
+        return startDaemon(false, true);
+    }
+
+    private DaemonStartupInfo startDaemon(boolean singleUse, boolean spare) {
         String daemonUid = UUID.randomUUID().toString();
 
         GradleInstallation gradleInstallation = CurrentGradleInstallation.get();
@@ -97,6 +106,10 @@ public class DefaultDaemonStarter implements DaemonStarter {
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+        if (ClassDataSharing.isEnabled()) {
+            ClassDataSharing classDataSharing = new ClassDataSharing(daemonParameters.getGradleUserHomeDir());
+            daemonArgs.addAll(classDataSharing.jvmArgsFor(daemonArgs.get(0), versionValidator.getJavaVersion(daemonParameters), classpath.getAsFiles()));
+        }
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
@@ -118,6 +131,8 @@ public class DefaultDaemonStarter implements DaemonStarter {
             encoder.writeSmallInt(daemonParameters.getIdleTimeout());
             encoder.writeSmallInt(daemonParameters.getPeriodicCheckInterval());
             encoder.writeBoolean(singleUse);
+            encoder.writeSmallInt(daemonParameters.getPoolSize());
+            encoder.writeBoolean(spare);
             encoder.writeString(daemonUid);
             encoder.writeSmallInt(daemonOpts.size());
             for (String daemonOpt : daemonOpts) {
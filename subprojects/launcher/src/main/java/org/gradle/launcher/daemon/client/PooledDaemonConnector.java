@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.client;
+
+import org.gradle.api.internal.specs.ExplainingSpec;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.launcher.daemon.context.DaemonConnectDetails;
+import org.gradle.launcher.daemon.context.DaemonContext;
+import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
+import org.gradle.launcher.daemon.registry.DaemonInfo;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
+import org.gradle.process.internal.health.memory.OsMemoryInfo;
+import org.gradle.process.internal.health.memory.OsMemoryStatus;
+
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.Idle;
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.WarmingUp;
+import static org.gradle.launcher.daemon.server.health.LowMemoryDaemonExpirationStrategy.DEFAULT_MIN_FREE_MEMORY_PERCENTAGE;
+import static org.gradle.launcher.daemon.server.health.LowMemoryDaemonExpirationStrategy.memoryThresholdInBytes;
+
+/**
+ * A {@link DaemonConnector} that keeps a pool of warm daemons compatible with the build, so that the builds that cannot use an existing daemon
+ * do not need to wait for a daemon to start.
+ *
+ * <p>Each time a build connects, spare daemons are started in the background until the given number of compatible daemons are idle or warming up.
+ * Daemons that are busy, or that have expired, are replaced this way. A spare daemon is registered as warming up until it becomes available to builds,
+ * so that the builds of other clients that follow do not start spares of their own in its place. It is told the size of the pool so that
+ * it does not expire as a duplicate of the other idle daemons.
+ * No spare daemon is started when the free system memory is so low that idle daemons would expire.</p>
+ */
+public class PooledDaemonConnector implements DaemonConnector, Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(PooledDaemonConnector.class);
+
+    private final DaemonConnector delegate;
+    private final DaemonRegistry daemonRegistry;
+    private final DaemonStarter daemonStarter;
+    private final DaemonStartListener startListener;
+    private final OsMemoryInfo memoryInfo;
+    private final ExecutorFactory executorFactory;
+    private final int poolSize;
+    private ManagedExecutor executor;
+    private int starting;
+
+    public PooledDaemonConnector(DaemonConnector delegate, DaemonRegistry daemonRegistry, DaemonStarter daemonStarter, DaemonStartListener startListener, OsMemoryInfo memoryInfo,
+                                 ExecutorFactory executorFactory, int poolSize) {
+        this.delegate = delegate;
+        this.daemonRegistry = daemonRegistry;
+        this.daemonStarter = daemonStarter;
+        this.startListener = startListener;
+        this.memoryInfo = memoryInfo;
+        this.executorFactory = executorFactory;
+        this.poolSize = poolSize;
+    }
+
+    @Override
+    public DaemonClientConnection maybeConnect(DaemonConnectDetails daemonAddress) {
+        return delegate.maybeConnect(daemonAddress);
+    }
+
+    @Override
+    public DaemonClientConnection maybeConnect(ExplainingSpec<DaemonContext> constraint) {
+        return delegate.maybeConnect(constraint);
+    }
+
+    @Override
+    public DaemonClientConnection connect(ExplainingSpec<DaemonContext> constraint) {
+        DaemonClientConnection connection = delegate.connect(constraint);
+        replenish(constraint, connection.getDaemon());
+        return connection;
+    }
+
+    @Override
+    public DaemonClientConnection startDaemon(ExplainingSpec<DaemonContext> constraint) {
+        return delegate.startDaemon(constraint);
+    }
+
+    @Override
+    public DaemonClientConnection startSingleUseDaemon() {
+        return delegate.startSingleUseDaemon();
+    }
+
+    /**
+     * Waits for the spare daemons being started to detach from this process. This does not wait for them to warm up.
+     */
+    @Override
+    public void stop() {
+        ManagedExecutor executor;
+        synchronized (this) {
+            executor = this.executor;
+            this.executor = null;
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    private void replenish(ExplainingSpec<DaemonContext> constraint, DaemonConnectDetails connectedDaemon) {
+        int available = 0;
+        for (DaemonInfo daemon : daemonRegistry.getAll()) {
+            // The daemon we are connected to is still registered as idle until it starts the build
+            if (isAvailableSoon(daemon) && !daemon.getUid().equals(connectedDaemon.getUid()) && constraint.isSatisfiedBy(daemon.getContext())) {
+                available++;
+            }
+        }
+        synchronized (this) {
+            for (int missing = poolSize - available - starting; missing > 0; missing--) {
+                if (!hasMemoryForSpare()) {
+                    return;
+                }
+                starting++;
+                getExecutor().execute(new StartSpareDaemon(constraint));
+            }
+        }
+    }
+
+    private static boolean isAvailableSoon(DaemonInfo daemon) {
+        // Spare daemons started by any client are registered as warming up, so they are not started again by the builds that follow
+        return daemon.getState() == Idle || daemon.getState() == WarmingUp;
+    }
+
+    private boolean hasMemoryForSpare() {
+        OsMemoryStatus memoryStatus;
+        try {
+            memoryStatus = memoryInfo.getOsSnapshot();
+        } catch (UnsupportedOperationException e) {
+            LOGGER.debug("Not starting a spare daemon as the free system memory is unknown.");
+            return false;
+        }
+        long threshold = memoryThresholdInBytes(memoryStatus.getTotalPhysicalMemory(), DEFAULT_MIN_FREE_MEMORY_PERCENTAGE);
+        if (memoryStatus.getFreePhysicalMemory() < threshold) {
+            LOGGER.info("Not starting a spare daemon as the free system memory is below {} bytes.", threshold);
+            return false;
+        }
+        return true;
+    }
+
+    private ManagedExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Daemon pool", poolSize);
+        }
+        return executor;
+    }
+
+    private void startSpareDaemon(ExplainingSpec<DaemonContext> constraint) {
+        DaemonStartupInfo startupInfo;
+        try {
+            startupInfo = daemonStarter.startSpareDaemon();
+        } finally {
+            // The daemon is registered by the time it has started, so it is counted from the registry from now on
+            synchronized (this) {
+                starting--;
+            }
+        }
+        LOGGER.debug("Started spare Gradle daemon {}", startupInfo);
+        for (DaemonInfo daemon : daemonRegistry.getAll()) {
+            if (daemon.getUid().equals(startupInfo.getUid())) {
+                if (!constraint.isSatisfiedBy(daemon.getContext())) {
+                    // It still becomes available to the builds that it is compatible with
+                    LOGGER.info("The spare daemon has a different context than expected: {}", constraint.whyUnsatisfied(daemon.getContext()));
+                }
+                startListener.daemonStarted(daemon);
+                return;
+            }
+        }
+        LOGGER.info("The spare Gradle daemon is not registered.\n{}", startupInfo.describe());
+    }
+
+    private class StartSpareDaemon implements Runnable {
+        private final ExplainingSpec<DaemonContext> constraint;
+
+        StartSpareDaemon(ExplainingSpec<DaemonContext> constraint) {
+            this.constraint = constraint;
+        }
+
+        @Override
+        public void run() {
+            try {
+                startSpareDaemon(constraint);
+            } catch (Exception e) {
+                LOGGER.info("Could not start a spare Gradle daemon.", e);
+            }
+        }
+    }
+}
@@ -41,6 +41,7 @@ public class DaemonBuildOptions {
         List<BuildOption<DaemonParameters>> options = new ArrayList<BuildOption<DaemonParameters>>();
         options.add(new IdleTimeoutOption());
         options.add(new HealthCheckOption());
+        options.add(new PoolSizeOption());
         options.add(new BaseDirOption());
         options.add(new JvmArgsOption());
         options.add(new JavaHomeOption());
@@ -94,6 +95,23 @@ public class DaemonBuildOptions {
         }
     }
 
+    public static class PoolSizeOption extends StringBuildOption<DaemonParameters> {
+        public static final String GRADLE_PROPERTY = "org.gradle.daemon.poolSize";
+
+        public PoolSizeOption() {
+            super(GRADLE_PROPERTY);
+        }
+
+        @Override
+        public void applyTo(String value, DaemonParameters settings, Origin origin) {
+            try {
+                settings.setPoolSize(new Integer(value));
+            } catch (NumberFormatException e) {
+                origin.handleInvalidValue(value, "the value should be an int");
+            }
+        }
+    }
+
     public static class BaseDirOption extends StringBuildOption<DaemonParameters> {
         public static final String GRADLE_PROPERTY = "org.gradle.daemon.registry.base";
 
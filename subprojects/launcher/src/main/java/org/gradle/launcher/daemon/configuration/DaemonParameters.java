@@ -44,6 +44,7 @@ public class DaemonParameters {
     private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
 
     private int periodicCheckInterval = DEFAULT_PERIODIC_CHECK_INTERVAL_MILLIS;
+    private int poolSize;
     private final DaemonJvmOptions jvmOptions = new DaemonJvmOptions(new IdentityFileResolver());
     private Map<String, String> envVariables;
     private boolean enabled = true;
@@ -107,6 +108,17 @@ public class DaemonParameters {
         this.periodicCheckInterval = periodicCheckInterval;
     }
 
+    /**
+     * The number of idle daemons compatible with the build that are kept as spares, so that builds do not need to wait for a daemon to start.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
     public List<String> getEffectiveJvmArgs() {
         return jvmOptions.getAllImmutableJvmArgs();
     }
@@ -32,4 +32,14 @@ public interface DaemonServerConfiguration {
     List<String> getJvmOptions();
 
     boolean isSingleUse();
+
+    /**
+     * The number of idle daemons that the client keeps as spares, in addition to the most recently used one.
+     */
+    int getPoolSize();
+
+    /**
+     * Whether this daemon was started as a spare, in which case it warms up before it becomes available to builds.
+     */
+    boolean isSpare();
 }
@@ -26,14 +26,18 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
     private final int idleTimeoutMs;
     private final int periodicCheckIntervalMs;
     private final boolean singleUse;
+    private final int poolSize;
+    private final boolean spare;
     private final List<String> jvmOptions;
 
-    public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, int idleTimeoutMs, int periodicCheckIntervalMs, boolean singleUse, List<String> jvmOptions) {
+    public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, int idleTimeoutMs, int periodicCheckIntervalMs, boolean singleUse, int poolSize, boolean spare, List<String> jvmOptions) {
         this.daemonUid = daemonUid;
         this.daemonBaseDir = daemonBaseDir;
         this.idleTimeoutMs = idleTimeoutMs;
         this.periodicCheckIntervalMs = periodicCheckIntervalMs;
         this.singleUse = singleUse;
+        this.poolSize = poolSize;
+        this.spare = spare;
         this.jvmOptions = jvmOptions;
     }
 
@@ -66,4 +70,14 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
     public boolean isSingleUse() {
         return singleUse;
     }
+
+    @Override
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public boolean isSpare() {
+        return spare;
+    }
 }
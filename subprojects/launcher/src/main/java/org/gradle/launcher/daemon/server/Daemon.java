@@ -106,6 +106,16 @@ public class Daemon implements Stoppable {
      * @throws IllegalStateException if this daemon is already running, or has already been stopped.
      */
     public void start() {
+        start(false);
+    }
+
+    /**
+     * Starts the daemon as for {@link #start()}. A daemon that is warming up is advertised as such in the registry until its first command completes,
+     * so that clients neither connect to it nor start another daemon in its place.
+     *
+     * @throws IllegalStateException if this daemon is already running, or has already been stopped.
+     */
+    public void start(boolean warmingUp) {
         LOGGER.info("start() called on daemon - {}", daemonContext);
         lifecycleLock.lock();
         try {
@@ -118,7 +128,7 @@ public class Daemon implements Stoppable {
             byte[] token = new byte[16];
             secureRandom.nextBytes(token);
 
-            registryUpdater = new DaemonRegistryUpdater(daemonRegistry, daemonContext, token);
+            registryUpdater = new DaemonRegistryUpdater(daemonRegistry, daemonContext, token, warmingUp);
 
             ShutdownHookActionRegister.addAction(new Runnable() {
                 @Override
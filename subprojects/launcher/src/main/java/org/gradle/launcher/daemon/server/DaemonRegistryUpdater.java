@@ -39,14 +39,27 @@ class DaemonRegistryUpdater implements Stoppable {
     private final DaemonContext daemonContext;
     private final byte[] token;
     private Address connectorAddress;
+    private volatile boolean warmingUp;
 
     public DaemonRegistryUpdater(DaemonRegistry daemonRegistry, DaemonContext daemonContext, byte[] token) {
+        this(daemonRegistry, daemonContext, token, false);
+    }
+
+    /**
+     * @param warmingUp Whether the daemon is advertised as warming up until its first activity completes, rather than as busy.
+     */
+    public DaemonRegistryUpdater(DaemonRegistry daemonRegistry, DaemonContext daemonContext, byte[] token, boolean warmingUp) {
         this.daemonRegistry = daemonRegistry;
         this.daemonContext = daemonContext;
         this.token = token;
+        this.warmingUp = warmingUp;
     }
 
     public void onStartActivity() {
+        if (warmingUp) {
+            // The first activity is the warm up, which keeps the state the daemon was registered with
+            return;
+        }
         LOGGER.info("Marking the daemon as busy, address: {}", connectorAddress);
         try {
             daemonRegistry.markState(connectorAddress, Busy);
@@ -56,6 +69,7 @@ class DaemonRegistryUpdater implements Stoppable {
     }
 
     public void onCompleteActivity() {
+        warmingUp = false;
         LOGGER.info("Marking the daemon as idle, address: {}", connectorAddress);
         try {
             daemonRegistry.markState(connectorAddress, Idle);
@@ -77,7 +91,7 @@ class DaemonRegistryUpdater implements Stoppable {
         LOGGER.info("{}{}", DaemonMessages.ADVERTISING_DAEMON, connectorAddress);
         LOGGER.debug("Advertised daemon context: {}", daemonContext);
         this.connectorAddress = connectorAddress;
-        daemonRegistry.store(new DaemonInfo(connectorAddress, daemonContext, token, Busy));
+        daemonRegistry.store(new DaemonInfo(connectorAddress, daemonContext, token, warmingUp ? WarmingUp : Busy));
     }
 
     public void onExpire(String reason, DaemonExpirationStatus status) {
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.initialization.ClassLoaderRegistry;
+import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
+import org.gradle.model.internal.inspect.ModelRuleExtractor;
+
+import java.util.List;
+
+/**
+ * Warms up a daemon started as a spare by creating the global services and loading the classes that every build needs.
+ *
+ * <p>The warm up runs as the first command of the daemon, so the daemon is advertised as warming up until it completes and only becomes available to builds afterwards.</p>
+ */
+public class DaemonWarmup implements Runnable {
+    private static final Logger LOGGER = Logging.getLogger(DaemonWarmup.class);
+
+    private static final List<Class<?>> SERVICES = ImmutableList.<Class<?>>of(
+        ClassLoaderRegistry.class,
+        ModelRuleExtractor.class
+    );
+
+    private static final List<String> CLASSES = ImmutableList.of(
+        "org.gradle.initialization.DefaultGradleLauncher",
+        "org.gradle.internal.service.scopes.BuildScopeServices",
+        "org.gradle.api.internal.project.DefaultProject",
+        "org.gradle.api.internal.tasks.DefaultTaskContainer",
+        "org.gradle.groovy.scripts.internal.DefaultScriptCompilationHandler",
+        "org.gradle.execution.taskgraph.DefaultTaskExecutionPlan"
+    );
+
+    private final ServiceRegistry services;
+
+    public DaemonWarmup(ServiceRegistry services) {
+        this.services = services;
+    }
+
+    @Override
+    public void run() {
+        Timer timer = Time.startTimer();
+        try {
+            for (Class<?> serviceType : SERVICES) {
+                services.get(serviceType);
+            }
+            ClassLoader classLoader = services.get(ClassLoaderRegistry.class).getRuntimeClassLoader();
+            for (String className : CLASSES) {
+                try {
+                    Class.forName(className, true, classLoader);
+                } catch (ClassNotFoundException e) {
+                    LOGGER.debug("Could not load {} while warming up the daemon.", className);
+                }
+            }
+            LOGGER.info("Daemon warmed up in {}.", timer.getElapsed());
+        } catch (RuntimeException e) {
+            // A daemon that could not warm up is still usable, it just does the remaining work in its first build
+            LOGGER.info("Could not warm up the daemon.", e);
+        }
+    }
+}
@@ -40,10 +40,11 @@ public class MasterExpirationStrategy implements DaemonExpirationStrategy {
         strategies.add(healthExpirationStrategy);
 
         // Expire compatible, idle, not recently used Daemons after a short time
+        // Keep as many of them as the client asked to be kept as spares, in addition to the most recently used one
         strategies.add(new AllDaemonExpirationStrategy(ImmutableList.of(
             new CompatibleDaemonExpirationStrategy(daemon),
             new DaemonIdleTimeoutExpirationStrategy(daemon, DUPLICATE_DAEMON_GRACE_PERIOD_MS, TimeUnit.MILLISECONDS),
-            new NotMostRecentlyUsedDaemonExpirationStrategy(daemon)
+            new NotMostRecentlyUsedDaemonExpirationStrategy(daemon, 1 + params.getPoolSize())
         )));
 
         // Expire after normal idle timeout
@@ -59,7 +60,7 @@ public class MasterExpirationStrategy implements DaemonExpirationStrategy {
     }
 
     private void addLowMemoryDaemonExpirationStrategyWhenSupported(Daemon daemon, ImmutableList.Builder<DaemonExpirationStrategy> strategies, ListenerManager listenerManager) {
-        final LowMemoryDaemonExpirationStrategy lowMemoryDaemonExpirationStrategy = new LowMemoryDaemonExpirationStrategy(0.05);
+        final LowMemoryDaemonExpirationStrategy lowMemoryDaemonExpirationStrategy = new LowMemoryDaemonExpirationStrategy(LowMemoryDaemonExpirationStrategy.DEFAULT_MIN_FREE_MEMORY_PERCENTAGE);
         listenerManager.addListener(lowMemoryDaemonExpirationStrategy);
         strategies.add(new AllDaemonExpirationStrategy(ImmutableList.of(
             new DaemonIdleTimeoutExpirationStrategy(daemon, DUPLICATE_DAEMON_GRACE_PERIOD_MS, TimeUnit.MILLISECONDS),
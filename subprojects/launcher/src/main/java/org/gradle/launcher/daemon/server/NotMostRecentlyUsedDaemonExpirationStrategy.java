@@ -27,10 +27,19 @@ import java.util.Date;
 
 public class NotMostRecentlyUsedDaemonExpirationStrategy implements DaemonExpirationStrategy {
     private final Daemon daemon;
+    private final int mostRecentlyUsedToKeep;
     public static final String EXPIRATION_REASON = "not recently used";
 
     NotMostRecentlyUsedDaemonExpirationStrategy(Daemon daemon) {
+        this(daemon, 1);
+    }
+
+    /**
+     * @param mostRecentlyUsedToKeep the number of most recently used idle daemons that are not expired.
+     */
+    NotMostRecentlyUsedDaemonExpirationStrategy(Daemon daemon, int mostRecentlyUsedToKeep) {
         this.daemon = daemon;
+        this.mostRecentlyUsedToKeep = mostRecentlyUsedToKeep;
     }
 
     @Override
@@ -42,15 +51,21 @@ public class NotMostRecentlyUsedDaemonExpirationStrategy implements DaemonExpira
     }
 
     private boolean isMostRecentlyUsed(Collection<DaemonInfo> daemonInfos, DaemonContext thisDaemonContext) {
-        String mruUid = null;
-        Date mruTimestamp = new Date(Long.MIN_VALUE);
+        Date thisTimestamp = null;
+        for (DaemonInfo daemonInfo : daemonInfos) {
+            if (daemonInfo.getUid().equals(thisDaemonContext.getUid())) {
+                thisTimestamp = daemonInfo.getLastBusy();
+            }
+        }
+        if (thisTimestamp == null) {
+            return false;
+        }
+        int moreRecentlyUsed = 0;
         for (DaemonInfo daemonInfo : daemonInfos) {
-            Date daemonAccessTime = daemonInfo.getLastBusy();
-            if (daemonAccessTime.after(mruTimestamp)) {
-                mruUid = daemonInfo.getUid();
-                mruTimestamp = daemonAccessTime;
+            if (daemonInfo.getLastBusy().after(thisTimestamp)) {
+                moreRecentlyUsed++;
             }
         }
-        return thisDaemonContext.getUid().equals(mruUid);
+        return moreRecentlyUsed < mostRecentlyUsedToKeep;
     }
 }
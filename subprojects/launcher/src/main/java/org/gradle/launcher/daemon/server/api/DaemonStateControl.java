@@ -75,5 +75,8 @@ public interface DaemonStateControl {
      */
     void runCommand(Runnable command, String commandDisplayName) throws DaemonUnavailableException, DaemonStoppedException;
 
-    enum State {Idle, Busy, Canceled, StopRequested, Stopped, Broken}
+    /**
+     * The state of a daemon. {@code WarmingUp} is only advertised in the registry, for a spare daemon that is not yet available to builds.
+     */
+    enum State {Idle, Busy, Canceled, StopRequested, Stopped, Broken, WarmingUp}
 }
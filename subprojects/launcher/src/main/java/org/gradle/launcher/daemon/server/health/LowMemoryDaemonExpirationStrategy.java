@@ -45,13 +45,22 @@ public class LowMemoryDaemonExpirationStrategy implements DaemonExpirationStrate
     public static final long MIN_THRESHOLD_BYTES = 384 * 1024 * 1024;
     public static final long MAX_THRESHOLD_BYTES = 1024 * 1024 * 1024;
 
+    public static final double DEFAULT_MIN_FREE_MEMORY_PERCENTAGE = 0.05;
+
     public LowMemoryDaemonExpirationStrategy(double minFreeMemoryPercentage) {
         Preconditions.checkArgument(minFreeMemoryPercentage >= 0, "Free memory percentage must be >= 0");
         Preconditions.checkArgument(minFreeMemoryPercentage <= 1, "Free memory percentage must be <= 1");
         this.minFreeMemoryPercentage = minFreeMemoryPercentage;
     }
 
-    private long normalizeThreshold(final long thresholdIn, final long minValue, final long maxValue) {
+    /**
+     * Returns the amount of free system memory below which idle daemons expire, given the total system memory.
+     */
+    public static long memoryThresholdInBytes(long totalPhysicalMemory, double minFreeMemoryPercentage) {
+        return normalizeThreshold((long) (totalPhysicalMemory * minFreeMemoryPercentage), MIN_THRESHOLD_BYTES, MAX_THRESHOLD_BYTES);
+    }
+
+    private static long normalizeThreshold(final long thresholdIn, final long minValue, final long maxValue) {
         return Math.min(maxValue, Math.max(minValue, thresholdIn));
     }
 
@@ -78,7 +87,7 @@ public class LowMemoryDaemonExpirationStrategy implements DaemonExpirationStrate
         try {
             LOG.debug("Received memory status update: " + newStatus.toString());
             this.memoryStatus = newStatus;
-            this.memoryThresholdInBytes = normalizeThreshold((long) (memoryStatus.getTotalPhysicalMemory() * minFreeMemoryPercentage), MIN_THRESHOLD_BYTES, MAX_THRESHOLD_BYTES);
+            this.memoryThresholdInBytes = memoryThresholdInBytes(memoryStatus.getTotalPhysicalMemory(), minFreeMemoryPercentage);
         } finally {
             lock.unlock();
         }
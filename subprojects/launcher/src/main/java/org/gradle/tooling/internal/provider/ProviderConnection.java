@@ -26,6 +26,7 @@ import org.gradle.initialization.DefaultBuildRequestContext;
 import org.gradle.initialization.DefaultBuildRequestMetaData;
 import org.gradle.initialization.NoOpBuildEventConsumer;
 import org.gradle.initialization.layout.BuildLayoutFactory;
+import org.gradle.internal.event.ListenerNotificationException;
 import org.gradle.internal.invocation.BuildAction;
 import org.gradle.internal.jvm.Jvm;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
@@ -49,6 +50,7 @@ import org.gradle.tooling.internal.protocol.InternalBuildAction;
 import org.gradle.tooling.internal.protocol.InternalBuildActionVersion2;
 import org.gradle.tooling.internal.protocol.InternalBuildEnvironment;
 import org.gradle.tooling.internal.protocol.InternalBuildProgressListener;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
 import org.gradle.tooling.internal.protocol.events.InternalProgressEvent;
 import org.gradle.tooling.internal.provider.connection.ProviderConnectionParameters;
@@ -63,6 +65,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -117,7 +120,7 @@ public class ProviderConnection {
         }
 
         StartParameterInternal startParameter = new ProviderStartParameterConverter().toStartParameter(providerParameters, params.properties);
-        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters);
+        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters, payloadSerializer);
         BuildAction action = new BuildModelAction(startParameter, modelName, tasks != null, listenerConfig.clientSubscriptions);
         return run(action, cancellationToken, listenerConfig, providerParameters, params);
     }
@@ -135,7 +138,7 @@ public class ProviderConnection {
         SerializedPayload serializedAction = payloadSerializer.serialize(clientAction);
         Parameters params = initParams(providerParameters);
         StartParameterInternal startParameter = new ProviderStartParameterConverter().toStartParameter(providerParameters, params.properties);
-        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters);
+        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters, payloadSerializer);
         BuildAction action = new ClientProvidedBuildAction(startParameter, serializedAction, tasks != null, listenerConfig.clientSubscriptions);
         return run(action, cancellationToken, listenerConfig, providerParameters, params);
 
@@ -144,7 +147,7 @@ public class ProviderConnection {
     public Object runTests(ProviderInternalTestExecutionRequest testExecutionRequest, BuildCancellationToken cancellationToken, ProviderOperationParameters providerParameters) {
         Parameters params = initParams(providerParameters);
         StartParameterInternal startParameter = new ProviderStartParameterConverter().toStartParameter(providerParameters, params.properties);
-        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters);
+        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters, payloadSerializer);
         TestExecutionRequestAction action = TestExecutionRequestAction.create(listenerConfig.clientSubscriptions, startParameter, testExecutionRequest);
         return run(action, cancellationToken, listenerConfig, providerParameters, params);
     }
@@ -160,6 +163,9 @@ public class ProviderConnection {
             return payloadSerializer.deserialize(result.result);
         } finally {
             progressListenerConfiguration.failsafeWrapper.rethrowErrors();
+            if (progressListenerConfiguration.streamedValueConsumer != null) {
+                progressListenerConfiguration.streamedValueConsumer.rethrowErrors();
+            }
         }
     }
 
@@ -253,18 +259,60 @@ public class ProviderConnection {
         }
     }
 
+    /**
+     * Passes the values sent by the build action to the listener of the client, and the other events to the given consumer.
+     */
+    private static final class StreamedValueListenerInvokingBuildEventConsumer implements BuildEventConsumer {
+        private final PayloadSerializer payloadSerializer;
+        private final InternalStreamedValueListener streamedValueListener;
+        private final BuildEventConsumer delegate;
+        private Throwable listenerFailure;
+
+        private StreamedValueListenerInvokingBuildEventConsumer(PayloadSerializer payloadSerializer, InternalStreamedValueListener streamedValueListener, BuildEventConsumer delegate) {
+            this.payloadSerializer = payloadSerializer;
+            this.streamedValueListener = streamedValueListener;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void dispatch(Object event) {
+            if (!(event instanceof StreamedValue)) {
+                delegate.dispatch(event);
+                return;
+            }
+            if (listenerFailure != null) {
+                // Discard value
+                return;
+            }
+            try {
+                streamedValueListener.onValue(payloadSerializer.deserialize(((StreamedValue) event).getValue()));
+            } catch (Throwable t) {
+                listenerFailure = t;
+            }
+        }
+
+        public void rethrowErrors() {
+            if (listenerFailure != null) {
+                throw new ListenerNotificationException(null, "The streamed value listener failed with an exception.", Collections.singletonList(listenerFailure));
+            }
+        }
+    }
+
     private static final class ProgressListenerConfiguration {
         private final BuildClientSubscriptions clientSubscriptions;
         private final FailsafeBuildProgressListenerAdapter failsafeWrapper;
+        private final StreamedValueListenerInvokingBuildEventConsumer streamedValueConsumer;
         private final BuildEventConsumer buildEventConsumer;
 
-        public ProgressListenerConfiguration(BuildClientSubscriptions clientSubscriptions, BuildEventConsumer buildEventConsumer, FailsafeBuildProgressListenerAdapter failsafeWrapper) {
+        public ProgressListenerConfiguration(BuildClientSubscriptions clientSubscriptions, BuildEventConsumer buildEventConsumer, FailsafeBuildProgressListenerAdapter failsafeWrapper,
+                                             StreamedValueListenerInvokingBuildEventConsumer streamedValueConsumer) {
             this.clientSubscriptions = clientSubscriptions;
             this.buildEventConsumer = buildEventConsumer;
             this.failsafeWrapper = failsafeWrapper;
+            this.streamedValueConsumer = streamedValueConsumer;
         }
 
-        private static ProgressListenerConfiguration from(ProviderOperationParameters providerParameters) {
+        private static ProgressListenerConfiguration from(ProviderOperationParameters providerParameters, PayloadSerializer payloadSerializer) {
             InternalBuildProgressListener buildProgressListener = providerParameters.getBuildProgressListener(null);
             boolean listenToTestProgress = buildProgressListener != null && buildProgressListener.getSubscribedOperations().contains(InternalBuildProgressListener.TEST_EXECUTION);
             boolean listenToTaskProgress = buildProgressListener != null && buildProgressListener.getSubscribedOperations().contains(InternalBuildProgressListener.TASK_EXECUTION);
@@ -272,12 +320,18 @@ public class ProviderConnection {
             BuildClientSubscriptions clientSubscriptions = new BuildClientSubscriptions(listenToTestProgress, listenToTaskProgress, listenToBuildProgress);
             FailsafeBuildProgressListenerAdapter wrapper = new FailsafeBuildProgressListenerAdapter(buildProgressListener);
             BuildEventConsumer buildEventConsumer = clientSubscriptions.isSendAnyProgressEvents() ? new BuildProgressListenerInvokingBuildEventConsumer(wrapper) : new NoOpBuildEventConsumer();
+            InternalStreamedValueListener streamedValueListener = providerParameters.getStreamedValueListener(null);
+            StreamedValueListenerInvokingBuildEventConsumer streamedValueConsumer = null;
+            if (streamedValueListener != null) {
+                streamedValueConsumer = new StreamedValueListenerInvokingBuildEventConsumer(payloadSerializer, streamedValueListener, buildEventConsumer);
+                buildEventConsumer = streamedValueConsumer;
+            }
             if (Boolean.TRUE.equals(providerParameters.isEmbedded())) {
                 // Contract requires build events are delivered by a single thread. This is taken care of by the daemon client when not in embedded mode
                 // Need to apply some synchronization when in embedded mode
                 buildEventConsumer = new SynchronizedConsumer(buildEventConsumer);
             }
-            return new ProgressListenerConfiguration(clientSubscriptions, buildEventConsumer, wrapper);
+            return new ProgressListenerConfiguration(clientSubscriptions, buildEventConsumer, wrapper, streamedValueConsumer);
         }
 
         private static class SynchronizedConsumer implements BuildEventConsumer {
@@ -18,6 +18,7 @@ package org.gradle.tooling.internal.provider.connection;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.tooling.internal.protocol.InternalBuildProgressListener;
 import org.gradle.tooling.internal.protocol.InternalLaunchable;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
 import org.gradle.tooling.internal.protocol.ProgressListenerVersion1;
 
 import javax.annotation.Nullable;
@@ -169,4 +170,11 @@ public interface ProviderOperationParameters {
      * @since 2.8-rc-1
      */
     List<File> getInjectedPluginClasspath(List<File> defaultClasspath);
+
+    /**
+     * @return When null, discard the values sent by the build action.
+     * @since 4.8
+     */
+    @Nullable
+    InternalStreamedValueListener getStreamedValueListener(InternalStreamedValueListener defaultListener);
 }
@@ -22,10 +22,13 @@ import org.gradle.internal.serialize.TopLevelExceptionPlaceholder;
 import java.io.IOException;
 import java.io.ObjectStreamClass;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 class PayloadSerializerObjectOutputStream extends ExceptionReplacingObjectOutputStream {
     static final int SAME_CLASSLOADER_TOKEN = 0;
     private final SerializeMap map;
+    private final Map<String, String> strings = new HashMap<String, String>();
 
     public PayloadSerializerObjectOutputStream(OutputStream outputStream, SerializeMap map) throws IOException {
         super(outputStream);
@@ -37,6 +40,25 @@ class PayloadSerializerObjectOutputStream extends ExceptionReplacingObjectOutput
         return new PayloadSerializerObjectOutputStream(outputStream, map);
     }
 
+    /**
+     * Replaces each string with the first equal string written to this stream, so that the stream refers back to that string instead of containing
+     * another copy of it. Models contain many equal strings that are separate instances, such as paths, group names and scopes. The receiver
+     * reads the back references using standard Java serialization, so this does not change the format.
+     */
+    @Override
+    protected Object doReplaceObject(Object obj) throws IOException {
+        if (obj instanceof String) {
+            String string = (String) obj;
+            String previous = strings.get(string);
+            if (previous != null) {
+                return previous;
+            }
+            strings.put(string, string);
+            return string;
+        }
+        return super.doReplaceObject(obj);
+    }
+
     @Override
     protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
         Class<?> targetClass = desc.forClass();
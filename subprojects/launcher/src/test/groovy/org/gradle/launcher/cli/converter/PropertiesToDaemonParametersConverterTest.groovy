@@ -69,6 +69,7 @@ class PropertiesToDaemonParametersConverterTest extends Specification {
             (DaemonBuildOptions.BaseDirOption.GRADLE_PROPERTY)     : new File("baseDir").absolutePath,
             (DaemonBuildOptions.IdleTimeoutOption.GRADLE_PROPERTY) : "115",
             (DaemonBuildOptions.HealthCheckOption.GRADLE_PROPERTY) : "42",
+            (DaemonBuildOptions.PoolSizeOption.GRADLE_PROPERTY)    : "2",
             (DaemonBuildOptions.DebugOption.GRADLE_PROPERTY)       : "true",
         ], params)
 
@@ -80,6 +81,7 @@ class PropertiesToDaemonParametersConverterTest extends Specification {
         params.baseDir == new File("baseDir").absoluteFile
         params.idleTimeout == 115
         params.periodicCheckInterval == 42
+        params.poolSize == 2
     }
 
     def "shows nice message for dummy java home"() {
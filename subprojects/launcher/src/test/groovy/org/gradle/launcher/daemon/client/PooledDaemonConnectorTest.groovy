@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.client
+
+import org.gradle.api.internal.specs.ExplainingSpec
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.launcher.daemon.context.DaemonContext
+import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo
+import org.gradle.launcher.daemon.registry.DaemonInfo
+import org.gradle.launcher.daemon.registry.DaemonRegistry
+import org.gradle.launcher.daemon.server.api.DaemonStateControl
+import org.gradle.process.internal.health.memory.OsMemoryInfo
+import org.gradle.process.internal.health.memory.OsMemoryStatusSnapshot
+import spock.lang.Specification
+
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.Busy
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.Idle
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.WarmingUp
+
+class PooledDaemonConnectorTest extends Specification {
+    static final long GB = 1024 * 1024 * 1024
+
+    def delegate = Mock(DaemonConnector)
+    def registry = Mock(DaemonRegistry)
+    def starter = Mock(DaemonStarter)
+    def startListener = Mock(DaemonStartListener)
+    def memoryInfo = Mock(OsMemoryInfo)
+    def compatibleContext = Stub(DaemonContext)
+    def incompatibleContext = Stub(DaemonContext)
+    def constraint = Stub(ExplainingSpec) {
+        isSatisfiedBy(compatibleContext) >> true
+        isSatisfiedBy(incompatibleContext) >> false
+    }
+    def connected = daemon("connected", compatibleContext)
+    def connection = Stub(DaemonClientConnection) {
+        getDaemon() >> connected
+    }
+    def connector = new PooledDaemonConnector(delegate, registry, starter, startListener, memoryInfo, new DefaultExecutorFactory(), 2)
+
+    def "starts spare daemons until enough compatible daemons are idle"() {
+        def spare = daemon("spare", compatibleContext, WarmingUp)
+
+        when:
+        def result = connector.connect(constraint)
+        connector.stop()
+
+        then:
+        result == connection
+        1 * delegate.connect(constraint) >> connection
+        1 * registry.getAll() >> [connected, daemon("idle", compatibleContext), daemon("busy", compatibleContext, Busy), daemon("other", incompatibleContext)]
+        1 * memoryInfo.getOsSnapshot() >> new OsMemoryStatusSnapshot(16 * GB, 8 * GB)
+        1 * starter.startSpareDaemon() >> new DaemonStartupInfo("spare", null, null)
+        1 * registry.getAll() >> [connected, spare]
+        1 * startListener.daemonStarted(spare)
+        0 * _
+    }
+
+    def "does not start spare daemons when enough compatible daemons are idle"() {
+        when:
+        connector.connect(constraint)
+        connector.stop()
+
+        then:
+        1 * delegate.connect(constraint) >> connection
+        1 * registry.getAll() >> [connected, daemon("idle1", compatibleContext), daemon("idle2", compatibleContext)]
+        0 * _
+    }
+
+    def "does not start spare daemons when compatible daemons are warming up"() {
+        when:
+        connector.connect(constraint)
+        connector.stop()
+
+        then:
+        1 * delegate.connect(constraint) >> connection
+        1 * registry.getAll() >> [connected, daemon("idle", compatibleContext), daemon("spare", compatibleContext, WarmingUp)]
+        0 * _
+    }
+
+    def "a client that connects while the spare daemons of another client are warming up does not start more spare daemons"() {
+        def registered = [connected]
+        def spares = [daemon("spare1", compatibleContext, WarmingUp), daemon("spare2", compatibleContext, WarmingUp)]
+        def otherClient = new PooledDaemonConnector(delegate, registry, starter, startListener, memoryInfo, new DefaultExecutorFactory(), 2)
+
+        when:
+        connector.connect(constraint)
+        connector.stop()
+        otherClient.connect(constraint)
+        otherClient.stop()
+
+        then:
+        2 * delegate.connect(constraint) >> connection
+        _ * registry.getAll() >> {
+            synchronized (registered) {
+                return new ArrayList(registered)
+            }
+        }
+        2 * memoryInfo.getOsSnapshot() >> new OsMemoryStatusSnapshot(16 * GB, 8 * GB)
+        2 * starter.startSpareDaemon() >> {
+            synchronized (registered) {
+                def spare = spares[registered.size() - 1]
+                registered << spare
+                return new DaemonStartupInfo(spare.uid, null, null)
+            }
+        }
+        2 * startListener.daemonStarted(_)
+        0 * _
+    }
+
+    def "does not start spare daemons when free system memory is low"() {
+        when:
+        connector.connect(constraint)
+        connector.stop()
+
+        then:
+        1 * delegate.connect(constraint) >> connection
+        1 * registry.getAll() >> [connected]
+        1 * memoryInfo.getOsSnapshot() >> new OsMemoryStatusSnapshot(16 * GB, 100 * 1024 * 1024)
+        0 * _
+    }
+
+    def "does not start spare daemons when free system memory is unknown"() {
+        when:
+        connector.connect(constraint)
+        connector.stop()
+
+        then:
+        1 * delegate.connect(constraint) >> connection
+        1 * registry.getAll() >> [connected]
+        1 * memoryInfo.getOsSnapshot() >> { throw new UnsupportedOperationException() }
+        0 * _
+    }
+
+    def "delegates other connections"() {
+        def details = daemon("some", compatibleContext)
+
+        when:
+        connector.maybeConnect(constraint)
+        connector.maybeConnect(details)
+        connector.startDaemon(constraint)
+        connector.startSingleUseDaemon()
+
+        then:
+        1 * delegate.maybeConnect(constraint)
+        1 * delegate.maybeConnect(details)
+        1 * delegate.startDaemon(constraint)
+        1 * delegate.startSingleUseDaemon()
+        0 * _
+    }
+
+    private DaemonInfo daemon(String uid, DaemonContext context, DaemonStateControl.State state = Idle) {
+        return Stub(DaemonInfo) {
+            getUid() >> uid
+            getContext() >> context
+            getState() >> state
+            getToken() >> new byte[0]
+        }
+    }
+}
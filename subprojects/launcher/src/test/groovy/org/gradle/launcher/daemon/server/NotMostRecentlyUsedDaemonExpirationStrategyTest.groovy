@@ -41,11 +41,23 @@ class NotMostRecentlyUsedDaemonExpirationStrategyTest extends DaemonExpirationSt
         !wouldExpire(d2)
     }
 
-    boolean wouldExpire(DaemonInfo info) {
+    def "keeps the given number of most recently used daemons"() {
+        given:
+        DaemonInfo d1 = registerDaemon(Idle)
+        DaemonInfo d2 = registerDaemon(Idle)
+        DaemonInfo d3 = registerDaemon(Idle)
+
+        expect:
+        wouldExpire(d1, 2)
+        !wouldExpire(d2, 2)
+        !wouldExpire(d3, 2)
+    }
+
+    boolean wouldExpire(DaemonInfo info, int mostRecentlyUsedToKeep = 1) {
         Daemon daemon = Mock(Daemon) {
             1 * getDaemonRegistry() >> { registry }
             _ * getDaemonContext() >> { info.getContext() }
         }
-        return new NotMostRecentlyUsedDaemonExpirationStrategy(daemon).checkExpiration().status == DaemonExpirationStatus.GRACEFUL_EXPIRE
+        return new NotMostRecentlyUsedDaemonExpirationStrategy(daemon, mostRecentlyUsedToKeep).checkExpiration().status == DaemonExpirationStatus.GRACEFUL_EXPIRE
     }
 }
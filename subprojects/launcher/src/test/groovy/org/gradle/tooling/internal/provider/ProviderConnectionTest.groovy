@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider
+
+import org.gradle.api.JavaVersion
+import org.gradle.api.logging.LogLevel
+import org.gradle.initialization.BuildCancellationToken
+import org.gradle.initialization.BuildRequestContext
+import org.gradle.initialization.layout.BuildLayoutFactory
+import org.gradle.internal.Factory
+import org.gradle.internal.event.ListenerNotificationException
+import org.gradle.internal.jvm.inspection.JvmVersionDetector
+import org.gradle.internal.logging.LoggingManagerInternal
+import org.gradle.internal.logging.services.LoggingServiceRegistry
+import org.gradle.internal.service.ServiceRegistry
+import org.gradle.launcher.daemon.client.DaemonClientFactory
+import org.gradle.launcher.exec.BuildActionExecuter
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener
+import org.gradle.tooling.internal.provider.connection.ProviderOperationParameters
+import org.gradle.tooling.internal.provider.serialization.PayloadSerializer
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload
+import org.junit.Rule
+import spock.lang.Specification
+
+class ProviderConnectionTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def loggingServices = Mock(LoggingServiceRegistry) {
+        getFactory(LoggingManagerInternal) >> Stub(Factory) {
+            create() >> Stub(LoggingManagerInternal)
+        }
+    }
+    def embeddedExecutor = Mock(BuildActionExecuter)
+    def payloadSerializer = Mock(PayloadSerializer)
+    def jvmVersionDetector = Stub(JvmVersionDetector) {
+        getJavaVersion(_) >> JavaVersion.current()
+    }
+    def streamedValueListener = Mock(InternalStreamedValueListener)
+    def parameters = Mock(ProviderOperationParameters) {
+        isEmbedded() >> true
+        isSearchUpwards() >> false
+        getProjectDir() >> tmpDir.testDirectory
+        getGradleUserHomeDir() >> tmpDir.file("user-home")
+        getBuildLogLevel() >> LogLevel.LIFECYCLE
+        getInjectedPluginClasspath(_) >> []
+    }
+    def connection = new ProviderConnection(Stub(ServiceRegistry), loggingServices, new BuildLayoutFactory(), Stub(DaemonClientFactory), embeddedExecutor, payloadSerializer, jvmVersionDetector)
+    def action = new Object()
+    def serializedAction = payload()
+    def serializedResult = payload()
+    def value1 = payload()
+    def value2 = payload()
+
+    def setup() {
+        payloadSerializer.serialize(action) >> serializedAction
+        payloadSerializer.deserialize(serializedResult) >> "result"
+        payloadSerializer.deserialize(value1) >> "value 1"
+        payloadSerializer.deserialize(value2) >> "value 2"
+    }
+
+    def "passes values sent by the build action to the streamed value listener in order"() {
+        given:
+        parameters.getStreamedValueListener(_) >> streamedValueListener
+
+        when:
+        def result = connection.runClientAction(action, Stub(BuildCancellationToken), parameters)
+
+        then:
+        result == "result"
+
+        and:
+        1 * embeddedExecutor.execute(_, _, _, _) >> { args -> sendValuesAndComplete(args[1]) }
+
+        then:
+        1 * streamedValueListener.onValue("value 1")
+
+        then:
+        1 * streamedValueListener.onValue("value 2")
+        0 * streamedValueListener._
+    }
+
+    def "discards values sent by the build action when the client does not provide a streamed value listener"() {
+        given:
+        parameters.getStreamedValueListener(_) >> null
+
+        when:
+        def result = connection.runClientAction(action, Stub(BuildCancellationToken), parameters)
+
+        then:
+        result == "result"
+        1 * embeddedExecutor.execute(_, _, _, _) >> { args -> sendValuesAndComplete(args[1]) }
+        0 * payloadSerializer.deserialize(value1)
+        0 * payloadSerializer.deserialize(value2)
+    }
+
+    def "reports a failure of the streamed value listener once the action has completed and discards the following values"() {
+        def failure = new RuntimeException("broken")
+
+        given:
+        parameters.getStreamedValueListener(_) >> streamedValueListener
+
+        when:
+        connection.runClientAction(action, Stub(BuildCancellationToken), parameters)
+
+        then:
+        1 * embeddedExecutor.execute(_, _, _, _) >> { args -> sendValuesAndComplete(args[1]) }
+        1 * streamedValueListener.onValue("value 1") >> { throw failure }
+        0 * streamedValueListener.onValue("value 2")
+
+        and:
+        def e = thrown(ListenerNotificationException)
+        e.message == "The streamed value listener failed with an exception."
+        e.causes == [failure]
+    }
+
+    private BuildActionResult sendValuesAndComplete(BuildRequestContext context) {
+        context.eventConsumer.dispatch(new StreamedValue(value1))
+        context.eventConsumer.dispatch(new StreamedValue(value2))
+        return new BuildActionResult(serializedResult, null)
+    }
+
+    private static SerializedPayload payload() {
+        new SerializedPayload(null, [])
+    }
+}
@@ -43,6 +43,19 @@ class PayloadSerializerTest extends AbstractClassGraphSpec {
         "some value" | _
     }
 
+    def "writes equal strings only once"() {
+        def value = "/some/project/build/classes/java/main"
+        def copies = (1..100).collect { new String(value) }
+
+        when:
+        def serialized = originator.serialize(copies)
+        def received = receiver.deserialize(serialized)
+
+        then:
+        received == copies
+        serialized.serializedModel.sum { it.length } < originator.serialize([value]).serializedModel.sum { it.length } + 100 * 10
+    }
+
     def "implementation classpath travels with object"() {
         def payloadClass = isolated(CustomPayload, PayloadInterface).loadClass(CustomPayload.name)
         def original = payloadClass.newInstance(value: 'value')
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.remote.internal.KryoBackedMessageSerializer;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Serializers;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the number of small messages per second, like the output events of a test worker, that one connection can send to a peer over
+ * the loopback interface, with and without batched writes. The peer receives the messages on a separate thread.
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class SocketConnectionBenchmark {
+    private static final int MESSAGES_PER_FLUSH = 16;
+    private static final String MESSAGE = "    at org.gradle.internal.remote.internal.inet.SocketConnection.dispatch(SocketConnection.java:125)";
+
+    @Param({"false", "true"})
+    boolean batched;
+
+    private SocketConnection<String> sender;
+    private SocketConnection<String> receiver;
+    private Thread receiverThread;
+    private final AtomicLong received = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void connect() throws IOException {
+        StatefulSerializer<String> serializer = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER);
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+            SocketChannel client = SocketChannel.open(server.socket().getLocalSocketAddress());
+            SocketChannel accepted = server.accept();
+            sender = new SocketConnection<String>(client, new KryoBackedMessageSerializer(), serializer, batched);
+            receiver = new SocketConnection<String>(accepted, new KryoBackedMessageSerializer(), serializer, batched);
+        } finally {
+            server.close();
+        }
+        receiverThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (receiver.receive() != null) {
+                    received.incrementAndGet();
+                }
+            }
+        });
+        receiverThread.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() throws InterruptedException {
+        sender.stop();
+        receiverThread.join();
+        receiver.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_FLUSH)
+    public void sendMessages() {
+        for (int i = 0; i < MESSAGES_PER_FLUSH; i++) {
+            sender.dispatch(MESSAGE);
+        }
+        sender.flush();
+    }
+}
@@ -30,6 +30,7 @@ import org.gradle.internal.remote.internal.hub.queue.EndPointQueue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -42,6 +43,13 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  */
 public class MessageHub implements AsyncStoppable {
+    /**
+     * The time in milliseconds that a connection waits for more outgoing messages before flushing the messages it has written. Defaults to 0, which
+     * flushes as soon as there are no more messages queued. A small delay lets connections that send many small messages write them in batches.
+     */
+    public static final String MAX_FLUSH_DELAY_PROPERTY = "org.gradle.internal.remote.maxFlushDelayMillis";
+    private static final long MAX_FLUSH_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong(MAX_FLUSH_DELAY_PROPERTY, 0));
+
     private enum State {Running, Stopping, Stopped}
 
     private static final Discard DISCARD = new Discard();
@@ -315,19 +323,35 @@ public class MessageHub implements AsyncStoppable {
                         } finally {
                             lock.unlock();
                         }
-                        for (InterHubMessage message : messages) {
+                        long flushAt = System.nanoTime() + MAX_FLUSH_DELAY_NANOS;
+                        while (true) {
+                            for (InterHubMessage message : messages) {
+                                try {
+                                    connection.dispatch(message);
+                                } catch (RecoverableMessageIOException e) {
+                                    addToIncoming(new StreamFailureMessage(e));
+                                }
+                                if (message instanceof EndOfStream) {
+                                    connection.flush();
+                                    return;
+                                }
+                            }
+                            messages.clear();
+                            long remaining = flushAt - System.nanoTime();
+                            if (remaining <= 0) {
+                                break;
+                            }
+                            lock.lock();
                             try {
-                                connection.dispatch(message);
-                            } catch (RecoverableMessageIOException e) {
-                                addToIncoming(new StreamFailureMessage(e));
+                                queue.take(messages, remaining);
+                            } finally {
+                                lock.unlock();
                             }
-                            if (message instanceof EndOfStream) {
-                                connection.flush();
-                                return;
+                            if (messages.isEmpty()) {
+                                break;
                             }
                         }
                         connection.flush();
-                        messages.clear();
                     }
                 } finally {
                     lock.lock();
@@ -42,7 +42,10 @@ public class MultiEndPointQueue implements Dispatch<InterHubMessage> {
     }
 
     void empty(EndPointQueue endPointQueue) {
-        waiting.add(endPointQueue);
+        // May already be waiting, when its last take timed out
+        if (!waiting.contains(endPointQueue)) {
+            waiting.add(endPointQueue);
+        }
         flush();
     }
 
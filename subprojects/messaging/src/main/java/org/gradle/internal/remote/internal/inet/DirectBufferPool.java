@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct buffers of the same size, shared by the connections of a process. Allocating direct buffers is expensive, and the memory
+ * of a discarded direct buffer is only released once the buffer is garbage collected, so buffers are reused instead.
+ *
+ * <p>At most {@code maxRetained} buffers are kept in the pool. Buffers returned to a full pool are discarded.</p>
+ */
+class DirectBufferPool {
+    private final int bufferSize;
+    private final int maxRetained;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger retained = new AtomicInteger();
+
+    DirectBufferPool(int bufferSize, int maxRetained) {
+        this.bufferSize = bufferSize;
+        this.maxRetained = maxRetained;
+    }
+
+    /**
+     * Returns an empty buffer, ready to be written to.
+     */
+    ByteBuffer take() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        retained.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns the given buffer to the pool. The buffer must not be used by the caller afterwards.
+     */
+    void release(ByteBuffer buffer) {
+        if (retained.incrementAndGet() > maxRetained) {
+            retained.decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        buffers.add(buffer);
+    }
+}
@@ -36,6 +36,6 @@ class SocketConnectCompletion implements ConnectCompletion {
     }
 
     public <T> RemoteConnection<T> create(StatefulSerializer<T> serializer) {
-        return new SocketConnection<T>(socket, new KryoBackedMessageSerializer(), serializer);
+        return new SocketConnection<T>(socket, new KryoBackedMessageSerializer(), serializer, Boolean.getBoolean(SocketConnection.BATCHED_WRITES_PROPERTY));
     }
 }
@@ -39,7 +39,13 @@ import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 
 public class SocketConnection<T> implements RemoteConnection<T> {
+    /**
+     * When set to true, connections frame outgoing messages in batches of pooled direct buffers, which are written to the socket with a single
+     * gathering write once the batch is full or the connection is flushed.
+     */
+    public static final String BATCHED_WRITES_PROPERTY = "org.gradle.internal.remote.batchedWrites";
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketConnection.class);
+    private static final DirectBufferPool BUFFER_POOL = new DirectBufferPool(64 * 1024, 64);
     private final SocketChannel socket;
     private final SocketInetAddress localAddress;
     private final SocketInetAddress remoteAddress;
@@ -50,12 +56,16 @@ public class SocketConnection<T> implements RemoteConnection<T> {
     private final FlushableEncoder encoder;
 
     public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer) {
+        this(socket, streamSerializer, messageSerializer, false);
+    }
+
+    public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer, boolean batchedWrites) {
         this.socket = socket;
         try {
             // NOTE: we use non-blocking IO as there is no reliable way when using blocking IO to shutdown reads while
             // keeping writes active. For example, Socket.shutdownInput() does not work on Windows.
             socket.configureBlocking(false);
-            outstr = new SocketOutputStream(socket);
+            outstr = batchedWrites ? new BatchingSocketOutputStream(socket, BUFFER_POOL) : new SocketOutputStream(socket);
             instr = new SocketInputStream(socket);
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
@@ -301,4 +311,106 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             }
         }
     }
+
+    /**
+     * Collects the written bytes in a batch of pooled direct buffers, and writes the whole batch to the socket with a single gathering write once
+     * the batch is full or the stream is flushed. When the socket cannot accept more bytes, blocks on a selector that is registered only once.
+     */
+    private static class BatchingSocketOutputStream extends OutputStream {
+        private static final int MAX_BUFFERS_PER_BATCH = 4;
+        private final SocketChannel socket;
+        private final DirectBufferPool bufferPool;
+        private final ByteBuffer[] batch = new ByteBuffer[MAX_BUFFERS_PER_BATCH];
+        private final byte[] writeBuffer = new byte[1];
+        private int buffersInBatch;
+        private Selector selector;
+        private SelectionKey writeKey;
+
+        public BatchingSocketOutputStream(SocketChannel socket, DirectBufferPool bufferPool) {
+            this.socket = socket;
+            this.bufferPool = bufferPool;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writeBuffer[0] = (byte) b;
+            write(writeBuffer);
+        }
+
+        @Override
+        public void write(byte[] src, int offset, int max) throws IOException {
+            int remaining = max;
+            int currentPos = offset;
+            while (remaining > 0) {
+                ByteBuffer buffer = currentBuffer();
+                int count = Math.min(remaining, buffer.remaining());
+                buffer.put(src, currentPos, count);
+                remaining -= count;
+                currentPos += count;
+            }
+        }
+
+        private ByteBuffer currentBuffer() throws IOException {
+            if (buffersInBatch > 0 && batch[buffersInBatch - 1].hasRemaining()) {
+                return batch[buffersInBatch - 1];
+            }
+            if (buffersInBatch == MAX_BUFFERS_PER_BATCH) {
+                writeBatchToChannel();
+            }
+            ByteBuffer buffer = bufferPool.take();
+            batch[buffersInBatch++] = buffer;
+            return buffer;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffersInBatch > 0) {
+                writeBatchToChannel();
+            }
+        }
+
+        private void writeBatchToChannel() throws IOException {
+            for (int i = 0; i < buffersInBatch; i++) {
+                batch[i].flip();
+            }
+            while (batch[buffersInBatch - 1].hasRemaining()) {
+                long count = socket.write(batch, 0, buffersInBatch);
+                if (count < 0) {
+                    throw new EOFException();
+                } else if (count == 0) {
+                    waitForWriteBufferToDrain();
+                }
+            }
+            releaseBatch();
+        }
+
+        private void waitForWriteBufferToDrain() throws IOException {
+            if (selector == null) {
+                selector = Selector.open();
+                writeKey = socket.register(selector, 0);
+            }
+            writeKey.interestOps(SelectionKey.OP_WRITE);
+            // block until ready for write operations
+            selector.select();
+            selector.selectedKeys().clear();
+            writeKey.interestOps(0);
+        }
+
+        private void releaseBatch() {
+            for (int i = 0; i < buffersInBatch; i++) {
+                bufferPool.release(batch[i]);
+                batch[i] = null;
+            }
+            buffersInBatch = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            releaseBatch();
+            if (selector != null) {
+                selector.close();
+                selector = null;
+            }
+        }
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.serialize.kryo;
+
+import java.io.EOFException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the output of a {@link StringDeduplicatingKryoBackedEncoder}. Each distinct string is read only once, and all occurrences of the string
+ * are decoded to the same instance.
+ *
+ * Note that this decoder uses buffering, so will attempt to read beyond the end of the encoded data. This means you should use this type only when this decoder will be used to decode the entire
+ * stream.
+ */
+public class StringDeduplicatingKryoBackedDecoder extends KryoBackedDecoder {
+    private final List<String> strings = new ArrayList<String>();
+
+    public StringDeduplicatingKryoBackedDecoder(InputStream inputStream) {
+        super(inputStream);
+    }
+
+    public StringDeduplicatingKryoBackedDecoder(InputStream inputStream, int bufferSize) {
+        super(inputStream, bufferSize);
+    }
+
+    @Override
+    public String readString() throws EOFException {
+        return readNullableString();
+    }
+
+    @Override
+    public String readNullableString() throws EOFException {
+        int index = readSmallInt();
+        if (index == 0) {
+            return null;
+        }
+        index--;
+        if (index == strings.size()) {
+            String string = super.readNullableString();
+            strings.add(string);
+            return string;
+        }
+        if (index > strings.size()) {
+            throw new IllegalStateException("Unexpected reference to string " + index + ", only " + strings.size() + " strings have been read.");
+        }
+        return strings.get(index);
+    }
+}
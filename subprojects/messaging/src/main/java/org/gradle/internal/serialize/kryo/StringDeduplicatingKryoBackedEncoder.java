@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.serialize.kryo;
+
+import javax.annotation.Nullable;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link KryoBackedEncoder} that writes each distinct string only once, the first time it is encoded. Later occurrences of the string are
+ * encoded as its index in the table of the strings written so far. Use {@link StringDeduplicatingKryoBackedDecoder} to decode the result.
+ */
+public class StringDeduplicatingKryoBackedEncoder extends KryoBackedEncoder {
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    public StringDeduplicatingKryoBackedEncoder(OutputStream outputStream) {
+        super(outputStream);
+    }
+
+    public StringDeduplicatingKryoBackedEncoder(OutputStream outputStream, int bufferSize) {
+        super(outputStream, bufferSize);
+    }
+
+    @Override
+    public void writeString(CharSequence value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot encode a null string.");
+        }
+        writeNullableString(value);
+    }
+
+    @Override
+    public void writeNullableString(@Nullable CharSequence value) {
+        // 0 is null, otherwise the index of the string plus 1. A string that has not been written yet gets the next index and follows it
+        if (value == null) {
+            writeSmallInt(0);
+            return;
+        }
+        String string = value.toString();
+        Integer index = strings.get(string);
+        if (index != null) {
+            writeSmallInt(index + 1);
+            return;
+        }
+        index = strings.size();
+        strings.put(string, index);
+        writeSmallInt(index + 1);
+        super.writeString(string);
+    }
+}
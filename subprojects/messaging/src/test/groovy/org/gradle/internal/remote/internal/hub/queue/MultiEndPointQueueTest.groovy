@@ -57,6 +57,24 @@ class MultiEndPointQueueTest extends AbstractQueueTest {
         messages == [message]
     }
 
+    def "endpoint whose take has timed out waits for one unicast message"() {
+        given:
+        def message1 = unicast()
+        def message2 = unicast()
+        def endpoint = queue.newEndpoint()
+        def messages = []
+        endpoint.take(messages, 1000)
+
+        when:
+        queue.empty(endpoint)
+        queue.dispatch(message1)
+        queue.dispatch(message2)
+        endpoint.take(messages, 1000)
+
+        then:
+        messages == [message1]
+    }
+
     def "forwards queued broadcast messages to all endpoints"() {
         given:
         def message1 = unicast()
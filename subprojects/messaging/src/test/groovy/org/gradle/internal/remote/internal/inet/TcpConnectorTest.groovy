@@ -26,6 +26,7 @@ import org.gradle.internal.serialize.Encoder
 import org.gradle.internal.serialize.Serializer
 import org.gradle.internal.serialize.Serializers
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.util.SetSystemProperties
 import org.gradle.util.ports.ReleasingPortAllocator
 import org.junit.Rule
 import spock.lang.Issue
@@ -44,6 +45,8 @@ class TcpConnectorTest extends ConcurrentSpec {
     final def incomingConnector = new TcpIncomingConnector(executorFactory, addressFactory, idGenerator)
     @Rule
     public ReleasingPortAllocator portAllocator = new ReleasingPortAllocator()
+    @Rule
+    SetSystemProperties sysProp = new SetSystemProperties()
 
     def "client can connect to server"() {
         Action action = Mock()
@@ -223,6 +226,41 @@ class TcpConnectorTest extends ConcurrentSpec {
         acceptor?.stop()
     }
 
+    @Unroll
+    def "can send messages to peer when batched writes are #batched"() {
+        System.setProperty(SocketConnection.BATCHED_WRITES_PROPERTY, String.valueOf(batched))
+        def messages = (0..<2000).collect { "message " + it } + ["x" * 300000, "last"]
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            def connection = event.create(serializer)
+            messages.eachWithIndex { message, i ->
+                connection.dispatch(message)
+                if (i % 100 == 0) {
+                    connection.flush()
+                }
+            }
+            connection.stop()
+        } as Action, false)
+
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        def received = []
+        def message
+        while ((message = connection.receive()) != null) {
+            received << message
+        }
+
+        then:
+        received == messages
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+
+        where:
+        batched << [false, true]
+    }
+
     def "returns null on failure to receive due to truncated input"() {
         given:
         def incomingSerializer = { Encoder encoder, String value ->
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.serialize.kryo
+
+import org.gradle.internal.serialize.AbstractCodecTest
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+
+class StringDeduplicatingKryoBackedCodecTest extends AbstractCodecTest {
+    @Override
+    void encodeTo(OutputStream outputStream, Closure<Encoder> closure) {
+        def encoder = new StringDeduplicatingKryoBackedEncoder(outputStream, 10)
+        closure.call(encoder)
+        encoder.flush()
+    }
+
+    @Override
+    void decodeFrom(InputStream inputStream, Closure<Decoder> closure) {
+        def decoder = new StringDeduplicatingKryoBackedDecoder(inputStream, 10)
+        closure.call(decoder)
+    }
+
+    def "writes each distinct string once"() {
+        def value = "some longer string value"
+
+        when:
+        def bytes = encode { Encoder encoder ->
+            encoder.writeString(value)
+            encoder.writeNullableString(null)
+            encoder.writeString("other")
+            encoder.writeNullableString(new StringBuilder(value))
+            encoder.writeString("other")
+        }
+
+        then:
+        bytes.length < 2 * value.length()
+
+        when:
+        def strings = []
+        decode(bytes) { Decoder decoder ->
+            5.times { strings << decoder.readNullableString() }
+        }
+
+        then:
+        strings == [value, null, "other", value, "other"]
+        strings[0].is(strings[3])
+        strings[2].is(strings[4])
+    }
+}
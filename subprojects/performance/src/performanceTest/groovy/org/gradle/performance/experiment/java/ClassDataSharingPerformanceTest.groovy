@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.experiment.java
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.categories.PerformanceExperiment
+import org.junit.experimental.categories.Category
+import spock.lang.Unroll
+
+import static org.gradle.performance.generator.JavaTestProject.MEDIUM_JAVA_MULTI_PROJECT
+import static org.gradle.performance.generator.JavaTestProject.SMALL_JAVA_MULTI_PROJECT
+
+/**
+ * Measures the startup of a new daemon with and without class data sharing. The Gradle options of the client do not match the
+ * JVM arguments of the test project, so each build runs in a new single use daemon. The warm up builds create the archive.
+ * Class data sharing only applies when the builds run with Java 10 or later.
+ */
+@Category(PerformanceExperiment)
+class ClassDataSharingPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    @Unroll
+    def "help in a new daemon on #testProject with class data sharing"() {
+        when:
+        runner.testGroup = "class data sharing"
+        runner.buildSpec {
+            warmUpCount = 3
+            invocationCount = 10
+            projectName(testProject.projectName).displayName("class data sharing").invocation {
+                tasksToRun("help").useDaemon(false).gradleOpts("-Dorg.gradle.internal.classDataSharing=true")
+            }
+        }
+        runner.baseline {
+            warmUpCount = 3
+            invocationCount = 10
+            projectName(testProject.projectName).displayName("no class data sharing").invocation {
+                tasksToRun("help").useDaemon(false).gradleOpts("-Dorg.gradle.internal.classDataSharing=false")
+            }
+        }
+
+        then:
+        runner.run()
+
+        where:
+        testProject << [SMALL_JAVA_MULTI_PROJECT, MEDIUM_JAVA_MULTI_PROJECT]
+    }
+}
@@ -44,6 +44,20 @@ class LargeDependencyGraphPerformanceTest extends AbstractCrossVersionPerformanc
         result.assertCurrentVersionHasNotRegressed()
     }
 
+    def "resolve large dependency graph with excludes from file repo"() {
+        runner.testProject = TEST_PROJECT_NAME
+
+        given:
+        runner.tasksToRun = ['resolveDependencies']
+        runner.gradleOpts = ["-Xms256m", "-Xmx256m"]
+
+        when:
+        def result = runner.run()
+
+        then:
+        result.assertCurrentVersionHasNotRegressed()
+    }
+
     @Unroll
     def "resolve large dependency graph (improvedPomSupport = #improvedPomSupport, parallel = #parallel)"() {
         runner.testProject = TEST_PROJECT_NAME
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares the block stores backing the caches of file hashes and task history, with random lookups and updates of a cache that is too large
+ * for the in-memory cache of index blocks.
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BTreePersistentIndexedCacheBenchmark {
+    private static final int ENTRIES = 200000;
+
+    @Param({"file", "mapped"})
+    String store;
+
+    private final Random random = new Random(42);
+    private File cacheFile;
+    private BTreePersistentIndexedCache<String, byte[]> cache;
+
+    @Setup(Level.Trial)
+    public void createCache() throws IOException {
+        cacheFile = File.createTempFile("btree", ".bin");
+        cache = open();
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.put(key(i), value(i));
+        }
+        // Start from a cold in-memory cache of index blocks
+        cache.close();
+        cache = open();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCache() {
+        cache.close();
+        cacheFile.delete();
+    }
+
+    @Benchmark
+    public byte[] get() {
+        return cache.get(key(random.nextInt(ENTRIES)));
+    }
+
+    @Benchmark
+    public void put() {
+        int i = random.nextInt(ENTRIES);
+        cache.put(key(i), value(i));
+    }
+
+    private BTreePersistentIndexedCache<String, byte[]> open() {
+        BlockStore blockStore = store.equals("mapped") ? new MappedFileBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile);
+        return new BTreePersistentIndexedCache<String, byte[]>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER, (short) 512, 512, blockStore);
+    }
+
+    private static String key(int i) {
+        return "/some/project/build/classes/java/main/org/gradle/Class" + i + ".class";
+    }
+
+    private static byte[] value(int i) {
+        // About the size of a file hash entry
+        return new byte[32 + i % 16];
+    }
+}
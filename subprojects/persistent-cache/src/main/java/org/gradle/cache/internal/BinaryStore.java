@@ -25,6 +25,11 @@ import java.io.IOException;
 public interface BinaryStore {
     void write(WriteAction write);
 
+    /**
+     * Returns the position at which the next write will start, relative to the start of the data returned by the next call to {@link #done()}.
+     */
+    long getWritePosition();
+
     //done writing data, release any resources
     BinaryData done();
 
@@ -38,5 +43,10 @@ public interface BinaryStore {
 
     interface BinaryData extends Closeable {
         <T> T read(ReadAction<T> readAction);
+
+        /**
+         * Reads from the given position, as returned by {@link BinaryStore#getWritePosition()}. Does not affect where the next call to {@link #read(ReadAction)} continues from.
+         */
+        <T> T read(long position, ReadAction<T> readAction);
     }
 }
@@ -0,0 +1,486 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A block store that reads and writes blocks through memory mapped regions of the cache file, rather than by seeking in the file as
+ * {@link FileBackedBlockStore} does. Blocks are read straight out of the operating system's page cache, without a system call or a copy into an
+ * intermediate heap buffer, so the page cache effectively acts as an off-heap cache for all blocks of the file.
+ *
+ * <p>The file is mapped in regions of fixed size. A region is only mapped once the file covers all of it, as mapping beyond the end of the file would
+ * grow the file. Blocks in the tail of the file, or crossing the boundary between two regions, are read and written with positional reads and writes
+ * on the channel of the file instead.</p>
+ *
+ * <p>The blocks are laid out exactly as by {@link FileBackedBlockStore}, so a cache file can be opened by either store.</p>
+ */
+public class MappedFileBlockStore implements BlockStore {
+    private static final int REGION_SIZE = 1024 * 1024;
+    private static final int TAIL_BUFFER_SIZE = 8192;
+
+    private final File cacheFile;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private final BlockInputStream input = new BlockInputStream();
+    private final DataInputStream inputStream = new DataInputStream(input);
+    private final BlockOutputStream output = new BlockOutputStream();
+    // Collects the small writes of a block, for the parts of the block that are written to the channel
+    private final ResettableBufferedOutputStream bufferedOutput = new ResettableBufferedOutputStream(output);
+    private final DataOutputStream outputStream = new DataOutputStream(bufferedOutput);
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    @Override
+    public String toString() {
+        return "cache '" + cacheFile + "'";
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
+            currentFileSize = file.length();
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        unmapRegions();
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void clear() {
+        // The file cannot be truncated while it is mapped on some platforms
+        unmapRegions();
+        try {
+            file.setLength(0);
+            currentFileSize = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = 0;
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(BlockPointer.pos(0), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Returns the region containing the given position, mapping it if required, or null when the file does not cover the whole region yet.
+     */
+    private MappedByteBuffer regionAt(long pos) throws IOException {
+        int index = (int) (pos / REGION_SIZE);
+        if (index < regions.size() && regions.get(index) != null) {
+            return regions.get(index);
+        }
+        long regionStart = (long) index * REGION_SIZE;
+        if (regionStart + REGION_SIZE > currentFileSize) {
+            return null;
+        }
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+        regions.set(index, region);
+        return region;
+    }
+
+    private void unmapRegions() {
+        input.discard();
+        for (MappedByteBuffer region : regions) {
+            if (region != null) {
+                unmap(region);
+            }
+        }
+        regions.clear();
+    }
+
+    /**
+     * Releases the mapping right away, rather than when the buffer is garbage collected, so that the file can be truncated or deleted afterwards.
+     * There is no public API for this, so this is done on a best effort basis.
+     */
+    private static void unmap(MappedByteBuffer region) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), region);
+        } catch (NoSuchMethodException e) {
+            // Java 8 and earlier
+            try {
+                Method cleanerMethod = region.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(region);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (Exception ignored) {
+                // Leave it to the garbage collector
+            }
+        } catch (Exception ignored) {
+            // Leave it to the garbage collector
+        }
+    }
+
+    /**
+     * Reads from the file, starting at a given position. Reads from the tail of the file are served from a buffer, which is discarded by any write.
+     */
+    private class BlockInputStream extends InputStream {
+        private final ByteBuffer tailBuffer = ByteBuffer.allocate(TAIL_BUFFER_SIZE);
+        private long tailBufferStart = -1;
+        // The region or tail buffer the last read was served from
+        private ByteBuffer current;
+        private long currentStart;
+        private long currentEnd;
+        private long start;
+        private long pos;
+
+        void start(long offset) {
+            start = offset;
+            pos = offset;
+        }
+
+        long getBytesRead() {
+            return pos - start;
+        }
+
+        void discard() {
+            tailBufferStart = -1;
+            current = null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos >= currentFileSize) {
+                return -1;
+            }
+            if (current == null || pos < currentStart || pos >= currentEnd) {
+                select();
+            }
+            int value = current.get((int) (pos - currentStart));
+            pos++;
+            return value & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (pos >= currentFileSize) {
+                return -1;
+            }
+            if (current == null || pos < currentStart || pos >= currentEnd) {
+                select();
+            }
+            int count = (int) Math.min(length, currentEnd - pos);
+            current.position((int) (pos - currentStart));
+            current.get(bytes, offset, count);
+            pos += count;
+            return count;
+        }
+
+        /**
+         * Selects the region containing the current position, or fills the tail buffer when it is not in a region that can be mapped.
+         */
+        private void select() throws IOException {
+            MappedByteBuffer region = regionAt(pos);
+            if (region != null) {
+                current = region.duplicate();
+                currentStart = pos - pos % REGION_SIZE;
+                currentEnd = currentStart + REGION_SIZE;
+                return;
+            }
+            if (tailBufferStart < 0 || pos < tailBufferStart || pos >= tailBufferStart + tailBuffer.limit()) {
+                tailBuffer.clear();
+                tailBuffer.limit((int) Math.min(TAIL_BUFFER_SIZE, currentFileSize - pos));
+                while (tailBuffer.hasRemaining()) {
+                    if (channel.read(tailBuffer, pos + tailBuffer.position()) < 0) {
+                        throw new EOFException();
+                    }
+                }
+                tailBuffer.flip();
+                tailBufferStart = pos;
+            }
+            current = tailBuffer.duplicate();
+            currentStart = tailBufferStart;
+            currentEnd = tailBufferStart + tailBuffer.limit();
+        }
+    }
+
+    /**
+     * Writes to the file, starting at a given position. Can be beyond the current length of the file.
+     */
+    private class BlockOutputStream extends OutputStream {
+        private long start;
+        private long pos;
+
+        void start(long offset) {
+            start = offset;
+            pos = offset;
+            input.discard();
+        }
+
+        long getBytesWritten() {
+            return pos - start;
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            write(new byte[]{(byte) value}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                int count;
+                MappedByteBuffer region = regionAt(pos);
+                if (region != null) {
+                    int offsetInRegion = (int) (pos % REGION_SIZE);
+                    count = Math.min(length, REGION_SIZE - offsetInRegion);
+                    ByteBuffer view = region.duplicate();
+                    view.position(offsetInRegion);
+                    view.put(bytes, offset, count);
+                } else {
+                    // Stop at the end of the region, in case the rest of the block lands in a mapped region
+                    long regionEnd = (pos / REGION_SIZE + 1) * REGION_SIZE;
+                    count = (int) Math.min(length, regionEnd - pos);
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, count);
+                    long writePos = pos;
+                    while (buffer.hasRemaining()) {
+                        writePos += channel.write(buffer, writePos);
+                    }
+                }
+                pos += count;
+                offset += count;
+                length -= count;
+            }
+        }
+    }
+
+    private static class ResettableBufferedOutputStream extends BufferedOutputStream {
+        ResettableBufferedOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        void clear() {
+            count = 0;
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 1 + INT_SIZE; // type, payload size
+        private static final int TAIL_SIZE = INT_SIZE;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = BlockPointer.pos(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+
+            output.start(pos);
+            bufferedOutput.clear();
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            outputStream.flush();
+            long bytesWritten = output.getBytesWritten();
+            if (bytesWritten > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Block payload exceeds maximum size");
+            }
+            outputStream.writeInt((int) bytesWritten);
+            outputStream.flush();
+
+            // Pad
+            if (currentFileSize < finalSize) {
+                file.setLength(finalSize);
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            input.start(pos);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = inputStream.readByte();
+            if (type != payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = inputStream.readInt();
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = input.getBytesRead();
+            long count = inputStream.readInt();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+}
@@ -52,8 +52,12 @@ public class BTreePersistentIndexedCacheTest {
         cacheFile = tmpDir.file("cache.bin");
     }
 
+    protected BlockStore createBlockStore(File cacheFile) {
+        return new FileBackedBlockStore(cacheFile);
+    }
+
     private void createCache() {
-        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100);
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100, createBlockStore(cacheFile));
     }
 
     private void verifyAndCloseCache() {
@@ -98,7 +102,7 @@ public class BTreePersistentIndexedCacheTest {
 
     @Test
     public void handlesUpdatesWhenBlockSizeDecreases() {
-        BTreePersistentIndexedCache<String, List<Integer>> cache = new BTreePersistentIndexedCache<String, List<Integer>>(tmpDir.file("listcache.bin"), stringSerializer, new DefaultSerializer<List<Integer>>(), (short) 4, 100);
+        BTreePersistentIndexedCache<String, List<Integer>> cache = new BTreePersistentIndexedCache<String, List<Integer>>(tmpDir.file("listcache.bin"), stringSerializer, new DefaultSerializer<List<Integer>>(), (short) 4, 100, createBlockStore(tmpDir.file("listcache.bin")));
 
         List<Integer> values = Arrays.asList(3, 2, 11, 5, 7, 1, 10, 8, 9, 4, 6, 0);
         Map<Integer, List<Integer>> updated = new LinkedHashMap<Integer, List<Integer>>();
@@ -134,7 +138,7 @@ public class BTreePersistentIndexedCacheTest {
 
     @Test
     public void handlesUpdatesWhenBlockSizeIncreases() {
-        BTreePersistentIndexedCache<String, List<Integer>> cache = new BTreePersistentIndexedCache<String, List<Integer>>(tmpDir.file("listcache.bin"), stringSerializer, new DefaultSerializer<List<Integer>>(), (short) 4, 100);
+        BTreePersistentIndexedCache<String, List<Integer>> cache = new BTreePersistentIndexedCache<String, List<Integer>>(tmpDir.file("listcache.bin"), stringSerializer, new DefaultSerializer<List<Integer>>(), (short) 4, 100, createBlockStore(tmpDir.file("listcache.bin")));
 
         List<Integer> values = Arrays.asList(3, 2, 11, 5, 7, 1, 10, 8, 9, 4, 6, 0);
         Map<Integer, List<Integer>> updated = new LinkedHashMap<Integer, List<Integer>>();
@@ -205,7 +209,7 @@ public class BTreePersistentIndexedCacheTest {
 
     @Test
     public void reusesEmptySpaceWhenPuttingEntries() {
-        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer, (short) 4, 100);
+        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer, (short) 4, 100, createBlockStore(cacheFile));
 
         cache.put("key_1", "abcd");
         cache.put("key_2", "abcd");
@@ -325,7 +329,7 @@ public class BTreePersistentIndexedCacheTest {
         cacheFile.createNewFile();
         cacheFile.write("some junk");
 
-        BTreePersistentIndexedCache<String, Integer> cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer);
+        BTreePersistentIndexedCache<String, Integer> cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 512, 512, createBlockStore(cacheFile));
 
         assertNull(cache.get("key_1"));
         cache.put("key_1", 99);
@@ -340,7 +344,7 @@ public class BTreePersistentIndexedCacheTest {
 
     @Test
     public void handlesOpeningATruncatedCacheFile() throws IOException {
-        BTreePersistentIndexedCache<String, Integer> cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer);
+        BTreePersistentIndexedCache<String, Integer> cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 512, 512, createBlockStore(cacheFile));
 
         assertNull(cache.get("key_1"));
         cache.put("key_1", 99);
@@ -359,7 +363,7 @@ public class BTreePersistentIndexedCacheTest {
 
     @Test
     public void canUseFileAsKey() {
-        BTreePersistentIndexedCache<File, Integer> cache = new BTreePersistentIndexedCache<File, Integer>(cacheFile, new DefaultSerializer<File>(), integerSerializer);
+        BTreePersistentIndexedCache<File, Integer> cache = new BTreePersistentIndexedCache<File, Integer>(cacheFile, new DefaultSerializer<File>(), integerSerializer, (short) 512, 512, createBlockStore(cacheFile));
 
         cache.put(new File("file"), 1);
         cache.put(new File("dir/file"), 2);
@@ -20,10 +20,14 @@ import org.gradle.api.BuildCancelledException
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.initialization.BuildEventConsumer
 import org.gradle.internal.service.ServiceRegistry
 import org.gradle.tooling.internal.gradle.GradleProjectIdentity
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException
 import org.gradle.tooling.internal.protocol.ModelIdentifier
+import org.gradle.tooling.internal.provider.StreamedValue
+import org.gradle.tooling.internal.provider.serialization.PayloadSerializer
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload
 import org.gradle.tooling.provider.model.ToolingModelBuilder
 import org.gradle.tooling.provider.model.ToolingModelBuilderRegistry
 import org.gradle.tooling.provider.model.ParameterizedToolingModelBuilder
@@ -32,9 +36,13 @@ import spock.lang.Specification
 
 class DefaultBuildControllerTest extends Specification {
     def cancellationToken = Stub(BuildCancellationToken)
+    def payloadSerializer = Mock(PayloadSerializer)
+    def buildEventConsumer = Mock(BuildEventConsumer)
     def gradle = Stub(GradleInternal) {
         getServices() >> Stub(ServiceRegistry) {
             get(BuildCancellationToken) >> cancellationToken
+            get(PayloadSerializer) >> payloadSerializer
+            get(BuildEventConsumer) >> buildEventConsumer
         }
     }
     def registry = Stub(ToolingModelBuilderRegistry)
@@ -50,6 +58,18 @@ class DefaultBuildControllerTest extends Specification {
     def parameterizedModelBuilder = Stub(ParameterizedToolingModelBuilder)
     def controller = new DefaultBuildController(gradle)
 
+    def "sends serialized value to the client"() {
+        def value = new Object()
+        def serialized = Stub(SerializedPayload)
+
+        when:
+        controller.dispatch(value)
+
+        then:
+        1 * payloadSerializer.serialize(value) >> serialized
+        1 * buildEventConsumer.dispatch({ it instanceof StreamedValue && it.value == serialized })
+    }
+
     def "adapts model not found exception to protocol exception"() {
         def failure = new UnknownModelException("not found")
 
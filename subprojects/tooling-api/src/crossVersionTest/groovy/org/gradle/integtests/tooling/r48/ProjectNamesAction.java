@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.tooling.r48;
+
+import org.gradle.tooling.BuildAction;
+import org.gradle.tooling.BuildController;
+import org.gradle.tooling.model.gradle.BasicGradleProject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProjectNamesAction implements BuildAction<List<String>> {
+    private final boolean send;
+
+    public ProjectNamesAction(boolean send) {
+        this.send = send;
+    }
+
+    @Override
+    public List<String> execute(BuildController controller) {
+        List<String> names = new ArrayList<String>();
+        for (BasicGradleProject project : controller.getBuildModel().getProjects()) {
+            if (send) {
+                controller.send(project.getName());
+            }
+            names.add(project.getName());
+        }
+        return names;
+    }
+}
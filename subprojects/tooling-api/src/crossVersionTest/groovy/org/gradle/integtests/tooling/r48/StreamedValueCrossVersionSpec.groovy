@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.tooling.r48
+
+import org.gradle.integtests.tooling.fixture.TargetGradleVersion
+import org.gradle.integtests.tooling.fixture.ToolingApiSpecification
+import org.gradle.integtests.tooling.fixture.ToolingApiVersion
+import org.gradle.tooling.BuildActionFailureException
+import org.gradle.tooling.GradleConnectionException
+import org.gradle.tooling.ListenerFailedException
+import org.gradle.tooling.ResultHandler
+import org.gradle.tooling.StreamedValueListener
+import org.gradle.tooling.UnsupportedVersionException
+
+class StreamedValueCrossVersionSpec extends ToolingApiSpecification {
+    def setup() {
+        settingsFile << """
+            rootProject.name = 'root'
+            include 'a', 'b'
+        """
+    }
+
+    @TargetGradleVersion(">=4.8")
+    @ToolingApiVersion(">=4.8")
+    def "receives the values sent by the build action in order and before the result"() {
+        def values = []
+
+        when:
+        def result = withConnection { connection ->
+            connection.action(new ProjectNamesAction(true)).setStreamedValueListener({ value ->
+                values << value
+            } as StreamedValueListener).run()
+        }
+
+        then:
+        values == ['root', 'a', 'b']
+        result == ['root', 'a', 'b']
+    }
+
+    @TargetGradleVersion(">=4.8")
+    @ToolingApiVersion(">=4.8")
+    def "discards the values sent by the build action when no listener is registered"() {
+        when:
+        def result = withConnection { connection ->
+            connection.action(new ProjectNamesAction(true)).run()
+        }
+
+        then:
+        result == ['root', 'a', 'b']
+    }
+
+    @TargetGradleVersion(">=4.8")
+    @ToolingApiVersion(">=4.8")
+    def "stops dispatching values to the listener when it fails and reports the failure"() {
+        def values = []
+        def failure = new IllegalStateException("Throwing an exception on purpose")
+
+        when:
+        withConnection { connection ->
+            connection.action(new ProjectNamesAction(true)).setStreamedValueListener({ value ->
+                values << value
+                throw failure
+            } as StreamedValueListener).run()
+        }
+
+        then:
+        ListenerFailedException e = thrown()
+        e.causes == [failure]
+        values == ['root']
+    }
+
+    @TargetGradleVersion(">=2.6 <4.8")
+    @ToolingApiVersion(">=4.8")
+    def "older Gradle versions ignore the listener"() {
+        def listener = Mock(StreamedValueListener)
+
+        when:
+        def result = withConnection { connection ->
+            connection.action(new ProjectNamesAction(false)).setStreamedValueListener(listener).run()
+        }
+
+        then:
+        result == ['root', 'a', 'b']
+        0 * listener._
+    }
+
+    @TargetGradleVersion(">=2.6 <4.8")
+    @ToolingApiVersion(">=4.8")
+    def "build action fails when it sends a value to an older Gradle version"() {
+        def handler = Mock(ResultHandler)
+        def version = targetDist.version.version
+
+        when:
+        withConnection { connection ->
+            connection.action(new ProjectNamesAction(true)).run(handler)
+        }
+
+        then:
+        0 * handler.onComplete(_)
+        1 * handler.onFailure(_) >> { args ->
+            GradleConnectionException failure = args[0]
+            assert failure instanceof BuildActionFailureException
+            GradleConnectionException cause = failure.cause
+            assert cause instanceof UnsupportedVersionException
+            assert cause.message == "Gradle version ${version} does not support sending values from a build action to the client."
+        }
+    }
+
+    @TargetGradleVersion(">=4.8")
+    @ToolingApiVersion(">=3.0 <4.8")
+    def "values are discarded for older tooling API versions"() {
+        given:
+        // Older tooling API versions cannot call BuildController.send(), so send a value from the build the same way the build controller does
+        buildFile << """
+            import org.gradle.initialization.BuildEventConsumer
+            import org.gradle.tooling.internal.provider.StreamedValue
+            import org.gradle.tooling.internal.provider.serialization.PayloadSerializer
+
+            def services = gradle.services
+            services.get(BuildEventConsumer).dispatch(new StreamedValue(services.get(PayloadSerializer).serialize("value")))
+        """
+
+        when:
+        def result = withConnection { connection ->
+            connection.action(new ProjectNamesAction(false)).run()
+        }
+
+        then:
+        result == ['root', 'a', 'b']
+    }
+}
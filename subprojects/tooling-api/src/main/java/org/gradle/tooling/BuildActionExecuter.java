@@ -18,6 +18,8 @@ package org.gradle.tooling;
 
 import org.gradle.api.Incubating;
 
+import javax.annotation.Nullable;
+
 /**
  * Used to execute a {@link BuildAction} in the build process.
  *
@@ -51,6 +53,16 @@ public interface BuildActionExecuter<T> extends ConfigurableLauncher<BuildAction
     @Incubating
     BuildActionExecuter<T> forTasks(Iterable<String> tasks);
 
+    /**
+     * Registers a listener to receive the values that the action sends using {@link BuildController#send(Object)}. Replaces any listener registered previously.
+     *
+     * @param listener The listener. May be null, in which case the values sent by the action are discarded.
+     * @return this
+     * @since 4.8
+     */
+    @Incubating
+    BuildActionExecuter<T> setStreamedValueListener(@Nullable StreamedValueListener listener);
+
     /**
      * Runs the action, blocking until its result is available.
      *
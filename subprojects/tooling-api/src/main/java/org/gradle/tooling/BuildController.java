@@ -190,4 +190,22 @@ public interface BuildController {
      */
     @Nullable
     <T, P> T findModel(Model target, Class<T> modelType, Class<P> parameterType, Action<? super P> parameterInitializer);
+
+    /**
+     * Sends a value to the client while the build action is still running. The client receives the value using the {@link StreamedValueListener} registered with
+     * {@link BuildActionExecuter#setStreamedValueListener(StreamedValueListener)}, before the result of the action. Values are discarded when the client has not
+     * registered a listener.
+     *
+     * <p>This allows an action to hand over each model, for example the model of each project, as soon as it has been built, instead of returning all models
+     * together once the action has finished. The client can start using the first models while the remaining models are built, and neither side needs to hold
+     * on to the models that have already been sent.</p>
+     *
+     * <p>The value is serialized when this method is called, so the action may change or discard it afterwards.</p>
+     *
+     * @param value The value to send. Must be serializable.
+     * @throws UnsupportedVersionException When the target Gradle version does not support sending values to the client.
+     * @since 4.8
+     */
+    @Incubating
+    void send(Object value) throws UnsupportedVersionException;
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling;
+
+import org.gradle.api.Incubating;
+
+/**
+ * Receives the values that a {@link BuildAction} sends to the client using {@link BuildController#send(Object)}, while the action is still running.
+ *
+ * @since 4.8
+ */
+@Incubating
+public interface StreamedValueListener {
+    /**
+     * Called when a value has been received from the build action. Values are received in the order that the action sent them, and before the result of the action.
+     *
+     * <p>This method is called from a single thread, which receives the values and events of the build. Long running work should be handed off to another thread,
+     * so that the following values are not held up.</p>
+     *
+     * @param value The value.
+     * @since 4.8
+     */
+    void onValue(Object value);
+}
@@ -69,6 +69,11 @@ class BuildControllerAdapter extends AbstractBuildController implements BuildCon
         return viewBuilder.build(result.getModel());
     }
 
+    @Override
+    public void send(Object value) {
+        buildController.dispatch(value);
+    }
+
     private <P> P initializeParameter(Class<P> parameterType, Action<? super P> parameterInitializer) {
         validateParameters(parameterType, parameterInitializer);
         if (parameterType != null) {
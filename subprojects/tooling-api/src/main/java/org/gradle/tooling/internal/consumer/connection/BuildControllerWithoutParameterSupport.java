@@ -39,4 +39,9 @@ public class BuildControllerWithoutParameterSupport extends AbstractBuildControl
         }
         return delegate.getModel(target, modelType, parameterType, parameterInitializer);
     }
+
+    @Override
+    public void send(Object value) throws UnsupportedVersionException {
+        delegate.send(value);
+    }
 }
@@ -43,4 +43,9 @@ public class BuildInvocationsAdapterController extends AbstractBuildController {
         }
         return delegate.getModel(target, modelType, parameterType, parameterInitializer);
     }
+
+    @Override
+    public void send(Object value) throws UnsupportedVersionException {
+        delegate.send(value);
+    }
 }
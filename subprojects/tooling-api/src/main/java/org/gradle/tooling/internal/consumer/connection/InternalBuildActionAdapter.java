@@ -18,6 +18,7 @@ package org.gradle.tooling.internal.consumer.connection;
 
 import org.gradle.tooling.BuildAction;
 import org.gradle.tooling.BuildController;
+import org.gradle.tooling.UnsupportedVersionException;
 import org.gradle.tooling.internal.adapter.ProtocolToModelAdapter;
 import org.gradle.tooling.internal.consumer.converters.ConsumerTargetTypeProvider;
 import org.gradle.tooling.internal.consumer.versioning.ModelMapping;
@@ -27,6 +28,7 @@ import org.gradle.tooling.internal.protocol.InternalBuildAction;
 import org.gradle.tooling.internal.protocol.InternalBuildActionVersion2;
 import org.gradle.tooling.internal.protocol.InternalBuildController;
 import org.gradle.tooling.internal.protocol.InternalBuildControllerVersion2;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueRelay;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
 import org.gradle.tooling.model.gradle.BuildInvocations;
 
@@ -58,6 +60,11 @@ public class InternalBuildActionAdapter<T> implements InternalBuildAction<T>, In
             public BuildResult<?> getModel(Object target, ModelIdentifier modelIdentifier, Object parameter) {
                 return buildController.getModel(target, modelIdentifier);
             }
+
+            @Override
+            public void dispatch(Object value) {
+                throw streamingNotSupported();
+            }
         }, new ModelMapping(), rootDir);
         buildControllerAdapter  = new BuildControllerWithoutParameterSupport(versionDetails, buildControllerAdapter);
         if (!versionDetails.maySupportModel(BuildInvocations.class)) {
@@ -76,7 +83,19 @@ public class InternalBuildActionAdapter<T> implements InternalBuildAction<T>, In
             public BuildResult<?> getModel(Object target, ModelIdentifier modelIdentifier, Object parameter) {
                 return buildController.getModel(target, modelIdentifier, parameter);
             }
+
+            @Override
+            public void dispatch(Object value) {
+                if (!(buildController instanceof InternalStreamedValueRelay)) {
+                    throw streamingNotSupported();
+                }
+                ((InternalStreamedValueRelay) buildController).dispatch(value);
+            }
         }, new ModelMapping(), rootDir);
         return action.execute(buildControllerAdapter);
     }
+
+    private UnsupportedVersionException streamingNotSupported() {
+        return new UnsupportedVersionException(String.format("Gradle version %s does not support sending values from a build action to the client.", versionDetails.getVersion()));
+    }
 }
@@ -25,4 +25,9 @@ import org.gradle.tooling.internal.protocol.ModelIdentifier;
  */
 public interface InternalBuildControllerAdapter {
     BuildResult<?> getModel(Object target, ModelIdentifier modelIdentifier, Object parameter);
+
+    /**
+     * Sends the given value to the consumer, or fails with {@link org.gradle.tooling.UnsupportedVersionException} when the provider cannot do this.
+     */
+    void dispatch(Object value);
 }
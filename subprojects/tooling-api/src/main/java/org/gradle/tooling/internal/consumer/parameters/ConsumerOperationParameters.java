@@ -20,6 +20,7 @@ import org.gradle.api.GradleException;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.tooling.CancellationToken;
+import org.gradle.tooling.StreamedValueListener;
 import org.gradle.tooling.events.ProgressListener;
 import org.gradle.tooling.internal.adapter.ProtocolToModelAdapter;
 import org.gradle.tooling.internal.consumer.CancellationTokenInternal;
@@ -29,6 +30,7 @@ import org.gradle.tooling.internal.protocol.BuildOperationParametersVersion1;
 import org.gradle.tooling.internal.protocol.BuildParameters;
 import org.gradle.tooling.internal.protocol.BuildParametersVersion1;
 import org.gradle.tooling.internal.protocol.InternalLaunchable;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
 import org.gradle.tooling.internal.protocol.ProgressListenerVersion1;
 import org.gradle.tooling.model.Launchable;
 import org.gradle.tooling.model.Task;
@@ -56,6 +58,7 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
         private final List<ProgressListener> buildOperationProgressListeners = new ArrayList<ProgressListener>();
         private String entryPoint;
         private CancellationToken cancellationToken;
+        private StreamedValueListener streamedValueListener;
         private ConnectionParameters parameters;
         private OutputStream stdout;
         private OutputStream stderr;
@@ -178,19 +181,24 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
             this.cancellationToken = cancellationToken;
         }
 
+        public void setStreamedValueListener(StreamedValueListener streamedValueListener) {
+            this.streamedValueListener = streamedValueListener;
+        }
+
         public ConsumerOperationParameters build() {
             if (entryPoint == null) {
                 throw new IllegalStateException("No entry point specified.");
             }
 
             return new ConsumerOperationParameters(entryPoint, parameters, stdout, stderr, colorOutput, stdin, javaHome, jvmArguments, envVariables, arguments, tasks, launchables, injectedPluginClasspath,
-                legacyProgressListeners, testProgressListeners, taskProgressListeners, buildOperationProgressListeners, cancellationToken);
+                legacyProgressListeners, testProgressListeners, taskProgressListeners, buildOperationProgressListeners, cancellationToken, streamedValueListener);
         }
 
         public void copyFrom(ConsumerOperationParameters operationParameters) {
             tasks = operationParameters.tasks;
             launchables = operationParameters.launchables;
             cancellationToken = operationParameters.cancellationToken;
+            streamedValueListener = operationParameters.streamedValueListener;
             legacyProgressListeners.addAll(operationParameters.legacyProgressListeners);
             taskProgressListeners.addAll(operationParameters.taskProgressListeners);
             testProgressListeners.addAll(operationParameters.testProgressListeners);
@@ -211,6 +219,7 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
     private final ProgressListenerAdapter progressListener;
     private final FailsafeBuildProgressListenerAdapter buildProgressListener;
     private final CancellationToken cancellationToken;
+    private final StreamedValueListener streamedValueListener;
     private final ConnectionParameters parameters;
     private final long startTime = System.currentTimeMillis();
 
@@ -235,7 +244,7 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
     private ConsumerOperationParameters(String entryPointName, ConnectionParameters parameters, OutputStream stdout, OutputStream stderr, Boolean colorOutput, InputStream stdin,
                                         File javaHome, List<String> jvmArguments,  Map<String, String> envVariables, List<String> arguments, List<String> tasks, List<InternalLaunchable> launchables, ClassPath injectedPluginClasspath,
                                         List<org.gradle.tooling.ProgressListener> legacyProgressListeners, List<ProgressListener> testProgressListeners, List<ProgressListener> taskProgressListeners,
-                                        List<ProgressListener> buildOperationProgressListeners, CancellationToken cancellationToken) {
+                                        List<ProgressListener> buildOperationProgressListeners, CancellationToken cancellationToken, StreamedValueListener streamedValueListener) {
         this.entryPointName = entryPointName;
         this.parameters = parameters;
         this.stdout = stdout;
@@ -250,6 +259,7 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
         this.launchables = launchables;
         this.injectedPluginClasspath = injectedPluginClasspath;
         this.cancellationToken = cancellationToken;
+        this.streamedValueListener = streamedValueListener;
         this.legacyProgressListeners = legacyProgressListeners;
         this.testProgressListeners = testProgressListeners;
         this.taskProgressListeners = taskProgressListeners;
@@ -413,4 +423,27 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
         return ((CancellationTokenInternal) cancellationToken).getToken();
     }
 
+    /**
+     * @since 4.8
+     */
+    public InternalStreamedValueListener getStreamedValueListener() {
+        if (streamedValueListener == null) {
+            return null;
+        }
+        return new StreamedValueListenerAdapter(streamedValueListener);
+    }
+
+    private static class StreamedValueListenerAdapter implements InternalStreamedValueListener {
+        private final StreamedValueListener listener;
+
+        StreamedValueListenerAdapter(StreamedValueListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onValue(Object value) {
+            listener.onValue(value);
+        }
+    }
+
 }
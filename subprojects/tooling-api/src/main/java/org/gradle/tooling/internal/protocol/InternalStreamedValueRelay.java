@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.protocol;
+
+/**
+ * <p>DO NOT CHANGE THIS INTERFACE - it is part of the cross-version protocol.
+ *
+ * <p>Implemented by the build controller that the provider passes to a build action, when the provider can send values to the consumer while the action is running.</p>
+ *
+ * <p>Consumer compatibility: This interface is used by all consumer versions from 4.8.</p>
+ * <p>Provider compatibility: This interface is implemented by all provider versions from 4.8.</p>
+ *
+ * @since 4.8
+ */
+public interface InternalStreamedValueRelay {
+    /**
+     * Sends the given value to the consumer, which passes it to its {@link InternalStreamedValueListener}. Values are discarded when the consumer has no listener.
+     *
+     * <p>Consumer compatibility: This method is used by all consumer versions from 4.8.</p>
+     * <p>Provider compatibility: This method is implemented by all provider versions from 4.8.</p>
+     *
+     * @since 4.8
+     */
+    void dispatch(Object value);
+}
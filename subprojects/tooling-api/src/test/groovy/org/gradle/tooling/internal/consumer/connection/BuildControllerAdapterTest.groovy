@@ -45,6 +45,17 @@ class BuildControllerAdapterTest extends Specification {
     }
     def controller = new BuildControllerAdapter(adapter, internalController, mapping, new File("root"))
 
+    def "sends value using the provider controller"() {
+        def value = new Object()
+
+        when:
+        controller.send(value)
+
+        then:
+        1 * internalController.dispatch(value)
+        0 * internalController._
+    }
+
     def "unpacks unsupported model exception"() {
         def failure = new RuntimeException()
 